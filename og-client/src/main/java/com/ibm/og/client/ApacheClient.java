@@ -11,14 +11,15 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.security.Security;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
@@ -80,23 +81,20 @@ import com.ibm.og.http.HttpResponse;
 import com.ibm.og.http.ResponseBodyConsumer;
 import com.ibm.og.util.Context;
 import com.ibm.og.util.io.Streams;
+import com.google.common.base.Functions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.ForwardingListenableFuture;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
-import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.LongSerializationPolicy;
-import com.google.gson.TypeAdapter;
-import com.google.gson.stream.JsonReader;
-import com.google.gson.stream.JsonWriter;
 
 /**
  * A {@code Client} implementation that uses the Apache HttpComponents HttpClient library as its
@@ -107,6 +105,11 @@ import com.google.gson.stream.JsonWriter;
 public class ApacheClient implements Client {
   private static final Logger _logger = LoggerFactory.getLogger(ApacheClient.class);
   private static final Logger _requestLogger = LoggerFactory.getLogger("RequestLogger");
+  // response buffers sized from the response are kept between these bounds
+  private static final int MIN_RESPONSE_BUFFER_SIZE = 4096;
+  private static final int MAX_RESPONSE_BUFFER_SIZE = 64 * 1024;
+  private static final int RESPONSE_BUFFER_CLASSES =
+      Integer.numberOfTrailingZeros(MAX_RESPONSE_BUFFER_SIZE / MIN_RESPONSE_BUFFER_SIZE) + 1;
   private final int connectTimeout;
   private final int soTimeout;
   private final boolean soReuseAddress;
@@ -137,11 +140,20 @@ public class ApacheClient implements Client {
   private final String userAgent;
   private final long writeThroughput;
   private final long readThroughput;
+  private final boolean requestLogging;
+  private final boolean virtualThreads;
+  private final int responseBufferSize;
   private final Map<String, ResponseBodyConsumer> responseBodyConsumers;
+  private final ThreadLocal<byte[]> threadResponseBuffer;
+  private final List<Queue<byte[]>> responseBuffers;
+  private final AtomicInteger pooledResponseBuffers;
+  private final AtomicInteger takenResponseBuffers;
+  private final AtomicInteger maxTakenResponseBuffers;
   private volatile boolean running;
   private final AtomicInteger abortedRequestsAtShutdown;
   private final CloseableHttpClient client;
   private final ListeningExecutorService executorService;
+  private final ExecutorService callbackExecutor;
   private final Gson gson;
 
   private ApacheClient(final Builder builder) {
@@ -213,12 +225,41 @@ public class ApacheClient implements Client {
     this.userAgent = builder.userAgent;
     this.writeThroughput = builder.writeThroughput;
     this.readThroughput = builder.readThroughput;
+    this.requestLogging = builder.requestLogging;
+    this.virtualThreads = builder.virtualThreads;
+    this.responseBufferSize = builder.responseBufferSize;
     this.responseBodyConsumers = ImmutableMap.copyOf(builder.responseBodyConsumers);
+    // platform threads each keep a buffer. Virtual threads each run a single request, so their
+    // buffers are pooled by size class, and the pool holds no more buffers than were ever in use
+    // at once
+    this.threadResponseBuffer = new ThreadLocal<byte[]>();
+    final int bufferClasses = this.responseBufferSize > 0 ? 1 : RESPONSE_BUFFER_CLASSES;
+    this.responseBuffers = Lists.newArrayListWithCapacity(bufferClasses);
+    for (int i = 0; i < bufferClasses; i++) {
+      this.responseBuffers.add(new ConcurrentLinkedQueue<byte[]>());
+    }
+    this.pooledResponseBuffers = new AtomicInteger();
+    this.takenResponseBuffers = new AtomicInteger();
+    this.maxTakenResponseBuffers = new AtomicInteger();
+    checkArgument(!this.virtualThreads || VirtualThreads.isSupported(),
+        "virtualThreads requires Java 21 or later");
     this.running = true;
     this.abortedRequestsAtShutdown = new AtomicInteger();
-    final ThreadFactory fac = new ThreadFactoryBuilder().setNameFormat("client-%d").build();
-    this.executorService = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool(fac));
-    this.gson = createGson();
+    if (this.virtualThreads) {
+      this.executorService =
+          MoreExecutors.listeningDecorator(VirtualThreads.newThreadPerTaskExecutor("client-"));
+      // completion callbacks post to the event bus, whose subscribers are synchronized; running
+      // them on virtual threads would pin carrier threads, so they run on platform threads
+      final ThreadFactory fac =
+          new ThreadFactoryBuilder().setNameFormat("client-callback-%d").build();
+      this.callbackExecutor =
+          Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), fac);
+    } else {
+      final ThreadFactory fac = new ThreadFactoryBuilder().setNameFormat("client-%d").build();
+      this.executorService = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool(fac));
+      this.callbackExecutor = null;
+    }
+    this.gson = RequestLogEntry.createGson();
 
     // perform checks on instance fields rather than builder fields
     checkArgument(this.connectTimeout >= 0, "connectTimeout must be >= 0 [%s]",
@@ -240,6 +281,8 @@ public class ApacheClient implements Client {
         this.writeThroughput);
     checkArgument(this.readThroughput >= 0, "readThroughput must be >= 0 [%s]",
         this.readThroughput);
+    checkArgument(this.responseBufferSize >= 0, "responseBufferSize must be >= 0 [%s]",
+        this.responseBufferSize);
 
     Security.setProperty("networkaddress.cache.ttl", String.valueOf(this.dnsCacheTtl));
     Security.setProperty("networkaddress.cache.negative.ttl",
@@ -248,23 +291,6 @@ public class ApacheClient implements Client {
     this.client = createClient();
   }
 
-  private Gson createGson() {
-    return new GsonBuilder().setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
-        .setLongSerializationPolicy(LongSerializationPolicy.STRING)
-        .registerTypeAdapter(Double.class, new TypeAdapter<Double>() {
-          @Override
-          public void write(final JsonWriter out, final Double value) throws IOException {
-            // round decimals to 2 places
-            out.value(new BigDecimal(value).setScale(2, RoundingMode.HALF_UP).doubleValue());
-          }
-
-          @Override
-          public Double read(final JsonReader in) throws IOException {
-            return in.nextDouble();
-          }
-        }.nullSafe()).create();
-  }
-
   private CloseableHttpClient createClient() {
     final HttpClientBuilder builder = HttpClients.custom();
     if (this.userAgent != null) {
@@ -414,7 +440,11 @@ public class ApacheClient implements Client {
     checkNotNull(request);
 
     final BlockingHttpOperation operation = new BlockingHttpOperation(request);
-    final ListenableFuture<Response> baseFuture = this.executorService.submit(operation);
+    ListenableFuture<Response> baseFuture = this.executorService.submit(operation);
+    if (this.callbackExecutor != null) {
+      baseFuture =
+          Futures.transform(baseFuture, Functions.<Response>identity(), this.callbackExecutor);
+    }
 
     return new ForwardingListenableFuture.SimpleForwardingListenableFuture<Response>(baseFuture) {
       @Override
@@ -425,6 +455,62 @@ public class ApacheClient implements Client {
     };
   }
 
+  // takes a buffer for reading a response body of the given length, which is negative if unknown.
+  // A platform thread's buffer is replaced only when too small for the length
+  private byte[] takeResponseBuffer(final long contentLength) {
+    final int size;
+    if (this.responseBufferSize > 0) {
+      size = this.responseBufferSize;
+    } else if (contentLength < 0 || contentLength >= MAX_RESPONSE_BUFFER_SIZE) {
+      size = MAX_RESPONSE_BUFFER_SIZE;
+    } else {
+      size = Math.max(Integer.highestOneBit((int) contentLength - 1) << 1,
+          MIN_RESPONSE_BUFFER_SIZE);
+    }
+    if (!this.virtualThreads) {
+      byte[] buf = this.threadResponseBuffer.get();
+      if (buf == null || buf.length < size) {
+        buf = new byte[size];
+        this.threadResponseBuffer.set(buf);
+      }
+      return buf;
+    }
+
+    final int taken = this.takenResponseBuffers.incrementAndGet();
+    int maxTaken;
+    while (taken > (maxTaken = this.maxTakenResponseBuffers.get())
+        && !this.maxTakenResponseBuffers.compareAndSet(maxTaken, taken)) {
+      // retry
+    }
+    final byte[] buf = this.responseBuffers.get(responseBufferClass(size)).poll();
+    if (buf != null) {
+      this.pooledResponseBuffers.decrementAndGet();
+      return buf;
+    }
+    return new byte[size];
+  }
+
+  private void releaseResponseBuffer(final byte[] buf) {
+    if (!this.virtualThreads) {
+      return;
+    }
+    this.takenResponseBuffers.decrementAndGet();
+    // the queues' sizes are not constant time, so the pooled buffers are counted separately
+    if (this.pooledResponseBuffers.incrementAndGet() <= this.maxTakenResponseBuffers.get()) {
+      this.responseBuffers.get(responseBufferClass(buf.length)).offer(buf);
+    } else {
+      this.pooledResponseBuffers.decrementAndGet();
+    }
+  }
+
+  // buffers sized from the response are powers of two, each of which has its own class
+  private int responseBufferClass(final int size) {
+    if (this.responseBufferSize > 0) {
+      return 0;
+    }
+    return Integer.numberOfTrailingZeros(size / MIN_RESPONSE_BUFFER_SIZE);
+  }
+
   private HttpUriRequest createRequest(final AuthenticatedRequest request) {
     final RequestBuilder builder =
         RequestBuilder.create(request.getMethod().toString()).setUri(request.getUri());
@@ -483,11 +569,26 @@ public class ApacheClient implements Client {
         while (!ApacheClient.this.executorService.isTerminated()) {
           awaitShutdown(1, TimeUnit.HOURS);
         }
+        if (ApacheClient.this.callbackExecutor != null) {
+          // callbacks for the last requests are submitted as their client threads complete
+          ApacheClient.this.callbackExecutor.shutdown();
+          while (!ApacheClient.this.callbackExecutor.isTerminated()) {
+            awaitCallbackShutdown();
+          }
+        }
         _logger.info("Client is shutdown");
         _logger.info("Number of requests aborted at shutdown [{}]",
             ApacheClient.this.abortedRequestsAtShutdown.get());
       }
 
+      private void awaitCallbackShutdown() {
+        try {
+          ApacheClient.this.callbackExecutor.awaitTermination(1, TimeUnit.HOURS);
+        } catch (final InterruptedException e) {
+          _logger.error("Interrupted while waiting for client callback executor termination", e);
+        }
+      }
+
       private void awaitShutdown(final long timeout, final TimeUnit unit) {
         try {
           _logger.info("Awaiting client executor service termination for {} {}", timeout, unit);
@@ -506,13 +607,10 @@ public class ApacheClient implements Client {
     private AuthenticatedRequest authenticatedRequest;
     private HttpUriRequest apacheRequest;
     private final RequestTimestamps timestamps;
-    private final byte[] buf;
 
     public BlockingHttpOperation(final Request request) {
       this.request = checkNotNull(request);
       this.timestamps = new RequestTimestamps();
-      // TODO inject buf size from config
-      this.buf = new byte[4096];
     }
 
     @Override
@@ -547,7 +645,8 @@ public class ApacheClient implements Client {
       this.timestamps.finishMillis = System.currentTimeMillis();
 
       // do not log requests with 599 response after client shutdown (known aborted requests)
-      if (ApacheClient.this.running || response.getStatusCode() != 599) {
+      if (ApacheClient.this.requestLogging
+          && (ApacheClient.this.running || response.getStatusCode() != 599)) {
         final RequestLogEntry entry = new RequestLogEntry(this.request, response,
             ApacheClient.this.userAgent, this.timestamps);
         _requestLogger.info(ApacheClient.this.gson.toJson(entry));
@@ -599,8 +698,19 @@ public class ApacheClient implements Client {
         final org.apache.http.HttpResponse response) throws IOException {
       final HttpEntity entity = response.getEntity();
       if (entity != null) {
-        InputStream entityStream = entity.getContent();
+        final String consumerId =
+            this.request.getContext().get(Context.X_OG_RESPONSE_BODY_CONSUMER);
+        final ResponseBodyConsumer consumer =
+            ApacheClient.this.responseBodyConsumers.get(consumerId);
         final long readThroughput = ApacheClient.this.readThroughput;
+        if (consumer == null && readThroughput == 0) {
+          this.timestamps.responseContentStart = System.nanoTime();
+          discardBytes(responseBuilder, entity);
+          this.timestamps.responseContentFinish = System.nanoTime();
+          return;
+        }
+
+        InputStream entityStream = entity.getContent();
         if (readThroughput > 0) {
           entityStream = Streams.throttle(entityStream, readThroughput);
         }
@@ -609,10 +719,6 @@ public class ApacheClient implements Client {
 
         // TODO clean this up, should always try to set response entity to response size;
         // will InstrumentedInputStream help with this?
-        final String consumerId =
-            this.request.getContext().get(Context.X_OG_RESPONSE_BODY_CONSUMER);
-        final ResponseBodyConsumer consumer =
-            ApacheClient.this.responseBodyConsumers.get(consumerId);
         this.timestamps.responseContentStart = System.nanoTime();
         if (consumer != null) {
           for (final Map.Entry<String, String> e : consumer
@@ -620,23 +726,54 @@ public class ApacheClient implements Client {
             responseBuilder.withContext(e.getKey(), e.getValue());
           }
         } else {
-          consumeBytes(responseBuilder, in);
+          consumeBytes(responseBuilder, in, entity.getContentLength());
         }
         this.timestamps.responseContentFirstBytes = in.getFirstRead();
         this.timestamps.responseContentFinish = System.nanoTime();
       }
     }
 
-    private void consumeBytes(final HttpResponse.Builder responseBuilder,
-        final InputStream responseContent) throws IOException {
-      long totalBytes = 0;
-      int bytesRead;
-      while ((bytesRead = responseContent.read(this.buf)) > 0) {
-        totalBytes += bytesRead;
+    // reads the entity stream directly, without monitoring or throttling wrappers. Reads larger
+    // than the connection's session buffer go straight from the socket into the pooled buffer
+    private void discardBytes(final HttpResponse.Builder responseBuilder, final HttpEntity entity)
+        throws IOException {
+      final InputStream responseContent = entity.getContent();
+      final byte[] buf = takeResponseBuffer(entity.getContentLength());
+      try {
+        long totalBytes = 0;
+        int bytesRead = responseContent.read(buf);
+        // as for a monitored stream, only a read which returns data marks the first bytes
+        if (bytesRead > 0) {
+          this.timestamps.responseContentFirstBytes = System.nanoTime();
+        }
+        while (bytesRead >= 0) {
+          totalBytes += bytesRead;
+          bytesRead = responseContent.read(buf);
+        }
+
+        if (totalBytes > 0) {
+          responseBuilder.withBody(Bodies.zeroes(totalBytes));
+        }
+      } finally {
+        releaseResponseBuffer(buf);
       }
+    }
+
+    private void consumeBytes(final HttpResponse.Builder responseBuilder,
+        final InputStream responseContent, final long contentLength) throws IOException {
+      final byte[] buf = takeResponseBuffer(contentLength);
+      try {
+        long totalBytes = 0;
+        int bytesRead;
+        while ((bytesRead = responseContent.read(buf)) > 0) {
+          totalBytes += bytesRead;
+        }
 
-      if (totalBytes > 0) {
-        responseBuilder.withBody(Bodies.zeroes(totalBytes));
+        if (totalBytes > 0) {
+          responseBuilder.withBody(Bodies.zeroes(totalBytes));
+        }
+      } finally {
+        releaseResponseBuffer(buf);
       }
     }
 
@@ -657,7 +794,8 @@ public class ApacheClient implements Client {
             + "keyPassword=%s,%n" + "trustStore=%s,%n" + "trustStorePassword=%s,%n"
             + "trustSelfSignedCertificates=%s,%n" + "dnsCacheTtl=%s,%n"
             + "dnsCacheNegativeTtl=%s,%n" + "authentication=%s,%n" + "userAgent=%s,%n"
-            + "writeThroughput=%s,%n" + "readThroughput=%s,%n" + "responseBodyConsumers=%s%n]",
+            + "writeThroughput=%s,%n" + "readThroughput=%s,%n" + "requestLogging=%s,%n"
+            + "virtualThreads=%s,%n" + "responseBufferSize=%s,%n" + "responseBodyConsumers=%s%n]",
         this.connectTimeout, this.soTimeout, this.soReuseAddress, this.soLinger, this.soKeepAlive,
         this.tcpNoDelay, this.soSndBuf, this.soRcvBuf, this.persistentConnections,
         this.validateAfterInactivity, this.maxIdleTime, this.chunkedEncoding, this.expectContinue,
@@ -665,7 +803,8 @@ public class ApacheClient implements Client {
         this.cipherSuites, this.keyStore, this.keyStorePassword, this.keyPassword, this.trustStore,
         this.trustStorePassword, this.trustSelfSignedCertificates, this.dnsCacheTtl,
         this.dnsCacheNegativeTtl, this.authentication, this.userAgent, this.writeThroughput,
-        this.readThroughput, this.responseBodyConsumers);
+        this.readThroughput, this.requestLogging, this.virtualThreads, this.responseBufferSize,
+        this.responseBodyConsumers);
   }
 
   /**
@@ -702,6 +841,9 @@ public class ApacheClient implements Client {
     private String userAgent;
     private long writeThroughput;
     private long readThroughput;
+    private boolean requestLogging;
+    private boolean virtualThreads;
+    private int responseBufferSize;
     private final Map<String, ResponseBodyConsumer> responseBodyConsumers;
 
     /**
@@ -737,6 +879,9 @@ public class ApacheClient implements Client {
       this.authentication = new NoneAuth();
       this.writeThroughput = 0;
       this.readThroughput = 0;
+      this.requestLogging = true;
+      this.virtualThreads = false;
+      this.responseBufferSize = 0;
       this.responseBodyConsumers = Maps.newHashMap();
     }
 
@@ -1079,6 +1224,42 @@ public class ApacheClient implements Client {
       return this;
     }
 
+    /**
+     * Configures whether each completed request is written to the request log
+     * 
+     * @param requestLogging if true, log completed requests
+     * @return this builder
+     */
+    public Builder usingRequestLogging(final boolean requestLogging) {
+      this.requestLogging = requestLogging;
+      return this;
+    }
+
+    /**
+     * Configures whether each request is executed on a new virtual thread rather than a pooled
+     * platform thread. Requires Java 21 or later at runtime
+     * 
+     * @param virtualThreads if true, execute requests on virtual threads
+     * @return this builder
+     */
+    public Builder usingVirtualThreads(final boolean virtualThreads) {
+      this.virtualThreads = virtualThreads;
+      return this;
+    }
+
+    /**
+     * Configures the size of the buffers response bodies are read into. Buffers are reused across
+     * requests
+     * 
+     * @param responseBufferSize buffer size in bytes, or 0 to size each buffer from the response
+     *        content length, between 4 KiB and 64 KiB
+     * @return this builder
+     */
+    public Builder withResponseBufferSize(final int responseBufferSize) {
+      this.responseBufferSize = responseBufferSize;
+      return this;
+    }
+
     /**
      * Configures a response body consumer to be used to process response bodies for requests
      * configured with a matching consumerId
@@ -1098,10 +1279,12 @@ public class ApacheClient implements Client {
      * Constructs a new apache client instance
      * 
      * @return an apache client instance
-     * @throws IllegalArgumentException if connectTimeout, soTimeout, writeThroughput, or
-     *         readThroughput are negative
+     * @throws IllegalArgumentException if connectTimeout, soTimeout, writeThroughput,
+     *         readThroughput, or responseBufferSize are negative
      * @throws IllegalArgumentException if soLinger is less than {@code -1}
      * @throws IllegalArgumentException if waitForContinue is negative or zero
+     * @throws IllegalArgumentException if virtualThreads is configured on a jvm without virtual
+     *         thread support
      */
     public ApacheClient build() {
       return new ApacheClient(this);
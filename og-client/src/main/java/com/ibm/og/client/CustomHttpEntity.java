@@ -12,6 +12,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
+import com.ibm.og.util.io.BodyInputStream;
 import com.ibm.og.util.io.Streams;
 import org.apache.http.entity.AbstractHttpEntity;
 
@@ -67,7 +68,13 @@ public class CustomHttpEntity extends AbstractHttpEntity {
     }
 
     this.requestContentStart = System.nanoTime();
-    ByteStreams.copy(in, out);
+    if (in instanceof BodyInputStream && this.writeThroughput == 0) {
+      // large writes rather than copying through a small heap buffer; throttled writes keep the
+      // small copies so that throttling stays smooth
+      ((BodyInputStream) in).writeTo(out);
+    } else {
+      ByteStreams.copy(in, out);
+    }
     this.requestContentFinish = System.nanoTime();
     in.close();
   }
@@ -0,0 +1,1638 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.client;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.security.Security;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.DefaultConnectionReuseStrategy;
+import org.apache.http.impl.NoConnectionReuseStrategy;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.NHttpConnection;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.nio.protocol.HttpAsyncRequestExecutor;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.ssl.SSLContextBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ForwardingListenableFuture;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.ibm.og.api.AuthenticatedRequest;
+import com.ibm.og.api.Client;
+import com.ibm.og.api.DataType;
+import com.ibm.og.api.Method;
+import com.ibm.og.api.Request;
+import com.ibm.og.api.Response;
+import com.ibm.og.client.RequestLogEntry.RequestTimestamps;
+import com.ibm.og.http.Bodies;
+import com.ibm.og.http.HttpAuth;
+import com.ibm.og.http.HttpResponse;
+import com.ibm.og.http.NoneAuth;
+import com.ibm.og.http.ResponseBodyConsumer;
+import com.ibm.og.util.Context;
+import com.ibm.og.util.io.BodyInputStream;
+
+/**
+ * A {@code Client} implementation that executes http and https requests on non-blocking sockets,
+ * using the Apache HttpComponents HttpAsyncClient library. A small, fixed number of io reactor
+ * threads multiplex every connection, so the number of outstanding requests is not bound by the
+ * number of client threads. Connections are persistent and pooled per route, response bodies are
+ * discarded as they arrive unless a response body consumer is configured for the request, and
+ * request timestamps and the request log are recorded as they are by {@link ApacheClient}.
+ * <p>
+ * Request and response bodies are not throttled.
+ *
+ * @since 1.0
+ */
+public class NioClient implements Client {
+  private static final Logger _logger = LoggerFactory.getLogger(NioClient.class);
+  private static final Logger _requestLogger = LoggerFactory.getLogger("RequestLogger");
+  private static final int BUFFER_SIZE = 16384;
+  private static final int MAX_REDIRECTS = 50;
+  private static final int PIPE_CAPACITY = 65536;
+  // the interval at which io reactor threads check timeouts and notice shutdown
+  private static final long SELECT_INTERVAL = 100;
+  private static final Set<Integer> REDIRECT_STATUS_CODES = ImmutableSet.of(301, 302, 303, 307);
+  // requests which may be sent again without changing their effect on the host
+  private static final Set<Method> IDEMPOTENT_METHODS =
+      ImmutableSet.of(Method.GET, Method.HEAD, Method.PUT, Method.DELETE);
+  // response content is discarded through a buffer of each io reactor thread
+  private static final ThreadLocal<ByteBuffer> READ_BUFFER = new ThreadLocal<ByteBuffer>() {
+    @Override
+    protected ByteBuffer initialValue() {
+      return ByteBuffer.allocate(BUFFER_SIZE);
+    }
+  };
+  private final int connectTimeout;
+  private final int soTimeout;
+  private final boolean soReuseAddress;
+  private final int soLinger;
+  private final boolean soKeepAlive;
+  private final boolean tcpNoDelay;
+  private final int soSndBuf;
+  private final int soRcvBuf;
+  private final boolean persistentConnections;
+  private final int maxIdleTime;
+  private final boolean chunkedEncoding;
+  private final boolean expectContinue;
+  private final int waitForContinue;
+  private final int ioThreads;
+  private final List<String> protocols;
+  private final List<String> cipherSuites;
+  private final File keyStore;
+  private final String keyStorePassword;
+  private final String keyPassword;
+  private final File trustStore;
+  private final String trustStorePassword;
+  private final boolean trustSelfSignedCertificates;
+  private final int dnsCacheTtl;
+  private final int dnsCacheNegativeTtl;
+  private final boolean requestSentRetry;
+  private final HttpAuth authentication;
+  private final String userAgent;
+  private final boolean requestLogging;
+  private final Map<String, ResponseBodyConsumer> responseBodyConsumers;
+  private volatile boolean running;
+  private volatile boolean aborting;
+  private final AtomicInteger abortedRequestsAtShutdown;
+  // requests which have not finished, cancelled by an immediate shutdown
+  private final Set<NioOperation> operations;
+  private final AtomicInteger inFlight;
+  // set once shutdown waits for in flight requests, so that completing requests only signal then
+  private volatile boolean awaitingInFlight;
+  private final Object inFlightLock;
+  private final PoolingNHttpClientConnectionManager connectionManager;
+  private final CloseableHttpAsyncClient client;
+  private final ScheduledExecutorService idleConnectionMonitor;
+  private final ListeningExecutorService executorService;
+  private final Gson gson;
+
+  private NioClient(final Builder builder) {
+    this.connectTimeout = builder.connectTimeout;
+    this.soTimeout = builder.soTimeout;
+    this.soReuseAddress = builder.soReuseAddress;
+    this.soLinger = builder.soLinger;
+    this.soKeepAlive = builder.soKeepAlive;
+    this.tcpNoDelay = builder.tcpNoDelay;
+    this.soSndBuf = builder.soSndBuf;
+    this.soRcvBuf = builder.soRcvBuf;
+    this.persistentConnections = builder.persistentConnections;
+    this.maxIdleTime = builder.maxIdleTime;
+    this.chunkedEncoding = builder.chunkedEncoding;
+    this.expectContinue = builder.expectContinue;
+    this.waitForContinue = builder.waitForContinue;
+    this.ioThreads = builder.ioThreads > 0 ? builder.ioThreads
+        : Runtime.getRuntime().availableProcessors();
+    final List<String> protocols = builder.protocols;
+    if (protocols != null) {
+      this.protocols = ImmutableList.copyOf(protocols);
+    } else {
+      this.protocols = null;
+    }
+
+    final List<String> cipherSuites = builder.cipherSuites;
+    if (cipherSuites != null) {
+      this.cipherSuites = ImmutableList.copyOf(cipherSuites);
+    } else {
+      this.cipherSuites = null;
+    }
+
+    final String keyStore = builder.keyStore;
+    if (keyStore != null) {
+      this.keyStore = new File(keyStore);
+      checkArgument(this.keyStore.exists(), "keyStore does not exist [%s]", this.keyStore);
+    } else {
+      this.keyStore = null;
+    }
+    this.keyStorePassword = builder.keyStorePassword;
+    if (this.keyStorePassword != null) {
+      checkArgument(this.keyStore != null,
+          "if keyStorePassword is != null, keyStore must be != null");
+    }
+    this.keyPassword = builder.keyPassword;
+    if (this.keyPassword != null) {
+      checkArgument(this.keyStore != null, "if keyPassword is != null, keyStore must be != null");
+    }
+
+    final String trustStore = builder.trustStore;
+    if (trustStore != null) {
+      this.trustStore = new File(trustStore);
+      checkArgument(this.trustStore.exists(), "trustStore does not exist [%s]", this.trustStore);
+    } else {
+      this.trustStore = null;
+    }
+    this.trustStorePassword = builder.trustStorePassword;
+    if (this.trustStorePassword != null) {
+      checkArgument(this.trustStore != null,
+          "if trustStorePassword is != null, trustStore must be != null");
+    }
+    this.trustSelfSignedCertificates = builder.trustSelfSignedCertificates;
+    this.dnsCacheTtl = builder.dnsCacheTtl;
+    this.dnsCacheNegativeTtl = builder.dnsCacheNegativeTtl;
+    this.requestSentRetry = builder.requestSentRetry;
+    this.authentication = checkNotNull(builder.authentication);
+    this.userAgent = builder.userAgent;
+    this.requestLogging = builder.requestLogging;
+    this.responseBodyConsumers = ImmutableMap.copyOf(builder.responseBodyConsumers);
+
+    // perform checks on instance fields rather than builder fields
+    checkArgument(this.connectTimeout >= 0, "connectTimeout must be >= 0 [%s]",
+        this.connectTimeout);
+    checkArgument(this.soTimeout >= 0, "soTimeout must be >= 0 [%s]", this.soTimeout);
+    checkArgument(this.soLinger >= -1, "soLinger must be >= -1 [%s]", this.soLinger);
+    checkArgument(this.soSndBuf >= 0, "soSndBuf must be >= 0 [%s]", this.soSndBuf);
+    checkArgument(this.soRcvBuf >= 0, "soRcvBuf must be >= 0 [%s]", this.soRcvBuf);
+    checkArgument(this.maxIdleTime > 0, "maxIdleTime must be > 0 [%s]", this.maxIdleTime);
+    checkArgument(this.waitForContinue > 0, "waitForContinue must be > 0 [%s]",
+        this.waitForContinue);
+    checkArgument(builder.ioThreads >= 0, "ioThreads must be >= 0 [%s]", builder.ioThreads);
+    checkArgument(this.dnsCacheTtl >= -1, "dnsCacheTtl must be >= -1 [%s]", this.dnsCacheTtl);
+    checkArgument(this.dnsCacheNegativeTtl >= -1, "dnsCacheNegativeTtl must be >= -1 [%s]",
+        this.dnsCacheNegativeTtl);
+
+    Security.setProperty("networkaddress.cache.ttl", String.valueOf(this.dnsCacheTtl));
+    Security.setProperty("networkaddress.cache.negative.ttl",
+        String.valueOf(this.dnsCacheNegativeTtl));
+
+    this.running = true;
+    this.abortedRequestsAtShutdown = new AtomicInteger();
+    this.operations = Sets.newConcurrentHashSet();
+    this.inFlight = new AtomicInteger();
+    this.inFlightLock = new Object();
+    this.connectionManager = createConnectionManager();
+    this.client = createClient();
+    this.client.start();
+    this.idleConnectionMonitor = createIdleConnectionMonitor();
+    // authentication, response body consumers and request logging run on client threads, so
+    // that io reactor threads only ever perform socket io
+    final ThreadFactory fac = new ThreadFactoryBuilder().setNameFormat("client-%d").build();
+    this.executorService = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool(fac));
+    this.gson = RequestLogEntry.createGson();
+  }
+
+  private PoolingNHttpClientConnectionManager createConnectionManager() {
+    final IOReactorConfig config = IOReactorConfig.custom().setIoThreadCount(this.ioThreads)
+        .setSelectInterval(SELECT_INTERVAL)
+        .setConnectTimeout(this.connectTimeout).setSoTimeout(this.soTimeout)
+        .setSoReuseAddress(this.soReuseAddress).setSoLinger(this.soLinger)
+        .setSoKeepAlive(this.soKeepAlive).setTcpNoDelay(this.tcpNoDelay)
+        .setSndBufSize(this.soSndBuf).setRcvBufSize(this.soRcvBuf).build();
+    final ThreadFactory fac =
+        new ThreadFactoryBuilder().setNameFormat("client-io-%d").setDaemon(true).build();
+    final DefaultConnectingIOReactor reactor;
+    try {
+      reactor = new DefaultConnectingIOReactor(config, fac);
+    } catch (final IOReactorException e) {
+      throw new RuntimeException(e);
+    }
+    final Registry<SchemeIOSessionStrategy> strategies =
+        RegistryBuilder.<SchemeIOSessionStrategy>create()
+            .register("http", NoopIOSessionStrategy.INSTANCE)
+            .register("https", createSslStrategy()).build();
+
+    final PoolingNHttpClientConnectionManager manager =
+        new PoolingNHttpClientConnectionManager(reactor, strategies);
+    // the number of connections is bound by the number of outstanding requests
+    manager.setMaxTotal(Integer.MAX_VALUE);
+    manager.setDefaultMaxPerRoute(Integer.MAX_VALUE);
+    return manager;
+  }
+
+  private SchemeIOSessionStrategy createSslStrategy() {
+    final SSLContext sslContext = createSSLContext();
+    String[] configuredProtocols = null;
+    String[] configuredCipherSuites = null;
+    if (this.protocols != null) {
+      configuredProtocols = Iterables.toArray(this.protocols, String.class);
+    }
+    if (this.cipherSuites != null) {
+      final List<String> supportedCipherSuites =
+          ImmutableList.copyOf(sslContext.getSocketFactory().getSupportedCipherSuites());
+      for (final String cipherSuite : this.cipherSuites) {
+        checkArgument(supportedCipherSuites.contains(cipherSuite), "Unsupported cipher suite [%s]",
+            cipherSuite);
+      }
+
+      configuredCipherSuites = Iterables.toArray(this.cipherSuites, String.class);
+    }
+
+    return new SSLIOSessionStrategy(sslContext, configuredProtocols, configuredCipherSuites,
+        NoopHostnameVerifier.INSTANCE);
+  }
+
+  private SSLContext createSSLContext() {
+    final SSLContextBuilder builder = SSLContextBuilder.create();
+    configureKeyStores(builder);
+    configureTrustStores(builder);
+    try {
+      return builder.build();
+    } catch (final Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void configureKeyStores(final SSLContextBuilder builder) {
+    if (this.keyStore != null) {
+      try {
+        final char[] storePassword = this.keyStorePassword.toCharArray();
+        final char[] keyPassword = this.keyPassword.toCharArray();
+        builder.loadKeyMaterial(this.keyStore, storePassword, keyPassword);
+      } catch (final Exception e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  private void configureTrustStores(final SSLContextBuilder builder) {
+    try {
+      if (this.trustStore != null) {
+        char[] password = null;
+        if (this.trustStorePassword != null) {
+          password = this.trustStorePassword.toCharArray();
+        }
+        builder.loadTrustMaterial(this.trustStore, password);
+      }
+      if (this.trustSelfSignedCertificates) {
+        builder.loadTrustMaterial(TrustSelfSignedStrategy.INSTANCE);
+      }
+    } catch (final Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private CloseableHttpAsyncClient createClient() {
+    final HttpAsyncClientBuilder builder = HttpAsyncClients.custom().setThreadFactory(
+        new ThreadFactoryBuilder().setNameFormat("client-reactor-%d").setDaemon(true).build());
+    if (this.userAgent != null) {
+      builder.setUserAgent(this.userAgent);
+    }
+    // redirects are followed by NioOperation, which resends the request content
+    final RequestConfig requestConfig = RequestConfig.custom()
+        .setConnectTimeout(this.connectTimeout).setSocketTimeout(this.soTimeout)
+        .setExpectContinueEnabled(this.expectContinue).setRedirectsEnabled(false).build();
+    return builder.setConnectionManager(this.connectionManager)
+        .setEventHandler(new HttpAsyncRequestExecutor(this.waitForContinue))
+        .setConnectionReuseStrategy(this.persistentConnections
+            ? DefaultConnectionReuseStrategy.INSTANCE : NoConnectionReuseStrategy.INSTANCE)
+        .setDefaultRequestConfig(requestConfig).disableCookieManagement().disableAuthCaching()
+        .disableConnectionState().build();
+  }
+
+  private ScheduledExecutorService createIdleConnectionMonitor() {
+    final ThreadFactory fac =
+        new ThreadFactoryBuilder().setNameFormat("client-idle-%d").setDaemon(true).build();
+    final ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor(fac);
+    monitor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        NioClient.this.connectionManager.closeExpiredConnections();
+        NioClient.this.connectionManager.closeIdleConnections(NioClient.this.maxIdleTime,
+            TimeUnit.MILLISECONDS);
+      }
+    }, this.maxIdleTime, this.maxIdleTime, TimeUnit.MILLISECONDS);
+    return monitor;
+  }
+
+  @Override
+  public ListenableFuture<Response> execute(final Request request) {
+    checkNotNull(request);
+    final NioOperation operation = new NioOperation(request);
+    this.operations.add(operation);
+    this.inFlight.incrementAndGet();
+    try {
+      this.executorService.execute(operation);
+    } catch (final RejectedExecutionException e) {
+      operation.release();
+      throw e;
+    }
+
+    return new ForwardingListenableFuture.SimpleForwardingListenableFuture<Response>(
+        operation.future) {
+      @Override
+      public boolean cancel(final boolean mayInterruptIfRunning) {
+        operation.cancel();
+        return delegate().cancel(mayInterruptIfRunning);
+      }
+    };
+  }
+
+  @Override
+  public ListenableFuture<Boolean> shutdown(final boolean immediate) {
+    final SettableFuture<Boolean> future = SettableFuture.create();
+    final Thread t = new Thread(getShutdownRunnable(future, immediate));
+    t.setName("client-shutdown");
+    this.running = false;
+    t.start();
+    return future;
+  }
+
+  private Runnable getShutdownRunnable(final SettableFuture<Boolean> future,
+      final boolean immediate) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        if (immediate) {
+          closeSockets();
+        }
+
+        shutdownClient();
+        future.set(true);
+      }
+
+      private void closeSockets() {
+        _logger.info("Attempting to close client connections");
+        // the connection pool drops exchanges awaiting a connection when it is shutdown, so every
+        // exchange is cancelled first; requests dispatched afterwards are cancelled as they are
+        // dispatched, or fail once the client is closed
+        NioClient.this.aborting = true;
+        for (final NioOperation operation : NioClient.this.operations) {
+          operation.cancel();
+        }
+        closeClient();
+      }
+
+      private void shutdownClient() {
+        _logger.info("Issuing client shutdown");
+        awaitInFlight();
+        closeClient();
+        NioClient.this.idleConnectionMonitor.shutdownNow();
+        NioClient.this.executorService.shutdown();
+        while (!NioClient.this.executorService.isTerminated()) {
+          awaitShutdown(1, TimeUnit.HOURS);
+        }
+        _logger.info("Client is shutdown");
+        _logger.info("Number of requests aborted at shutdown [{}]",
+            NioClient.this.abortedRequestsAtShutdown.get());
+      }
+
+      private void closeClient() {
+        try {
+          NioClient.this.client.close();
+        } catch (final IOException e) {
+          _logger.error("Error closing client", e);
+        }
+      }
+
+      private void awaitInFlight() {
+        NioClient.this.awaitingInFlight = true;
+        synchronized (NioClient.this.inFlightLock) {
+          int inFlight;
+          while ((inFlight = NioClient.this.inFlight.get()) > 0) {
+            _logger.info("Awaiting completion of {} in flight requests", inFlight);
+            try {
+              NioClient.this.inFlightLock.wait(TimeUnit.SECONDS.toMillis(10));
+            } catch (final InterruptedException e) {
+              _logger.error("Interrupted while waiting for in flight requests", e);
+            }
+          }
+        }
+      }
+
+      private void awaitShutdown(final long timeout, final TimeUnit unit) {
+        try {
+          _logger.info("Awaiting client executor service termination for {} {}", timeout, unit);
+          final boolean result = NioClient.this.executorService.awaitTermination(timeout, unit);
+          _logger.info("Client executor service termination result [{}]",
+              result ? "success" : "failure");
+        } catch (final InterruptedException e) {
+          _logger.error("Interrupted while waiting for client executor service termination", e);
+        }
+      }
+    };
+  }
+
+  /**
+   * The state of a single request across the client threads and the io reactor threads. Each
+   * exchange, the first and one for each redirect or retry, is executed with a new request
+   * producer and response consumer. Fields other than the future, the current exchange and the
+   * cancelled flag are handed between threads through the client executor and the io reactor
+   */
+  private class NioOperation implements Runnable, FutureCallback<Void> {
+    private final Request request;
+    private final RequestTimestamps timestamps;
+    private final SettableFuture<Response> future;
+    private final ResponseBodyConsumer consumer;
+    private AuthenticatedRequest authenticatedRequest;
+    private URI uri;
+    private HttpHost target;
+    private HttpResponse.Builder responseBuilder;
+    private int statusCode;
+    private String location;
+    private boolean responseContent;
+    private long responseBytes;
+    private ResponseBodyPipe responseBody;
+    private Map<String, String> consumerContext;
+    // the exchange and the consumer of the response content, if any, which are yet to finish
+    private int outstanding;
+    private boolean finished;
+    private Exception failure;
+    private int redirects;
+    private boolean retried;
+    private volatile HttpUriRequest exchange;
+    private volatile boolean cancelled;
+
+    public NioOperation(final Request request) {
+      this.request = checkNotNull(request);
+      this.timestamps = new RequestTimestamps();
+      this.future = SettableFuture.create();
+      final String consumerId = request.getContext().get(Context.X_OG_RESPONSE_BODY_CONSUMER);
+      this.consumer = NioClient.this.responseBodyConsumers.get(consumerId);
+      resetResponse();
+    }
+
+    @Override
+    public void run() {
+      this.timestamps.startMillis = System.currentTimeMillis();
+      this.timestamps.start = System.nanoTime();
+      try {
+        this.authenticatedRequest = NioClient.this.authentication.authenticate(this.request);
+        setUri(this.authenticatedRequest.getUri());
+        _logger.trace("Sending request {}", this.request);
+        dispatch();
+      } catch (final Exception e) {
+        finish(e);
+      }
+    }
+
+    private void setUri(final URI uri) {
+      final String scheme = uri.getScheme();
+      checkArgument("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme),
+          "Unsupported scheme [%s]", scheme);
+      this.uri = uri;
+      this.target = new HttpHost(uri.getHost(), uri.getPort(), scheme.toLowerCase());
+    }
+
+    private void dispatch() throws IOException {
+      final RequestProducer producer = new RequestProducer(this);
+      this.exchange = producer.request;
+      NioClient.this.client.execute(producer, new ResponseConsumer(this), this);
+      // cancel reads the exchange after setting its flag, so one of the two aborts it
+      if (this.cancelled || NioClient.this.aborting) {
+        this.exchange.abort();
+      }
+    }
+
+    private void resetResponse() {
+      this.responseBuilder = new HttpResponse.Builder();
+      final String requestId = this.request.getContext().get(Context.X_OG_REQUEST_ID);
+      if (requestId != null) {
+        this.responseBuilder.withContext(Context.X_OG_REQUEST_ID, requestId);
+      }
+      this.statusCode = 0;
+      this.location = null;
+      this.responseContent = false;
+      this.responseBytes = 0;
+      this.responseBody = null;
+      this.consumerContext = null;
+      this.outstanding = 1;
+      this.finished = false;
+      this.failure = null;
+      this.timestamps.requestContentStart = 0;
+      this.timestamps.requestContentFinish = 0;
+      this.timestamps.responseContentStart = 0;
+      this.timestamps.responseContentFirstBytes = 0;
+      this.timestamps.responseContentFinish = 0;
+    }
+
+    // called on an io reactor thread once the response head has been received
+    private void responseHeaders(final org.apache.http.HttpResponse response) {
+      this.statusCode = response.getStatusLine().getStatusCode();
+      this.responseBuilder.withStatusCode(this.statusCode);
+      for (final Header header : response.getAllHeaders()) {
+        this.responseBuilder.withHeader(header.getName(), header.getValue());
+        if ("Location".equalsIgnoreCase(header.getName())) {
+          this.location = header.getValue();
+        }
+      }
+    }
+
+    // called on an io reactor thread if the response has content
+    private void responseEntity(final Runnable drained) {
+      this.responseContent = true;
+      this.timestamps.responseContentStart = System.nanoTime();
+      // the content of a redirect is discarded rather than consumed
+      if (this.consumer != null && !isRedirect()) {
+        consume(drained);
+      }
+    }
+
+    private boolean isRedirect() {
+      return REDIRECT_STATUS_CODES.contains(this.statusCode) && this.location != null
+          && this.redirects < MAX_REDIRECTS;
+    }
+
+    // called on an io reactor thread; the consumer reads the content as it arrives
+    private void consume(final Runnable drained) {
+      synchronized (this) {
+        // an aborted exchange may still deliver the response head
+        if (this.finished) {
+          return;
+        }
+        this.outstanding++;
+      }
+      this.responseBody = new ResponseBodyPipe(drained);
+      submit(new Runnable() {
+        @Override
+        public void run() {
+          consumeResponseBody();
+        }
+      });
+    }
+
+    private void consumeResponseBody() {
+      Exception exception = null;
+      try {
+        this.consumerContext = this.consumer.consume(this.statusCode, this.responseBody);
+      } catch (final Exception e) {
+        exception = e;
+      } finally {
+        // discard any content the consumer did not read so that the exchange completes
+        this.responseBody.close();
+      }
+      this.timestamps.responseContentFinish = System.nanoTime();
+      done(exception);
+    }
+
+    // called on an io reactor thread as response content arrives; returns false if reading should
+    // pause until the consumer has caught up
+    private boolean responseContent(final byte[] buf, final int offset, final int length) {
+      if (this.responseBytes == 0) {
+        this.timestamps.responseContentFirstBytes = System.nanoTime();
+      }
+      this.responseBytes += length;
+      return this.responseBody == null || this.responseBody.write(buf, offset, length);
+    }
+
+    // called on an io reactor thread once the response has been completely received
+    private void responseComplete() {
+      if (this.responseBody != null) {
+        this.responseBody.complete();
+      } else if (this.responseContent) {
+        this.timestamps.responseContentFinish = System.nanoTime();
+      }
+    }
+
+    @Override
+    public void completed(final Void result) {
+      if (isRedirect()) {
+        this.redirects++;
+        submit(new Runnable() {
+          @Override
+          public void run() {
+            redirect();
+          }
+        });
+      } else {
+        done(null);
+      }
+    }
+
+    @Override
+    public void failed(final Exception e) {
+      // a pooled connection may have been closed by the host just as the request was sent on it;
+      // the host may still have acted on it, so only an idempotent request is sent again
+      if (e instanceof ConnectionClosedException && this.statusCode == 0 && !this.retried
+          && !this.cancelled && NioClient.this.running && NioClient.this.requestSentRetry
+          && IDEMPOTENT_METHODS.contains(this.request.getMethod())) {
+        this.retried = true;
+        _logger.debug("Retrying request {} after connection closed", this.request);
+        submit(new Runnable() {
+          @Override
+          public void run() {
+            retry();
+          }
+        });
+        return;
+      }
+      if (this.responseBody != null) {
+        this.responseBody.fail(e);
+      }
+      done(e);
+    }
+
+    @Override
+    public void cancelled() {
+      failed(new IOException("Request aborted"));
+    }
+
+    // the response is finished once both the exchange and any consumer are done with it
+    private void done(final Exception e) {
+      final Exception failure;
+      synchronized (this) {
+        if (this.failure == null) {
+          this.failure = e;
+        }
+        if (this.finished || --this.outstanding > 0) {
+          return;
+        }
+        this.finished = true;
+        failure = this.failure;
+      }
+      submit(new Runnable() {
+        @Override
+        public void run() {
+          finish(failure);
+        }
+      });
+    }
+
+    private void submit(final Runnable task) {
+      // the executor is only shutdown once no requests are in flight
+      NioClient.this.executorService.execute(task);
+    }
+
+    private void redirect() {
+      try {
+        final URI redirectUri = this.uri.resolve(this.location);
+        _logger.trace("Redirecting request {} to {}", this.request, redirectUri);
+        resetResponse();
+        setUri(redirectUri);
+        dispatch();
+      } catch (final Exception e) {
+        finish(e);
+      }
+    }
+
+    private void retry() {
+      try {
+        resetResponse();
+        dispatch();
+      } catch (final Exception e) {
+        finish(e);
+      }
+    }
+
+    private void finish(final Exception exception) {
+      if (exception == null) {
+        receiveResponseContent();
+      } else {
+        if (NioClient.this.running) {
+          _logger.error("Exception executing request", exception);
+        } else {
+          NioClient.this.abortedRequestsAtShutdown.incrementAndGet();
+        }
+        this.responseBuilder.withStatusCode(599);
+      }
+      final Response response = this.responseBuilder.build();
+      _logger.trace("Received response {}", response);
+      this.timestamps.finish = System.nanoTime();
+      this.timestamps.finishMillis = System.currentTimeMillis();
+
+      // do not log requests with 599 response after client shutdown (known aborted requests)
+      if (NioClient.this.requestLogging
+          && (NioClient.this.running || response.getStatusCode() != 599)) {
+        final RequestLogEntry entry = new RequestLogEntry(this.request, response,
+            NioClient.this.userAgent, this.timestamps);
+        _requestLogger.info(NioClient.this.gson.toJson(entry));
+      }
+      this.future.set(response);
+      release();
+    }
+
+    private void receiveResponseContent() {
+      if (this.consumer != null) {
+        if (this.consumerContext != null) {
+          for (final Map.Entry<String, String> e : this.consumerContext.entrySet()) {
+            this.responseBuilder.withContext(e.getKey(), e.getValue());
+          }
+        }
+      } else if (this.responseBytes > 0) {
+        this.responseBuilder.withBody(Bodies.zeroes(this.responseBytes));
+      }
+    }
+
+    private void release() {
+      NioClient.this.operations.remove(this);
+      // shutdown sets its flag before it reads the count, so it either sees zero or is signalled
+      if (NioClient.this.inFlight.decrementAndGet() == 0 && NioClient.this.awaitingInFlight) {
+        synchronized (NioClient.this.inFlightLock) {
+          NioClient.this.inFlightLock.notifyAll();
+        }
+      }
+    }
+
+    private void cancel() {
+      this.cancelled = true;
+      final HttpUriRequest exchange = this.exchange;
+      if (exchange != null) {
+        exchange.abort();
+      }
+    }
+  }
+
+  /**
+   * Produces the request head and content of a single exchange. Content from a
+   * {@link BodyInputStream} is written to the connection directly from the stream's buffers; other
+   * content is copied through a buffer of the exchange
+   */
+  private class RequestProducer implements HttpAsyncRequestProducer {
+    private final NioOperation operation;
+    private final HttpUriRequest request;
+    private final InputStream content;
+    private final BodyInputStream body;
+    private final WritableByteChannel channel;
+    private ByteBuffer out;
+
+    public RequestProducer(final NioOperation operation) throws IOException {
+      this.operation = operation;
+      final AuthenticatedRequest request = operation.authenticatedRequest;
+      if (DataType.NONE != request.getBody().getDataType()) {
+        this.content = request.getContent();
+        this.content.reset();
+      } else {
+        this.content = null;
+      }
+      this.body =
+          this.content instanceof BodyInputStream ? (BodyInputStream) this.content : null;
+      this.channel = new EncoderChannel();
+      this.request = createRequest(request, operation.uri);
+    }
+
+    // the request can be aborted, by the operation, once the exchange has started
+    private HttpUriRequest createRequest(final AuthenticatedRequest request, final URI uri) {
+      final RequestBuilder builder = RequestBuilder.create(request.getMethod().toString())
+          .setUri(uri);
+      if (this.content != null) {
+        final BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setChunked(NioClient.this.chunkedEncoding);
+        entity.setContentLength(NioClient.this.chunkedEncoding ? -1 : request.getContentLength());
+        builder.setEntity(entity);
+      } else if (Method.PUT == request.getMethod() || Method.POST == request.getMethod()) {
+        // sent with a zero Content-Length
+        final BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContentLength(0);
+        builder.setEntity(entity);
+      }
+
+      for (final Entry<String, String> header : request.headers().entrySet()) {
+        final String name = header.getKey();
+        // Some authentication implementations add Content-Length or Transfer-Encoding headers as
+        // a part of their authentication algorithm; framing headers are always set by the client
+        if ("Content-Length".equalsIgnoreCase(name)
+            || "Transfer-Encoding".equalsIgnoreCase(name)) {
+          continue;
+        }
+        builder.addHeader(name, header.getValue());
+      }
+      return builder.build();
+    }
+
+    @Override
+    public HttpHost getTarget() {
+      return this.operation.target;
+    }
+
+    @Override
+    public HttpRequest generateRequest() {
+      return this.request;
+    }
+
+    @Override
+    public void produceContent(final ContentEncoder encoder, final IOControl ioctrl)
+        throws IOException {
+      if (this.content == null) {
+        encoder.complete();
+        return;
+      }
+      final RequestTimestamps timestamps = this.operation.timestamps;
+      if (timestamps.requestContentStart == 0) {
+        timestamps.requestContentStart = System.nanoTime();
+      }
+      if (this.body != null) {
+        produceBody(encoder);
+        return;
+      }
+      if (this.out == null) {
+        this.out = ByteBuffer.allocate(BUFFER_SIZE);
+        this.out.limit(0);
+      }
+      while (true) {
+        if (!this.out.hasRemaining()) {
+          this.out.clear();
+          final int bytesRead = this.content.read(this.out.array(), 0, BUFFER_SIZE);
+          if (bytesRead < 0) {
+            contentComplete(encoder);
+            return;
+          }
+          this.out.limit(bytesRead);
+        }
+        encoder.write(this.out);
+        if (this.out.hasRemaining()) {
+          return;
+        }
+      }
+    }
+
+    private void produceBody(final ContentEncoder encoder) throws IOException {
+      ((EncoderChannel) this.channel).encoder = encoder;
+      while (true) {
+        final int written = this.body.writeTo(this.channel);
+        if (written < 0) {
+          contentComplete(encoder);
+          return;
+        }
+        if (written == 0) {
+          return;
+        }
+      }
+    }
+
+    private void contentComplete(final ContentEncoder encoder) throws IOException {
+      this.operation.timestamps.requestContentFinish = System.nanoTime();
+      encoder.complete();
+    }
+
+    @Override
+    public void requestCompleted(final HttpContext context) {}
+
+    @Override
+    public void failed(final Exception ex) {}
+
+    @Override
+    public boolean isRepeatable() {
+      return true;
+    }
+
+    @Override
+    public void resetRequest() throws IOException {
+      if (this.content != null) {
+        this.content.reset();
+      }
+      this.out = null;
+    }
+
+    @Override
+    public void close() {}
+  }
+
+  /**
+   * A channel view of the encoder of the exchange currently producing content
+   */
+  private static class EncoderChannel implements WritableByteChannel {
+    private ContentEncoder encoder;
+
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+      return this.encoder.write(src);
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {}
+  }
+
+  /**
+   * Receives the response of a single exchange. Content is read through a buffer of the io
+   * reactor thread and discarded, or handed to the response body consumer through a pipe. While
+   * the consumer falls behind, the connection stops reading and its socket timeout is suspended
+   */
+  private class ResponseConsumer extends AbstractAsyncResponseConsumer<Void> {
+    private final NioOperation operation;
+    private IOControl ioctrl;
+    private boolean paused;
+    private boolean finished;
+
+    public ResponseConsumer(final NioOperation operation) {
+      this.operation = operation;
+    }
+
+    @Override
+    protected void onResponseReceived(final org.apache.http.HttpResponse response) {
+      this.operation.responseHeaders(response);
+    }
+
+    @Override
+    protected void onEntityEnclosed(final HttpEntity entity, final ContentType contentType) {
+      this.operation.responseEntity(new Runnable() {
+        @Override
+        public void run() {
+          resume();
+        }
+      });
+    }
+
+    @Override
+    protected void onContentReceived(final ContentDecoder decoder, final IOControl ioctrl)
+        throws IOException {
+      final ByteBuffer buf = READ_BUFFER.get();
+      while (true) {
+        buf.clear();
+        final int bytesRead = decoder.read(buf);
+        if (bytesRead <= 0) {
+          return;
+        }
+        // the pause and the resume of a consumer which catches up at once are ordered by the lock
+        synchronized (this) {
+          if (!this.operation.responseContent(buf.array(), 0, bytesRead)
+              && !decoder.isCompleted()) {
+            pause(ioctrl);
+            return;
+          }
+        }
+      }
+    }
+
+    private void pause(final IOControl ioctrl) {
+      this.ioctrl = ioctrl;
+      this.paused = true;
+      ioctrl.suspendInput();
+      if (ioctrl instanceof NHttpConnection) {
+        ((NHttpConnection) ioctrl).setSocketTimeout(0);
+      }
+    }
+
+    // called on a client thread once the consumer has caught up
+    private synchronized void resume() {
+      if (!this.paused || this.finished) {
+        return;
+      }
+      this.paused = false;
+      if (this.ioctrl instanceof NHttpConnection) {
+        ((NHttpConnection) this.ioctrl).setSocketTimeout(NioClient.this.soTimeout);
+      }
+      this.ioctrl.requestInput();
+    }
+
+    @Override
+    protected Void buildResult(final HttpContext context) {
+      this.operation.responseComplete();
+      return null;
+    }
+
+    @Override
+    protected synchronized void releaseResources() {
+      // the connection is no longer this exchange's once it completes or fails
+      this.finished = true;
+    }
+  }
+
+  /**
+   * Hands response content from an io reactor thread to a response body consumer on a client
+   * thread. Content is copied as it arrives; once more than a bounded amount is buffered the
+   * connection stops reading until the consumer has caught up
+   */
+  private static class ResponseBodyPipe extends InputStream {
+    private final Runnable drained;
+    private final Deque<ByteBuffer> chunks;
+    private int buffered;
+    private boolean paused;
+    private boolean complete;
+    private IOException failure;
+    private boolean closed;
+
+    /**
+     * Constructs an instance
+     *
+     * @param drained called on a consumer thread once reading may resume after a write returned
+     *        false
+     */
+    public ResponseBodyPipe(final Runnable drained) {
+      this.drained = checkNotNull(drained);
+      this.chunks = new ArrayDeque<ByteBuffer>();
+    }
+
+    // returns false if reading should pause until drained is called
+    public synchronized boolean write(final byte[] buf, final int offset, final int length) {
+      if (this.closed) {
+        // the consumer has finished, the remaining content is discarded
+        return true;
+      }
+      this.chunks.add(ByteBuffer.wrap(Arrays.copyOfRange(buf, offset, offset + length)));
+      this.buffered += length;
+      notifyAll();
+      if (this.buffered >= PIPE_CAPACITY) {
+        this.paused = true;
+        return false;
+      }
+      return true;
+    }
+
+    public synchronized void complete() {
+      this.complete = true;
+      notifyAll();
+    }
+
+    public synchronized void fail(final Exception e) {
+      this.failure = e instanceof IOException ? (IOException) e : new IOException(e);
+      notifyAll();
+    }
+
+    @Override
+    public int read() throws IOException {
+      final byte[] b = new byte[1];
+      return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      final int bytesRead;
+      synchronized (this) {
+        while (this.chunks.isEmpty() && !this.complete && this.failure == null && !this.closed) {
+          try {
+            wait();
+          } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading response content");
+          }
+        }
+        if (this.closed) {
+          throw new IOException("Stream closed");
+        }
+        if (this.failure != null) {
+          throw this.failure;
+        }
+        final ByteBuffer chunk = this.chunks.peekFirst();
+        if (chunk == null) {
+          return -1;
+        }
+        bytesRead = Math.min(len, chunk.remaining());
+        chunk.get(b, off, bytesRead);
+        if (!chunk.hasRemaining()) {
+          this.chunks.removeFirst();
+        }
+        this.buffered -= bytesRead;
+        if (!this.paused || this.buffered > PIPE_CAPACITY / 2) {
+          return bytesRead;
+        }
+        this.paused = false;
+      }
+      this.drained.run();
+      return bytesRead;
+    }
+
+    @Override
+    public synchronized int available() {
+      return this.buffered;
+    }
+
+    @Override
+    public void close() {
+      synchronized (this) {
+        if (this.closed) {
+          return;
+        }
+        this.closed = true;
+        this.chunks.clear();
+        this.buffered = 0;
+        notifyAll();
+        if (!this.paused) {
+          return;
+        }
+        this.paused = false;
+      }
+      this.drained.run();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "NioClient [%n" + "connectTimeout=%s,%n" + "soTimeout=%s,%n" + "soReuseAddress=%s,%n"
+            + "soLinger=%s,%n" + "soKeepAlive=%s,%n" + "tcpNoDelay=%s,%n" + "soSndBuf=%s,%n"
+            + "soRcvBuf=%s,%n" + "persistentConnections=%s,%n" + "maxIdleTime=%s,%n"
+            + "chunkedEncoding=%s,%n" + "expectContinue=%s,%n" + "waitForContinue=%s,%n"
+            + "ioThreads=%s,%n" + "protocols=%s,%n" + "cipherSuites=%s,%n" + "keyStore=%s,%n"
+            + "keyStorePassword=%s,%n" + "keyPassword=%s,%n" + "trustStore=%s,%n"
+            + "trustStorePassword=%s,%n" + "trustSelfSignedCertificates=%s,%n" + "dnsCacheTtl=%s,%n"
+            + "dnsCacheNegativeTtl=%s,%n" + "requestSentRetry=%s,%n" + "authentication=%s,%n"
+            + "userAgent=%s,%n" + "requestLogging=%s,%n" + "responseBodyConsumers=%s%n]",
+        this.connectTimeout, this.soTimeout, this.soReuseAddress, this.soLinger, this.soKeepAlive,
+        this.tcpNoDelay, this.soSndBuf, this.soRcvBuf, this.persistentConnections,
+        this.maxIdleTime, this.chunkedEncoding, this.expectContinue, this.waitForContinue,
+        this.ioThreads, this.protocols, this.cipherSuites, this.keyStore, this.keyStorePassword,
+        this.keyPassword, this.trustStore, this.trustStorePassword,
+        this.trustSelfSignedCertificates, this.dnsCacheTtl, this.dnsCacheNegativeTtl,
+        this.requestSentRetry, this.authentication, this.userAgent, this.requestLogging,
+        this.responseBodyConsumers);
+  }
+
+  /**
+   * A builder of nio client instances
+   */
+  public static class Builder {
+    private int connectTimeout;
+    private int soTimeout;
+    private boolean soReuseAddress;
+    private int soLinger;
+    private boolean soKeepAlive;
+    private boolean tcpNoDelay;
+    private int soSndBuf;
+    private int soRcvBuf;
+    private boolean persistentConnections;
+    private int maxIdleTime;
+    private boolean chunkedEncoding;
+    private boolean expectContinue;
+    private int waitForContinue;
+    private int ioThreads;
+    private List<String> protocols;
+    private List<String> cipherSuites;
+    private String keyStore;
+    private String keyStorePassword;
+    private String keyPassword;
+    private String trustStore;
+    private String trustStorePassword;
+    private boolean trustSelfSignedCertificates;
+    private int dnsCacheTtl;
+    private int dnsCacheNegativeTtl;
+    private boolean requestSentRetry;
+    private HttpAuth authentication;
+    private String userAgent;
+    private boolean requestLogging;
+    private final Map<String, ResponseBodyConsumer> responseBodyConsumers;
+
+    /**
+     * Constructs a new builder
+     */
+    public Builder() {
+      this.connectTimeout = 0;
+      this.soTimeout = 0;
+      this.soReuseAddress = false;
+      this.soLinger = -1;
+      this.soKeepAlive = true;
+      this.tcpNoDelay = true;
+      this.soSndBuf = 0;
+      this.soRcvBuf = 0;
+      this.persistentConnections = true;
+      this.maxIdleTime = 60000;
+      this.chunkedEncoding = false;
+      this.expectContinue = false;
+      this.waitForContinue = 3000;
+      this.ioThreads = 0;
+      this.protocols = null;
+      this.cipherSuites = null;
+      this.keyStore = null;
+      this.keyStorePassword = null;
+      this.keyPassword = null;
+      this.trustStore = null;
+      this.trustStorePassword = null;
+      this.trustSelfSignedCertificates = false;
+      this.dnsCacheTtl = 60;
+      this.dnsCacheNegativeTtl = 10;
+      this.requestSentRetry = true;
+      this.authentication = new NoneAuth();
+      this.requestLogging = true;
+      this.responseBodyConsumers = Maps.newHashMap();
+    }
+
+    /**
+     * Configures the timeout in milliseconds until a connection is established. A timeout of zero
+     * is interpreted as an infinite timeout
+     *
+     * @param connectTimeout connection open timeout, in milliseconds
+     * @return this builder
+     */
+    public Builder withConnectTimeout(final int connectTimeout) {
+      this.connectTimeout = connectTimeout;
+      return this;
+    }
+
+    /**
+     * Configures the maximum duration in milliseconds a request may go without sending or
+     * receiving data. A timeout of zero is interpreted as an infinite timeout
+     *
+     * @param soTimeout socket timeout, in milliseconds
+     * @return this builder
+     */
+    public Builder withSoTimeout(final int soTimeout) {
+      this.soTimeout = soTimeout;
+      return this;
+    }
+
+    /**
+     * Configures the {@code SO_REUSEADDR} socket option
+     *
+     * @param soReuseAddress socket reuse flag
+     * @return this builder
+     */
+    public Builder usingSoReuseAddress(final boolean soReuseAddress) {
+      this.soReuseAddress = soReuseAddress;
+      return this;
+    }
+
+    /**
+     * Configures {@code SO_LINGER} in <em>seconds</em>. A linger of zero disables linger, and a
+     * linger of {@code -1} uses the system default.
+     *
+     * @param soLinger linger, in seconds
+     * @return this builder
+     */
+    public Builder withSoLinger(final int soLinger) {
+      this.soLinger = soLinger;
+      return this;
+    }
+
+    /**
+     * Configures the {@code SO_KEEPALIVE} socket option
+     *
+     * @param soKeepAlive keepalive flag
+     * @return this builder
+     */
+    public Builder usingSoKeepAlive(final boolean soKeepAlive) {
+      this.soKeepAlive = soKeepAlive;
+      return this;
+    }
+
+    /**
+     * Configures the {@code TCP_NODELAY} socket option
+     *
+     * @param tcpNoDelay tcp no delay flag
+     * @return this builder
+     */
+    public Builder usingTcpNoDelay(final boolean tcpNoDelay) {
+      this.tcpNoDelay = tcpNoDelay;
+      return this;
+    }
+
+    /**
+     * Configures {@code SO_SNDBUF}. A buffer of zero uses the system default.
+     *
+     * @param soSndBuf, a suggested send buffer size for connections
+     * @return this builder
+     */
+    public Builder withSoSndBuf(final int soSndBuf) {
+      this.soSndBuf = soSndBuf;
+      return this;
+    }
+
+    /**
+     * Configures {@code SO_RCVBUF}. A buffer of zero uses the system default.
+     *
+     * @param soRcvBuf, a suggested receive buffer size for connections
+     * @return this builder
+     */
+    public Builder withSoRcvBuf(final int soRcvBuf) {
+      this.soRcvBuf = soRcvBuf;
+      return this;
+    }
+
+    /**
+     * Configures the use of persistent tcp connections
+     *
+     * @param persistentConnections persistent connections flag
+     * @return this builder
+     */
+    public Builder usingPersistentConnections(final boolean persistentConnections) {
+      this.persistentConnections = persistentConnections;
+      return this;
+    }
+
+    /**
+     * Configures the maximum amount of time a connection is allowed to remain idle. Connections
+     * that are idle longer than maxIdleTime will be closed.
+     *
+     * @param maxIdleTime maximum idle time prior to connection closure.
+     * @return this builder
+     */
+    public Builder withMaxIdleTime(final int maxIdleTime) {
+      this.maxIdleTime = maxIdleTime;
+      return this;
+    }
+
+    /**
+     * Configures the use of http chunked encoding for request bodies
+     *
+     * @param chunkedEncoding chunked encoding flag
+     * @return this builder
+     */
+    public Builder usingChunkedEncoding(final boolean chunkedEncoding) {
+      this.chunkedEncoding = chunkedEncoding;
+      return this;
+    }
+
+    /**
+     * Configures the use of expect: 100-continue flag for requests with a body
+     *
+     * @param expectContinue expect continue flag
+     * @return this builder
+     */
+    public Builder usingExpectContinue(final boolean expectContinue) {
+      this.expectContinue = expectContinue;
+      return this;
+    }
+
+    /**
+     * Configure the duration to wait for a continue response from the target host after sending a
+     * 100-continue message prior to continuing with the request. Duration is in milliseconds
+     *
+     * @param waitForContinue wait for continue duration, in milliseconds
+     * @return this builder
+     */
+    public Builder withWaitForContinue(final int waitForContinue) {
+      this.waitForContinue = waitForContinue;
+      return this;
+    }
+
+    /**
+     * Configures the number of io reactor threads which perform socket io. Zero uses one thread
+     * per available processor
+     *
+     * @param ioThreads the number of io reactor threads
+     * @return this builder
+     */
+    public Builder withIoThreads(final int ioThreads) {
+      this.ioThreads = ioThreads;
+      return this;
+    }
+
+    /**
+     * Configures a list of SSL/TLS protocols to support, in preferred order
+     *
+     * @param protocols a list of protocols, in preferred order
+     * @return this builder
+     */
+    public Builder withProtocols(final List<String> protocols) {
+      this.protocols = protocols;
+      return this;
+    }
+
+    /**
+     * Configures a list of cipher suites for SSL/TLS requests, in preferred order
+     *
+     * @param cipherSuites a list of cipher suites, in preferred order
+     * @return this builder
+     */
+    public Builder withCipherSuites(final List<String> cipherSuites) {
+      this.cipherSuites = cipherSuites;
+      return this;
+    }
+
+    /**
+     * Configures a path to a key store to use for storing certificates requests
+     *
+     * @param keyStore path to a certificate key store file
+     * @return this builder
+     */
+    public Builder withKeyStore(final String keyStore) {
+      this.keyStore = keyStore;
+      return this;
+    }
+
+    /**
+     * Configures a password to use for a configured key store
+     *
+     * @param keyStorePassword password for configured key store
+     * @return this builder
+     */
+    public Builder withKeyStorePassword(final String keyStorePassword) {
+      this.keyStorePassword = keyStorePassword;
+      return this;
+    }
+
+    /**
+     * Configures a password to use for a certificate in the configured key store
+     *
+     * @param keyPassword password for a certificate in the configured key store
+     * @return this builder
+     */
+    public Builder withKeyPassword(final String keyPassword) {
+      this.keyPassword = keyPassword;
+      return this;
+    }
+
+    /**
+     * Configures a path to a trust store to use for validating server certificates for SSL/TLS
+     * requests
+     *
+     * @param trustStore path to a certificate trust store file
+     * @return this builder
+     */
+    public Builder withTrustStore(final String trustStore) {
+      this.trustStore = trustStore;
+      return this;
+    }
+
+    /**
+     * Configures a password to use for a configured trust store
+     *
+     * @param trustStorePassword password for configured trust store
+     * @return this builder
+     */
+    public Builder withTrustStorePassword(final String trustStorePassword) {
+      this.trustStorePassword = trustStorePassword;
+      return this;
+    }
+
+    /**
+     * Configures whether to trust self signed certificates for SSL/TLS requests
+     *
+     * @param trustSelfSignedCertificates whether to trust self signed certificates
+     * @return this builder
+     */
+    public Builder usingTrustSelfSignedCertificates(final boolean trustSelfSignedCertificates) {
+      this.trustSelfSignedCertificates = trustSelfSignedCertificates;
+      return this;
+    }
+
+    /**
+     * Configures dns cache ttl, in seconds
+     *
+     * @param dnsCacheTtl, cache ttl, in seconds
+     * @return this builder
+     */
+    public Builder withDnsCacheTtl(final int dnsCacheTtl) {
+      this.dnsCacheTtl = dnsCacheTtl;
+      return this;
+    }
+
+    /**
+     * Configures dns cache ttl for negative responses, in seconds
+     *
+     * @param dnsCacheNegativeTtl, cache ttl for negative responses, in seconds
+     * @return this builder
+     */
+    public Builder withDnsCacheNegativeTtl(final int dnsCacheNegativeTtl) {
+      this.dnsCacheNegativeTtl = dnsCacheNegativeTtl;
+      return this;
+    }
+
+    /**
+     * Configures whether a request which has already been sent is sent again when the host closes
+     * a pooled connection before responding. Only idempotent requests are ever sent again
+     *
+     * @param requestSentRetry whether or not to send such a request again
+     * @return this builder
+     */
+    public Builder usingRequestSentRetry(final boolean requestSentRetry) {
+      this.requestSentRetry = requestSentRetry;
+      return this;
+    }
+
+    /**
+     * Configures the use of authentication for every request
+     *
+     * @param authentication the authentication type to use
+     * @return this builder
+     */
+    public Builder withAuthentication(final HttpAuth authentication) {
+      this.authentication = authentication;
+      return this;
+    }
+
+    /**
+     * Configures the user-agent request header to send with every request
+     *
+     * @param userAgent the user agent string to send
+     * @return this builder
+     */
+    public Builder withUserAgent(final String userAgent) {
+      this.userAgent = userAgent;
+      return this;
+    }
+
+    /**
+     * Configures whether each completed request is written to the request log
+     *
+     * @param requestLogging if true, log completed requests
+     * @return this builder
+     */
+    public Builder usingRequestLogging(final boolean requestLogging) {
+      this.requestLogging = requestLogging;
+      return this;
+    }
+
+    /**
+     * Configures a response body consumer to be used to process response bodies for requests
+     * configured with a matching consumerId. Response bodies for these requests are streamed to the
+     * consumer as they arrive; a bounded amount is buffered, beyond which the connection stops
+     * reading until the consumer has caught up
+     *
+     * @param consumerId the consumerId for which the provided consumer should be used
+     * @param consumer a response body consumer
+     * @return this builder
+     * @see Context#X_OG_RESPONSE_BODY_CONSUMER
+     */
+    public Builder withResponseBodyConsumer(final String consumerId,
+        final ResponseBodyConsumer consumer) {
+      this.responseBodyConsumers.put(consumerId, consumer);
+      return this;
+    }
+
+    /**
+     * Constructs a new nio client instance
+     *
+     * @return a nio client instance
+     * @throws IllegalArgumentException if connectTimeout, soTimeout or ioThreads are negative
+     * @throws IllegalArgumentException if soLinger is less than {@code -1}
+     * @throws IllegalArgumentException if waitForContinue is negative or zero
+     * @throws IllegalArgumentException if a key store, trust store or password is configured
+     *         without the store it belongs to, or a configured store does not exist
+     */
+    public NioClient build() {
+      return new NioClient(this);
+    }
+  }
+}
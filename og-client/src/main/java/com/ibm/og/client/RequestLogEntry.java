@@ -5,6 +5,9 @@
 
 package com.ibm.og.client;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.net.URI;
 import java.util.Locale;
 import java.util.concurrent.TimeUnit;
@@ -14,6 +17,14 @@ import com.ibm.og.util.Context;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.LongSerializationPolicy;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
 /**
  * A class for assisting in the serialization of a request / response pair
  * 
@@ -111,6 +122,28 @@ public class RequestLogEntry {
     this.objectName = operationObjectName;
   }
 
+  /**
+   * Creates a gson instance which serializes request log entries in the request log format
+   * 
+   * @return a request log gson instance
+   */
+  static Gson createGson() {
+    return new GsonBuilder().setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+        .setLongSerializationPolicy(LongSerializationPolicy.STRING)
+        .registerTypeAdapter(Double.class, new TypeAdapter<Double>() {
+          @Override
+          public void write(final JsonWriter out, final Double value) throws IOException {
+            // round decimals to 2 places
+            out.value(new BigDecimal(value).setScale(2, RoundingMode.HALF_UP).doubleValue());
+          }
+
+          @Override
+          public Double read(final JsonReader in) throws IOException {
+            return in.nextDouble();
+          }
+        }.nullSafe()).create();
+  }
+
   public static class RequestTimestamps {
     public long startMillis;
     public long start;
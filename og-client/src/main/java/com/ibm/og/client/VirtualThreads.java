@@ -0,0 +1,78 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.client;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A utility class for creating executors which run each task on a new virtual thread. Virtual
+ * threads are only available on Java 21 or later, while og is built for earlier releases, so they
+ * are accessed reflectively
+ *
+ * @since 1.0
+ */
+final class VirtualThreads {
+  private static final Method OF_VIRTUAL;
+  private static final Method NAME;
+  private static final Method FACTORY;
+  private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+  static {
+    Method ofVirtual = null;
+    Method name = null;
+    Method factory = null;
+    Method newThreadPerTaskExecutor = null;
+    try {
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+      name = builder.getMethod("name", String.class, long.class);
+      factory = builder.getMethod("factory");
+      newThreadPerTaskExecutor =
+          Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+    } catch (final Exception e) {
+      ofVirtual = null;
+    }
+    OF_VIRTUAL = ofVirtual;
+    NAME = name;
+    FACTORY = factory;
+    NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+  }
+
+  private VirtualThreads() {}
+
+  /**
+   * @return true if the running jvm supports virtual threads
+   */
+  public static boolean isSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * Creates an executor which runs each task on a new virtual thread
+   *
+   * @param prefix the thread name prefix; threads are numbered from zero
+   * @return a thread per task executor
+   * @throws UnsupportedOperationException if the running jvm does not support virtual threads
+   */
+  public static ExecutorService newThreadPerTaskExecutor(final String prefix) {
+    checkNotNull(prefix);
+    if (!isSupported()) {
+      throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+    }
+    try {
+      final Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+      final ThreadFactory factory = (ThreadFactory) FACTORY.invoke(builder);
+      return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+    } catch (final Exception e) {
+      throw new IllegalStateException("Unable to create virtual thread executor", e);
+    }
+  }
+}
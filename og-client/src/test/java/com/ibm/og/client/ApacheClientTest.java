@@ -21,6 +21,7 @@ import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assume.assumeTrue;
 import static org.mockito.Mockito.mock;
 
 import java.io.InputStream;
@@ -531,6 +532,44 @@ public class ApacheClientTest {
     assertThat(duration, greaterThanOrEqualTo(40L));
   }
 
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeResponseBufferSize() {
+    new ApacheClient.Builder().withResponseBufferSize(-1).build();
+  }
+
+  @DataProvider
+  public static Object[][] provideResponseBufferSize() {
+    return new Object[][] {{0, 0L}, {0, 100000L}, {0, 1000000L}, {1000, 100000L},
+        {1 << 20, 100000L}};
+  }
+
+  @Test
+  @UseDataProvider("provideResponseBufferSize")
+  public void responseBufferSize(final int responseBufferSize, final long size)
+      throws InterruptedException, ExecutionException, URISyntaxException {
+    stubFor(get(urlEqualTo("/sized"))
+        .willReturn(aResponse().withStatus(200).withBody(new byte[(int) size])));
+    final Client client =
+        new ApacheClient.Builder().withResponseBufferSize(responseBufferSize).build();
+    final Request request =
+        new HttpRequest.Builder(Method.GET, uri("/sized"), this.operation).build();
+    // buffers are reused by later requests
+    for (int i = 0; i < 3; i++) {
+      final Response response = client.execute(request).get();
+      assertThat(response.getStatusCode(), is(200));
+      assertThat(response.getBody().getSize(), is(size));
+    }
+  }
+
+  @Test
+  public void readThroughputBodySize() throws InterruptedException, ExecutionException {
+    final Client client = new ApacheClient.Builder().withReadThroughput(1000000).build();
+    final Request request =
+        new HttpRequest.Builder(Method.GET, this.objectUri, this.operation).build();
+    final Response response = client.execute(request).get();
+    assertThat(response.getBody().getSize(), is(1000L));
+  }
+
   @Test(expected = NullPointerException.class)
   public void responseBodyConsumerNullConsumerId() {
     new ApacheClient.Builder().withResponseBodyConsumer(null, mock(ResponseBodyConsumer.class))
@@ -559,6 +598,24 @@ public class ApacheClientTest {
     assertThat(response.getContext(), hasEntry("key", "value"));
   }
 
+  @Test(expected = IllegalArgumentException.class)
+  public void virtualThreadsUnsupported() {
+    assumeTrue(!VirtualThreads.isSupported());
+    new ApacheClient.Builder().usingVirtualThreads(true).build();
+  }
+
+  @Test
+  public void virtualThreads() throws InterruptedException, ExecutionException {
+    assumeTrue(VirtualThreads.isSupported());
+    final Client client = new ApacheClient.Builder().usingVirtualThreads(true).build();
+    final Request request = new HttpRequest.Builder(Method.GET, this.objectUri, this.operation)
+        .withContext(Context.X_OG_REQUEST_ID, "1").build();
+    final Response response = client.execute(request).get();
+    assertThat(response.getStatusCode(), is(200));
+    assertThat(response.getBody().getSize(), is(1000L));
+    assertThat(client.shutdown(false).get(), is(true));
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testNullTrustStoreWithTrustStorePassword() {
     new ApacheClient.Builder().withTrustStorePassword("password").build();
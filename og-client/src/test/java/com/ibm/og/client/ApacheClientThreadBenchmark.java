@@ -0,0 +1,267 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.client;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.ibm.og.api.Method;
+import com.ibm.og.api.Operation;
+import com.ibm.og.api.Request;
+import com.ibm.og.api.Response;
+import com.ibm.og.http.HttpRequest;
+
+/**
+ * A benchmark comparing {@code ApacheClient} request execution on pooled platform threads against
+ * virtual threads at high concurrency. A local server holds every request for a fixed delay, so
+ * throughput is bounded by concurrency / delay and the cost of keeping many blocked requests
+ * outstanding dominates. Not run as part of the test suite; run manually via {@code main} on Java
+ * 21 or later, once per thread mode so that memory is measured in a fresh jvm, passing the thread
+ * mode ({@code platform} or {@code virtual}), optionally the measurement duration in seconds and
+ * the concurrency levels to measure. Each connection holds two file descriptors in this jvm, so
+ * the open file limit must exceed twice the highest concurrency.
+ */
+public class ApacheClientThreadBenchmark {
+  private static final int[] CONCURRENCY = {10000, 50000};
+  private static final long DELAY_MILLIS = 100;
+  // connections are spread over loopback addresses so that ephemeral ports are not exhausted
+  private static final int CONNECTIONS_PER_ADDRESS = 20000;
+
+  public static void main(final String[] args) throws Exception {
+    final boolean virtual = "virtual".equals(args.length > 0 ? args[0] : "platform");
+    final long seconds = args.length > 1 ? Long.parseLong(args[1]) : 20;
+    int[] concurrency = CONCURRENCY;
+    if (args.length > 2) {
+      concurrency = new int[args.length - 2];
+      for (int i = 2; i < args.length; i++) {
+        concurrency[i - 2] = Integer.parseInt(args[i]);
+      }
+    }
+
+    final DelayServer server = new DelayServer(DELAY_MILLIS);
+    final Thread serverThread = new Thread(server, "delay-server");
+    serverThread.setDaemon(true);
+    serverThread.start();
+
+    System.out.println(String.format("%-9s %12s %12s %12s %10s %10s %10s", "threads",
+        "concurrency", "requests/s", "bound/s", "heap MB", "rss MB", "platform"));
+    for (final int c : concurrency) {
+      run(virtual, c, seconds, server.getPort());
+    }
+  }
+
+  private static void run(final boolean virtual, final int concurrency, final long seconds,
+      final int port) throws Exception {
+    final ApacheClient client = new ApacheClient.Builder().usingVirtualThreads(virtual)
+        .usingRequestLogging(false).withMaxIdleTime(Integer.MAX_VALUE).build();
+    final List<Request> requests = Lists.newArrayList();
+    for (int i = 0; i <= concurrency / CONNECTIONS_PER_ADDRESS; i++) {
+      final URI uri = new URI(String.format("http://127.0.0.%s:%s/object", i + 1, port));
+      requests.add(new HttpRequest.Builder(Method.GET, uri, Operation.READ).build());
+    }
+
+    final Semaphore permits = new Semaphore(concurrency);
+    final AtomicLong completed = new AtomicLong();
+    final AtomicLong failed = new AtomicLong();
+    final Thread issuer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        long i = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+          try {
+            permits.acquire();
+          } catch (final InterruptedException e) {
+            return;
+          }
+          final Request request = requests.get((int) (i++ % requests.size()));
+          Futures.addCallback(client.execute(request), new FutureCallback<Response>() {
+            @Override
+            public void onSuccess(final Response response) {
+              if (response.getStatusCode() != 200) {
+                failed.incrementAndGet();
+              }
+              completed.incrementAndGet();
+              permits.release();
+            }
+
+            @Override
+            public void onFailure(final Throwable t) {
+              failed.incrementAndGet();
+              permits.release();
+            }
+          });
+        }
+      }
+    }, "issuer");
+    issuer.start();
+
+    // ramp up to full concurrency before measuring
+    Thread.sleep(TimeUnit.SECONDS.toMillis(Math.max(seconds / 4, 1)));
+    final long startCompleted = completed.get();
+    final long start = System.nanoTime();
+    Thread.sleep(TimeUnit.SECONDS.toMillis(seconds) / 2);
+    System.gc();
+    final Runtime runtime = Runtime.getRuntime();
+    final long heap = runtime.totalMemory() - runtime.freeMemory();
+    final long rss = residentSetSize();
+    final int platformThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+    Thread.sleep(TimeUnit.SECONDS.toMillis(seconds) / 2);
+    final double elapsed = (System.nanoTime() - start) / 1e9;
+    final double throughput = (completed.get() - startCompleted) / elapsed;
+    // requests aborted by shutdown are not failures
+    final long failures = failed.get();
+
+    issuer.interrupt();
+    issuer.join();
+    client.shutdown(true).get();
+    System.out.println(String.format("%-9s %12d %12.0f %12.0f %10d %10s %10d",
+        virtual ? "virtual" : "platform", concurrency, throughput,
+        concurrency * 1000.0 / DELAY_MILLIS, heap >> 20, rss >= 0 ? rss >> 20 : "n/a",
+        platformThreads));
+    if (failures > 0) {
+      System.out.println(String.format("  %s failed requests", failures));
+    }
+  }
+
+  // resident set size in bytes, or -1 if unavailable on this platform
+  private static long residentSetSize() {
+    try {
+      final BufferedReader reader = new BufferedReader(new FileReader("/proc/self/status"));
+      try {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (line.startsWith("VmRSS:")) {
+            return Long.parseLong(line.replaceAll("[^0-9]", "")) << 10;
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (final IOException e) {
+      // not linux
+    }
+    return -1;
+  }
+
+  // a keep-alive http server which responds to each request without content after a fixed delay
+  private static class DelayServer implements Runnable {
+    private static final byte[] RESPONSE =
+        "HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n".getBytes(Charsets.ISO_8859_1);
+    private final long delayMillis;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Queue<Object[]> pending;
+
+    public DelayServer(final long delayMillis) throws IOException {
+      this.delayMillis = delayMillis;
+      this.selector = Selector.open();
+      this.server = ServerSocketChannel.open();
+      this.server.socket().bind(new InetSocketAddress(0), 65535);
+      this.server.configureBlocking(false);
+      this.server.register(this.selector, SelectionKey.OP_ACCEPT);
+      // the delay is fixed, so responses are due in arrival order
+      this.pending = new ArrayDeque<Object[]>();
+    }
+
+    public int getPort() {
+      return this.server.socket().getLocalPort();
+    }
+
+    @Override
+    public void run() {
+      final ByteBuffer buf = ByteBuffer.allocate(8192);
+      while (true) {
+        try {
+          final Object[] next = this.pending.peek();
+          final long wait =
+              next == null ? 0 : Math.max((Long) next[0] - System.currentTimeMillis(), 1);
+          this.selector.select(wait);
+          final Iterator<SelectionKey> it = this.selector.selectedKeys().iterator();
+          while (it.hasNext()) {
+            final SelectionKey key = it.next();
+            it.remove();
+            if (key.isAcceptable()) {
+              SocketChannel channel;
+              while ((channel = this.server.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.register(this.selector, SelectionKey.OP_READ, new int[1]);
+              }
+            } else if (key.isReadable()) {
+              read(key, buf);
+            }
+          }
+          respond();
+        } catch (final IOException e) {
+          e.printStackTrace();
+        }
+      }
+    }
+
+    private void read(final SelectionKey key, final ByteBuffer buf) throws IOException {
+      final SocketChannel channel = (SocketChannel) key.channel();
+      // the number of bytes of the request head terminator matched so far
+      final int[] matched = (int[]) key.attachment();
+      buf.clear();
+      final int bytesRead;
+      try {
+        bytesRead = channel.read(buf);
+      } catch (final IOException e) {
+        key.cancel();
+        channel.close();
+        return;
+      }
+      if (bytesRead < 0) {
+        key.cancel();
+        channel.close();
+        return;
+      }
+      for (int i = 0; i < bytesRead; i++) {
+        final byte b = buf.get(i);
+        final boolean match = b == (matched[0] % 2 == 0 ? '\r' : '\n');
+        matched[0] = match ? matched[0] + 1 : (b == '\r' ? 1 : 0);
+        if (matched[0] == 4) {
+          matched[0] = 0;
+          this.pending.add(new Object[] {System.currentTimeMillis() + this.delayMillis, key});
+        }
+      }
+    }
+
+    private void respond() throws IOException {
+      final long now = System.currentTimeMillis();
+      while (!this.pending.isEmpty() && (Long) this.pending.peek()[0] <= now) {
+        final SelectionKey key = (SelectionKey) this.pending.poll()[1];
+        if (key.isValid()) {
+          try {
+            ((SocketChannel) key.channel()).write(ByteBuffer.wrap(RESPONSE));
+          } catch (final IOException e) {
+            key.cancel();
+            key.channel().close();
+          }
+        }
+      }
+    }
+  }
+}
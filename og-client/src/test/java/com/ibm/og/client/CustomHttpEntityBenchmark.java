@@ -0,0 +1,133 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.impl.io.ContentLengthOutputStream;
+import org.apache.http.impl.io.HttpTransportMetricsImpl;
+import org.apache.http.impl.io.SessionOutputBufferImpl;
+
+import com.google.common.io.ByteStreams;
+import com.ibm.og.api.Body;
+import com.ibm.og.api.DataType;
+import com.ibm.og.api.Method;
+import com.ibm.og.api.Operation;
+import com.ibm.og.http.AuthenticatedHttpRequest;
+import com.ibm.og.http.Bodies;
+import com.ibm.og.http.HttpRequest;
+import com.ibm.og.util.io.InfiniteInputStream;
+import com.ibm.og.util.io.Streams;
+
+/**
+ * A benchmark of the cpu cost of writing request bodies, comparing {@code CustomHttpEntity}, which
+ * writes zeroes and random bodies in writes of up to {@code BodyInputStream.WRITE_LENGTH} bytes,
+ * against the previous path of copying the repeating pattern through an 8 KiB heap buffer. Bodies are written through an
+ * http connection's session output buffer to a loopback socket which another thread drains, and
+ * results are reported as bytes written per cpu second of the writing thread. Not run as part of
+ * the test suite; run manually via {@code main}, optionally passing the measurement duration in
+ * seconds.
+ */
+public class CustomHttpEntityBenchmark {
+  private static final long BODY_SIZE = 256L * 1024 * 1024;
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+  public static void main(final String[] args) throws Exception {
+    final long seconds = args.length > 0 ? Long.parseLong(args[0]) : 5;
+    final Socket socket = connectDrainedSocket();
+    System.out.println(
+        String.format("%-8s %-7s %14s %14s", "data", "path", "MB/cpu-s", "MB/s"));
+    for (final DataType data : new DataType[] {DataType.ZEROES, DataType.RANDOM}) {
+      for (final boolean entity : new boolean[] {false, true}) {
+        // warm up, then measure
+        run(data, entity, socket, 1);
+        run(data, entity, socket, seconds);
+      }
+    }
+    socket.close();
+  }
+
+  private static void run(final DataType data, final boolean entity, final Socket socket,
+      final long seconds) throws Exception {
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+    final long cpuStart = THREADS.getCurrentThreadCpuTime();
+    final long start = System.nanoTime();
+    long bytes = 0;
+    while (System.nanoTime() < deadline) {
+      final Body body =
+          data == DataType.ZEROES ? Bodies.zeroes(BODY_SIZE) : Bodies.random(BODY_SIZE);
+      final OutputStream out = connectionStream(socket);
+      if (entity) {
+        final HttpRequest request = new HttpRequest.Builder(Method.PUT,
+            new URI("http://127.0.0.1/container/object"), Operation.WRITE).withBody(body).build();
+        new CustomHttpEntity(new AuthenticatedHttpRequest(request), 0).writeTo(out);
+      } else {
+        ByteStreams.copy(previousContent(body), out);
+      }
+      out.close();
+      bytes += BODY_SIZE;
+    }
+    final double cpuSeconds = (THREADS.getCurrentThreadCpuTime() - cpuStart) / 1e9;
+    final double wallSeconds = (System.nanoTime() - start) / 1e9;
+    if (seconds > 1) {
+      System.out.println(String.format("%-8s %-7s %14.0f %14.0f", data.toString().toLowerCase(),
+          entity ? "entity" : "copy", bytes / cpuSeconds / 1e6, bytes / wallSeconds / 1e6));
+    }
+  }
+
+  // the body stream as created before bodies were written in large writes
+  private static InputStream previousContent(final Body body) {
+    final byte[] buf = new byte[Streams.REPEAT_LENGTH];
+    if (body.getDataType() == DataType.RANDOM) {
+      new Random(body.getRandomSeed()).nextBytes(buf);
+    }
+    return ByteStreams.limit(new InfiniteInputStream(buf), body.getSize());
+  }
+
+  // the stream an apache client connection gives an entity to write a fixed length body to
+  private static OutputStream connectionStream(final Socket socket) throws IOException {
+    final SessionOutputBufferImpl buffer =
+        new SessionOutputBufferImpl(new HttpTransportMetricsImpl(), 8192);
+    buffer.bind(socket.getOutputStream());
+    return new ContentLengthOutputStream(buffer, BODY_SIZE);
+  }
+
+  private static Socket connectDrainedSocket() throws IOException {
+    final ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    final Socket socket = new Socket();
+    socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort()));
+    final Socket accepted = server.accept();
+    server.close();
+    final Thread drain = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        final byte[] buf = new byte[1024 * 1024];
+        try {
+          final InputStream in = accepted.getInputStream();
+          while (in.read(buf) >= 0) {
+            // discard
+          }
+        } catch (final IOException e) {
+          // socket closed
+        }
+      }
+    }, "drain");
+    drain.setDaemon(true);
+    drain.start();
+    return socket;
+  }
+}
@@ -0,0 +1,601 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.client;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.any;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.matching;
+import static com.github.tomakehurst.wiremock.client.WireMock.putRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.net.BindException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mortbay.jetty.AbstractConnector;
+import org.mortbay.jetty.Connector;
+import org.mortbay.jetty.Server;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.RequestPatternBuilder;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.ibm.og.api.Body;
+import com.ibm.og.api.Client;
+import com.ibm.og.api.Method;
+import com.ibm.og.api.Operation;
+import com.ibm.og.api.Request;
+import com.ibm.og.api.Response;
+import com.ibm.og.http.BasicAuth;
+import com.ibm.og.http.Bodies;
+import com.ibm.og.http.HttpRequest;
+import com.ibm.og.http.ResponseBodyConsumer;
+import com.ibm.og.util.Context;
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+import com.tngtech.java.junit.dataprovider.UseDataProvider;
+
+@RunWith(DataProviderRunner.class)
+public class NioClientTest {
+  @ClassRule
+  public static final WireMockClassRule WIREMOCK_RULE = new WireMockClassRule(8080);
+
+  @Rule
+  public WireMockClassRule wireMockRule = WIREMOCK_RULE;
+  private Client client;
+  private URI objectUri;
+  private URI delayUri;
+  private Operation operation;
+
+  private static boolean acceptQueueResized;
+
+  @Before()
+  public void before() throws Exception {
+    if (!acceptQueueResized) {
+      resizeAcceptQueue();
+      acceptQueueResized = true;
+    }
+    this.client = new NioClient.Builder().withIoThreads(2).build();
+    stubFor(any(urlMatching("/container/.*")).willReturn(aResponse().withStatus(200)));
+
+    // read
+    stubFor(get(urlMatching("/container/.*"))
+        .willReturn(aResponse().withStatus(200).withBody(new byte[1000])));
+
+    stubFor(
+        get(urlEqualTo("/delayed")).willReturn(aResponse().withStatus(200).withFixedDelay(1000)));
+
+    stubFor(any(urlEqualTo("/301"))
+        .willReturn(aResponse().withStatus(301).withHeader("location", "/container/")));
+
+    stubFor(any(urlEqualTo("/307"))
+        .willReturn(aResponse().withStatus(307).withHeader("location", "/container/")));
+
+    this.objectUri = uri("/container/object");
+    this.delayUri = uri("/delayed");
+    this.operation = Operation.WRITE;
+  }
+
+  // wiremock listens with the default accept queue of 50, which concurrentRequests overflows when
+  // it connects all at once, and the kernel then resets some of the connections. Wiremock does not
+  // expose its connector, so reopen it with a larger queue
+  private static void resizeAcceptQueue() throws Exception {
+    final Server server =
+        (Server) field(field(WIREMOCK_RULE, WireMockClassRule.class, "wireMockServer"),
+            WireMockServer.class, "jettyServer");
+    for (final Connector connector : server.getConnectors()) {
+      connector.stop();
+      ((AbstractConnector) connector).setAcceptQueueSize(1024);
+      // the old socket stays bound until its acceptor thread has noticed the stop
+      for (int attempt = 1;; attempt++) {
+        try {
+          connector.start();
+          break;
+        } catch (final BindException e) {
+          if (attempt == 50) {
+            throw e;
+          }
+          Thread.sleep(100);
+        }
+      }
+    }
+  }
+
+  private static Object field(final Object instance, final Class<?> cls, final String name)
+      throws Exception {
+    final Field field = cls.getDeclaredField(name);
+    field.setAccessible(true);
+    return field.get(instance);
+  }
+
+  private static URI uri(final String path) throws URISyntaxException {
+    return new URI("http://127.0.0.1:8080" + path);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeConnectTimeout() {
+    new NioClient.Builder().withConnectTimeout(-1).build();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeSoTimeout() {
+    new NioClient.Builder().withSoTimeout(-1).build();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeSoLinger() {
+    new NioClient.Builder().withSoLinger(-2).build();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroMaxIdleTime() {
+    new NioClient.Builder().withMaxIdleTime(0).build();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroWaitForContinue() {
+    new NioClient.Builder().withWaitForContinue(0).build();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeIoThreads() {
+    new NioClient.Builder().withIoThreads(-1).build();
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullAuthentication() {
+    new NioClient.Builder().withAuthentication(null).build();
+  }
+
+  @DataProvider
+  public static Object[][] provideExecute() {
+    final Body zeroes = Bodies.zeroes(1000);
+    final Body none = Bodies.none();
+    final String content = new String(new byte[1000]);
+
+    return new Object[][] {{Method.PUT, none, "", none}, {Method.PUT, zeroes, content, none},
+        {Method.POST, none, "", none}, {Method.POST, zeroes, content, none},
+        {Method.GET, none, "", zeroes}, {Method.HEAD, none, "", none},
+        {Method.DELETE, none, "", none}};
+  }
+
+  @Test
+  @UseDataProvider("provideExecute")
+  public void execute(final Method method, final Body requestBody, final String requestData,
+      final Body responseBody) throws InterruptedException, ExecutionException {
+    final Request request = new HttpRequest.Builder(method, this.objectUri, this.operation)
+        .withBody(requestBody).build();
+    final Response response = this.client.execute(request).get();
+
+    assertThat(response.getStatusCode(), is(200));
+    assertThat(response.getBody().getDataType(), is(responseBody.getDataType()));
+    assertThat(response.getBody().getSize(), is(responseBody.getSize()));
+
+    verify(requestedFor(method, this.objectUri.getPath()).withRequestBody(equalTo(requestData)));
+  }
+
+  @Test
+  public void concurrentRequests() throws InterruptedException, ExecutionException {
+    // more outstanding requests than io threads, each on a pooled connection once complete
+    final List<ListenableFuture<Response>> futures = Lists.newArrayList();
+    for (int i = 0; i < 200; i++) {
+      final Method method = i % 2 == 0 ? Method.GET : Method.PUT;
+      final Body body = i % 2 == 0 ? Bodies.none() : Bodies.zeroes(100000);
+      futures.add(this.client.execute(
+          new HttpRequest.Builder(method, this.objectUri, this.operation).withBody(body).build()));
+    }
+    for (final ListenableFuture<Response> future : futures) {
+      assertThat(future.get().getStatusCode(), is(200));
+    }
+  }
+
+  @Test
+  public void requestHeaders() throws InterruptedException, ExecutionException {
+    final Request request = new HttpRequest.Builder(Method.PUT, this.objectUri, this.operation)
+        .withHeader("key", "value").build();
+    this.client.execute(request).get();
+    verify(
+        putRequestedFor(urlEqualTo(this.objectUri.getPath())).withHeader("key", equalTo("value")));
+  }
+
+  @DataProvider
+  public static Object[][] provideEncode() {
+    final String contentLength = "Content-Length";
+    final String transferEncoding = "Transfer-Encoding";
+    return new Object[][] {{false, contentLength, "40000", transferEncoding},
+        {true, transferEncoding, "chunked", contentLength},};
+  }
+
+  @Test
+  @UseDataProvider("provideEncode")
+  public void encode(final boolean chunk, final String key, final String value, final String absent)
+      throws InterruptedException, ExecutionException {
+    final Client client = new NioClient.Builder().usingChunkedEncoding(chunk).build();
+    final Request request = new HttpRequest.Builder(Method.PUT, this.objectUri, this.operation)
+        .withBody(Bodies.zeroes(40000)).build();
+    assertThat(client.execute(request).get().getStatusCode(), is(200));
+    verify(putRequestedFor(urlEqualTo(this.objectUri.getPath())).withHeader(key, equalTo(value))
+        .withoutHeader(absent).withRequestBody(equalTo(new String(new byte[40000]))));
+  }
+
+  @Test
+  public void expect100Continue() throws InterruptedException, ExecutionException {
+    final Client client = new NioClient.Builder().usingExpectContinue(true).build();
+    final Request request = new HttpRequest.Builder(Method.PUT, this.objectUri, this.operation)
+        .withBody(Bodies.zeroes(2048)).build();
+    assertThat(client.execute(request).get().getStatusCode(), is(200));
+    verify(putRequestedFor(urlEqualTo(this.objectUri.getPath())).withHeader("Expect",
+        equalTo("100-continue")));
+  }
+
+  @Test
+  public void authentication() throws InterruptedException, ExecutionException {
+    final Client client = new NioClient.Builder().withAuthentication(new BasicAuth()).build();
+    final Request request = new HttpRequest.Builder(Method.GET, this.objectUri, this.operation)
+        .withContext(Context.X_OG_USERNAME, "test").withContext(Context.X_OG_PASSWORD, "test")
+        .build();
+    client.execute(request).get();
+    verify(getRequestedFor(urlEqualTo(this.objectUri.getPath())).withHeader("Authorization",
+        matching("Basic .*")));
+  }
+
+  @Test
+  public void userAgent() throws InterruptedException, ExecutionException {
+    final Client client = new NioClient.Builder().withUserAgent("testUserAgent").build();
+    final Request request =
+        new HttpRequest.Builder(Method.GET, this.objectUri, this.operation).build();
+    client.execute(request).get();
+    verify(getRequestedFor(urlEqualTo(this.objectUri.getPath())).withHeader("User-Agent",
+        equalTo("testUserAgent")));
+  }
+
+  @Test
+  public void soTimeoutExceeded() throws InterruptedException, ExecutionException {
+    final Client client = new NioClient.Builder().withSoTimeout(1).build();
+    final Request request =
+        new HttpRequest.Builder(Method.GET, this.delayUri, this.operation).build();
+    final Response response = client.execute(request).get();
+    assertThat(response.getStatusCode(), is(599));
+  }
+
+  @Test
+  public void unsupportedScheme() throws InterruptedException, ExecutionException,
+      URISyntaxException {
+    final Request request = new HttpRequest.Builder(Method.GET,
+        new URI("ftp://127.0.0.1:8080/container/object"), this.operation).build();
+    assertThat(this.client.execute(request).get().getStatusCode(), is(599));
+  }
+
+  @Test
+  public void https() throws Exception {
+    final WireMockServer server = new WireMockServer(8081, 8443);
+    server.start();
+    try {
+      final WireMock wireMock = new WireMock("127.0.0.1", 8081);
+      wireMock.register(any(urlMatching("/container/.*"))
+          .willReturn(aResponse().withStatus(200).withBody(new byte[1000])));
+      final Client client =
+          new NioClient.Builder().usingTrustSelfSignedCertificates(true).build();
+      final URI uri = new URI("https://127.0.0.1:8443/container/object");
+      final Request write = new HttpRequest.Builder(Method.PUT, uri, this.operation)
+          .withBody(Bodies.zeroes(100000)).build();
+      assertThat(client.execute(write).get().getStatusCode(), is(200));
+      final Response read =
+          client.execute(new HttpRequest.Builder(Method.GET, uri, this.operation).build()).get();
+      assertThat(read.getStatusCode(), is(200));
+      assertThat(read.getBody().getSize(), is(1000L));
+      wireMock.verifyThat(putRequestedFor(urlEqualTo(uri.getPath()))
+          .withRequestBody(equalTo(new String(new byte[100000]))));
+      client.shutdown(true).get();
+    } finally {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void httpsUntrustedCertificate() throws Exception {
+    final WireMockServer server = new WireMockServer(8081, 8443);
+    server.start();
+    try {
+      final Request request = new HttpRequest.Builder(Method.GET,
+          new URI("https://127.0.0.1:8443/container/object"), this.operation).build();
+      assertThat(this.client.execute(request).get().getStatusCode(), is(599));
+    } finally {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void requestId() throws InterruptedException, ExecutionException {
+    final Request request = new HttpRequest.Builder(Method.GET, this.objectUri, this.operation)
+        .withContext(Context.X_OG_REQUEST_ID, "1").build();
+    final Response response = this.client.execute(request).get();
+    assertThat(response.getContext(), hasEntry(Context.X_OG_REQUEST_ID, "1"));
+  }
+
+  @Test
+  public void immediateShutdown() throws InterruptedException, ExecutionException {
+    final Request request =
+        new HttpRequest.Builder(Method.GET, this.delayUri, this.operation).build();
+    final ListenableFuture<Response> future = this.client.execute(request);
+    final long start = System.nanoTime();
+    this.client.shutdown(true).get();
+    final long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    assertThat(duration, lessThan(1000L));
+    assertThat(future.get().getStatusCode(), is(599));
+  }
+
+  @Test
+  public void gracefulShutdown() throws InterruptedException, ExecutionException {
+    final Request request =
+        new HttpRequest.Builder(Method.GET, this.delayUri, this.operation).build();
+    final ListenableFuture<Response> future = this.client.execute(request);
+    final long start = System.nanoTime();
+    this.client.shutdown(false).get();
+    final long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    // graceful shutdown takes at least request time
+    assertThat(duration, greaterThanOrEqualTo(900L));
+    assertThat(future.get().getStatusCode(), is(200));
+  }
+
+  @DataProvider
+  public static Object[][] provideRedirect() throws URISyntaxException {
+    final URI one = uri("/301");
+    final URI three = uri("/307");
+    final Body zeroes = Bodies.zeroes(1000);
+    final Body none = Bodies.none();
+    final String content = new String(new byte[1000]);
+    return new Object[][] {{Method.PUT, one, zeroes, content, none, false},
+        {Method.PUT, three, zeroes, content, none, true},
+        {Method.GET, one, none, "", zeroes, false}, {Method.GET, three, none, "", zeroes, false},
+        {Method.HEAD, three, none, "", none, false},
+        {Method.DELETE, three, none, "", none, false},};
+  }
+
+  @Test
+  @UseDataProvider("provideRedirect")
+  public void redirect(final Method method, final URI uri, final Body requestBody,
+      final String requestData, final Body responseBody, final boolean chunkedEncoding)
+      throws InterruptedException, ExecutionException {
+    final Client client = new NioClient.Builder().usingChunkedEncoding(chunkedEncoding).build();
+    final Request request =
+        new HttpRequest.Builder(method, uri, this.operation).withBody(requestBody).build();
+    final Response response = client.execute(request).get();
+    assertThat(response.getStatusCode(), is(200));
+    assertThat(response.getBody().getDataType(), is(responseBody.getDataType()));
+    assertThat(response.getBody().getSize(), is(responseBody.getSize()));
+    verify(requestedFor(method, uri.getPath()).withRequestBody(equalTo(requestData)));
+    verify(requestedFor(method, "/container/").withRequestBody(equalTo(requestData)));
+  }
+
+  private RequestPatternBuilder requestedFor(final Method method, final String uri) {
+    return new RequestPatternBuilder(RequestMethod.fromString(method.toString()), urlEqualTo(uri));
+  }
+
+  @Test
+  public void responseBodyConsumer() throws InterruptedException, ExecutionException {
+    final Request request = new HttpRequest.Builder(Method.GET, this.objectUri, this.operation)
+        .withContext(Context.X_OG_RESPONSE_BODY_CONSUMER, "consumer").build();
+    final Client client =
+        new NioClient.Builder().withResponseBodyConsumer("consumer", new ResponseBodyConsumer() {
+          @Override
+          public Map<String, String> consume(final int statusCode, final InputStream response)
+              throws IOException {
+            return ImmutableMap.of("length",
+                String.valueOf(ByteStreams.toByteArray(response).length));
+          }
+        }).build();
+    final Response response = client.execute(request).get();
+    assertThat(response.getContext(), hasEntry("length", "1000"));
+  }
+
+  @Test
+  public void slowResponseBodyConsumer() throws Exception {
+    // content well beyond what is buffered for the consumer; reading pauses while the consumer
+    // catches up, which must not count towards the socket timeout
+    stubFor(get(urlEqualTo("/large"))
+        .willReturn(aResponse().withStatus(200).withBody(new byte[1048576])));
+    final Request request = new HttpRequest.Builder(Method.GET, uri("/large"), this.operation)
+        .withContext(Context.X_OG_RESPONSE_BODY_CONSUMER, "consumer").build();
+    final Client client = new NioClient.Builder().withSoTimeout(100)
+        .withResponseBodyConsumer("consumer", new ResponseBodyConsumer() {
+          @Override
+          public Map<String, String> consume(final int statusCode, final InputStream response)
+              throws IOException {
+            final byte[] buf = new byte[8192];
+            long length = 0;
+            int bytesRead;
+            try {
+              Thread.sleep(300);
+              while ((bytesRead = response.read(buf)) >= 0) {
+                length += bytesRead;
+                if (length % 262144 == 0) {
+                  Thread.sleep(50);
+                }
+              }
+            } catch (final InterruptedException e) {
+              throw new IOException(e);
+            }
+            return ImmutableMap.of("length", String.valueOf(length));
+          }
+        }).build();
+    final Response response = client.execute(request).get();
+    assertThat(response.getStatusCode(), is(200));
+    assertThat(response.getContext(), hasEntry("length", "1048576"));
+  }
+
+  @Test
+  public void partialResponseBodyConsumer() throws Exception {
+    // content the consumer does not read is discarded, leaving the connection reusable
+    stubFor(get(urlEqualTo("/large"))
+        .willReturn(aResponse().withStatus(200).withBody(new byte[1048576])));
+    final Request request = new HttpRequest.Builder(Method.GET, uri("/large"), this.operation)
+        .withContext(Context.X_OG_RESPONSE_BODY_CONSUMER, "consumer").build();
+    final Client client =
+        new NioClient.Builder().withResponseBodyConsumer("consumer", new ResponseBodyConsumer() {
+          @Override
+          public Map<String, String> consume(final int statusCode, final InputStream response)
+              throws IOException {
+            return ImmutableMap.of("first", String.valueOf(response.read()));
+          }
+        }).build();
+    for (int i = 0; i < 2; i++) {
+      final Response response = client.execute(request).get();
+      assertThat(response.getStatusCode(), is(200));
+      assertThat(response.getContext(), hasEntry("first", "0"));
+    }
+  }
+
+  @Test
+  public void failingResponseBodyConsumer() throws InterruptedException, ExecutionException {
+    final Request request = new HttpRequest.Builder(Method.GET, this.objectUri, this.operation)
+        .withContext(Context.X_OG_RESPONSE_BODY_CONSUMER, "consumer").build();
+    final Client client =
+        new NioClient.Builder().withResponseBodyConsumer("consumer", new ResponseBodyConsumer() {
+          @Override
+          public Map<String, String> consume(final int statusCode, final InputStream response)
+              throws IOException {
+            throw new IOException("consumer failure");
+          }
+        }).build();
+    assertThat(client.execute(request).get().getStatusCode(), is(599));
+  }
+
+  @Test
+  public void chunkedResponse() throws Exception {
+    // a chunked response followed by a response delimited by connection close, on one connection
+    final ServerSocket server = new ServerSocket(0);
+    final Thread t = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          final Socket socket = server.accept();
+          final InputStream in = socket.getInputStream();
+          final OutputStream out = socket.getOutputStream();
+          readHead(in);
+          out.write(("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+              + "5;ext=1\r\nhello\r\n6\r\n world\r\n0\r\nTrailer: x\r\n\r\n")
+                  .getBytes(Charsets.ISO_8859_1));
+          out.flush();
+          readHead(in);
+          out.write("HTTP/1.0 200 OK\r\n\r\nabc".getBytes(Charsets.ISO_8859_1));
+          socket.close();
+        } catch (final Exception e) {
+          // the client observes the failure
+        }
+      }
+    });
+    t.start();
+    try {
+      final URI uri = new URI("http://127.0.0.1:" + server.getLocalPort() + "/object");
+      final Request request = new HttpRequest.Builder(Method.GET, uri, this.operation).build();
+      final Client client = new NioClient.Builder().withIoThreads(1).build();
+      final Response chunked = client.execute(request).get();
+      assertThat(chunked.getStatusCode(), is(200));
+      assertThat(chunked.getBody().getSize(), is(11L));
+      final Response untilClose = client.execute(request).get();
+      assertThat(untilClose.getStatusCode(), is(200));
+      assertThat(untilClose.getBody().getSize(), is(3L));
+    } finally {
+      t.join(10000);
+      server.close();
+    }
+  }
+
+  @DataProvider
+  public static Object[][] provideConnectionClosed() {
+    return new Object[][] {{Method.GET, true, 200, 2}, {Method.DELETE, true, 200, 2},
+        {Method.POST, true, 599, 1}, {Method.GET, false, 599, 1}};
+  }
+
+  @Test
+  @UseDataProvider("provideConnectionClosed")
+  public void connectionClosed(final Method method, final boolean requestSentRetry,
+      final int statusCode, final int requests) throws Exception {
+    // the first connection is closed once the request has been sent, the second is answered
+    final ServerSocket server = new ServerSocket(0);
+    server.setSoTimeout(1000);
+    final AtomicInteger received = new AtomicInteger();
+    final Thread t = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          final Socket closed = server.accept();
+          readHead(closed.getInputStream());
+          received.incrementAndGet();
+          closed.close();
+          final Socket socket = server.accept();
+          readHead(socket.getInputStream());
+          received.incrementAndGet();
+          socket.getOutputStream()
+              .write("HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n".getBytes(Charsets.ISO_8859_1));
+          socket.close();
+        } catch (final Exception e) {
+          // the client observes the failure
+        }
+      }
+    });
+    t.start();
+    try {
+      final URI uri = new URI("http://127.0.0.1:" + server.getLocalPort() + "/object");
+      final Request request = new HttpRequest.Builder(method, uri, this.operation).build();
+      final Client client = new NioClient.Builder().withIoThreads(1)
+          .usingRequestSentRetry(requestSentRetry).build();
+      assertThat(client.execute(request).get().getStatusCode(), is(statusCode));
+    } finally {
+      t.join(10000);
+      server.close();
+    }
+    assertThat(received.get(), is(requests));
+  }
+
+  private static void readHead(final InputStream in) throws IOException {
+    // read until the blank line terminating a request without content
+    int matched = 0;
+    final byte[] terminator = "\r\n\r\n".getBytes(Charsets.ISO_8859_1);
+    while (matched < terminator.length) {
+      final int b = in.read();
+      if (b < 0) {
+        throw new EOFException();
+      }
+      matched = b == terminator[matched] ? matched + 1 : (b == terminator[0] ? 1 : 0);
+    }
+  }
+}
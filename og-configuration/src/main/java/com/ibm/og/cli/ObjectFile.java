@@ -23,9 +23,14 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import com.ibm.og.object.LegacyObjectMetadata;
+import com.ibm.og.object.ObjectFileFormat;
+import com.ibm.og.object.ObjectFileReader;
+import com.ibm.og.object.ObjectFileWriter;
 import com.ibm.og.object.RandomObjectPopulator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,14 +67,21 @@ public class ObjectFile {
     }
 
     final File input = getopt.getInput();
+    final List<File> inputs = getopt.getInputs();
 
     final boolean write = getopt.getWrite();
     final boolean read = getopt.getRead();
     final boolean filter = getopt.getFilter();
     final boolean upgrade = getopt.getUpgrade();
     final boolean split = getopt.getSplit();
+    final boolean merge = getopt.getMerge();
+    final boolean sort = getopt.getSort();
+    final boolean dedupe = getopt.getDedupe();
+    final boolean stats = getopt.getStats();
     final int splitSize = getopt.getSplitSize();
     final String output = getopt.getOutput();
+    final ObjectFileFormat format = getopt.getFormat();
+    final int threads = getopt.getThreads();
     final long minFilesize = getopt.getMinSize();
     final long maxFilesize = getopt.getMaxSize();
     final int minContainerSuffix = getopt.getMinSuffix();
@@ -78,27 +90,86 @@ public class ObjectFile {
     final Set<Integer> containerSuffixes = getopt.getContainerSuffixes();
 
     try {
-      final InputStream in = getInputStream(input);
       final OutputStream out;
 
-      if (write) {
-        out = getOutputStream(split, splitSize, output);
-        write(in, out);
+      // object file input of either format is decoded to plain records by getObjectInputStream;
+      // named input files are instead memory mapped and processed in parallel
+      final ObjectFileProcessor processor =
+          input != null ? new ObjectFileProcessor(threads) : null;
+      if (stats) {
+        out = getOutputStream(output);
+        final ObjectFileStats statistics = new ObjectFileStats();
+        for (final File f : inputFiles(inputs)) {
+          final InputStream in = getObjectInputStream(f);
+          try {
+            statistics.add(in);
+          } finally {
+            in.close();
+          }
+        }
+        statistics.print(out);
+      } else if (sort || dedupe) {
+        out = getOutputStream(split, splitSize, output, format);
+        final ObjectFileSorter sorter = new ObjectFileSorter(getopt.getSortBufferSize(),
+            getopt.getTempDir(), dedupe);
+        for (final File f : inputFiles(inputs)) {
+          final InputStream in = getObjectInputStream(f);
+          try {
+            sorter.add(in);
+          } finally {
+            in.close();
+          }
+        }
+        sorter.finish(out);
+      } else if (merge) {
+        out = getOutputStream(split, splitSize, output, format);
+        for (final File f : inputFiles(inputs)) {
+          final InputStream in = getObjectInputStream(f);
+          try {
+            split(in, out);
+          } finally {
+            in.close();
+          }
+        }
+      } else if (write) {
+        out = getOutputStream(split, splitSize, output, format);
+        write(getInputStream(input), out);
       } else if (read) {
         out = getOutputStream(output);
-        read(in, out);
+        if (processor != null) {
+          processor.process(input, ObjectFileProcessor.read(), out);
+        } else {
+          read(getObjectInputStream(input), out);
+        }
       } else if (filter) {
-        out = getOutputStream(split, splitSize, output);
-        filter(in, out, minFilesize, maxFilesize, minContainerSuffix, maxContainerSuffix, containerSuffixes);
+        out = getOutputStream(split, splitSize, output, format);
+        if (processor != null) {
+          processor.process(input, ObjectFileProcessor.filter(minFilesize, maxFilesize,
+              minContainerSuffix, maxContainerSuffix, containerSuffixes), out);
+        } else {
+          filter(getObjectInputStream(input), out, minFilesize, maxFilesize, minContainerSuffix, maxContainerSuffix, containerSuffixes);
+        }
       } else if (upgrade) {
-        out = getOutputStream(split, splitSize, output);
-        upgrade(in, out);
+        out = getOutputStream(split, splitSize, output, format);
+        if (processor != null) {
+          processor.upgrade(input, out);
+        } else {
+          upgrade(getInputStream(input), out);
+        }
       } else if (split) { // Order matters here - write, filter, upgrade must be above
-        out = getOutputStream(split, splitSize, output);
-        split(in, out);
-      } else { // Default case - just output the same file
-        out = getOutputStream(output);
-        ByteStreams.copy(in, out);
+        out = getOutputStream(split, splitSize, output, format);
+        if (processor != null) {
+          processor.process(input, ObjectFileProcessor.copy(), out);
+        } else {
+          split(getObjectInputStream(input), out);
+        }
+      } else { // Default case - copy the same objects, converting between formats if requested
+        out = getOutputStream(split, splitSize, output, format);
+        if (processor != null) {
+          processor.process(input, ObjectFileProcessor.copy(), out, true);
+        } else {
+          ByteStreams.copy(getObjectInputStream(input), out);
+        }
       }
 
       if (!out.equals(System.out)) {
@@ -120,6 +191,19 @@ public class ObjectFile {
     return new BufferedInputStream(in);
   }
 
+  // stdin is represented by a null input file
+  static List<File> inputFiles(final List<File> inputs) {
+    if (inputs.isEmpty()) {
+      return Collections.singletonList(null);
+    }
+    return inputs;
+  }
+
+  // an object file input stream of either format, yielding plain records
+  public static InputStream getObjectInputStream(final File input) throws IOException {
+    return new ObjectFileReader(getInputStream(input));
+  }
+
   public static OutputStream getOutputStream(final boolean split, final int splitSize,
       final String output) throws FileNotFoundException {
     if (split) {
@@ -134,6 +218,21 @@ public class ObjectFile {
     }
   }
 
+  // v2 object files are written atomically, so they require a named output
+  public static OutputStream getOutputStream(final boolean split, final int splitSize,
+      final String output, final ObjectFileFormat format) throws IOException {
+    if (ObjectFileFormat.V1 == checkNotNull(format)) {
+      return getOutputStream(split, splitSize, output);
+    }
+    checkNotNull(output, "v2 object files require an output");
+    if (split) {
+      final int maxObjects = splitSize > 0 ? splitSize / RandomObjectPopulator.OBJECT_SIZE
+          : RandomObjectPopulator.MAX_OBJECT_ARG;
+      return new ObjectFileOutputStream(output, maxObjects, RandomObjectPopulator.SUFFIX, format);
+    }
+    return new ObjectFileWriter(new File(output), format);
+  }
+
   public static OutputStream getOutputStream(final String output) throws FileNotFoundException {
     if (output != null) {
       return new FileOutputStream(output);
@@ -185,14 +284,7 @@ public class ObjectFile {
           throws IOException {
     checkNotNull(in);
     checkNotNull(out);
-    checkArgument(minFilesize >= 0, "minFilesize must be >= 0 [%s]", minFilesize);
-    checkArgument(minFilesize <= maxFilesize, "minFilesize must be <= maxFilesize [%s, %s]",
-        minFilesize, maxFilesize);
-    checkArgument(minContainerSuffix >= -1, "minContainerSuffix must be >= -1 [%s]",
-        minContainerSuffix);
-    checkArgument(minContainerSuffix <= maxContainerSuffix,
-        "minContainerSuffix must be <= maxContainerSuffix [%s, %s]", minContainerSuffix,
-        maxContainerSuffix);
+    checkFilter(minFilesize, maxFilesize, minContainerSuffix, maxContainerSuffix);
 
     final byte[] buf = new byte[LegacyObjectMetadata.OBJECT_SIZE];
     final MutableObjectMetadata object = new MutableObjectMetadata();
@@ -210,6 +302,18 @@ public class ObjectFile {
     }
   }
 
+  static void checkFilter(final long minFilesize, final long maxFilesize,
+      final int minContainerSuffix, final int maxContainerSuffix) {
+    checkArgument(minFilesize >= 0, "minFilesize must be >= 0 [%s]", minFilesize);
+    checkArgument(minFilesize <= maxFilesize, "minFilesize must be <= maxFilesize [%s, %s]",
+        minFilesize, maxFilesize);
+    checkArgument(minContainerSuffix >= -1, "minContainerSuffix must be >= -1 [%s]",
+        minContainerSuffix);
+    checkArgument(minContainerSuffix <= maxContainerSuffix,
+        "minContainerSuffix must be <= maxContainerSuffix [%s, %s]", minContainerSuffix,
+        maxContainerSuffix);
+  }
+
   public static void split(final InputStream in, final OutputStream out)
       throws IOException {
     checkNotNull(in);
@@ -274,11 +378,25 @@ public class ObjectFile {
     private int written;
     private final int maxObjects;
     private final String suffix;
+    private final ObjectFileFormat format;
     private OutputStream out;
 
     public ObjectFileOutputStream(final String prefix, final int maxObjects, final String suffix)
         throws FileNotFoundException {
       this.prefix = checkNotNull(prefix);
+      this.format = ObjectFileFormat.V1;
+      this.index = 0;
+      this.written = 0;
+      checkArgument(maxObjects > 0, "maxObjects must be > 0 [%s]", maxObjects);
+      this.maxObjects = maxObjects;
+      this.suffix = checkNotNull(suffix);
+      this.out = new BufferedOutputStream(new FileOutputStream(name()));
+    }
+
+    public ObjectFileOutputStream(final String prefix, final int maxObjects, final String suffix,
+        final ObjectFileFormat format) throws IOException {
+      this.prefix = checkNotNull(prefix);
+      this.format = checkNotNull(format);
       this.index = 0;
       this.written = 0;
       checkArgument(maxObjects > 0, "maxObjects must be > 0 [%s]", maxObjects);
@@ -287,9 +405,15 @@ public class ObjectFile {
       this.out = create();
     }
 
-    private OutputStream create() throws FileNotFoundException {
-      return new BufferedOutputStream(
-          new FileOutputStream(String.format("%s%d%s", this.prefix, this.index, this.suffix)));
+    private String name() {
+      return String.format("%s%d%s", this.prefix, this.index, this.suffix);
+    }
+
+    private OutputStream create() throws IOException {
+      if (ObjectFileFormat.V1 == this.format) {
+        return new BufferedOutputStream(new FileOutputStream(name()));
+      }
+      return new ObjectFileWriter(new File(name()), this.format);
     }
 
     @Override
@@ -305,6 +429,28 @@ public class ObjectFile {
       this.written++;
     }
 
+    // writes a run of whole records, which may span several object files
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      final int recordSize = LegacyObjectMetadata.OBJECT_SIZE;
+      checkArgument(len % recordSize == 0, "len must be a multiple of %s [%s]", recordSize, len);
+      int position = off;
+      int records = len / recordSize;
+      while (records > 0) {
+        if (this.written >= this.maxObjects) {
+          this.index++;
+          this.out.close();
+          this.out = create();
+          this.written = 0;
+        }
+        final int run = Math.min(records, this.maxObjects - this.written);
+        this.out.write(b, position, run * recordSize);
+        this.written += run;
+        position += run * recordSize;
+        records -= run;
+      }
+    }
+
     @Override
     public void write(final int b) throws IOException {
       throw new IOException("ObjectFileOutputStream.write(b) should not be called");
@@ -10,6 +10,9 @@ import com.beust.jcommander.converters.FileConverter;
 import com.beust.jcommander.converters.LongConverter;
 import com.beust.jcommander.converters.IntegerConverter;
 import com.ibm.og.cli.util.IntegerSetConverter;
+import com.ibm.og.cli.util.ObjectFileFormatConverter;
+import com.ibm.og.object.LegacyObjectMetadata;
+import com.ibm.og.object.ObjectFileFormat;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -72,11 +75,45 @@ public class ObjectFileGetOpt extends GetOpt {
             "       (default: -1)", converter = IntegerConverter.class)
     private int splitSize = -1;
 
+    @Parameter(names = {"--format"}, description = "Object file format of the output of a --write, --filter, --upgrade,\n" +
+            "        --split, --merge, --sort, --dedupe or copy call, v1 or v2; v2 output requires --output (default: v1)",
+            converter = ObjectFileFormatConverter.class)
+    private ObjectFileFormat format = ObjectFileFormat.V1;
+
+    @Parameter(names = {"--threads"}, description = "Number of threads used to process an input file, rather than stdin\n" +
+            "        (default: number of available processors)", converter = IntegerConverter.class)
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Parameter(names = {"--merge", "-m"}, description = "Merge one or more object file sources into a single output in object\n" +
+            "        file format")
+    private boolean merge;
+
+    @Parameter(names = {"--sort"}, description = "Sort one or more object file sources by object name and output in object\n" +
+            "        file format, using at most --sort-buffer-size bytes of memory")
+    private boolean sort;
+
+    @Parameter(names = {"--dedupe"}, description = "Sort one or more object file sources by object name, keeping only the\n" +
+            "        last record for each object name, and output in object file format")
+    private boolean dedupe;
+
+    @Parameter(names = {"--stats"}, description = "Output the record count, object size histogram and per container suffix\n" +
+            "        record counts of one or more object file sources in plain text")
+    private boolean stats;
+
+    @Parameter(names = {"--sort-buffer-size"}, description = "Size of the in-memory buffer used by --sort and --dedupe, in bytes\n" +
+            "        (default: 67108864)", converter = IntegerConverter.class)
+    private int sortBufferSize = ObjectFileSorter.DEFAULT_BUFFER_SIZE;
+
+    @Parameter(names = {"--temp-dir"}, description = "Directory for the temporary files written by --sort and --dedupe\n" +
+            "        (default: the system temporary directory)")
+    private String tempDir;
+
     @Parameter(names= {"--output", "-o"}, description = "A relative or absolute path to an output file, rather than stdout")
     private String output;
 
-    @Parameter(description = "A relative or absolute path to an input file, rather than stdin")
-    private List<String> input = new ArrayList<String>(); // main parameter - currently only input file is expected.
+    @Parameter(description = "A relative or absolute path to an input file, rather than stdin. --merge, --sort,\n" +
+            "        --dedupe and --stats accept several input files")
+    private List<String> input = new ArrayList<String>(); // main parameter
 
     public boolean getWrite() {
         return write;
@@ -122,6 +159,38 @@ public class ObjectFileGetOpt extends GetOpt {
         return splitSize;
     }
 
+    public ObjectFileFormat getFormat() {
+        return format;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public boolean getMerge() {
+        return merge;
+    }
+
+    public boolean getSort() {
+        return sort;
+    }
+
+    public boolean getDedupe() {
+        return dedupe;
+    }
+
+    public boolean getStats() {
+        return stats;
+    }
+
+    public int getSortBufferSize() {
+        return sortBufferSize;
+    }
+
+    public File getTempDir() {
+        return tempDir != null ? new FileConverter().convert(tempDir) : null;
+    }
+
     public String getOutput() {
         return output;
     }
@@ -136,6 +205,16 @@ public class ObjectFileGetOpt extends GetOpt {
         }
     }
 
+    public List<File> getInputs() {
+        final List<File> files = new ArrayList<File>();
+        if (input != null) {
+            for (final String s : input) {
+                files.add(new FileConverter().convert(s));
+            }
+        }
+        return files;
+    }
+
     @Override
     public boolean validate() {
         if (help || version) {
@@ -144,7 +223,14 @@ public class ObjectFileGetOpt extends GetOpt {
         }
         // if no input argument stdin is used so check for more than 1 argument
         checkNotNull(input);
-        checkArgument(input.size() <= 1, "Invalid command line arguments. Only one input file or stdin is expected");
+        checkArgument(input.size() <= 1 || merge || sort || dedupe || stats,
+                "Invalid command line arguments. Only one input file or stdin is expected");
+        checkArgument(sortBufferSize >= LegacyObjectMetadata.OBJECT_SIZE,
+                "Invalid command line arguments. --sort-buffer-size must be >= %s", LegacyObjectMetadata.OBJECT_SIZE);
+        checkArgument(threads > 0, "Invalid command line arguments. --threads must be > 0");
+        // v2 object files are written to a temporary file and renamed, which stdout does not allow
+        checkArgument(format == ObjectFileFormat.V1 || read || stats || output != null,
+                "Invalid command line arguments. --format v2 requires --output");
         
         return true;
     }
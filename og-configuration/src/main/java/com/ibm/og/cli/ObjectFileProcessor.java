@@ -0,0 +1,432 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.cli;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.base.Charsets;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.ibm.og.object.LegacyObjectMetadata;
+import com.ibm.og.object.ObjectFileFormat;
+import com.ibm.og.object.ObjectFiles;
+
+/**
+ * Processes an object file in parallel. The file is memory mapped in record aligned chunks, whole
+ * blocks for v2 object files whose checksums are validated, and each chunk is transformed by a
+ * pool of worker threads into an output buffer. Buffers are written to the output in input order,
+ * so output is byte-identical to processing the file sequentially, and at most two chunks per
+ * thread are buffered at once. Transforms write directly into reusable buffers and do not allocate
+ * per record.
+ *
+ * @since 1.0
+ */
+public class ObjectFileProcessor {
+  public static final int DEFAULT_CHUNK_RECORDS = 1 << 16;
+  private static final int RECORD_SIZE = LegacyObjectMetadata.OBJECT_SIZE;
+  private static final int NAME_SIZE = LegacyObjectMetadata.OBJECT_NAME_SIZE;
+  private static final int SIZE_OFFSET = NAME_SIZE;
+  private static final int SUFFIX_OFFSET = NAME_SIZE + LegacyObjectMetadata.OBJECT_SIZE_SIZE;
+  private static final int LEGACY_RECORD_SIZE = 18;
+  private static final byte[] HEX = "0123456789abcdef".getBytes(Charsets.US_ASCII);
+  private static final byte[] MIN_LONG =
+      Long.toString(Long.MIN_VALUE).getBytes(Charsets.US_ASCII);
+  // the separator BufferedWriter.newLine writes
+  private static final byte[] LINE_SEPARATOR =
+      System.getProperty("line.separator").getBytes(Charsets.UTF_8);
+  private final int threads;
+  private final int chunkRecords;
+
+  /**
+   * Transforms single records into output bytes. A transform is shared by every worker thread and
+   * must be stateless
+   */
+  public interface RecordTransform {
+    /**
+     * Transforms a record
+     *
+     * @param in a buffer holding the record
+     * @param offset the offset of the record in buffer
+     * @param out the buffer to write output to
+     */
+    void transform(ByteBuffer in, int offset, RecordBuffer out);
+  }
+
+  /**
+   * A growable output buffer, reused across chunks
+   */
+  public static class RecordBuffer {
+    private byte[] buf;
+    private int count;
+    private final byte[] digits;
+
+    RecordBuffer(final int capacity) {
+      this.buf = new byte[capacity];
+      this.digits = new byte[20];
+    }
+
+    private void ensureCapacity(final int length) {
+      if (this.count + length > this.buf.length) {
+        this.buf = Arrays.copyOf(this.buf, Math.max(this.buf.length * 2, this.count + length));
+      }
+    }
+
+    public void put(final byte b) {
+      ensureCapacity(1);
+      this.buf[this.count++] = b;
+    }
+
+    public void put(final byte[] b) {
+      ensureCapacity(b.length);
+      System.arraycopy(b, 0, this.buf, this.count, b.length);
+      this.count += b.length;
+    }
+
+    public void put(final ByteBuffer src, final int offset, final int length) {
+      ensureCapacity(length);
+      src.position(offset);
+      src.get(this.buf, this.count, length);
+      this.count += length;
+    }
+
+    // lowercase hex, as LegacyObjectMetadata encodes names
+    public void putHex(final ByteBuffer src, final int offset, final int length) {
+      ensureCapacity(2 * length);
+      for (int i = 0; i < length; i++) {
+        final int b = src.get(offset + i);
+        this.buf[this.count++] = HEX[(b >> 4) & 0xF];
+        this.buf[this.count++] = HEX[b & 0xF];
+      }
+    }
+
+    // decimal digits, as Long.toString formats them
+    public void putDecimal(final long value) {
+      if (value == Long.MIN_VALUE) {
+        put(MIN_LONG);
+        return;
+      }
+      long v = value;
+      if (v < 0) {
+        put((byte) '-');
+        v = -v;
+      }
+      int i = this.digits.length;
+      do {
+        this.digits[--i] = (byte) ('0' + v % 10);
+        v /= 10;
+      } while (v > 0);
+      final int length = this.digits.length - i;
+      ensureCapacity(length);
+      System.arraycopy(this.digits, i, this.buf, this.count, length);
+      this.count += length;
+    }
+
+    public int size() {
+      return this.count;
+    }
+
+    void writeTo(final OutputStream out) throws IOException {
+      if (this.count > 0) {
+        out.write(this.buf, 0, this.count);
+      }
+    }
+
+    void clear() {
+      this.count = 0;
+    }
+  }
+
+  /**
+   * Constructs an instance using the default chunk size
+   *
+   * @param threads the number of worker threads
+   * @throws IllegalArgumentException if threads is not positive
+   */
+  public ObjectFileProcessor(final int threads) {
+    this(threads, DEFAULT_CHUNK_RECORDS);
+  }
+
+  /**
+   * Constructs an instance
+   *
+   * @param threads the number of worker threads
+   * @param chunkRecords the number of records in each mapped chunk
+   * @throws IllegalArgumentException if threads or chunkRecords is not positive
+   */
+  public ObjectFileProcessor(final int threads, final int chunkRecords) {
+    checkArgument(threads > 0, "threads must be > 0 [%s]", threads);
+    checkArgument(chunkRecords > 0, "chunkRecords must be > 0 [%s]", chunkRecords);
+    this.threads = threads;
+    this.chunkRecords = chunkRecords;
+  }
+
+  /**
+   * Formats each object as a {@code name,size,suffix} line, as {@link ObjectFile#read} does
+   */
+  public static RecordTransform read() {
+    return new RecordTransform() {
+      @Override
+      public void transform(final ByteBuffer in, final int offset, final RecordBuffer out) {
+        out.putHex(in, offset, NAME_SIZE);
+        out.put((byte) ',');
+        out.putDecimal(in.getLong(offset + SIZE_OFFSET));
+        out.put((byte) ',');
+        out.putDecimal(in.getInt(offset + SUFFIX_OFFSET));
+        out.put(LINE_SEPARATOR);
+      }
+    };
+  }
+
+  /**
+   * Copies each object which matches the filter, as {@link ObjectFile#filter} does
+   *
+   * @throws IllegalArgumentException if a size or suffix range is invalid
+   */
+  public static RecordTransform filter(final long minFilesize, final long maxFilesize,
+      final int minContainerSuffix, final int maxContainerSuffix,
+      final Set<Integer> containerSuffixes) {
+    ObjectFile.checkFilter(minFilesize, maxFilesize, minContainerSuffix, maxContainerSuffix);
+    // sorted so that suffixes are matched without boxing
+    final int[] suffixes = Ints.toArray(checkNotNull(containerSuffixes));
+    Arrays.sort(suffixes);
+    return new RecordTransform() {
+      @Override
+      public void transform(final ByteBuffer in, final int offset, final RecordBuffer out) {
+        final long size = in.getLong(offset + SIZE_OFFSET);
+        final int suffix = in.getInt(offset + SUFFIX_OFFSET);
+        if (size >= minFilesize && size <= maxFilesize && suffix >= minContainerSuffix
+            && suffix <= maxContainerSuffix
+            && (suffixes.length == 0 || Arrays.binarySearch(suffixes, suffix) >= 0)) {
+          out.put(in, offset, RECORD_SIZE);
+        }
+      }
+    };
+  }
+
+  /**
+   * Copies each object unchanged
+   */
+  public static RecordTransform copy() {
+    return new RecordTransform() {
+      @Override
+      public void transform(final ByteBuffer in, final int offset, final RecordBuffer out) {
+        out.put(in, offset, RECORD_SIZE);
+      }
+    };
+  }
+
+  /**
+   * Upgrades each oom record to an object with size 0 and no container suffix, as
+   * {@link ObjectFile#upgrade} does
+   */
+  public static RecordTransform upgrade() {
+    return new RecordTransform() {
+      @Override
+      public void transform(final ByteBuffer in, final int offset, final RecordBuffer out) {
+        out.put(in, offset, LEGACY_RECORD_SIZE);
+        for (int i = 0; i < LegacyObjectMetadata.OBJECT_SIZE_SIZE; i++) {
+          out.put((byte) 0);
+        }
+        for (int i = 0; i < LegacyObjectMetadata.OBJECT_SUFFIX_SIZE; i++) {
+          out.put((byte) 0xFF);
+        }
+      }
+    };
+  }
+
+  /**
+   * Transforms every object in an object file of either format. A truncated trailing record is
+   * ignored
+   *
+   * @param input the object file
+   * @param transform the transform to apply to each object
+   * @param out the stream to write output to
+   * @throws IOException if an I/O error occurs, or a v2 object file is corrupt
+   */
+  public void process(final File input, final RecordTransform transform, final OutputStream out)
+      throws IOException {
+    process(input, transform, out, false);
+  }
+
+  /**
+   * Transforms every object in an object file of either format
+   *
+   * @param input the object file
+   * @param transform the transform to apply to each object
+   * @param out the stream to write output to
+   * @param trailing if true, a truncated trailing record of a v1 object file is copied to the
+   *        output unchanged, as a plain copy of the file would; otherwise it is ignored
+   * @throws IOException if an I/O error occurs, or a v2 object file is corrupt
+   */
+  public void process(final File input, final RecordTransform transform, final OutputStream out,
+      final boolean trailing) throws IOException {
+    if (ObjectFiles.format(input) == ObjectFileFormat.V2) {
+      processBlocks(input, ObjectFiles.readHeader(input), transform, out);
+    } else {
+      processRecords(input, RECORD_SIZE, transform, out, trailing);
+    }
+  }
+
+  /**
+   * Transforms every record in an oom bin file
+   *
+   * @param input the oom bin file
+   * @param out the stream to write output to
+   * @throws IOException if an I/O error occurs
+   */
+  public void upgrade(final File input, final OutputStream out) throws IOException {
+    processRecords(input, LEGACY_RECORD_SIZE, upgrade(), out, false);
+  }
+
+  private void processRecords(final File input, final int recordSize,
+      final RecordTransform transform, final OutputStream out, final boolean trailing)
+      throws IOException {
+    final RandomAccessFile raf = new RandomAccessFile(input, "r");
+    try {
+      final FileChannel channel = raf.getChannel();
+      final long length = channel.size();
+      final long records = length / recordSize;
+      final int chunks = Ints.checkedCast((records + this.chunkRecords - 1) / this.chunkRecords);
+      run(chunks, out, new ChunkTask() {
+        @Override
+        public void process(final int chunk, final RecordBuffer buffer) throws IOException {
+          final long firstRecord = (long) chunk * ObjectFileProcessor.this.chunkRecords;
+          final int chunkRecords =
+              (int) Math.min(ObjectFileProcessor.this.chunkRecords, records - firstRecord);
+          final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY,
+              firstRecord * recordSize, (long) chunkRecords * recordSize);
+          for (int i = 0; i < chunkRecords; i++) {
+            transform.transform(mapped, i * recordSize, buffer);
+          }
+        }
+      });
+      final int remainder = (int) (length - records * recordSize);
+      if (trailing && remainder > 0) {
+        final byte[] tail = new byte[remainder];
+        raf.seek(records * recordSize);
+        raf.readFully(tail);
+        out.write(tail);
+      }
+    } finally {
+      raf.close();
+    }
+  }
+
+  private void processBlocks(final File input, final ObjectFiles.Header header,
+      final RecordTransform transform, final OutputStream out) throws IOException {
+    final int chunkBlocks = Math.max(1, this.chunkRecords / ObjectFiles.RECORDS_PER_BLOCK);
+    final RandomAccessFile raf = new RandomAccessFile(input, "r");
+    try {
+      final FileChannel channel = raf.getChannel();
+      final int chunks =
+          Ints.checkedCast((header.getBlockCount() + chunkBlocks - 1) / chunkBlocks);
+      run(chunks, out, new ChunkTask() {
+        @Override
+        public void process(final int chunk, final RecordBuffer buffer) throws IOException {
+          final long firstBlock = (long) chunk * chunkBlocks;
+          final int blocks = (int) Math.min(chunkBlocks, header.getBlockCount() - firstBlock);
+          final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY,
+              ObjectFiles.blockOffset(firstBlock), (long) blocks * ObjectFiles.BLOCK_SIZE);
+          final byte[] block = new byte[ObjectFiles.BLOCK_SIZE];
+          final ByteBuffer records = ByteBuffer.wrap(block);
+          for (int i = 0; i < blocks; i++) {
+            mapped.get(block);
+            ObjectFiles.verifyBlock(block, 0, firstBlock + i);
+            final int blockRecords = header.getBlockRecords(firstBlock + i);
+            for (int j = 0; j < blockRecords; j++) {
+              transform.transform(records, j * RECORD_SIZE, buffer);
+            }
+          }
+        }
+      });
+    } finally {
+      raf.close();
+    }
+  }
+
+  private interface ChunkTask {
+    void process(int chunk, RecordBuffer buffer) throws IOException;
+  }
+
+  // processes chunks in parallel, writing their output in chunk order
+  private void run(final int chunks, final OutputStream out, final ChunkTask task)
+      throws IOException {
+    if (chunks == 0) {
+      return;
+    }
+    final int window = 2 * this.threads;
+    final Deque<RecordBuffer> free = new ArrayDeque<RecordBuffer>();
+    final Deque<Future<RecordBuffer>> pending = new ArrayDeque<Future<RecordBuffer>>();
+    final ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(this.threads, chunks), new ThreadFactoryBuilder().setDaemon(true)
+            .setNameFormat("object-file-processor-%d").build());
+    try {
+      for (int i = 0; i < chunks; i++) {
+        if (pending.size() == window) {
+          free.add(writeNext(pending, out));
+        }
+        final int chunk = i;
+        final RecordBuffer buffer =
+            free.isEmpty() ? new RecordBuffer(this.chunkRecords * RECORD_SIZE) : free.remove();
+        pending.add(executor.submit(new Callable<RecordBuffer>() {
+          @Override
+          public RecordBuffer call() throws IOException {
+            task.process(chunk, buffer);
+            return buffer;
+          }
+        }));
+      }
+      while (!pending.isEmpty()) {
+        writeNext(pending, out);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static RecordBuffer writeNext(final Deque<Future<RecordBuffer>> pending,
+      final OutputStream out) throws IOException {
+    final RecordBuffer buffer;
+    try {
+      buffer = pending.remove().get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+    buffer.writeTo(out);
+    buffer.clear();
+    return buffer;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("ObjectFileProcessor [threads=%s, chunkRecords=%s]", this.threads,
+        this.chunkRecords);
+  }
+}
@@ -0,0 +1,341 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.cli;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.ibm.og.object.LegacyObjectMetadata;
+
+/**
+ * Sorts object records by name using a bounded amount of memory. Records are collected into a
+ * fixed size buffer; each time the buffer fills it is sorted and spilled to a temporary run file,
+ * and the runs are then merged, at most {@link #MAX_FAN_IN} at a time, into the output. Memory use
+ * is the buffer size plus 8 bytes per buffered record, and is independent of the size of the input.
+ * <p>
+ * The sort is stable: records with equal names are output in the order in which they were added.
+ * When deduplicating, only the last record added for each name is output, so that records appended
+ * to object files by later runs supersede stale records.
+ *
+ * @since 1.0
+ */
+public class ObjectFileSorter {
+  private static final Logger _logger = LoggerFactory.getLogger(ObjectFileSorter.class);
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024 * 1024;
+  public static final int MAX_FAN_IN = 64;
+  private static final int RECORD_SIZE = LegacyObjectMetadata.OBJECT_SIZE;
+  private static final int NAME_SIZE = LegacyObjectMetadata.OBJECT_NAME_SIZE;
+  private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+  private final File tempDirectory;
+  private final boolean dedupe;
+  private final int maxFanIn;
+  private final byte[] buffer;
+  private final int capacity;
+  private final int[] index;
+  private final int[] scratch;
+  private final List<File> runs;
+  private int records;
+  private long inputRecords;
+  private long outputRecords;
+
+  private static class Run {
+    final int ordinal;
+    final InputStream in;
+    final byte[] record;
+
+    Run(final int ordinal, final File file) throws IOException {
+      this.ordinal = ordinal;
+      this.in = new BufferedInputStream(new FileInputStream(file), STREAM_BUFFER_SIZE);
+      this.record = new byte[RECORD_SIZE];
+    }
+
+    boolean next() throws IOException {
+      return ByteStreams.read(this.in, this.record, 0, RECORD_SIZE) == RECORD_SIZE;
+    }
+  }
+
+  // runs are created in input order, so ties are broken by run ordinal to keep the sort stable
+  private static final Comparator<Run> RUN_ORDER = new Comparator<Run>() {
+    @Override
+    public int compare(final Run r1, final Run r2) {
+      final int c = compareNames(r1.record, 0, r2.record, 0);
+      return c != 0 ? c : r1.ordinal - r2.ordinal;
+    }
+  };
+
+  /**
+   * Constructs an instance
+   *
+   * @param bufferSize the size of the in-memory sort buffer, in bytes
+   * @param tempDirectory the directory to write run files to, or null for the default temporary
+   *        file directory
+   * @param dedupe if true, only the last record added for each name is output
+   * @throws IllegalArgumentException if bufferSize cannot hold at least one record
+   */
+  public ObjectFileSorter(final int bufferSize, final File tempDirectory, final boolean dedupe) {
+    this(bufferSize, tempDirectory, dedupe, MAX_FAN_IN);
+  }
+
+  ObjectFileSorter(final int bufferSize, final File tempDirectory, final boolean dedupe,
+      final int maxFanIn) {
+    checkArgument(bufferSize >= RECORD_SIZE, "bufferSize must be >= %s [%s]", RECORD_SIZE,
+        bufferSize);
+    checkArgument(maxFanIn >= 2, "maxFanIn must be >= 2 [%s]", maxFanIn);
+    this.tempDirectory = tempDirectory;
+    this.dedupe = dedupe;
+    this.maxFanIn = maxFanIn;
+    this.capacity = bufferSize / RECORD_SIZE;
+    this.buffer = new byte[this.capacity * RECORD_SIZE];
+    this.index = new int[this.capacity];
+    this.scratch = new int[this.capacity];
+    this.runs = Lists.newArrayList();
+  }
+
+  /**
+   * Adds every record in a stream of plain records. A truncated trailing record is ignored
+   *
+   * @param in the stream to read records from
+   * @throws IOException if an I/O error occurs reading the stream or spilling a run
+   */
+  public void add(final InputStream in) throws IOException {
+    checkNotNull(in);
+    while (true) {
+      if (this.records == this.capacity) {
+        spill();
+      }
+      final int offset = this.records * RECORD_SIZE;
+      final int length = this.buffer.length - offset;
+      final int read = ByteStreams.read(in, this.buffer, offset, length);
+      this.records += read / RECORD_SIZE;
+      this.inputRecords += read / RECORD_SIZE;
+      if (read < length) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Writes every record added, in name order, and deletes any run files
+   *
+   * @param out the stream to write sorted records to
+   * @throws IOException if an I/O error occurs
+   */
+  public void finish(final OutputStream out) throws IOException {
+    checkNotNull(out);
+    try {
+      if (this.runs.isEmpty()) {
+        // the input fit in memory
+        this.outputRecords = writeBuffer(out);
+      } else {
+        if (this.records > 0) {
+          spill();
+        }
+        mergeRuns(out);
+      }
+    } finally {
+      for (final File run : this.runs) {
+        run.delete();
+      }
+      this.runs.clear();
+    }
+    _logger.info("Sorted {} records into {} records using {} bytes of buffer", this.inputRecords,
+        this.outputRecords, this.buffer.length);
+  }
+
+  private void spill() throws IOException {
+    final File run = File.createTempFile("og-sort-", ".run", this.tempDirectory);
+    run.deleteOnExit();
+    this.runs.add(run);
+    final OutputStream out =
+        new BufferedOutputStream(new FileOutputStream(run), STREAM_BUFFER_SIZE);
+    try {
+      writeBuffer(out);
+    } finally {
+      out.close();
+    }
+    _logger.debug("Spilled {} records to {}", this.records, run);
+    this.records = 0;
+  }
+
+  // sorts and writes the buffered records, returning the number written
+  private long writeBuffer(final OutputStream out) throws IOException {
+    for (int i = 0; i < this.records; i++) {
+      this.index[i] = i;
+    }
+    sort(0, this.records);
+    long written = 0;
+    for (int i = 0; i < this.records; i++) {
+      final int offset = this.index[i] * RECORD_SIZE;
+      if (this.dedupe && i + 1 < this.records && compareNames(this.buffer, offset, this.buffer,
+          this.index[i + 1] * RECORD_SIZE) == 0) {
+        // superseded by a later record with the same name
+        continue;
+      }
+      out.write(this.buffer, offset, RECORD_SIZE);
+      written++;
+    }
+    return written;
+  }
+
+  // a stable merge sort of the record indices in [from, to)
+  private void sort(final int from, final int to) {
+    if (to - from <= INSERTION_SORT_THRESHOLD) {
+      for (int i = from + 1; i < to; i++) {
+        final int record = this.index[i];
+        int j = i - 1;
+        while (j >= from && compare(this.index[j], record) > 0) {
+          this.index[j + 1] = this.index[j];
+          j--;
+        }
+        this.index[j + 1] = record;
+      }
+      return;
+    }
+    final int mid = (from + to) >>> 1;
+    sort(from, mid);
+    sort(mid, to);
+    if (compare(this.index[mid - 1], this.index[mid]) <= 0) {
+      return;
+    }
+    System.arraycopy(this.index, from, this.scratch, from, to - from);
+    int i = from;
+    int j = mid;
+    for (int k = from; k < to; k++) {
+      if (i < mid && (j >= to || compare(this.scratch[i], this.scratch[j]) <= 0)) {
+        this.index[k] = this.scratch[i++];
+      } else {
+        this.index[k] = this.scratch[j++];
+      }
+    }
+  }
+
+  private int compare(final int r1, final int r2) {
+    return compareNames(this.buffer, r1 * RECORD_SIZE, this.buffer, r2 * RECORD_SIZE);
+  }
+
+  // merges runs in passes of at most maxFanIn runs until a single pass can write the output
+  private void mergeRuns(final OutputStream out) throws IOException {
+    while (this.runs.size() > this.maxFanIn) {
+      final List<File> merged = Lists.newArrayList();
+      for (int i = 0; i < this.runs.size(); i += this.maxFanIn) {
+        final List<File> group =
+            this.runs.subList(i, Math.min(this.runs.size(), i + this.maxFanIn));
+        final File run = File.createTempFile("og-sort-", ".run", this.tempDirectory);
+        run.deleteOnExit();
+        merged.add(run);
+        final OutputStream runOut =
+            new BufferedOutputStream(new FileOutputStream(run), STREAM_BUFFER_SIZE);
+        try {
+          merge(group, runOut);
+        } finally {
+          runOut.close();
+        }
+        for (final File f : group) {
+          f.delete();
+        }
+      }
+      _logger.debug("Merged {} runs into {} runs", this.runs.size(), merged.size());
+      this.runs.clear();
+      this.runs.addAll(merged);
+    }
+    this.outputRecords = merge(this.runs, out);
+  }
+
+  private long merge(final List<File> group, final OutputStream out) throws IOException {
+    final List<Run> open = Lists.newArrayList();
+    final PriorityQueue<Run> queue = new PriorityQueue<Run>(group.size(), RUN_ORDER);
+    final byte[] pending = new byte[RECORD_SIZE];
+    boolean hasPending = false;
+    long written = 0;
+    try {
+      for (int i = 0; i < group.size(); i++) {
+        final Run run = new Run(i, group.get(i));
+        open.add(run);
+        if (run.next()) {
+          queue.add(run);
+        }
+      }
+      while (!queue.isEmpty()) {
+        final Run run = queue.poll();
+        if (!this.dedupe) {
+          out.write(run.record);
+          written++;
+        } else {
+          // equal names are polled in input order, so the last one polled is kept
+          if (hasPending && compareNames(pending, 0, run.record, 0) != 0) {
+            out.write(pending);
+            written++;
+          }
+          System.arraycopy(run.record, 0, pending, 0, RECORD_SIZE);
+          hasPending = true;
+        }
+        if (run.next()) {
+          queue.add(run);
+        }
+      }
+      if (hasPending) {
+        out.write(pending);
+        written++;
+      }
+    } finally {
+      for (final Run run : open) {
+        run.in.close();
+      }
+    }
+    return written;
+  }
+
+  // names are compared as unsigned bytes, which orders them as their hex encodings
+  static int compareNames(final byte[] b1, final int offset1, final byte[] b2,
+      final int offset2) {
+    for (int i = 0; i < NAME_SIZE; i++) {
+      final int c1 = b1[offset1 + i] & 0xFF;
+      final int c2 = b2[offset2 + i] & 0xFF;
+      if (c1 != c2) {
+        return c1 - c2;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * @return the number of records added
+   */
+  public long getInputRecords() {
+    return this.inputRecords;
+  }
+
+  /**
+   * @return the number of records written by {@link #finish}
+   */
+  public long getOutputRecords() {
+    return this.outputRecords;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("ObjectFileSorter [bufferSize=%s, dedupe=%s, tempDirectory=%s]",
+        this.buffer.length, this.dedupe, this.tempDirectory);
+  }
+}
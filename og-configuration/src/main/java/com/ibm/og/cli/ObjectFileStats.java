@@ -0,0 +1,162 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.cli;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.ibm.og.object.LegacyObjectMetadata;
+
+/**
+ * Accumulates statistics over streams of object records: the record count, total, minimum and
+ * maximum object size, a histogram of object sizes in power of two buckets, and the number of
+ * records per container suffix. Records are not retained, so memory use is bounded by the number
+ * of distinct container suffixes rather than the number of records.
+ *
+ * @since 1.0
+ */
+public class ObjectFileStats {
+  private static final int RECORD_SIZE = LegacyObjectMetadata.OBJECT_SIZE;
+  private static final int NAME_SIZE = LegacyObjectMetadata.OBJECT_NAME_SIZE;
+  private static final int SIZE_SIZE = LegacyObjectMetadata.OBJECT_SIZE_SIZE;
+  private static final int BUFFER_RECORDS = 4096;
+  // bucket 0 holds sizes <= 0, bucket i holds sizes in [2^(i-1), 2^i)
+  private final long[] histogram;
+  private final SortedMap<Integer, long[]> suffixes;
+  private long records;
+  private long totalSize;
+  private long minSize;
+  private long maxSize;
+
+  public ObjectFileStats() {
+    this.histogram = new long[Long.SIZE];
+    this.suffixes = new TreeMap<Integer, long[]>();
+    this.minSize = Long.MAX_VALUE;
+    this.maxSize = Long.MIN_VALUE;
+  }
+
+  /**
+   * Adds every record in a stream of plain records. A truncated trailing record is ignored
+   *
+   * @param in the stream to read records from
+   * @throws IOException if an I/O error occurs reading the stream
+   */
+  public void add(final InputStream in) throws IOException {
+    checkNotNull(in);
+    final byte[] buf = new byte[BUFFER_RECORDS * RECORD_SIZE];
+    final ByteBuffer records = ByteBuffer.wrap(buf);
+    while (true) {
+      final int read = ByteStreams.read(in, buf, 0, buf.length);
+      for (int offset = 0; offset + RECORD_SIZE <= read; offset += RECORD_SIZE) {
+        add(records.getLong(offset + NAME_SIZE), records.getInt(offset + NAME_SIZE + SIZE_SIZE));
+      }
+      if (read < buf.length) {
+        return;
+      }
+    }
+  }
+
+  void add(final long size, final int containerSuffix) {
+    this.records++;
+    this.totalSize += size;
+    this.minSize = Math.min(this.minSize, size);
+    this.maxSize = Math.max(this.maxSize, size);
+    this.histogram[bucket(size)]++;
+    long[] count = this.suffixes.get(containerSuffix);
+    if (count == null) {
+      count = new long[1];
+      this.suffixes.put(containerSuffix, count);
+    }
+    count[0]++;
+  }
+
+  static int bucket(final long size) {
+    if (size <= 0) {
+      return 0;
+    }
+    return Long.SIZE - Long.numberOfLeadingZeros(size);
+  }
+
+  /**
+   * Writes the accumulated statistics as plain text
+   *
+   * @param out the stream to write to
+   */
+  public void print(final OutputStream out) {
+    final PrintWriter writer = new PrintWriter(new OutputStreamWriter(out, Charsets.UTF_8));
+    writer.printf("records: %d%n", this.records);
+    if (this.records > 0) {
+      writer.printf("total size: %d%n", this.totalSize);
+      writer.printf("minimum size: %d%n", this.minSize);
+      writer.printf("maximum size: %d%n", this.maxSize);
+      writer.printf("size histogram:%n");
+      for (int i = 0; i < this.histogram.length; i++) {
+        if (this.histogram[i] == 0) {
+          continue;
+        }
+        if (i == 0) {
+          writer.printf("  <= 0: %d%n", this.histogram[i]);
+        } else {
+          writer.printf("  %d - %d: %d%n", 1L << (i - 1), (1L << (i - 1)) - 1 + (1L << (i - 1)),
+              this.histogram[i]);
+        }
+      }
+      writer.printf("container suffixes:%n");
+      for (final Map.Entry<Integer, long[]> e : this.suffixes.entrySet()) {
+        writer.printf("  %d: %d%n", e.getKey(), e.getValue()[0]);
+      }
+    }
+    writer.flush();
+  }
+
+  /**
+   * @return the number of records added
+   */
+  public long getRecords() {
+    return this.records;
+  }
+
+  /**
+   * @return the total size of the records added
+   */
+  public long getTotalSize() {
+    return this.totalSize;
+  }
+
+  /**
+   * @param bucket a histogram bucket; 0 for sizes <= 0, otherwise i for sizes in [2^(i-1), 2^i)
+   * @return the number of records added whose size falls in the bucket
+   */
+  public long getSizeCount(final int bucket) {
+    return this.histogram[bucket];
+  }
+
+  /**
+   * @param containerSuffix a container suffix
+   * @return the number of records added with the container suffix
+   */
+  public long getContainerSuffixCount(final int containerSuffix) {
+    final long[] count = this.suffixes.get(containerSuffix);
+    return count != null ? count[0] : 0;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("ObjectFileStats [records=%s, totalSize=%s]", this.records,
+        this.totalSize);
+  }
+}
@@ -30,8 +30,11 @@ import com.ibm.og.util.json.type.SizeUnitTypeAdapter;
 import com.ibm.og.util.json.type.TimeUnitTypeAdapter;
 import com.ibm.og.util.json.type.CaseInsensitiveEnumTypeAdapterFactory;
 import com.ibm.og.object.ObjectManager;
+import com.ibm.og.object.ObjectManagerMonitor;
 import com.ibm.og.statistic.Statistics;
 import com.ibm.og.test.LoadTest;
+import com.ibm.og.test.ObjectFill;
+import com.ibm.og.test.VisibilityProbe;
 import com.ibm.og.util.SizeUnit;
 import com.ibm.og.util.Version;
 import com.google.common.collect.Sets;
@@ -71,6 +74,9 @@ public class ObjectGenerator {
   private static LoadTest test;
   private static ObjectManager objectManager;
   private static Statistics statistics;
+  private static ObjectManagerMonitor objectManagerMonitor;
+  private static VisibilityProbe visibilityProbe;
+  private static ObjectFill fill;
   private static OGConfig ogConfig;
 
   private static long timestampStart;
@@ -122,9 +128,14 @@ public class ObjectGenerator {
      }
 
 
-      OGLog4jShutdownCallbackRegistry.setOGShutdownHook((new ShutdownHook(test, shutdownLatch)));
-
-      final LoadTestResult result = run(test, objectManager, statistics, gson);
+      final LoadTestResult result;
+      if (fill != null) {
+        OGLog4jShutdownCallbackRegistry.setOGShutdownHook(new ShutdownHook(fill, shutdownLatch));
+        result = runFill(fill);
+      } else {
+        OGLog4jShutdownCallbackRegistry.setOGShutdownHook(new ShutdownHook(test, shutdownLatch));
+        result = run(test, objectManager, statistics, gson);
+      }
 
       shutdownLatch.countDown();
 
@@ -172,11 +183,22 @@ public class ObjectGenerator {
       throw new RuntimeException("OGConfig file not found");
     }
 
+    if (ogConfig.fill != null && ogConfig.fill.enabled) {
+      // only the dependencies of the fill are created; in particular no object manager is created,
+      // since it would load, and later persist, the object files which the fill records into
+      injector = Guice.createInjector(Stage.DEVELOPMENT, new OGModule(ogConfig));
+      fill = injector.getInstance(ObjectFill.class);
+      return;
+    }
+
     // dependency injection
     injector = createInjector(ogConfig);
     test = injector.getInstance(LoadTest.class);
     objectManager = injector.getInstance(ObjectManager.class);
     statistics = injector.getInstance(Statistics.class);
+    objectManagerMonitor = injector.getInstance(ObjectManagerMonitor.class);
+    // null unless read-after-write visibility is measured
+    visibilityProbe = injector.getInstance(VisibilityProbe.class);
 
   }
 
@@ -205,6 +227,25 @@ public class ObjectGenerator {
     return result;
   }
 
+  public static LoadTestResult runFill(final ObjectFill fill) {
+    _logger.info("{}", fill);
+    _consoleLogger.info("Configured.");
+    _consoleLogger.info("Fill Running...");
+
+    final LoadTestResult result = fill.call();
+
+    if (result.success) {
+      _consoleLogger.info("Fill Completed.");
+    } else {
+      _consoleLogger.error("Fill ended unsuccessfully. See og.log or exception.log for details");
+    }
+
+    final int exitCode = result.success ? Application.TEST_SUCCESS : Application.TEST_ERROR;
+    logSummary(result.timestampStart, result.timestampFinish, exitCode,
+        result.success ? ImmutableList.of(Application.TEST_SUCCESS_MSG) : result.messages);
+    return result;
+  }
+
   public static void logConsoleException(final Exception e) {
     if (e instanceof ProvisionException) {
       logConsoleGuiceMessages(((ProvisionException) e).getErrorMessages());
@@ -273,7 +314,8 @@ public class ObjectGenerator {
 
   private static Summary logSummary(final Statistics stats, final long timestampStart, final long timestampFinish,
                                        final LoadTestResult testResult) {
-    final Summary summary = new Summary(stats, timestampStart, timestampFinish,
+    final Summary summary = new Summary(stats, objectManagerMonitor, visibilityProbe, test.getLimiter(),
+            timestampStart, timestampFinish,
             testResult.success ? Application.TEST_SUCCESS : Application.TEST_ERROR,
             testResult.success ? ImmutableList.of(Application.TEST_SUCCESS_MSG) : testResult.messages);
     _summaryJsonLogger.info(gson.toJson(summary.getSummaryStats()));
@@ -290,17 +332,29 @@ public class ObjectGenerator {
 
   private static class ShutdownHook extends Thread {
     private final LoadTest test;
+    private final ObjectFill fill;
     private final CountDownLatch shutdownLatch;
 
     public ShutdownHook(final LoadTest test, final CountDownLatch shutdownLatch) {
       this.test = checkNotNull(test);
+      this.fill = null;
+      this.shutdownLatch = checkNotNull(shutdownLatch);
+    }
+
+    public ShutdownHook(final ObjectFill fill, final CountDownLatch shutdownLatch) {
+      this.test = null;
+      this.fill = checkNotNull(fill);
       this.shutdownLatch = checkNotNull(shutdownLatch);
     }
 
     @Override
     public void run() {
       _logger.debug("og shutdown hook triggered, stopping test");
-      this.test.stopTest();
+      if (this.test != null) {
+        this.test.stopTest();
+      } else {
+        this.fill.stop();
+      }
 
       _logger.info("Waiting on shutdown lock");
       Uninterruptibles.awaitUninterruptibly(this.shutdownLatch);
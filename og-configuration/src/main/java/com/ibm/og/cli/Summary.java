@@ -17,8 +17,15 @@ import java.util.concurrent.TimeUnit;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
+import com.ibm.og.object.ObjectManagerCounter;
+import com.ibm.og.object.ObjectManagerMonitor;
+import com.ibm.og.object.ObjectManagerStatistics;
 import com.ibm.og.statistic.Counter;
+import com.ibm.og.statistic.LatencyHistogram;
 import com.ibm.og.statistic.Statistics;
+import com.ibm.og.test.InFlightLimiter;
+import com.ibm.og.test.SaturationPolicy;
+import com.ibm.og.test.VisibilityProbe;
 import com.ibm.og.api.Operation;
 import com.ibm.og.util.Pair;
 import com.ibm.og.util.SizeUnit;
@@ -47,11 +54,35 @@ public class Summary {
    */
   public Summary(final Statistics stats, final long timestampStart, final long timestampFinish,
                  final int exitCode, ImmutableList<String> messages) {
+    this(stats, null, null, null, timestampStart, timestampFinish, exitCode, messages);
+  }
+
+  /**
+   * Constructs an instance which additionally summarizes the object manager, read-after-write
+   * visibility and client saturation
+   * 
+   * @param stats the underlying stats to pull from when creating this instance
+   * @param objectManager the object manager monitor to summarize, or null if the object manager was
+   *        not monitored
+   * @param visibility the visibility probe to summarize, or null if visibility was not measured
+   * @param limiter the in-flight limiter of the test, which is only summarized if it has a limit,
+   *        or null if there was no test
+   * @param timestampStart the global test start timestamp, in millis.
+   * @param timestampFinish the global test stop timestamp, in millis
+   * @throws NullPointerException if stats is null
+   * @throws IllegalArgumentException if timestampStart is zero or negative, or if timestampEnd is
+   *         less than timestampStart
+   */
+  public Summary(final Statistics stats, final ObjectManagerMonitor objectManager,
+      final VisibilityProbe visibility, final InFlightLimiter limiter, final long timestampStart,
+      final long timestampFinish, final int exitCode, final ImmutableList<String> messages) {
     checkNotNull(stats);
     checkArgument(timestampStart >= 0, "timestampStart must be >= 0 [%s]", timestampStart);
     checkArgument(timestampStart <= timestampFinish,
         "timestampStart must be <= timestampFinish [%s, %s]", timestampStart, timestampFinish);
-    this.summaryStats = new SummaryStats(stats, timestampStart, timestampFinish, exitCode, messages);
+    this.summaryStats =
+        new SummaryStats(stats, objectManager, visibility, limiter, timestampStart,
+            timestampFinish, exitCode, messages);
   }
 
   static class SummaryStats {
@@ -70,10 +101,14 @@ public class Summary {
     final OperationStats multipartWriteInitiate;
     final OperationStats multipartWritePart;
     final OperationStats multipartWriteComplete;
+    final ObjectManagerStats objectManager;
+    final VisibilityStats visibility;
+    final SaturationStats saturation;
     final int exitCode;
     final ImmutableList<String> exitMessages;
 
-    private SummaryStats(final Statistics stats, final long timestampStart,
+    private SummaryStats(final Statistics stats, final ObjectManagerMonitor objectManager,
+        final VisibilityProbe visibility, final InFlightLimiter limiter, final long timestampStart,
         final long timestampFinish, final int exitCode, final ImmutableList<String> messages) {
       this.timestampStart = timestampStart;
       this.timestampFinish = timestampFinish;
@@ -90,6 +125,12 @@ public class Summary {
       this.multipartWriteInitiate = new OperationStats(stats, Operation.MULTIPART_WRITE_INITIATE);
       this.multipartWritePart = new OperationStats(stats, Operation.MULTIPART_WRITE_PART);
       this.multipartWriteComplete = new OperationStats(stats, Operation.MULTIPART_WRITE_COMPLETE);
+      this.objectManager = objectManager != null ? new ObjectManagerStats(objectManager) : null;
+      // absent from the json summary when visibility was not measured
+      this.visibility = visibility != null ? new VisibilityStats(visibility) : null;
+      // absent from the json summary when no limit was configured
+      this.saturation =
+          limiter != null && limiter.getMaxInFlight() > 0 ? new SaturationStats(limiter) : null;
       this.exitCode = exitCode;
       this.exitMessages = messages;
     }
@@ -97,12 +138,14 @@ public class Summary {
     @Override
     public String toString() {
       final String format = "Start: %s%nEnd: %s%nRuntime: %.2f "
-          + "Seconds%nOperations: %s%n%n%s%s%s%s%s%s%s%s%s%s%sExitCode: %s%nExitMessages:%s";
+          + "Seconds%nOperations: %s%n%n%s%s%s%s%s%s%s%s%s%s%s%s%s%sExitCode: %s%nExitMessages:%s";
       return String.format(Locale.US, format, FORMATTER.print(this.timestampStart),
           FORMATTER.print(this.timestampFinish), this.runtime, this.operations, this.write,
           this.read, this.delete, this.metadata, this.overwrite, this.list, this.containerList,
           this.containerCreate, this.multipartWriteInitiate, this.multipartWritePart, this.multipartWriteComplete,
-          this.exitCode, prettyExitMessages());
+          this.objectManager != null ? this.objectManager : "",
+          this.visibility != null ? this.visibility : "",
+          this.saturation != null ? this.saturation : "", this.exitCode, prettyExitMessages());
     }
 
     class OperationStats {
@@ -176,6 +219,117 @@ public class Summary {
         return Pair.of(bytes, SizeUnit.BYTES);
       }
     }
+    static class ObjectManagerStats {
+      final long objects;
+      final long minObjects;
+      final long maxObjects;
+      final long readingCollisions;
+      final long objectsLockWaits;
+      final long objectsLockWaitMillis;
+      final long persistLockWaits;
+      final long persistLockWaitMillis;
+      final long persists;
+      final long persistMillis;
+      final long persistBytes;
+
+      private ObjectManagerStats(final ObjectManagerMonitor objectManager) {
+        final ObjectManagerStatistics stats = objectManager.getStatistics();
+        this.objects = objectManager.getObjectCount();
+        this.minObjects = objectManager.getMinObjectCount();
+        this.maxObjects = objectManager.getMaxObjectCount();
+        this.readingCollisions = stats.get(ObjectManagerCounter.READING_COLLISIONS);
+        this.objectsLockWaits = stats.get(ObjectManagerCounter.OBJECTS_LOCK_WAITS);
+        this.objectsLockWaitMillis =
+            TimeUnit.NANOSECONDS.toMillis(stats.get(ObjectManagerCounter.OBJECTS_LOCK_WAIT_NANOS));
+        this.persistLockWaits = stats.get(ObjectManagerCounter.PERSIST_LOCK_WAITS);
+        this.persistLockWaitMillis =
+            TimeUnit.NANOSECONDS.toMillis(stats.get(ObjectManagerCounter.PERSIST_LOCK_WAIT_NANOS));
+        this.persists = stats.get(ObjectManagerCounter.PERSISTS);
+        this.persistMillis =
+            TimeUnit.NANOSECONDS.toMillis(stats.get(ObjectManagerCounter.PERSIST_NANOS));
+        this.persistBytes = stats.get(ObjectManagerCounter.PERSIST_BYTES);
+      }
+
+      @Override
+      public String toString() {
+        return String.format(Locale.US,
+            "[OBJECT MANAGER]%n" + "Objects: %s (min %s, max %s)%n" + "Reading Collisions: %s%n"
+                + "Objects Lock Waits: %s (%s ms)%n" + "Persist Lock Waits: %s (%s ms)%n"
+                + "Persists: %s (%s ms, %s bytes)%n%n",
+            this.objects, this.minObjects, this.maxObjects, this.readingCollisions,
+            this.objectsLockWaits, this.objectsLockWaitMillis, this.persistLockWaits,
+            this.persistLockWaitMillis, this.persists, this.persistMillis, this.persistBytes);
+      }
+    }
+
+    static class VisibilityStats {
+      final long probed;
+      final long visible;
+      final long notVisible;
+      final long dropped;
+      final long errors;
+      final long minMillis;
+      final double meanMillis;
+      final long p50Millis;
+      final long p90Millis;
+      final long p99Millis;
+      final long maxMillis;
+
+      private VisibilityStats(final VisibilityProbe visibility) {
+        final LatencyHistogram histogram = visibility.getHistogram();
+        this.probed = visibility.getProbed();
+        this.visible = visibility.getVisible();
+        this.notVisible = visibility.getNotVisible();
+        this.dropped = visibility.getDropped();
+        this.errors = visibility.getErrors();
+        this.minMillis = histogram.getMin();
+        this.meanMillis = histogram.getMean();
+        this.p50Millis = histogram.getPercentile(50.0);
+        this.p90Millis = histogram.getPercentile(90.0);
+        this.p99Millis = histogram.getPercentile(99.0);
+        this.maxMillis = histogram.getMax();
+      }
+
+      @Override
+      public String toString() {
+        return String.format(Locale.US,
+            "[VISIBILITY]%n" + "Probed: %s%n" + "Visible: %s%n" + "Not Visible: %s%n"
+                + "Dropped: %s%n" + "Errors: %s%n"
+                + "Latency (ms): min %s, mean %.2f, p50 %s, p90 %s, p99 %s, max %s%n%n",
+            this.probed, this.visible, this.notVisible, this.dropped, this.errors, this.minMillis,
+            this.meanMillis, this.p50Millis, this.p90Millis, this.p99Millis, this.maxMillis);
+      }
+    }
+
+    static class SaturationStats {
+      final int maxInFlight;
+      final SaturationPolicy policy;
+      final long intended;
+      final long issued;
+      final long dropped;
+      final long saturations;
+      final long blockedMillis;
+
+      private SaturationStats(final InFlightLimiter limiter) {
+        this.maxInFlight = limiter.getMaxInFlight();
+        this.policy = limiter.getPolicy();
+        this.intended = limiter.getIntended();
+        this.issued = limiter.getIssued();
+        this.dropped = limiter.getDropped();
+        this.saturations = limiter.getSaturations();
+        this.blockedMillis = limiter.getBlockedMillis();
+      }
+
+      @Override
+      public String toString() {
+        return String.format(Locale.US,
+            "[SATURATION]%n" + "Max In Flight: %s (%s)%n" + "Intended: %s%n" + "Issued: %s%n"
+                + "Dropped: %s%n" + "Saturations: %s (%s ms blocked)%n%n",
+            this.maxInFlight, this.policy.toString().toLowerCase(), this.intended, this.issued,
+            this.dropped, this.saturations, this.blockedMillis);
+      }
+    }
+
     private String prettyExitMessages() {
       StringBuilder sb = new StringBuilder();
       for(String s: exitMessages) {
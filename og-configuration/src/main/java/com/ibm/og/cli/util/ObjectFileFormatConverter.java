@@ -0,0 +1,28 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+package com.ibm.og.cli.util;
+
+import com.beust.jcommander.IStringConverter;
+import com.beust.jcommander.ParameterException;
+import com.ibm.og.object.ObjectFileFormat;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ *   Utility class to convert the format parameter, in any case, to an object file format
+ *
+ */
+public class ObjectFileFormatConverter implements IStringConverter<ObjectFileFormat> {
+
+    public ObjectFileFormat convert(String value) {
+        try {
+            return ObjectFileFormat.valueOf(value.toUpperCase(Locale.US));
+        } catch (IllegalArgumentException e) {
+            throw new ParameterException(String.format("Invalid object file format %s, expected one of %s",
+                    value, Arrays.toString(ObjectFileFormat.values())));
+        }
+    }
+}
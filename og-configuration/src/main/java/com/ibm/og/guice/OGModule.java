@@ -14,7 +14,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Nullable;
@@ -46,6 +48,7 @@ import com.ibm.og.api.Method;
 import com.ibm.og.api.Operation;
 import com.ibm.og.api.Request;
 import com.ibm.og.client.ApacheClient;
+import com.ibm.og.client.NioClient;
 import com.ibm.og.guice.annotation.ContainerCreateHeaders;
 import com.ibm.og.guice.annotation.ContainerCreateHost;
 import com.ibm.og.guice.annotation.ContainerListHeaders;
@@ -85,27 +88,46 @@ import com.ibm.og.http.ResponseBodyConsumer;
 import com.ibm.og.http.Scheme;
 import com.ibm.og.json.ChoiceConfig;
 import com.ibm.og.json.ClientConfig;
+import com.ibm.og.json.ClientType;
 import com.ibm.og.json.ConcurrencyConfig;
 import com.ibm.og.json.ConcurrencyType;
 import com.ibm.og.json.ContainerConfig;
 import com.ibm.og.json.CredentialSource;
 import com.ibm.og.json.FailingConditionsConfig;
 import com.ibm.og.json.FilesizeConfig;
+import com.ibm.og.json.FillConfig;
 import com.ibm.og.json.OGConfig;
 import com.ibm.og.json.ObjectConfig;
 import com.ibm.og.json.ObjectManagerConfig;
 import com.ibm.og.json.OperationConfig;
 import com.ibm.og.json.SelectionConfig;
+import com.ibm.og.json.SelectionPolicyConfig;
 import com.ibm.og.json.SelectionType;
 import com.ibm.og.json.StoppingConditionsConfig;
+import com.ibm.og.json.VisibilityConfig;
 import com.ibm.og.object.AbstractObjectNameConsumer;
+import com.ibm.og.object.DeletionOrder;
+import com.ibm.og.object.LegacyObjectMetadata;
 import com.ibm.og.object.ListObjectNameConsumer;
 import com.ibm.og.object.MetadataObjectNameConsumer;
 import com.ibm.og.object.MultipartWriteObjectNameConsumer;
+import com.ibm.og.object.NamespaceObjectManager;
+import com.ibm.og.object.ObjectCriteria;
+import com.ibm.og.object.ObjectFileFormat;
+import com.ibm.og.object.ObjectFileMode;
+import com.ibm.og.object.ObjectFileRecorder;
 import com.ibm.og.object.ObjectManager;
+import com.ibm.og.object.ObjectManagerMonitor;
+import com.ibm.og.object.ObjectNamespace;
+import com.ibm.og.object.ObjectPopulatorOptions;
 import com.ibm.og.object.OverwriteObjectNameConsumer;
+import com.ibm.og.object.PooledObjectManager;
 import com.ibm.og.object.RandomObjectPopulator;
 import com.ibm.og.object.ReadObjectNameConsumer;
+import com.ibm.og.object.ReservingObjectManager;
+import com.ibm.og.object.SelectionPolicies;
+import com.ibm.og.object.SelectionPolicy;
+import com.ibm.og.object.SharedObjectManager;
 import com.ibm.og.object.WriteObjectNameConsumer;
 import com.ibm.og.openstack.KeystoneAuth;
 import com.ibm.og.s3.MultipartRequestSupplier;
@@ -121,15 +143,19 @@ import com.ibm.og.statistic.Statistics;
 import com.ibm.og.supplier.CredentialGetterFunction;
 import com.ibm.og.supplier.DeleteObjectNameFunction;
 import com.ibm.og.supplier.MetadataObjectNameFunction;
+import com.ibm.og.supplier.NamespaceObjectNameFunction;
 import com.ibm.og.supplier.RandomSupplier;
 import com.ibm.og.supplier.ReadObjectNameFunction;
 import com.ibm.og.supplier.RequestSupplier;
 import com.ibm.og.supplier.Suppliers;
 import com.ibm.og.supplier.UUIDObjectNameFunction;
+import com.ibm.og.test.InFlightLimiter;
 import com.ibm.og.test.LoadTest;
 import com.ibm.og.test.LoadTestSubscriberExceptionHandler;
+import com.ibm.og.test.ObjectFill;
 import com.ibm.og.test.RequestManager;
 import com.ibm.og.test.SimpleRequestManager;
+import com.ibm.og.test.VisibilityProbe;
 import com.ibm.og.test.condition.ConcurrentRequestCondition;
 import com.ibm.og.test.condition.CounterCondition;
 import com.ibm.og.test.condition.RuntimeCondition;
@@ -233,7 +259,6 @@ public class OGModule extends AbstractModule {
     bind(LoadTest.class).in(Singleton.class);
     bind(EventBus.class).toInstance(this.eventBus);
     bind(Statistics.class).in(Singleton.class);
-    bind(ObjectManager.class).to(RandomObjectPopulator.class).in(Singleton.class);
     bindListener(Matchers.any(), new ProvisionListener() {
       @Override
       public <T> void onProvision(final ProvisionInvocation<T> provision) {
@@ -523,9 +548,51 @@ public class OGModule extends AbstractModule {
     return null;
   }
 
+  // when object names are drawn from the object manager, an operation specific container suffix
+  // range and object size range restrict which object names are drawn for each request, and an
+  // operation specific selection policy skews which of those are drawn
+  private Supplier<ObjectCriteria> createObjectCriteria(final OperationConfig operationConfig) {
+    final Supplier<Integer> suffixes;
+    if (operationConfig.container.prefix != null) {
+      suffixes = createContainerSuffixes(operationConfig.container);
+    } else {
+      suffixes = null;
+    }
+    final SizeUnit sizeUnit = checkNotNull(operationConfig.object.sizeUnit);
+    final long minSize = sizeUnit.toBytes(operationConfig.object.minSize);
+    final long maxSize = operationConfig.object.maxSize == Long.MAX_VALUE ? Long.MAX_VALUE
+        : sizeUnit.toBytes(operationConfig.object.maxSize);
+    checkArgument(minSize >= 0, "object min_size must be >= 0 [%s]", minSize);
+    checkArgument(maxSize >= minSize,
+        "object max_size must be greater than or equal to min_size");
+    final SelectionPolicyConfig policyConfig = checkNotNull(operationConfig.object.selectionPolicy);
+    final SelectionPolicy policy = SelectionPolicies.create(checkNotNull(policyConfig.type),
+        policyConfig.exponent, policyConfig.fraction, policyConfig.probability);
+
+    if (suffixes == null) {
+      if (minSize == 0 && maxSize == Long.MAX_VALUE && policy == SelectionPolicies.UNIFORM) {
+        return null;
+      }
+      final ObjectCriteria criteria = new ObjectCriteria(null, minSize, maxSize, policy);
+      return new Supplier<ObjectCriteria>() {
+        @Override
+        public ObjectCriteria get() {
+          return criteria;
+        }
+      };
+    }
+    return new Supplier<ObjectCriteria>() {
+      @Override
+      public ObjectCriteria get() {
+        return new ObjectCriteria(suffixes.get(), minSize, maxSize, policy);
+      }
+    };
+  }
+
   private void checkContainerObjectConfig(final OperationConfig operationConfig) throws Exception {
     if ((operationConfig.container.maxSuffix != -1 || operationConfig.container.minSuffix != -1)
-        && operationConfig.object.prefix == "" && operationConfig.weight > 0.0) {
+        && operationConfig.object.selection != null && operationConfig.object.prefix == ""
+        && operationConfig.weight > 0.0) {
       throw new Exception(
           "Must specify ObjectConfig prefix if using min/max suffix in container config");
     }
@@ -767,12 +834,19 @@ public class OGModule extends AbstractModule {
     final ObjectConfig objectConfig = checkNotNull(operationConfig.object);
     final String prefix = checkNotNull(objectConfig.prefix);
     final Supplier<Long> suffixes = createObjectSuffixes(objectConfig);
+    final boolean track = this.config.objectManager.trackSequentialObjects;
     return new Function<Map<String, String>, String>() {
       @Override
       public String apply(final Map<String, String> context) {
-        final String objectName = prefix + suffixes.get();
+        final long suffix = suffixes.get();
+        final String objectName = prefix + suffix;
         context.put(Context.X_OG_OBJECT_NAME, objectName);
         context.put(Context.X_OG_SEQUENTIAL_OBJECT_NAME, "true");
+        if (track) {
+          // allows written objects to be tracked by the object manager
+          context.put(Context.X_OG_OBJECT_PREFIX, prefix);
+          context.put(Context.X_OG_OBJECT_SUFFIX, String.valueOf(suffix));
+        }
 
         return objectName;
       }
@@ -904,12 +978,15 @@ public class OGModule extends AbstractModule {
   @Provides
   @Singleton
   @Named("write.context")
-  public List<Function<Map<String, String>, String>> provideWriteContext(final Api api) {
+  public List<Function<Map<String, String>, String>> provideWriteContext(final Api api,
+      @Nullable final NamespaceObjectManager namespace) {
     final List<Function<Map<String, String>, String>> context = Lists.newArrayList();
 
     final OperationConfig operationConfig = checkNotNull(this.config.write);
     if (Api.SOH != api) {
-      if (operationConfig.object.selection != null) {
+      if (namespace != null) {
+        context.add(new NamespaceObjectNameFunction(namespace));
+      } else if (operationConfig.object.selection != null) {
         context.add(provideObject(operationConfig));
       } else {
         // default for writes
@@ -951,8 +1028,8 @@ public class OGModule extends AbstractModule {
       final ObjectManager objectManager) {
     // FIXME add check if user has configured random/roundrobin here, it is a logical error
     // Delete the object so we know no other threads will be using it
-    final Function<Map<String, String>, String> function =
-        new DeleteObjectNameFunction(objectManager);
+    final Function<Map<String, String>, String> function = new DeleteObjectNameFunction(
+        objectManager, createObjectCriteria(this.config.overwrite));
     return ImmutableList.of(function);
   }
 
@@ -968,7 +1045,8 @@ public class OGModule extends AbstractModule {
     if (operationConfig.object.selection != null) {
       function = provideObject(operationConfig);
     } else {
-      function = new ReadObjectNameFunction(objectManager);
+      function =
+          new ReadObjectNameFunction(objectManager, createObjectCriteria(operationConfig));
     }
 
     return ImmutableList.of(function);
@@ -985,7 +1063,8 @@ public class OGModule extends AbstractModule {
     if (operationConfig.object.selection != null) {
       function = provideObject(operationConfig);
     } else {
-      function = new MetadataObjectNameFunction(objectManager);
+      function = new MetadataObjectNameFunction(objectManager,
+          createObjectCriteria(operationConfig));
     }
 
     return ImmutableList.of(function);
@@ -1002,7 +1081,8 @@ public class OGModule extends AbstractModule {
     if (operationConfig.object.selection != null) {
       function = provideObject(operationConfig);
     } else {
-      function = new DeleteObjectNameFunction(objectManager);
+      function = new DeleteObjectNameFunction(objectManager,
+          createObjectCriteria(operationConfig));
     }
 
     return ImmutableList.of(function);
@@ -1019,7 +1099,8 @@ public class OGModule extends AbstractModule {
     if (operationConfig.object.selection != null) {
       function = provideObject(operationConfig);
     } else {
-      function = new ReadObjectNameFunction(objectManager);
+      function =
+          new ReadObjectNameFunction(objectManager, createObjectCriteria(operationConfig));
     }
 
     return ImmutableList.of(function);
@@ -1166,6 +1247,10 @@ public class OGModule extends AbstractModule {
   @Provides
   @Singleton
   public Function<Map<String, String>, Body> provideBody() {
+    // namespace object sizes are assigned along with their names
+    if (ObjectFileMode.NAMESPACE == this.config.objectManager.objectFileMode) {
+      return createBodySupplier();
+    }
     final SelectionConfig<FilesizeConfig> filesizeConfig =
         checkNotNull(this.config.filesize, "filesize must not be null");
     final SelectionType filesizeSelection = checkNotNull(filesizeConfig.selection);
@@ -1317,6 +1402,142 @@ public class OGModule extends AbstractModule {
     return checkNotNull(this.config.objectManager).objectFileIndex;
   }
 
+  @Provides
+  @Singleton
+  @Named("objectfile.format")
+  public ObjectFileFormat provideObjectFileFormat() {
+    return checkNotNull(checkNotNull(this.config.objectManager).objectFileFormat,
+        "object file format must not be null");
+  }
+
+  @Provides
+  @Singleton
+  public ObjectPopulatorOptions provideObjectPopulatorOptions(
+      @Named("objectfile.format") final ObjectFileFormat format) {
+    final ObjectManagerConfig objectManagerConfig = checkNotNull(this.config.objectManager);
+    final Integer maxResident = objectManagerConfig.maxResidentObjects;
+    checkArgument(maxResident == null || maxResident >= 4,
+        "max resident objects must be >= 4 [%s]", maxResident);
+    final int loadThreads = objectManagerConfig.objectFileLoadThreads;
+    checkArgument(loadThreads > 0, "object file load threads must be > 0 [%s]", loadThreads);
+
+    return new ObjectPopulatorOptions.Builder()
+        .withStoreType(
+            checkNotNull(objectManagerConfig.objectStore, "object store must not be null"))
+        .withPersistenceType(checkNotNull(objectManagerConfig.objectFilePersistence,
+            "object file persistence must not be null"))
+        .withLoadThreads(loadThreads)
+        .withMinResident(objectManagerConfig.objectFileMinResident)
+        .withDeletionOrder(
+            checkNotNull(objectManagerConfig.deletionOrder, "deletion order must not be null"))
+        .withMaxResident(maxResident)
+        .withFormat(format)
+        .build();
+  }
+
+  @Provides
+  @Singleton
+  public ObjectManager provideObjectManager(final Provider<RandomObjectPopulator> single,
+      final Provider<PooledObjectManager> pool, final Provider<SharedObjectManager> shared,
+      @Nullable final NamespaceObjectManager namespace) {
+    final ObjectFileMode mode = checkNotNull(checkNotNull(this.config.objectManager).objectFileMode,
+        "object file mode must not be null");
+    // age ordered deletion requires a single insertion order across every object under management
+    if (DeletionOrder.RANDOM != this.config.objectManager.deletionOrder) {
+      checkArgument(ObjectFileMode.SINGLE == mode,
+          "age ordered deletion requires single object file mode [%s]", mode);
+      checkArgument(!this.config.objectManager.trackSequentialObjects,
+          "sequential objects cannot be tracked with age ordered deletion");
+    }
+    if (this.config.objectManager.maxResidentObjects != null) {
+      checkArgument(ObjectFileMode.SINGLE == mode,
+          "max resident objects requires single object file mode [%s]", mode);
+      checkArgument(DeletionOrder.RANDOM == this.config.objectManager.deletionOrder,
+          "max resident objects cannot be combined with age ordered deletion");
+    }
+    final int batchSize = this.config.objectManager.reservationBatchSize;
+    checkArgument(batchSize > 0, "reservation batch size must be > 0 [%s]", batchSize);
+    final ObjectManager objectManager;
+    switch (mode) {
+      case POOL:
+        objectManager = pool.get();
+        break;
+      case SHARED:
+        // the shared pool holds fixed size object file records only
+        checkArgument(!this.config.objectManager.trackSequentialObjects,
+            "sequential objects cannot be tracked in shared object file mode");
+        objectManager = shared.get();
+        break;
+      case NAMESPACE:
+        objectManager = namespace;
+        break;
+      default:
+        objectManager = single.get();
+    }
+    if (batchSize > 1) {
+      return new ReservingObjectManager(objectManager, batchSize);
+    }
+    return objectManager;
+  }
+
+  @Provides
+  @Singleton
+  @Nullable
+  public NamespaceObjectManager provideNamespaceObjectManager(final Api api) {
+    final ObjectManagerConfig objectManagerConfig = checkNotNull(this.config.objectManager);
+    if (ObjectFileMode.NAMESPACE != objectManagerConfig.objectFileMode) {
+      return null;
+    }
+    checkArgument(Api.SOH != api, "namespace object file mode cannot be used with SOH");
+    checkArgument(this.config.write.object.selection == null,
+        "namespace object file mode cannot be combined with sequential write object names");
+    checkArgument(!objectManagerConfig.trackSequentialObjects,
+        "sequential objects cannot be tracked in namespace object file mode");
+    checkArgument(this.config.multipartWrite.weight == 0.0,
+        "namespace object file mode cannot be combined with multipart writes");
+    // an overwrite with a new body would change the size of a namespace object
+    checkArgument(
+        this.config.overwrite.weight == 0.0 || this.config.overwrite.body == BodySource.EXISTING,
+        "namespace object file mode requires existing overwrite bodies");
+    checkArgument(objectManagerConfig.namespaceCount >= 0, "namespace count must be >= 0 [%s]",
+        objectManagerConfig.namespaceCount);
+
+    final List<ChoiceConfig<FilesizeConfig>> filesizes =
+        checkNotNull(checkNotNull(this.config.filesize, "filesize must not be null").choices);
+    checkArgument(!filesizes.isEmpty(), "filesize must not be empty");
+    final List<Distribution> sizes = Lists.newArrayList();
+    final List<Double> weights = Lists.newArrayList();
+    for (final ChoiceConfig<FilesizeConfig> f : filesizes) {
+      sizes.add(createSizeDistribution(f.choice));
+      // round robin selection is approximated by equal weights
+      weights.add(SelectionType.ROUNDROBIN == this.config.filesize.selection ? 1.0 : f.weight);
+    }
+    final ContainerConfig container = this.config.write.container.prefix != null
+        ? this.config.write.container : this.config.container;
+    final int minSuffix;
+    final int maxSuffix;
+    if (ContainerConfig.NONE == container.minSuffix || ContainerConfig.NONE == container.maxSuffix) {
+      minSuffix = ContainerConfig.NONE;
+      maxSuffix = ContainerConfig.NONE;
+    } else {
+      minSuffix = container.minSuffix;
+      maxSuffix = container.maxSuffix;
+    }
+    final long seed = objectManagerConfig.namespaceSeed != null
+        ? objectManagerConfig.namespaceSeed : new Random().nextLong();
+    return new NamespaceObjectManager(
+        new ObjectNamespace(seed, sizes, weights, minSuffix, maxSuffix),
+        objectManagerConfig.namespaceCount);
+  }
+
+  @Provides
+  @Singleton
+  public ObjectManagerMonitor provideObjectManagerMonitor(final ObjectManager objectManager) {
+    final long interval = this.config.objectManager.statisticsInterval;
+    checkArgument(interval > 0, "statistics interval must be > 0 [%s]", interval);
+    return new ObjectManagerMonitor(objectManager, interval, TimeUnit.SECONDS);
+  }
+
   @Provides
   @Singleton
   public Scheduler provideScheduler(final ConcurrencyConfig concurrency, final EventBus eventBus) {
@@ -1339,9 +1560,20 @@ public class OGModule extends AbstractModule {
   public Client provideClient(final AuthType authType, final Map<AuthType, HttpAuth> authentication,
       final Map<String, ResponseBodyConsumer> responseBodyConsumers) {
     final ClientConfig clientConfig = this.config.client;
+    final FillConfig fill = checkNotNull(this.config.fill);
     Preconditions.checkArgument(
         authentication.get(authType) instanceof AWSV4Auth ? !clientConfig.chunkedEncoding : true,
         "http layer chunked encoding is not supported with Chunked AWSV4");
+    checkNotNull(clientConfig.type);
+    final HttpAuth auth = authentication.get(authType);
+    final String userAgent = String.format("og-%s", Version.displayVersion());
+    // fill writes are only request logged on request
+    final boolean requestLogging = !fill.enabled || fill.requestLog;
+    if (ClientType.NIO == clientConfig.type) {
+      return createNioClient(clientConfig, auth, userAgent, requestLogging,
+          responseBodyConsumers);
+    }
+
     final ApacheClient.Builder b = new ApacheClient.Builder()
         .withConnectTimeout(clientConfig.connectTimeout).withSoTimeout(clientConfig.soTimeout)
         .usingSoReuseAddress(clientConfig.soReuseAddress).withSoLinger(clientConfig.soLinger)
@@ -1360,11 +1592,52 @@ public class OGModule extends AbstractModule {
         .withTrustStorePassword(clientConfig.trustStorePassword)
         .usingTrustSelfSignedCertificates(clientConfig.trustSelfSignedCertificates)
         .withDnsCacheTtl(clientConfig.dnsCacheTtl)
+        .withDnsCacheNegativeTtl(clientConfig.dnsCacheNegativeTtl).withAuthentication(auth)
+        .withUserAgent(userAgent).withWriteThroughput(clientConfig.writeThroughput)
+        .withReadThroughput(clientConfig.readThroughput).usingRequestLogging(requestLogging)
+        .usingVirtualThreads(clientConfig.virtualThreads)
+        .withResponseBufferSize(clientConfig.responseBufferSize);
+
+    for (final Entry<String, ResponseBodyConsumer> consumer : responseBodyConsumers.entrySet()) {
+      b.withResponseBodyConsumer(consumer.getKey(), consumer.getValue());
+    }
+
+    return b.build();
+  }
+
+  private Client createNioClient(final ClientConfig clientConfig, final HttpAuth auth,
+      final String userAgent, final boolean requestLogging,
+      final Map<String, ResponseBodyConsumer> responseBodyConsumers) {
+    // reject options which would silently change the workload if ignored
+    checkArgument(clientConfig.retryCount == 0, "nio client does not support retry_count");
+    checkArgument(clientConfig.writeThroughput == 0 && clientConfig.readThroughput == 0,
+        "nio client does not support write_throughput or read_throughput");
+    checkArgument(!clientConfig.virtualThreads, "nio client does not support virtual_threads");
+    // the nio client has no stale connection check, and buffers response content itself
+    final ClientConfig defaults = new ClientConfig();
+    checkArgument(clientConfig.validateAfterInactivity == defaults.validateAfterInactivity,
+        "nio client does not support validate_after_inactivity");
+    checkArgument(clientConfig.responseBufferSize == defaults.responseBufferSize,
+        "nio client does not support response_buffer_size");
+    final NioClient.Builder b = new NioClient.Builder()
+        .withConnectTimeout(clientConfig.connectTimeout).withSoTimeout(clientConfig.soTimeout)
+        .usingSoReuseAddress(clientConfig.soReuseAddress).withSoLinger(clientConfig.soLinger)
+        .usingSoKeepAlive(clientConfig.soKeepAlive).usingTcpNoDelay(clientConfig.tcpNoDelay)
+        .withSoSndBuf(clientConfig.soSndBuf).withSoRcvBuf(clientConfig.soRcvBuf)
+        .usingPersistentConnections(clientConfig.persistentConnections)
+        .withMaxIdleTime(clientConfig.maxIdleTime)
+        .usingChunkedEncoding(clientConfig.chunkedEncoding)
+        .usingExpectContinue(clientConfig.expectContinue)
+        .withWaitForContinue(clientConfig.waitForContinue).withIoThreads(clientConfig.ioThreads)
+        .withProtocols(clientConfig.protocols).withCipherSuites(clientConfig.cipherSuites)
+        .withKeyStore(clientConfig.keyStore).withKeyStorePassword(clientConfig.keyStorePassword)
+        .withKeyPassword(clientConfig.keyPassword).withTrustStore(clientConfig.trustStore)
+        .withTrustStorePassword(clientConfig.trustStorePassword)
+        .usingTrustSelfSignedCertificates(clientConfig.trustSelfSignedCertificates)
+        .withDnsCacheTtl(clientConfig.dnsCacheTtl)
         .withDnsCacheNegativeTtl(clientConfig.dnsCacheNegativeTtl)
-        .withAuthentication(authentication.get(authType))
-        .withUserAgent(String.format("og-%s", Version.displayVersion()))
-        .withWriteThroughput(clientConfig.writeThroughput)
-        .withReadThroughput(clientConfig.readThroughput);
+        .usingRequestSentRetry(clientConfig.requestSentRetry).withAuthentication(auth)
+        .withUserAgent(userAgent).usingRequestLogging(requestLogging);
 
     for (final Entry<String, ResponseBodyConsumer> consumer : responseBodyConsumers.entrySet()) {
       b.withResponseBodyConsumer(consumer.getKey(), consumer.getValue());
@@ -1373,6 +1646,69 @@ public class OGModule extends AbstractModule {
     return b.build();
   }
 
+  @Provides
+  @Singleton
+  public InFlightLimiter provideInFlightLimiter(final ConcurrencyConfig concurrency,
+      final Scheduler scheduler) {
+    final ClientConfig clientConfig = this.config.client;
+    checkNotNull(clientConfig.saturationPolicy, "saturation_policy must not be null");
+    // a concurrency test already bounds requests in flight, and a dropped request would never
+    // return its scheduler permit
+    checkArgument(clientConfig.maxInFlight == 0 || concurrency.type == ConcurrencyType.OPS,
+        "max_in_flight is only supported with ops concurrency");
+    if (scheduler instanceof RequestRateScheduler) {
+      // the rate keeps scheduling while a blocked scheduler waits for the limit
+      final RequestRateScheduler rateScheduler = (RequestRateScheduler) scheduler;
+      return new InFlightLimiter(clientConfig.maxInFlight, clientConfig.saturationPolicy,
+          new Supplier<Long>() {
+            @Override
+            public Long get() {
+              return rateScheduler.getScheduled();
+            }
+          });
+    }
+    return new InFlightLimiter(clientConfig.maxInFlight, clientConfig.saturationPolicy);
+  }
+
+  @Provides
+  @Singleton
+  @Nullable
+  public VisibilityProbe provideVisibilityProbe(final Client client) {
+    final VisibilityConfig visibility = checkNotNull(this.config.visibility);
+    if (!visibility.enabled) {
+      return null;
+    }
+    return new VisibilityProbe(client, visibility.method, visibility.delays,
+        visibility.delayUnit, visibility.sampleFraction, visibility.maxPending,
+        visibility.maxOutstanding);
+  }
+
+  @Provides
+  @Singleton
+  @Nullable
+  public ObjectFill provideObjectFill(final Client client,
+      @Named("write") final Supplier<Request> writes,
+      @Named("objectfile.location") final String directory,
+      @Named("objectfile.name") final String prefix,
+      @Named("objectfile.maxsize") final long maxSize,
+      @Named("objectfile.format") final ObjectFileFormat format,
+      @Named("shutdownImmediate") final boolean shutdownImmediate) {
+    final FillConfig fill = checkNotNull(this.config.fill);
+    if (!fill.enabled) {
+      return null;
+    }
+    checkNotNull(fill.capacityUnit);
+    checkArgument(fill.capacity >= 0.0, "fill capacity must be >= 0.0 [%s]", fill.capacity);
+    // fill records object names directly, so they must be generated rather than selected
+    checkArgument(this.config.write.object.selection == null,
+        "fill cannot be combined with sequential write object names");
+    final long capacity = (long) (fill.capacity * fill.capacityUnit.toBytes(1));
+    final ObjectFileRecorder recorder = new ObjectFileRecorder(directory, prefix,
+        (int) (maxSize / LegacyObjectMetadata.OBJECT_SIZE), format);
+    return new ObjectFill(client, writes, recorder, fill.concurrency, fill.objects, capacity,
+        fill.maxFailures, shutdownImmediate);
+  }
+
   @Provides
   @Singleton
   @Named("write")
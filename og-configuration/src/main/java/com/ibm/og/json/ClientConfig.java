@@ -7,7 +7,10 @@ package com.ibm.og.json;
 
 import java.util.List;
 
+import com.ibm.og.test.SaturationPolicy;
+
 public class ClientConfig {
+  public ClientType type;
   public int connectTimeout;
   public int soTimeout;
   public boolean soReuseAddress;
@@ -36,8 +39,14 @@ public class ClientConfig {
   public int dnsCacheNegativeTtl;
   public int writeThroughput;
   public int readThroughput;
+  public int responseBufferSize;
+  public int ioThreads;
+  public boolean virtualThreads;
+  public int maxInFlight;
+  public SaturationPolicy saturationPolicy;
 
   public ClientConfig() {
+    this.type = ClientType.APACHE;
     this.connectTimeout = 0;
     this.soTimeout = 0;
     this.soReuseAddress = false;
@@ -66,5 +75,10 @@ public class ClientConfig {
     this.dnsCacheNegativeTtl = 10;
     this.writeThroughput = 0;
     this.readThroughput = 0;
+    this.responseBufferSize = 0;
+    this.ioThreads = 0;
+    this.virtualThreads = false;
+    this.maxInFlight = 0;
+    this.saturationPolicy = SaturationPolicy.BLOCK;
   }
 }
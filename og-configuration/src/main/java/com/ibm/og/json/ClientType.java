@@ -0,0 +1,10 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.json;
+
+public enum ClientType {
+  APACHE, NIO;
+}
@@ -0,0 +1,28 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.json;
+
+import com.ibm.og.util.SizeUnit;
+
+public class FillConfig {
+  public boolean enabled;
+  public long objects;
+  public double capacity;
+  public SizeUnit capacityUnit;
+  public int concurrency;
+  public long maxFailures;
+  public boolean requestLog;
+
+  public FillConfig() {
+    this.enabled = false;
+    this.objects = 0;
+    this.capacity = 0.0;
+    this.capacityUnit = SizeUnit.BYTES;
+    this.concurrency = 64;
+    this.maxFailures = 100;
+    this.requestLog = false;
+  }
+}
@@ -37,6 +37,8 @@ public class OGConfig {
   public StoppingConditionsConfig stoppingConditions;
   public FailingConditionsConfig failingConditions;
   public ObjectManagerConfig objectManager;
+  public VisibilityConfig visibility;
+  public FillConfig fill;
   public boolean shutdownImmediate;
   public boolean virtualHost;
 
@@ -65,6 +67,8 @@ public class OGConfig {
     this.stoppingConditions = new StoppingConditionsConfig();
     this.failingConditions = new FailingConditionsConfig();
     this.objectManager = new ObjectManagerConfig();
+    this.visibility = new VisibilityConfig();
+    this.fill = new FillConfig();
     this.shutdownImmediate = true;
     this.virtualHost = false;
   }
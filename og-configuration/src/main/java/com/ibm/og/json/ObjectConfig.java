@@ -5,12 +5,18 @@
 
 package com.ibm.og.json;
 
+import com.ibm.og.util.SizeUnit;
+
 public class ObjectConfig {
   public String prefix;
   public SelectionType selection;
   public long minSuffix;
   public long maxSuffix;
   public SelectionConfig<Long> partSize;
+  public long minSize;
+  public long maxSize;
+  public SizeUnit sizeUnit;
+  public SelectionPolicyConfig selectionPolicy;
 
   public ObjectConfig() {
     this.prefix = "";
@@ -22,5 +28,9 @@ public class ObjectConfig {
     this.minSuffix = 0;
     this.maxSuffix = Long.MAX_VALUE;
     this.partSize = null;
+    this.minSize = 0;
+    this.maxSize = Long.MAX_VALUE;
+    this.sizeUnit = SizeUnit.BYTES;
+    this.selectionPolicy = new SelectionPolicyConfig();
   }
 }
@@ -5,7 +5,11 @@
 
 package com.ibm.og.json;
 
-
+import com.ibm.og.object.DeletionOrder;
+import com.ibm.og.object.ObjectFileFormat;
+import com.ibm.og.object.ObjectFileMode;
+import com.ibm.og.object.ObjectStoreType;
+import com.ibm.og.object.PersistenceType;
 
 public class ObjectManagerConfig {
   public String objectFileLocation;
@@ -13,6 +17,19 @@ public class ObjectManagerConfig {
   public long objectFileMaxSize;
   public long objectFilePersistFrequency;
   public Integer objectFileIndex;
+  public ObjectFileMode objectFileMode;
+  public ObjectStoreType objectStore;
+  public PersistenceType objectFilePersistence;
+  public ObjectFileFormat objectFileFormat;
+  public int objectFileLoadThreads;
+  public Long objectFileMinResident;
+  public boolean trackSequentialObjects;
+  public DeletionOrder deletionOrder;
+  public Integer maxResidentObjects;
+  public int reservationBatchSize;
+  public long statisticsInterval;
+  public Long namespaceSeed;
+  public long namespaceCount;
 
   public ObjectManagerConfig() {
     this.objectFileLocation = "./object";
@@ -20,5 +37,18 @@ public class ObjectManagerConfig {
     this.objectFileMaxSize = 100000000; // 100mb
     this.objectFilePersistFrequency = 1800; // 30 minutes
     this.objectFileIndex = null;
+    this.objectFileMode = ObjectFileMode.SINGLE;
+    this.objectStore = ObjectStoreType.HEAP;
+    this.objectFilePersistence = PersistenceType.SNAPSHOT;
+    this.objectFileFormat = ObjectFileFormat.V1;
+    this.objectFileLoadThreads = Runtime.getRuntime().availableProcessors();
+    this.objectFileMinResident = null; // wait for the entire object file to load
+    this.trackSequentialObjects = false;
+    this.deletionOrder = DeletionOrder.RANDOM;
+    this.maxResidentObjects = null; // hold every object in memory
+    this.reservationBatchSize = 1; // reserve objects one request at a time
+    this.statisticsInterval = 60; // 1 minute
+    this.namespaceSeed = null; // chosen at random and logged
+    this.namespaceCount = 0;
   }
 }
@@ -0,0 +1,22 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.json;
+
+import com.ibm.og.object.SelectionPolicyType;
+
+public class SelectionPolicyConfig {
+  public SelectionPolicyType type;
+  public double exponent;
+  public double fraction;
+  public double probability;
+
+  public SelectionPolicyConfig() {
+    this.type = SelectionPolicyType.UNIFORM;
+    this.exponent = 1.0;
+    this.fraction = 0.2;
+    this.probability = 0.8;
+  }
+}
@@ -0,0 +1,32 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.json;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.ibm.og.api.Method;
+
+public class VisibilityConfig {
+  public boolean enabled;
+  public Method method;
+  public List<Long> delays;
+  public TimeUnit delayUnit;
+  public double sampleFraction;
+  public int maxPending;
+  public int maxOutstanding;
+
+  public VisibilityConfig() {
+    this.enabled = false;
+    this.method = Method.HEAD;
+    this.delays = Lists.newArrayList(0L, 10L, 50L, 100L, 250L, 500L, 1000L, 2500L, 5000L, 10000L);
+    this.delayUnit = TimeUnit.MILLISECONDS;
+    this.sampleFraction = 0.01;
+    this.maxPending = 10000;
+    this.maxOutstanding = 16;
+  }
+}
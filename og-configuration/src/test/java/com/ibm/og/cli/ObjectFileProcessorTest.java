@@ -0,0 +1,175 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+import com.ibm.og.object.LegacyObjectMetadata;
+import com.ibm.og.object.ObjectFileFormat;
+import com.ibm.og.object.ObjectFileWriter;
+import com.ibm.og.object.ObjectFiles;
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+import com.tngtech.java.junit.dataprovider.UseDataProvider;
+
+@RunWith(DataProviderRunner.class)
+public class ObjectFileProcessorTest {
+  private static final int RECORD_SIZE = LegacyObjectMetadata.OBJECT_SIZE;
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private File file;
+  private byte[] records;
+
+  @Before
+  public void before() throws IOException {
+    this.file = this.folder.newFile();
+    // random records cover negative sizes and suffixes, and every hex digit
+    final Random random = new Random(0);
+    this.records = new byte[1000 * RECORD_SIZE];
+    random.nextBytes(this.records);
+    final ByteBuffer buf = ByteBuffer.wrap(this.records);
+    buf.putLong(RECORD_SIZE + LegacyObjectMetadata.OBJECT_NAME_SIZE, Long.MIN_VALUE);
+    buf.putLong(2 * RECORD_SIZE + LegacyObjectMetadata.OBJECT_NAME_SIZE, 0);
+    for (int i = 0; i < 1000; i++) {
+      // a few distinct suffixes so that filtering by suffix selects some records
+      buf.putInt(i * RECORD_SIZE + LegacyObjectMetadata.OBJECT_NAME_SIZE
+          + LegacyObjectMetadata.OBJECT_SIZE_SIZE, i % 5 - 1);
+    }
+  }
+
+  @DataProvider
+  public static Object[][] provideFormats() {
+    return new Object[][] {{ObjectFileFormat.V1, 1}, {ObjectFileFormat.V1, 4},
+        {ObjectFileFormat.V2, 1}, {ObjectFileFormat.V2, 4}};
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroThreads() {
+    new ObjectFileProcessor(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroChunkRecords() {
+    new ObjectFileProcessor(1, 0);
+  }
+
+  @Test
+  @UseDataProvider("provideFormats")
+  public void read(final ObjectFileFormat format, final int threads) throws IOException {
+    write(format);
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    ObjectFile.read(new ByteArrayInputStream(this.records), expected);
+    assertThat(process(threads, ObjectFileProcessor.read()), is(expected.toByteArray()));
+  }
+
+  @Test
+  @UseDataProvider("provideFormats")
+  public void filter(final ObjectFileFormat format, final int threads) throws IOException {
+    write(format);
+    final Set<Integer> suffixes = ImmutableSet.of(1, 3);
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    ObjectFile.filter(new ByteArrayInputStream(this.records), expected, 0, Long.MAX_VALUE / 2, 0,
+        2, suffixes);
+    assertThat(process(threads,
+        ObjectFileProcessor.filter(0, Long.MAX_VALUE / 2, 0, 2, suffixes)),
+        is(expected.toByteArray()));
+  }
+
+  @Test
+  @UseDataProvider("provideFormats")
+  public void copy(final ObjectFileFormat format, final int threads) throws IOException {
+    write(format);
+    assertThat(process(threads, ObjectFileProcessor.copy()), is(this.records));
+  }
+
+  @Test
+  public void copyTrailing() throws IOException {
+    write(ObjectFileFormat.V1);
+    final RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+    raf.setLength(raf.length() - 1);
+    raf.close();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new ObjectFileProcessor(3, 7).process(this.file, ObjectFileProcessor.copy(), out, true);
+    assertThat(out.size(), is(this.records.length - 1));
+
+    // a truncated record is otherwise ignored
+    assertThat(process(3, ObjectFileProcessor.copy()).length,
+        is(this.records.length - RECORD_SIZE));
+  }
+
+  @Test
+  public void upgrade() throws IOException {
+    write(ObjectFileFormat.V1);
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    ObjectFile.upgrade(new ByteArrayInputStream(this.records), expected);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new ObjectFileProcessor(3, 7).upgrade(this.file, out);
+    assertThat(out.toByteArray(), is(expected.toByteArray()));
+  }
+
+  @Test(expected = IOException.class)
+  public void corruptBlock() throws IOException {
+    write(ObjectFileFormat.V2);
+    final RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+    raf.seek(ObjectFiles.blockOffset(5) + 1);
+    final int b = raf.read();
+    raf.seek(ObjectFiles.blockOffset(5) + 1);
+    raf.write(b ^ 0xFF);
+    raf.close();
+    process(4, ObjectFileProcessor.copy());
+  }
+
+  @Test
+  public void split() throws IOException {
+    write(ObjectFileFormat.V1);
+    final String prefix = new File(this.folder.getRoot(), "id").toString();
+    final OutputStream out = new ObjectFile.ObjectFileOutputStream(prefix, 300, ".object");
+    new ObjectFileProcessor(3, 7).process(this.file, ObjectFileProcessor.copy(), out);
+    out.close();
+    final ByteArrayOutputStream joined = new ByteArrayOutputStream();
+    for (int i = 0; i < 4; i++) {
+      final File split = new File(prefix + i + ".object");
+      assertThat(split.length(), is(i < 3 ? 300L * RECORD_SIZE : 100L * RECORD_SIZE));
+      joined.write(Files.toByteArray(split));
+    }
+    assertThat(joined.toByteArray(), is(this.records));
+  }
+
+  private void write(final ObjectFileFormat format) throws IOException {
+    final OutputStream out = ObjectFileFormat.V1 == format ? new FileOutputStream(this.file)
+        : new ObjectFileWriter(this.file, format);
+    out.write(this.records);
+    out.close();
+  }
+
+  // chunks which split v1 records and v2 blocks unevenly
+  private byte[] process(final int threads, final ObjectFileProcessor.RecordTransform transform)
+      throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new ObjectFileProcessor(threads, 7).process(this.file, transform, out);
+    return out.toByteArray();
+  }
+}
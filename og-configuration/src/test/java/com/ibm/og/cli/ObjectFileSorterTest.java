@@ -0,0 +1,170 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.BaseEncoding;
+import com.ibm.og.object.LegacyObjectMetadata;
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+import com.tngtech.java.junit.dataprovider.UseDataProvider;
+
+@RunWith(DataProviderRunner.class)
+public class ObjectFileSorterTest {
+  private static final int RECORD_SIZE = LegacyObjectMetadata.OBJECT_SIZE;
+  private static final int NAME_SIZE = LegacyObjectMetadata.OBJECT_NAME_SIZE;
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private byte[] records;
+
+  @Before
+  public void before() {
+    // 2000 records drawn from 500 names, so that most names are duplicated; each record's size is
+    // its input position, which identifies the last record for a name
+    final Random random = new Random(0);
+    final byte[][] names = new byte[500][NAME_SIZE];
+    for (final byte[] name : names) {
+      random.nextBytes(name);
+    }
+    final ByteBuffer buf = ByteBuffer.allocate(2000 * RECORD_SIZE);
+    for (int i = 0; i < 2000; i++) {
+      buf.put(names[random.nextInt(names.length)]);
+      buf.putLong(i);
+      buf.putInt(i % 7 - 1);
+    }
+    this.records = buf.array();
+  }
+
+  @DataProvider
+  public static Object[][] provideSorters() {
+    // in memory, a single merge pass, and several merge passes
+    return new Object[][] {{1 << 20, 64}, {100 * RECORD_SIZE, 64},
+        {7 * RECORD_SIZE + 3, 2}};
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void smallBuffer() {
+    new ObjectFileSorter(RECORD_SIZE - 1, null, false);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void smallFanIn() {
+    new ObjectFileSorter(RECORD_SIZE, null, false, 1);
+  }
+
+  @Test
+  @UseDataProvider("provideSorters")
+  public void sort(final int bufferSize, final int maxFanIn) throws IOException {
+    final ObjectFileSorter sorter =
+        new ObjectFileSorter(bufferSize, this.folder.getRoot(), false, maxFanIn);
+    final byte[] sorted = sort(sorter, this.records);
+    assertThat(sorter.getInputRecords(), is(2000L));
+    assertThat(sorter.getOutputRecords(), is(2000L));
+    assertThat(toStrings(sorted), is(expectedSort()));
+    // run files are removed
+    assertThat(this.folder.getRoot().list().length, is(0));
+  }
+
+  @Test
+  @UseDataProvider("provideSorters")
+  public void dedupe(final int bufferSize, final int maxFanIn) throws IOException {
+    final ObjectFileSorter sorter =
+        new ObjectFileSorter(bufferSize, this.folder.getRoot(), true, maxFanIn);
+    final byte[] deduped = sort(sorter, this.records);
+
+    // the last record for each name
+    final Map<String, String> expected = new TreeMap<String, String>();
+    for (final String record : toStrings(this.records)) {
+      expected.put(record.substring(0, 2 * NAME_SIZE), record);
+    }
+    assertThat(sorter.getOutputRecords(), is((long) expected.size()));
+    assertThat(toStrings(deduped), is((List<String>) Lists.newArrayList(expected.values())));
+    assertThat(this.folder.getRoot().list().length, is(0));
+  }
+
+  @Test
+  public void multipleInputs() throws IOException {
+    final ObjectFileSorter sorter =
+        new ObjectFileSorter(100 * RECORD_SIZE, this.folder.getRoot(), false);
+    sorter.add(new ByteArrayInputStream(this.records, 0, 1000 * RECORD_SIZE));
+    sorter.add(new ByteArrayInputStream(this.records, 1000 * RECORD_SIZE, 1000 * RECORD_SIZE));
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    sorter.finish(out);
+    assertThat(toStrings(out.toByteArray()), is(expectedSort()));
+  }
+
+  @Test
+  public void truncatedRecord() throws IOException {
+    final ObjectFileSorter sorter = new ObjectFileSorter(1 << 20, null, false);
+    final byte[] sorted = sort(sorter, Arrays.copyOf(this.records, 3 * RECORD_SIZE - 1));
+    assertThat(sorted.length, is(2 * RECORD_SIZE));
+  }
+
+  @Test
+  public void empty() throws IOException {
+    final ObjectFileSorter sorter = new ObjectFileSorter(1 << 20, null, true);
+    assertThat(sort(sorter, new byte[0]).length, is(0));
+    assertThat(sorter.getOutputRecords(), is(0L));
+  }
+
+  @Test
+  public void compareNamesIsUnsigned() {
+    final byte[] b1 = new byte[NAME_SIZE];
+    final byte[] b2 = new byte[NAME_SIZE];
+    b2[0] = (byte) 0xFF;
+    assertThat(ObjectFileSorter.compareNames(b1, 0, b2, 0) < 0, is(true));
+    assertThat(ObjectFileSorter.compareNames(b2, 0, b2, 0), is(0));
+  }
+
+  private List<String> expectedSort() {
+    // hex encoding orders names as unsigned bytes, and sorting is stable
+    final List<String> expected = toStrings(this.records);
+    Collections.sort(expected, new Comparator<String>() {
+      @Override
+      public int compare(final String s1, final String s2) {
+        return s1.substring(0, 2 * NAME_SIZE).compareTo(s2.substring(0, 2 * NAME_SIZE));
+      }
+    });
+    return expected;
+  }
+
+  private static byte[] sort(final ObjectFileSorter sorter, final byte[] records)
+      throws IOException {
+    sorter.add(new ByteArrayInputStream(records));
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    sorter.finish(out);
+    return out.toByteArray();
+  }
+
+  private static List<String> toStrings(final byte[] records) {
+    final List<String> strings = Lists.newArrayList();
+    for (int i = 0; i + RECORD_SIZE <= records.length; i += RECORD_SIZE) {
+      strings.add(BaseEncoding.base16().lowerCase().encode(records, i, RECORD_SIZE));
+    }
+    return strings;
+  }
+}
@@ -0,0 +1,75 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.ibm.og.object.LegacyObjectMetadata;
+
+public class ObjectFileStatsTest {
+  private static final String NAME = "0123456789abcdef0123456789abcdef0000";
+
+  @Test
+  public void bucket() {
+    assertThat(ObjectFileStats.bucket(-1), is(0));
+    assertThat(ObjectFileStats.bucket(0), is(0));
+    assertThat(ObjectFileStats.bucket(1), is(1));
+    assertThat(ObjectFileStats.bucket(2), is(2));
+    assertThat(ObjectFileStats.bucket(3), is(2));
+    assertThat(ObjectFileStats.bucket(1024), is(11));
+    assertThat(ObjectFileStats.bucket(Long.MAX_VALUE), is(63));
+  }
+
+  @Test
+  public void stats() throws IOException {
+    final ByteArrayOutputStream records = new ByteArrayOutputStream();
+    final long[] sizes = {0, 1, 3, 1024, 1500, 1024};
+    final int[] suffixes = {-1, 0, 0, 2, 2, 2};
+    for (int i = 0; i < sizes.length; i++) {
+      records.write(LegacyObjectMetadata.fromMetadata(NAME, sizes[i], suffixes[i]).toBytes());
+    }
+    // a truncated trailing record is ignored
+    records.write(new byte[] {1, 2, 3});
+
+    final ObjectFileStats stats = new ObjectFileStats();
+    stats.add(new ByteArrayInputStream(records.toByteArray()));
+    assertThat(stats.getRecords(), is(6L));
+    assertThat(stats.getTotalSize(), is(3552L));
+    assertThat(stats.getSizeCount(0), is(1L));
+    assertThat(stats.getSizeCount(1), is(1L));
+    assertThat(stats.getSizeCount(2), is(1L));
+    assertThat(stats.getSizeCount(11), is(3L));
+    assertThat(stats.getContainerSuffixCount(-1), is(1L));
+    assertThat(stats.getContainerSuffixCount(0), is(2L));
+    assertThat(stats.getContainerSuffixCount(1), is(0L));
+    assertThat(stats.getContainerSuffixCount(2), is(3L));
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    stats.print(out);
+    final String printed = new String(out.toByteArray(), Charsets.UTF_8);
+    assertThat(printed, containsString("records: 6"));
+    assertThat(printed, containsString("maximum size: 1500"));
+    assertThat(printed, containsString("1024 - 2047: 3"));
+    assertThat(printed, containsString("2: 3"));
+  }
+
+  @Test
+  public void empty() {
+    final ObjectFileStats stats = new ObjectFileStats();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    stats.print(out);
+    assertThat(new String(out.toByteArray(), Charsets.UTF_8).trim(), is("records: 0"));
+  }
+}
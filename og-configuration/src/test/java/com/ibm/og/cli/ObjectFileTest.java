@@ -25,6 +25,8 @@ import java.util.List;
 import java.util.UUID;
 
 import com.ibm.og.object.LegacyObjectMetadata;
+import com.ibm.og.object.ObjectFileFormat;
+import com.ibm.og.object.ObjectFiles;
 import com.ibm.og.object.ObjectMetadata;
 import org.junit.Before;
 import org.junit.Rule;
@@ -227,4 +229,47 @@ public class ObjectFileTest {
 
     assertThat(persistedObjects, is(numObjects));
   }
+
+  @Test
+  @UseDataProvider("provideObjectFileOutputStream")
+  public void objectFileOutputStreamV2(final int maxObjects, final int numObjects,
+      final int fileCount) throws IOException {
+    final String prefixFilename = new File(this.folder.getRoot().toString(), "id").toString();
+    final OutputStream out = ObjectFile.getOutputStream(true,
+        maxObjects * LegacyObjectMetadata.OBJECT_SIZE, prefixFilename, ObjectFileFormat.V2);
+    final ObjectMetadata o = LegacyObjectMetadata
+        .fromMetadata(UUID.randomUUID().toString().replace("-", "") + "0000", 0, 0);
+    for (int i = 0; i < numObjects; i++) {
+      out.write(o.toBytes());
+    }
+    out.close();
+
+    long persistedObjects = 0;
+    for (int i = 0; i < fileCount; i++) {
+      final File file = new File(String.format("%s%d%s", prefixFilename, i, ".object"));
+      assertThat(ObjectFiles.format(file), is(ObjectFileFormat.V2));
+      persistedObjects += ObjectFiles.count(file);
+    }
+    assertThat(persistedObjects, is((long) numObjects));
+  }
+
+  @Test
+  public void readV2() throws IOException {
+    final LegacyObjectMetadata object = LegacyObjectMetadata
+        .fromMetadata(UUID.randomUUID().toString().replace("-", "") + "0000", 1024, 0);
+    final OutputStream v2 = ObjectFile.getOutputStream(false, -1, this.exists.toString(),
+        ObjectFileFormat.V2);
+    v2.write(object.toBytes());
+    v2.close();
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ObjectFile.read(ObjectFile.getObjectInputStream(this.exists), out);
+    assertThat(new String(out.toByteArray()), is(String.format("%s,%s,%s%n", object.getName(),
+        object.getSize(), object.getContainerSuffix())));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void v2OutputRequiresOutput() throws IOException {
+    ObjectFile.getOutputStream(false, -1, null, ObjectFileFormat.V2);
+  }
 }
@@ -8,11 +8,13 @@ package com.ibm.og.cli;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.concurrent.TimeUnit;
 
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import org.junit.Rule;
 import org.junit.Test;
@@ -26,6 +28,8 @@ import com.ibm.og.http.Bodies;
 import com.ibm.og.http.HttpRequest;
 import com.ibm.og.http.HttpResponse;
 import com.ibm.og.statistic.Statistics;
+import com.ibm.og.test.InFlightLimiter;
+import com.ibm.og.test.SaturationPolicy;
 import com.ibm.og.api.Operation;
 import com.ibm.og.util.Pair;
 import com.tngtech.java.junit.dataprovider.DataProvider;
@@ -96,5 +100,52 @@ public class SummaryTest {
     assertThat(summaryStats.metadata.operations, is(0L));
     assertThat(summaryStats.metadata.statusCodes.size(), is(0));
     assertThat(summaryStats.metadata.statusCodes.size(), is(0));
+    // the object manager and visibility are only summarized when measured
+    assertThat(summaryStats.objectManager, nullValue());
+    assertThat(summaryStats.visibility, nullValue());
+    assertThat(summaryStats.saturation, nullValue());
+  }
+
+  @DataProvider
+  public static Object[][] provideSaturation() {
+    return new Object[][] {{0, false}, {10, true}};
+  }
+
+  @Test
+  @UseDataProvider("provideSaturation")
+  public void saturation(final int maxInFlight, final boolean summarized) {
+    // saturation is only summarized when requests in flight were limited
+    final InFlightLimiter limiter = new InFlightLimiter(maxInFlight, SaturationPolicy.DROP);
+    final Summary summary = new Summary(new Statistics(), null, null, limiter, 0, 1, 0,
+        ImmutableList.of("Test Success"));
+    assertThat(summary.getSummaryStats().saturation != null, is(summarized));
+    assertThat(summary.toString().contains("[SATURATION]"), is(summarized));
+  }
+
+  @Test
+  public void saturationBlockIntended() throws InterruptedException {
+    // under block the requests scheduled while the scheduler waited are intended but not issued
+    final InFlightLimiter limiter =
+        new InFlightLimiter(1, SaturationPolicy.BLOCK, Suppliers.ofInstance(50L));
+    limiter.acquire();
+    final Thread t = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          limiter.acquire();
+        } catch (final InterruptedException e) {
+          // fall through
+        }
+      }
+    });
+    t.start();
+    Thread.sleep(50);
+    limiter.release();
+    t.join(10000);
+
+    final Summary summary = new Summary(new Statistics(), null, null, limiter, 0, 1, 0,
+        ImmutableList.of("Test Success"));
+    assertThat(summary.getSummaryStats().saturation.intended, is(50L));
+    assertThat(summary.getSummaryStats().saturation.issued, is(2L));
   }
 }
@@ -5,6 +5,10 @@
 
 package com.ibm.og.guice;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.Mockito.mock;
 
 import java.util.Map;
@@ -12,18 +16,28 @@ import java.util.concurrent.TimeUnit;
 
 import com.ibm.og.json.FailingConditionsConfig;
 import com.ibm.og.json.ConcurrencyConfig;
+import com.ibm.og.api.Client;
+import com.ibm.og.cli.ObjectGenerator;
+import com.ibm.og.client.NioClient;
 import com.ibm.og.json.OGConfig;
 import com.ibm.og.statistic.Statistics;
+import com.ibm.og.test.InFlightLimiter;
 import com.ibm.og.test.LoadTest;
+import com.ibm.og.test.ObjectFill;
+import com.ibm.og.test.SaturationPolicy;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 
 import com.ibm.og.json.StoppingConditionsConfig;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.eventbus.EventBus;
+import com.google.inject.Guice;
+import com.google.inject.ProvisionException;
+import com.google.inject.Stage;
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 import com.tngtech.java.junit.dataprovider.UseDataProvider;
@@ -32,6 +46,8 @@ import com.tngtech.java.junit.dataprovider.UseDataProvider;
 public class OGModuleTest {
   @Rule
   public ExpectedException thrown = ExpectedException.none();
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
   private LoadTest test;
   private EventBus eventBus;
   private ConcurrencyConfig concurrency;
@@ -84,4 +100,81 @@ public class OGModuleTest {
     module.provideTestConditions(this.test, this.eventBus, this.stats, this.concurrency,
         stoppingConditions, failingConditions);
   }
+
+  @Test
+  public void fill() {
+    // a fill needs neither concurrency nor an object manager, which is never created
+    final String json = String.format("{\"host\": \"127.0.0.1\", \"api\": \"s3\", "
+        + "\"container\": \"container\", \"filesize\": {\"average\": 1}, "
+        + "\"object_manager\": {\"object_file_location\": \"%s\"}, "
+        + "\"fill\": {\"enabled\": true, \"objects\": 10}}",
+        this.folder.getRoot().toString().replace("\\", "/"));
+    final OGConfig config = ObjectGenerator.createGson().fromJson(json, OGConfig.class);
+    final ObjectFill fill = Guice.createInjector(Stage.DEVELOPMENT, new OGModule(config))
+        .getInstance(ObjectFill.class);
+    assertThat(fill, notNullValue());
+  }
+
+  @Test
+  public void nioClient() {
+    final String json = "{\"host\": \"127.0.0.1\", \"client\": {\"type\": \"nio\"}}";
+    final OGConfig config = ObjectGenerator.createGson().fromJson(json, OGConfig.class);
+    final Client client =
+        Guice.createInjector(Stage.DEVELOPMENT, new OGModule(config)).getInstance(Client.class);
+    assertThat(client, instanceOf(NioClient.class));
+  }
+
+  @Test
+  public void nioClientHttps() {
+    final String json = "{\"host\": \"127.0.0.1\", \"scheme\": \"https\", "
+        + "\"client\": {\"type\": \"nio\"}}";
+    final OGConfig config = ObjectGenerator.createGson().fromJson(json, OGConfig.class);
+    final Client client =
+        Guice.createInjector(Stage.DEVELOPMENT, new OGModule(config)).getInstance(Client.class);
+    assertThat(client, instanceOf(NioClient.class));
+  }
+
+  @Test(expected = ProvisionException.class)
+  public void nioClientRetryCount() {
+    final String json = "{\"host\": \"127.0.0.1\", \"client\": {\"type\": \"nio\", "
+        + "\"retry_count\": 1}}";
+    final OGConfig config = ObjectGenerator.createGson().fromJson(json, OGConfig.class);
+    Guice.createInjector(Stage.DEVELOPMENT, new OGModule(config)).getInstance(Client.class);
+  }
+
+  @DataProvider
+  public static Object[][] provideUnsupportedNioClientOptions() {
+    return new Object[][] {{"\"validate_after_inactivity\": 1000"},
+        {"\"response_buffer_size\": 4096"}};
+  }
+
+  @Test(expected = ProvisionException.class)
+  @UseDataProvider("provideUnsupportedNioClientOptions")
+  public void nioClientUnsupportedOption(final String option) {
+    final String json =
+        "{\"host\": \"127.0.0.1\", \"client\": {\"type\": \"nio\", " + option + "}}";
+    final OGConfig config = ObjectGenerator.createGson().fromJson(json, OGConfig.class);
+    Guice.createInjector(Stage.DEVELOPMENT, new OGModule(config)).getInstance(Client.class);
+  }
+
+  @Test
+  public void inFlightLimiter() {
+    final String json = "{\"host\": \"127.0.0.1\", \"concurrency\": {\"type\": \"ops\", "
+        + "\"count\": 10}, \"client\": {\"max_in_flight\": 100, "
+        + "\"saturation_policy\": \"drop\"}}";
+    final OGConfig config = ObjectGenerator.createGson().fromJson(json, OGConfig.class);
+    final InFlightLimiter limiter = Guice.createInjector(Stage.DEVELOPMENT, new OGModule(config))
+        .getInstance(InFlightLimiter.class);
+    assertThat(limiter.getMaxInFlight(), is(100));
+    assertThat(limiter.getPolicy(), is(SaturationPolicy.DROP));
+  }
+
+  @Test(expected = ProvisionException.class)
+  public void inFlightLimiterThreads() {
+    final String json = "{\"host\": \"127.0.0.1\", \"concurrency\": {\"type\": \"threads\", "
+        + "\"count\": 10}, \"client\": {\"max_in_flight\": 100}}";
+    final OGConfig config = ObjectGenerator.createGson().fromJson(json, OGConfig.class);
+    Guice.createInjector(Stage.DEVELOPMENT, new OGModule(config))
+        .getInstance(InFlightLimiter.class);
+  }
 }
@@ -8,6 +8,7 @@ package com.ibm.og.object;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Map;
 import java.util.Set;
 
 import com.ibm.og.api.Operation;
@@ -75,7 +76,11 @@ public abstract class AbstractObjectNameConsumer {
       return;
     }
 
-    if (request.getContext().containsKey(Context.X_OG_SEQUENTIAL_OBJECT_NAME)) {
+    // sequential names which were generated rather than drawn from the object manager are only
+    // tracked once written, and only when their prefix and suffix have been recorded
+    final Map<String, String> context = request.getContext();
+    if (context.containsKey(Context.X_OG_SEQUENTIAL_OBJECT_NAME)
+        && (!context.containsKey(Context.X_OG_OBJECT_PREFIX) || !isWrite())) {
       return;
     }
 
@@ -92,9 +97,18 @@ public abstract class AbstractObjectNameConsumer {
     final String objectString = getObjectString(request, response);
     final long objectSize = getObjectSize(request);
     final int containerSuffix = getContainerSuffix(request);
+    final String prefix = request.getContext().get(Context.X_OG_OBJECT_PREFIX);
+    if (prefix != null) {
+      final long suffix = Long.parseLong(request.getContext().get(Context.X_OG_OBJECT_SUFFIX));
+      return SequentialObjectMetadata.fromMetadata(prefix, suffix, objectSize, containerSuffix);
+    }
     return LegacyObjectMetadata.fromMetadata(objectString, objectSize, containerSuffix);
   }
 
+  private boolean isWrite() {
+    return this.operation == Operation.WRITE || this.operation == Operation.MULTIPART_WRITE;
+  }
+
   protected String getObjectString(final Request request, final Response response) {
     String objectString = request.getContext().get(Context.X_OG_OBJECT_NAME);
     // SOH writes
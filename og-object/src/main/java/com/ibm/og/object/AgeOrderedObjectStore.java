@@ -0,0 +1,326 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+
+/**
+ * An {@code ObjectStore} implementation which holds objects in insertion order and removes them
+ * oldest first or newest first. Objects are held in a segmented ring: a circular array of fixed
+ * size blocks, where blocks are allocated as objects are added at the newest end and released as
+ * objects are removed from either end. Addition, removal from either end and positional selection
+ * are O(1).
+ * <p>
+ * Removal takes the object closest to the end named by this store's {@code DeletionOrder} which
+ * satisfies the removal criteria; objects between that end and the removed object shift by one
+ * position, so removal is O(1) when most objects satisfy the criteria and proportional to the
+ * number of objects passed over otherwise. Random selection honors {@code SelectionPolicy}
+ * exactly, since positions are never reordered. Selection restricted by criteria is sampled and
+ * falls back to a scan when few objects match.
+ *
+ * @since 1.0
+ */
+public class AgeOrderedObjectStore implements CriteriaObjectStore {
+  static final int BLOCK_SHIFT = 12;
+  static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+  private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+  private static final int MAX_SELECTION_ATTEMPTS = 64;
+  private final DeletionOrder order;
+  private final ReentrantLock lock;
+  private final Random rand;
+  // ring of blocks; its length is a power of two
+  private ObjectMetadata[][] blocks;
+  private int firstBlock;
+  private int blockCount;
+  // offset of the oldest object within the first block
+  private int head;
+  private int size;
+  // a released block retained to avoid reallocation when size oscillates across a block boundary
+  private ObjectMetadata[] spare;
+
+  /**
+   * Constructs an empty instance
+   *
+   * @param order the end from which objects are removed
+   * @throws NullPointerException if order is null
+   * @throws IllegalArgumentException if order is {@code RANDOM}
+   */
+  public AgeOrderedObjectStore(final DeletionOrder order) {
+    checkNotNull(order);
+    checkArgument(order != DeletionOrder.RANDOM, "order must be age ordered [%s]", order);
+    this.order = order;
+    this.lock = new ReentrantLock();
+    this.rand = new Random();
+    this.blocks = new ObjectMetadata[16][];
+    this.firstBlock = 0;
+    this.blockCount = 0;
+    this.head = 0;
+    this.size = 0;
+  }
+
+  @Override
+  public void put(final ObjectMetadata objectMetadata) {
+    checkNotNull(objectMetadata);
+    this.lock.lock();
+    try {
+      if (this.head + this.size == this.blockCount << BLOCK_SHIFT) {
+        ensureBlockCapacity();
+        this.blocks[blockIndex(this.blockCount)] = allocateBlock();
+        this.blockCount++;
+      }
+      this.size++;
+      set(this.size - 1, objectMetadata);
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public void putRecord(final ByteBuffer record) {
+    final byte[] objectBytes = new byte[LegacyObjectMetadata.OBJECT_SIZE];
+    record.get(objectBytes);
+    put(LegacyObjectMetadata.fromBytes(objectBytes));
+  }
+
+  @Override
+  public ObjectMetadata getRandom() {
+    return getRandom(SelectionPolicies.UNIFORM);
+  }
+
+  @Override
+  public ObjectMetadata getRandom(final SelectionPolicy policy) {
+    checkNotNull(policy);
+    this.lock.lock();
+    try {
+      if (this.size == 0) {
+        return null;
+      }
+      return get(policy.select(this.size, this.rand));
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public ObjectMetadata getRandom(final ObjectCriteria criteria) {
+    checkNotNull(criteria);
+    this.lock.lock();
+    try {
+      if (this.size == 0) {
+        return null;
+      }
+      for (int i = 0; i < MAX_SELECTION_ATTEMPTS; i++) {
+        final ObjectMetadata objectMetadata =
+            get(criteria.getPolicy().select(this.size, this.rand));
+        if (criteria.matches(objectMetadata)) {
+          return objectMetadata;
+        }
+      }
+      // few objects match; scan from a random position
+      final int start = this.rand.nextInt(this.size);
+      for (int i = 0; i < this.size; i++) {
+        final ObjectMetadata objectMetadata = get((start + i) % this.size);
+        if (criteria.matches(objectMetadata)) {
+          return objectMetadata;
+        }
+      }
+      return null;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Removes the next object in deletion order. Removal is always age ordered, so the provided
+   * policy is ignored
+   */
+  @Override
+  public ObjectMetadata removeRandom() {
+    return remove(ObjectCriteria.ANY, Predicates.<ObjectMetadata>alwaysFalse());
+  }
+
+  /**
+   * Removes the next object in deletion order. Removal is always age ordered, so the provided
+   * policy is ignored
+   */
+  @Override
+  public ObjectMetadata removeRandom(final SelectionPolicy policy) {
+    return removeRandom();
+  }
+
+  /**
+   * Removes the next object in deletion order which satisfies the provided criteria
+   */
+  @Override
+  public ObjectMetadata removeRandom(final ObjectCriteria criteria) {
+    return remove(criteria, Predicates.<ObjectMetadata>alwaysFalse());
+  }
+
+  /**
+   * Removes the next object in deletion order which satisfies the provided criteria and is not
+   * excluded. Excluded objects retain their position
+   *
+   * @param criteria the criteria the removed object must satisfy
+   * @param exclude objects for which this predicate is true are passed over
+   * @return the removed object, or null if no matching object which is not excluded exists
+   */
+  public ObjectMetadata remove(final ObjectCriteria criteria,
+      final Predicate<? super ObjectMetadata> exclude) {
+    checkNotNull(criteria);
+    checkNotNull(exclude);
+    this.lock.lock();
+    try {
+      if (this.order == DeletionOrder.OLDEST) {
+        for (int i = 0; i < this.size; i++) {
+          final ObjectMetadata objectMetadata = get(i);
+          if (criteria.matches(objectMetadata) && !exclude.apply(objectMetadata)) {
+            for (int j = i; j > 0; j--) {
+              set(j, get(j - 1));
+            }
+            removeFirst();
+            return objectMetadata;
+          }
+        }
+      } else {
+        for (int i = this.size - 1; i >= 0; i--) {
+          final ObjectMetadata objectMetadata = get(i);
+          if (criteria.matches(objectMetadata) && !exclude.apply(objectMetadata)) {
+            for (int j = i; j < this.size - 1; j++) {
+              set(j, get(j + 1));
+            }
+            removeLast();
+            return objectMetadata;
+          }
+        }
+      }
+      return null;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    this.lock.lock();
+    try {
+      return this.size;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    this.lock.lock();
+    try {
+      this.blocks = new ObjectMetadata[16][];
+      this.firstBlock = 0;
+      this.blockCount = 0;
+      this.head = 0;
+      this.size = 0;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Writes every object in this store, oldest first, so that insertion order is restored when the
+   * object file is loaded in order
+   */
+  @Override
+  public void writeTo(final OutputStream out) throws IOException {
+    checkNotNull(out);
+    this.lock.lock();
+    try {
+      for (int i = 0; i < this.size; i++) {
+        out.write(get(i).toBytes());
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  // the following methods must be called while holding lock; positions are relative to the
+  // oldest object
+  private ObjectMetadata get(final int position) {
+    final int absolute = this.head + position;
+    return this.blocks[blockIndex(absolute >>> BLOCK_SHIFT)][absolute & BLOCK_MASK];
+  }
+
+  private void set(final int position, final ObjectMetadata objectMetadata) {
+    final int absolute = this.head + position;
+    this.blocks[blockIndex(absolute >>> BLOCK_SHIFT)][absolute & BLOCK_MASK] = objectMetadata;
+  }
+
+  private int blockIndex(final int block) {
+    return (this.firstBlock + block) & (this.blocks.length - 1);
+  }
+
+  private void removeFirst() {
+    set(0, null);
+    this.head++;
+    this.size--;
+    if (this.head == BLOCK_SIZE) {
+      releaseBlock(this.firstBlock);
+      this.firstBlock = blockIndex(1);
+      this.blockCount--;
+      this.head = 0;
+    }
+  }
+
+  private void removeLast() {
+    set(this.size - 1, null);
+    this.size--;
+    if (this.head + this.size <= (this.blockCount - 1) << BLOCK_SHIFT) {
+      releaseBlock(blockIndex(this.blockCount - 1));
+      this.blockCount--;
+    }
+    if (this.size == 0) {
+      this.head = 0;
+      if (this.blockCount == 1) {
+        releaseBlock(this.firstBlock);
+        this.blockCount = 0;
+      }
+    }
+  }
+
+  private void releaseBlock(final int index) {
+    this.spare = this.blocks[index];
+    this.blocks[index] = null;
+  }
+
+  private ObjectMetadata[] allocateBlock() {
+    final ObjectMetadata[] block = this.spare != null ? this.spare : new ObjectMetadata[BLOCK_SIZE];
+    this.spare = null;
+    return block;
+  }
+
+  private void ensureBlockCapacity() {
+    if (this.blockCount == this.blocks.length) {
+      final ObjectMetadata[][] blocks = new ObjectMetadata[this.blocks.length * 2][];
+      for (int i = 0; i < this.blockCount; i++) {
+        blocks[i] = this.blocks[blockIndex(i)];
+      }
+      this.blocks = blocks;
+      this.firstBlock = 0;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("AgeOrderedObjectStore [order=%s, size=%s]", this.order, size());
+  }
+}
@@ -0,0 +1,29 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+/**
+ * An {@code ObjectStore} which can select objects restricted by {@code ObjectCriteria}
+ *
+ * @since 1.0
+ */
+public interface CriteriaObjectStore extends ObjectStore {
+  /**
+   * Selects a random object which satisfies the provided criteria, without removing it
+   *
+   * @param criteria the criteria the selected object must satisfy
+   * @return a random object, or null if no matching object could be found
+   */
+  ObjectMetadata getRandom(ObjectCriteria criteria);
+
+  /**
+   * Selects and removes an object which satisfies the provided criteria
+   *
+   * @param criteria the criteria the selected object must satisfy
+   * @return the removed object, or null if no matching object could be found
+   */
+  ObjectMetadata removeRandom(ObjectCriteria criteria);
+}
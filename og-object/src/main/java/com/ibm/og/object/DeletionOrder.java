@@ -0,0 +1,28 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+/**
+ * The order in which an object manager selects objects for removal
+ *
+ * @since 1.0
+ */
+public enum DeletionOrder {
+  /**
+   * a uniformly random object is removed
+   */
+  RANDOM,
+
+  /**
+   * the least recently added object is removed first
+   */
+  OLDEST,
+
+  /**
+   * the most recently added object is removed first
+   */
+  NEWEST
+}
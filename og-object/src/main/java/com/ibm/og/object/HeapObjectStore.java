@@ -0,0 +1,151 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An {@code ObjectStore} implementation which holds objects as individual heap allocated instances
+ * in a dense array. Random selection and removal are O(1); removal moves the last object into the
+ * position being vacated so that the array remains dense. Objects are otherwise held in insertion
+ * order, which {@code SelectionPolicy} implementations use to skew selection. Objects are not
+ * de-duplicated; an object which is put twice is held twice, as with {@link OffHeapObjectStore}.
+ *
+ * @since 1.0
+ */
+public class HeapObjectStore implements ObjectStore {
+  private static final int INITIAL_CAPACITY = 16;
+  private final ReentrantLock lock;
+  private final Random rand;
+  private ObjectMetadata[] objects;
+  private int size;
+
+  /**
+   * Constructs an empty instance
+   */
+  public HeapObjectStore() {
+    this.lock = new ReentrantLock();
+    this.rand = new Random();
+    this.objects = new ObjectMetadata[INITIAL_CAPACITY];
+    this.size = 0;
+  }
+
+  @Override
+  public void put(final ObjectMetadata objectMetadata) {
+    checkNotNull(objectMetadata);
+    this.lock.lock();
+    try {
+      if (this.size == this.objects.length) {
+        this.objects = Arrays.copyOf(this.objects, this.objects.length * 2);
+      }
+      this.objects[this.size] = objectMetadata;
+      this.size++;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public void putRecord(final ByteBuffer record) {
+    final byte[] objectBytes = new byte[LegacyObjectMetadata.OBJECT_SIZE];
+    record.get(objectBytes);
+    put(LegacyObjectMetadata.fromBytes(objectBytes));
+  }
+
+  @Override
+  public ObjectMetadata getRandom() {
+    return getRandom(SelectionPolicies.UNIFORM);
+  }
+
+  @Override
+  public ObjectMetadata getRandom(final SelectionPolicy policy) {
+    checkNotNull(policy);
+    this.lock.lock();
+    try {
+      if (this.size == 0) {
+        return null;
+      }
+      return this.objects[policy.select(this.size, this.rand)];
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public ObjectMetadata removeRandom() {
+    return removeRandom(SelectionPolicies.UNIFORM);
+  }
+
+  @Override
+  public ObjectMetadata removeRandom(final SelectionPolicy policy) {
+    checkNotNull(policy);
+    this.lock.lock();
+    try {
+      if (this.size == 0) {
+        return null;
+      }
+      final int index = policy.select(this.size, this.rand);
+      final ObjectMetadata objectMetadata = this.objects[index];
+      final int last = this.size - 1;
+      this.objects[index] = this.objects[last];
+      this.objects[last] = null;
+      this.size--;
+      // shrink once mostly empty, leaving room to grow without immediately reallocating
+      if (this.objects.length > INITIAL_CAPACITY && this.size < this.objects.length / 4) {
+        this.objects = Arrays.copyOf(this.objects, this.objects.length / 2);
+      }
+      return objectMetadata;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    this.lock.lock();
+    try {
+      return this.size;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    this.lock.lock();
+    try {
+      this.objects = new ObjectMetadata[INITIAL_CAPACITY];
+      this.size = 0;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public void writeTo(final OutputStream out) throws IOException {
+    checkNotNull(out);
+    this.lock.lock();
+    try {
+      for (int i = 0; i < this.size; i++) {
+        out.write(this.objects[i].toBytes());
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("HeapObjectStore [size=%s]", size());
+  }
+}
@@ -0,0 +1,122 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Atomic access to a memory mapped region. Since the region is backed by a shared mapping, the
+ * atomic operations provided here are visible to, and atomic with respect to, every process which
+ * maps the same file. Offsets are relative to the start of the region and are bounds checked;
+ * offsets used with the long operations must be 8 byte aligned. Longs are in native byte order,
+ * since every process mapping the region runs on the same host.
+ * <p>
+ * Long operations are the processor's atomic instructions on the mapped words, issued through
+ * {@code UnsafeAccess}, so they take no lock in this process or across processes.
+ * <p>
+ * Byte array accesses are not atomic; callers order them with the long operations.
+ *
+ * @since 1.0
+ */
+class MappedMemory {
+  private final MappedByteBuffer buffer;
+  private final long address;
+  private final long length;
+
+  /**
+   * Constructs an instance
+   *
+   * @param buffer the mapped region, whose byte order is set to native; a reference is retained
+   *        so that it is not unmapped
+   * @throws NullPointerException if buffer is null
+   * @throws ObjectManagerException if atomic operations on native memory are unavailable on this
+   *         jvm
+   */
+  MappedMemory(final MappedByteBuffer buffer) {
+    this.buffer = checkNotNull(buffer);
+    // atomic operations use native order, so plain accesses must too
+    this.buffer.order(ByteOrder.nativeOrder());
+    if (!UnsafeAccess.isSupported()) {
+      throw new ObjectManagerException("Shared object pools require sun.misc.Unsafe");
+    }
+    this.address = UnsafeAccess.address(buffer);
+    this.length = buffer.capacity();
+  }
+
+  long getLongVolatile(final long offset) {
+    return UnsafeAccess.getLongVolatile(address(offset));
+  }
+
+  void putLongVolatile(final long offset, final long value) {
+    UnsafeAccess.putLongVolatile(address(offset), value);
+  }
+
+  boolean compareAndSwapLong(final long offset, final long expected, final long value) {
+    return UnsafeAccess.compareAndSwapLong(address(offset), expected, value);
+  }
+
+  long getAndAddLong(final long offset, final long delta) {
+    return UnsafeAccess.getAndAddLong(address(offset), delta);
+  }
+
+  /**
+   * Reads a long without ordering, for use while no other thread or process can access the region,
+   * such as while a pool is initialized or recovered
+   */
+  long getLong(final long offset) {
+    return this.buffer.getLong(index(offset, 8));
+  }
+
+  /**
+   * Writes a long without ordering, for use while no other thread or process can access the
+   * region
+   */
+  void putLong(final long offset, final long value) {
+    this.buffer.putLong(index(offset, 8), value);
+  }
+
+  void getBytes(final long offset, final byte[] dst) {
+    final int index = index(offset, dst.length);
+    for (int i = 0; i < dst.length; i++) {
+      dst[i] = this.buffer.get(index + i);
+    }
+  }
+
+  void putBytes(final long offset, final byte[] src) {
+    final int index = index(offset, src.length);
+    for (int i = 0; i < src.length; i++) {
+      this.buffer.put(index + i, src[i]);
+    }
+  }
+
+  /**
+   * Flushes modifications of the region to the underlying file
+   */
+  void force() {
+    this.buffer.force();
+  }
+
+  // an unaligned word would not be atomic
+  private long address(final long offset) {
+    final int index = index(offset, 8);
+    if ((index & 7) != 0) {
+      throw new IllegalArgumentException(String.format("offset must be 8 byte aligned [%s]",
+          offset));
+    }
+    return this.address + index;
+  }
+
+  private int index(final long offset, final int size) {
+    // checked explicitly rather than via checkArgument to avoid boxing on every access
+    if (offset < 0 || offset + size > this.length) {
+      throw new IndexOutOfBoundsException(String.format("offset out of bounds [%s]", offset));
+    }
+    return (int) offset;
+  }
+}
@@ -0,0 +1,412 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+
+/**
+ * An object manager for a deterministic {@code ObjectNamespace}. Objects are never stored: the
+ * objects under management are every index below a watermark, less those whose write is in
+ * progress or failed and those which have been deleted. Reads select an index below the watermark
+ * and regenerate its metadata, so memory use is proportional to the number of deleted objects and
+ * writes in progress rather than to the number of objects.
+ * <p>
+ * Writes must draw their object from {@link #next()}. A run which starts with the watermark of an
+ * earlier run on the same namespace seed may read and delete the objects that run wrote; objects
+ * deleted by, or whose writes failed in, the earlier run are not known to the later run.
+ *
+ * @since 1.0
+ */
+public class NamespaceObjectManager implements ObjectManager {
+  private static final Logger _logger = LoggerFactory.getLogger(NamespaceObjectManager.class);
+  private static final int MAX_PROBES = 64;
+  private static final int PAGE_SHIFT = 16;
+  private static final int PAGE_WORDS = (1 << PAGE_SHIFT) / Long.SIZE;
+  private static final Boolean PENDING = Boolean.TRUE;
+  private final ObjectNamespace namespace;
+  private final AtomicLong watermark;
+  // indices below the watermark whose write has not succeeded
+  private final ConcurrentMap<Long, Boolean> pending;
+  // deleted indices, in lazily allocated bitmap pages
+  private final ConcurrentMap<Long, AtomicLongArray> deleted;
+  private final AtomicLong deletedCount;
+  private final ReadReferenceTable currentlyReading;
+  private final ObjectManagerStatistics statistics;
+  private final Random rand;
+  private volatile boolean shutdown;
+
+  /**
+   * Constructs an instance
+   *
+   * @param namespace the namespace to draw objects from
+   * @param count the number of objects already written to the namespace; objects at indices below
+   *        this count are under management from the start
+   * @throws NullPointerException if namespace is null
+   * @throws IllegalArgumentException if count is negative
+   */
+  public NamespaceObjectManager(final ObjectNamespace namespace, final long count) {
+    this.namespace = checkNotNull(namespace);
+    checkArgument(count >= 0, "count must be >= 0 [%s]", count);
+    this.watermark = new AtomicLong(count);
+    this.pending = new ConcurrentHashMap<Long, Boolean>();
+    this.deleted = new ConcurrentHashMap<Long, AtomicLongArray>();
+    this.deletedCount = new AtomicLong();
+    this.currentlyReading = new ReadReferenceTable();
+    this.statistics = new ObjectManagerStatistics();
+    this.rand = new Random();
+    this.shutdown = false;
+    _logger.info("Using object namespace {} with {} existing objects", namespace, count);
+  }
+
+  /**
+   * Claims the next index of the namespace for writing. The object at the index is under
+   * management once its write succeeds and it is added to this object manager
+   *
+   * @return the index claimed
+   */
+  public long next() {
+    while (true) {
+      final long index = this.watermark.get();
+      // an index is marked pending before the watermark is raised past it, so readers never
+      // select an index whose write has not completed
+      if (this.pending.putIfAbsent(index, PENDING) == null) {
+        if (this.watermark.compareAndSet(index, index + 1)) {
+          return index;
+        }
+        // the watermark was read before another thread claimed the index and completed its write
+        this.pending.remove(index);
+      }
+    }
+  }
+
+  /**
+   * @return the namespace objects are drawn from
+   */
+  public ObjectNamespace getNamespace() {
+    return this.namespace;
+  }
+
+  /**
+   * @return the index one past the highest index claimed
+   */
+  public long getWatermark() {
+    return this.watermark.get();
+  }
+
+  /**
+   * Adds an object under management. The object must belong to this object manager's namespace,
+   * and must either have been claimed with {@link #next()} or previously removed
+   *
+   * @throws IllegalArgumentException if the object does not belong to this namespace or is not
+   *         below the watermark
+   */
+  @Override
+  public void add(final ObjectMetadata objectMetadata) {
+    checkNotNull(objectMetadata);
+    final long index = this.namespace.index(objectMetadata.getName());
+    checkArgument(index >= 0 && index < this.watermark.get(),
+        "object does not belong to namespace [%s]", objectMetadata);
+    // an object being added is either pending its first write or was removed for an overwrite
+    if (clearDeleted(index)) {
+      this.deletedCount.decrementAndGet();
+    } else {
+      this.pending.remove(index);
+    }
+    _logger.trace("Adding object: {}", objectMetadata);
+  }
+
+  @Override
+  public ObjectMetadata get() {
+    return get(ObjectCriteria.ANY);
+  }
+
+  /**
+   * Selects each object individually, since objects are read without a shared lock
+   */
+  @Override
+  public List<ObjectMetadata> get(final ObjectCriteria criteria, final int count) {
+    checkArgument(count > 0, "count must be > 0 [%s]", count);
+    final List<ObjectMetadata> ids = Lists.newArrayListWithCapacity(count);
+    ids.add(get(criteria));
+    try {
+      while (ids.size() < count) {
+        ids.add(get(criteria));
+      }
+    } catch (final ObjectManagerException e) {
+      // fewer than count objects match
+    }
+    return ids;
+  }
+
+  @Override
+  public ObjectMetadata get(final ObjectCriteria criteria) {
+    checkNotNull(criteria);
+    if (this.shutdown) {
+      throw new RuntimeException("Test already ended");
+    }
+    final ObjectMetadata id = select(criteria, false);
+    _logger.trace("Getting object: {}", id);
+    return id;
+  }
+
+  // returns the object at index with a read reference held, or null if it cannot be read
+  private ObjectMetadata tryGet(final long index, final ObjectCriteria criteria) {
+    if (!isLive(index)) {
+      return null;
+    }
+    final ObjectMetadata id = this.namespace.metadata(index);
+    if (!criteria.matches(id)) {
+      return null;
+    }
+    this.currentlyReading.acquire(id);
+    // a remover marks an object deleted before checking for readers, so either it sees this
+    // reference or this reader sees the deletion
+    if (isDeleted(index)) {
+      this.currentlyReading.release(id);
+      return null;
+    }
+    return id;
+  }
+
+  @Override
+  public void getComplete(final ObjectMetadata id) {
+    this.currentlyReading.release(checkNotNull(id));
+    _logger.trace("Returning read object: {}", id);
+  }
+
+  @Override
+  public ObjectMetadata remove() {
+    return remove(ObjectCriteria.ANY);
+  }
+
+  /**
+   * Selects each object individually, since objects are removed without a shared lock
+   */
+  @Override
+  public List<ObjectMetadata> remove(final ObjectCriteria criteria, final int count) {
+    checkArgument(count > 0, "count must be > 0 [%s]", count);
+    final List<ObjectMetadata> ids = Lists.newArrayListWithCapacity(count);
+    ids.add(remove(criteria));
+    try {
+      while (ids.size() < count) {
+        ids.add(remove(criteria));
+      }
+    } catch (final ObjectManagerException e) {
+      // fewer than count objects match
+    }
+    return ids;
+  }
+
+  @Override
+  public ObjectMetadata remove(final ObjectCriteria criteria) {
+    checkNotNull(criteria);
+    final ObjectMetadata id = select(criteria, true);
+    this.deletedCount.incrementAndGet();
+    _logger.trace("Removing object: {}", id);
+    return id;
+  }
+
+  // returns the object at index marked deleted, or null if it cannot be removed
+  private ObjectMetadata tryRemove(final long index, final ObjectCriteria criteria) {
+    // checked before generating metadata, which costs more than the bitmap
+    if (!isLive(index)) {
+      return null;
+    }
+    final ObjectMetadata id = this.namespace.metadata(index);
+    if (!criteria.matches(id) || !setDeleted(index)) {
+      return null;
+    }
+    if (this.currentlyReading.isReferenced(id)) {
+      clearDeleted(index);
+      this.statistics.add(ObjectManagerCounter.READING_COLLISIONS, 1);
+      return null;
+    }
+    return id;
+  }
+
+  // probes indices chosen by the criteria's policy, then falls back to walking the deletion bitmap
+  // for a live index, so that a mostly deleted namespace is not reported empty while objects remain
+  private ObjectMetadata select(final ObjectCriteria criteria, final boolean remove) {
+    final long watermark = this.watermark.get();
+    if (watermark > 0) {
+      for (int i = 0; i < MAX_PROBES; i++) {
+        final long index = nextIndex(watermark, criteria.getPolicy());
+        final ObjectMetadata id = remove ? tryRemove(index, criteria) : tryGet(index, criteria);
+        if (id != null) {
+          return id;
+        }
+      }
+      final ObjectMetadata id = walk(watermark, criteria, remove);
+      if (id != null) {
+        return id;
+      }
+    }
+    throw noObjects(criteria);
+  }
+
+  // visits every bitmap page below the watermark from a random page, trying at most MAX_PROBES
+  // live indices per page; a page which was never allocated has no deleted indices
+  private ObjectMetadata walk(final long watermark, final ObjectCriteria criteria,
+      final boolean remove) {
+    final long pages = ((watermark - 1) >>> PAGE_SHIFT) + 1;
+    final long first = (long) (this.rand.nextDouble() * pages);
+    for (long p = 0; p < pages; p++) {
+      final long pageIndex = (first + p) % pages;
+      final long base = pageIndex << PAGE_SHIFT;
+      final long limit = Math.min(watermark - base, 1L << PAGE_SHIFT);
+      final AtomicLongArray page = this.deleted.get(pageIndex);
+      int tried = 0;
+      for (int word = 0; word < PAGE_WORDS && tried < MAX_PROBES; word++) {
+        final long wordBase = base + ((long) word << 6);
+        if (wordBase - base >= limit) {
+          break;
+        }
+        long live = page != null ? ~page.get(word) : -1L;
+        final long bitsInWord = limit - (wordBase - base);
+        if (bitsInWord < Long.SIZE) {
+          live &= (1L << bitsInWord) - 1;
+        }
+        while (live != 0 && tried < MAX_PROBES) {
+          final long index = wordBase + Long.numberOfTrailingZeros(live);
+          live &= live - 1;
+          tried++;
+          final ObjectMetadata id = remove ? tryRemove(index, criteria) : tryGet(index, criteria);
+          if (id != null) {
+            return id;
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  // selects an index with the criteria's policy, scaling positions when the watermark exceeds the
+  // range of a policy
+  private long nextIndex(final long watermark, final SelectionPolicy policy) {
+    if (watermark <= Integer.MAX_VALUE) {
+      return policy.select((int) watermark, this.rand);
+    }
+    final int position = policy.select(Integer.MAX_VALUE, this.rand);
+    return (long) ((double) position / Integer.MAX_VALUE * watermark);
+  }
+
+  private boolean isLive(final long index) {
+    return !this.pending.containsKey(index) && !isDeleted(index);
+  }
+
+  private boolean isDeleted(final long index) {
+    final AtomicLongArray page = this.deleted.get(index >>> PAGE_SHIFT);
+    return page != null && (page.get(word(index)) & bit(index)) != 0;
+  }
+
+  // returns true if this call marked the index deleted
+  private boolean setDeleted(final long index) {
+    final Long pageIndex = index >>> PAGE_SHIFT;
+    AtomicLongArray page = this.deleted.get(pageIndex);
+    if (page == null) {
+      final AtomicLongArray created = new AtomicLongArray(PAGE_WORDS);
+      page = this.deleted.putIfAbsent(pageIndex, created);
+      if (page == null) {
+        page = created;
+      }
+    }
+    final int word = word(index);
+    final long bit = bit(index);
+    while (true) {
+      final long bits = page.get(word);
+      if ((bits & bit) != 0) {
+        return false;
+      }
+      if (page.compareAndSet(word, bits, bits | bit)) {
+        return true;
+      }
+    }
+  }
+
+  // returns true if this call cleared the index
+  private boolean clearDeleted(final long index) {
+    final AtomicLongArray page = this.deleted.get(index >>> PAGE_SHIFT);
+    if (page == null) {
+      return false;
+    }
+    final int word = word(index);
+    final long bit = bit(index);
+    while (true) {
+      final long bits = page.get(word);
+      if ((bits & bit) == 0) {
+        return false;
+      }
+      if (page.compareAndSet(word, bits, bits & ~bit)) {
+        return true;
+      }
+    }
+  }
+
+  private static int word(final long index) {
+    return (int) (index & ((1 << PAGE_SHIFT) - 1)) >>> 6;
+  }
+
+  private static long bit(final long index) {
+    return 1L << index;
+  }
+
+  private ObjectManagerException noObjects(final ObjectCriteria criteria) {
+    if (criteria == ObjectCriteria.ANY) {
+      return new ObjectManagerException("No objects available.");
+    }
+    return new ObjectManagerException(String.format("No objects available for %s.", criteria));
+  }
+
+  @Override
+  public long getCurrentObjectCount() {
+    return Math.max(0,
+        this.watermark.get() - this.pending.size() - this.deletedCount.get());
+  }
+
+  /**
+   * @return instrumentation counters for this object manager; only read collisions are counted,
+   *         as this object manager takes no locks and persists nothing
+   */
+  @Override
+  public ObjectManagerStatistics getStatistics() {
+    return this.statistics;
+  }
+
+  /**
+   * Shuts down this object manager, logging the watermark with which a later run may reuse this
+   * namespace
+   */
+  @Override
+  public void shutdown() {
+    if (this.shutdown) {
+      return;
+    }
+    this.shutdown = true;
+    _logger.info(
+        "Object namespace seed {} has watermark {}; {} objects deleted, {} writes incomplete",
+        this.namespace.getSeed(), this.watermark.get(), this.deletedCount.get(),
+        this.pending.size());
+  }
+
+  @Override
+  public String toString() {
+    return String.format("NamespaceObjectManager [namespace=%s, watermark=%s]", this.namespace,
+        this.watermark.get());
+  }
+}
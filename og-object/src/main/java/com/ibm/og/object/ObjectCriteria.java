@@ -0,0 +1,162 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Objects;
+
+/**
+ * Criteria restricting which objects under management may be selected for a single request
+ *
+ * @since 1.0
+ */
+public class ObjectCriteria {
+  /** criteria which match any object */
+  public static final ObjectCriteria ANY = new ObjectCriteria(null, 0, Long.MAX_VALUE);
+  private final Integer containerSuffix;
+  private final long minSize;
+  private final long maxSize;
+  private final SelectionPolicy policy;
+
+  /**
+   * Constructs an instance
+   *
+   * @param containerSuffix the container suffix objects must belong to, or null to match objects
+   *        in any container
+   * @param minSize the minimum object size in bytes, inclusive
+   * @param maxSize the maximum object size in bytes, inclusive
+   * @throws IllegalArgumentException if minSize is negative or maxSize is less than minSize
+   */
+  public ObjectCriteria(final Integer containerSuffix, final long minSize, final long maxSize) {
+    this(containerSuffix, minSize, maxSize, SelectionPolicies.UNIFORM);
+  }
+
+  /**
+   * Constructs an instance
+   *
+   * @param containerSuffix the container suffix objects must belong to, or null to match objects
+   *        in any container
+   * @param minSize the minimum object size in bytes, inclusive
+   * @param maxSize the maximum object size in bytes, inclusive
+   * @param policy the distribution to select matching objects with
+   * @throws NullPointerException if policy is null
+   * @throws IllegalArgumentException if minSize is negative or maxSize is less than minSize
+   */
+  public ObjectCriteria(final Integer containerSuffix, final long minSize, final long maxSize,
+      final SelectionPolicy policy) {
+    checkArgument(minSize >= 0, "minSize must be >= 0 [%s]", minSize);
+    checkArgument(maxSize >= minSize, "maxSize must be >= minSize [%s, %s]", maxSize, minSize);
+    this.containerSuffix = containerSuffix;
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    this.policy = checkNotNull(policy);
+  }
+
+  /**
+   * Creates criteria matching objects of any size in the container with the provided suffix
+   *
+   * @param containerSuffix the container suffix objects must belong to
+   * @return criteria matching objects in the provided container
+   */
+  public static ObjectCriteria container(final int containerSuffix) {
+    return new ObjectCriteria(containerSuffix, 0, Long.MAX_VALUE);
+  }
+
+  /**
+   * Creates criteria matching objects in any container within the provided size range
+   *
+   * @param minSize the minimum object size in bytes, inclusive
+   * @param maxSize the maximum object size in bytes, inclusive
+   * @return criteria matching objects within the provided size range
+   * @throws IllegalArgumentException if minSize is negative or maxSize is less than minSize
+   */
+  public static ObjectCriteria size(final long minSize, final long maxSize) {
+    return new ObjectCriteria(null, minSize, maxSize);
+  }
+
+  /**
+   * Creates criteria matching any object, selected with the provided policy
+   *
+   * @param policy the distribution to select objects with
+   * @return criteria matching any object
+   * @throws NullPointerException if policy is null
+   */
+  public static ObjectCriteria policy(final SelectionPolicy policy) {
+    return new ObjectCriteria(null, 0, Long.MAX_VALUE, policy);
+  }
+
+  /**
+   * @return the container suffix objects must belong to, or null if objects may belong to any
+   *         container
+   */
+  public Integer getContainerSuffix() {
+    return this.containerSuffix;
+  }
+
+  /**
+   * @return the minimum object size in bytes, inclusive
+   */
+  public long getMinSize() {
+    return this.minSize;
+  }
+
+  /**
+   * @return the maximum object size in bytes, inclusive
+   */
+  public long getMaxSize() {
+    return this.maxSize;
+  }
+
+  /**
+   * @return the distribution to select matching objects with
+   */
+  public SelectionPolicy getPolicy() {
+    return this.policy;
+  }
+
+  /**
+   * Determines whether the provided object satisfies these criteria
+   *
+   * @param objectMetadata the object to check
+   * @return true if the object satisfies these criteria
+   */
+  public boolean matches(final ObjectMetadata objectMetadata) {
+    checkNotNull(objectMetadata);
+    if (this.containerSuffix != null
+        && this.containerSuffix.intValue() != objectMetadata.getContainerSuffix()) {
+      return false;
+    }
+    return objectMetadata.getSize() >= this.minSize && objectMetadata.getSize() <= this.maxSize;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof ObjectCriteria)) {
+      return false;
+    }
+    final ObjectCriteria other = (ObjectCriteria) obj;
+    return Objects.equal(this.containerSuffix, other.containerSuffix)
+        && this.minSize == other.minSize && this.maxSize == other.maxSize
+        && this.policy.equals(other.policy);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(this.containerSuffix, this.minSize, this.maxSize, this.policy);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "ObjectCriteria [containerSuffix=%s, minSize=%s, maxSize=%s, policy=%s]",
+        this.containerSuffix, this.minSize, this.maxSize, this.policy);
+  }
+}
@@ -0,0 +1,25 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+/**
+ * The on-disk format in which object files are written. Object files of either format can always
+ * be read, regardless of the format used for writing
+ *
+ * @since 1.0
+ */
+public enum ObjectFileFormat {
+  /**
+   * a headerless concatenation of {@code LegacyObjectMetadata} records
+   */
+  V1,
+
+  /**
+   * a versioned header describing the record layout and count, followed by fixed size blocks of
+   * records, each of which carries a checksum; see {@link ObjectFiles}
+   */
+  V2
+}
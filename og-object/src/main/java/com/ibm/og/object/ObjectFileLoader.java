@@ -0,0 +1,322 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Loads an object file into an {@code ObjectStore} in the background. The file is split into
+ * record aligned chunks which are memory mapped and streamed into the store by a pool of loader
+ * threads via {@link ObjectStore#putRecord}, so no per record allocation is required for stores
+ * which keep records in serialized form.
+ * <p>
+ * Chunks of v2 object files are whole blocks, so each loader thread validates the checksums of the
+ * blocks it maps before loading their records; a corrupt block fails the load.
+ * <p>
+ * Callers may begin using the store as soon as enough objects are resident, see
+ * {@link #awaitResident(long)}. Load progress and rate are logged as loading proceeds.
+ *
+ * @since 1.0
+ */
+public class ObjectFileLoader {
+  private static final Logger _logger = LoggerFactory.getLogger(ObjectFileLoader.class);
+  private static final int RECORD_SIZE = LegacyObjectMetadata.OBJECT_SIZE;
+  public static final int DEFAULT_CHUNK_RECORDS = 1 << 17;
+  // resident count is published in batches of this many records to limit contention
+  private static final int PUBLISH_RECORDS = 1 << 12;
+  private static final int PROGRESS_INTERVALS = 10;
+  private final File file;
+  private final ObjectStore objects;
+  private final int threads;
+  private final int chunkRecords;
+  private final long totalRecords;
+  // null for v1 object files
+  private final ObjectFiles.Header header;
+  private final int chunkBlocks;
+  private final IOException headerFailure;
+  private final AtomicInteger remainingChunks;
+  private long resident;
+  private boolean complete;
+  // volatile so that object managers can check for a failure on every selection without locking
+  private volatile Throwable failure;
+  private int lastProgress;
+  private long startNanos;
+
+  /**
+   * Constructs an instance using the default chunk size
+   *
+   * @param file the object file to load
+   * @param objects the store to load objects into
+   * @param threads the number of loader threads
+   * @throws NullPointerException if file or objects is null
+   * @throws IllegalArgumentException if threads is not positive
+   */
+  public ObjectFileLoader(final File file, final ObjectStore objects, final int threads) {
+    this(file, objects, threads, DEFAULT_CHUNK_RECORDS);
+  }
+
+  /**
+   * Constructs an instance
+   *
+   * @param file the object file to load
+   * @param objects the store to load objects into
+   * @param threads the number of loader threads
+   * @param chunkRecords the number of records in each mapped chunk
+   * @throws NullPointerException if file or objects is null
+   * @throws IllegalArgumentException if threads or chunkRecords is not positive
+   */
+  public ObjectFileLoader(final File file, final ObjectStore objects, final int threads,
+      final int chunkRecords) {
+    this.file = checkNotNull(file);
+    this.objects = checkNotNull(objects);
+    checkArgument(threads > 0, "threads must be > 0 [%s]", threads);
+    checkArgument(chunkRecords > 0, "chunkRecords must be > 0 [%s]", chunkRecords);
+    this.threads = threads;
+    this.chunkRecords = chunkRecords;
+    this.chunkBlocks = Math.max(1, chunkRecords / ObjectFiles.RECORDS_PER_BLOCK);
+    ObjectFiles.Header header = null;
+    IOException headerFailure = null;
+    try {
+      if (ObjectFiles.format(file) == ObjectFileFormat.V2) {
+        header = ObjectFiles.readHeader(file);
+      }
+    } catch (final IOException e) {
+      // reported when loading starts
+      headerFailure = e;
+    }
+    this.header = header;
+    this.headerFailure = headerFailure;
+    final long chunks;
+    if (header != null) {
+      this.totalRecords = header.getRecordCount();
+      chunks = (header.getBlockCount() + this.chunkBlocks - 1) / this.chunkBlocks;
+    } else if (headerFailure != null) {
+      this.totalRecords = 0;
+      chunks = 0;
+    } else {
+      // a truncated trailing record is ignored, as with sequential loading
+      this.totalRecords = file.exists() ? file.length() / RECORD_SIZE : 0;
+      chunks = (this.totalRecords + chunkRecords - 1) / chunkRecords;
+    }
+    this.remainingChunks = new AtomicInteger((int) chunks);
+  }
+
+  /**
+   * Begins loading in the background. This method returns immediately
+   */
+  public void start() {
+    this.startNanos = System.nanoTime();
+    final int chunks = this.remainingChunks.get();
+    _logger.info("Loading {} objects from {} using {} threads", this.totalRecords, this.file,
+        this.threads);
+    if (this.headerFailure != null) {
+      finish(this.headerFailure);
+      return;
+    }
+    if (chunks == 0) {
+      finish(null);
+      return;
+    }
+
+    final FileChannel channel;
+    try {
+      channel = new RandomAccessFile(this.file, "r").getChannel();
+    } catch (final IOException e) {
+      finish(e);
+      return;
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.threads, chunks),
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("object-file-loader-%d").build());
+    for (int i = 0; i < chunks; i++) {
+      final int chunk = i;
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            if (ObjectFileLoader.this.header != null) {
+              loadBlocks(channel, chunk);
+            } else {
+              final long firstRecord = (long) chunk * ObjectFileLoader.this.chunkRecords;
+              loadChunk(channel, firstRecord, (int) Math.min(ObjectFileLoader.this.chunkRecords,
+                  ObjectFileLoader.this.totalRecords - firstRecord));
+            }
+          } catch (final Throwable t) {
+            finish(t);
+          }
+          if (ObjectFileLoader.this.remainingChunks.decrementAndGet() == 0) {
+            closeQuietly(channel);
+            finish(null);
+          }
+        }
+      });
+    }
+    executor.shutdown();
+  }
+
+  private void loadChunk(final FileChannel channel, final long firstRecord, final int records)
+      throws IOException {
+    if (isComplete()) {
+      // a previous chunk failed
+      return;
+    }
+    final MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY,
+        firstRecord * RECORD_SIZE, (long) records * RECORD_SIZE);
+    int unpublished = 0;
+    for (int i = 0; i < records; i++) {
+      this.objects.putRecord(chunk);
+      if (++unpublished == PUBLISH_RECORDS) {
+        publish(unpublished);
+        unpublished = 0;
+      }
+    }
+    publish(unpublished);
+  }
+
+  private void loadBlocks(final FileChannel channel, final int chunk) throws IOException {
+    if (isComplete()) {
+      // a previous chunk failed
+      return;
+    }
+    final long firstBlock = (long) chunk * this.chunkBlocks;
+    final int blocks = (int) Math.min(this.chunkBlocks, this.header.getBlockCount() - firstBlock);
+    final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY,
+        ObjectFiles.blockOffset(firstBlock), (long) blocks * ObjectFiles.BLOCK_SIZE);
+    // blocks are copied out of the mapping so that each is checksummed before any of its records
+    // are loaded
+    final byte[] block = new byte[ObjectFiles.BLOCK_SIZE];
+    final ByteBuffer records = ByteBuffer.wrap(block);
+    int unpublished = 0;
+    // stops at the next block once any chunk fails, as the object file will not be used
+    for (int i = 0; i < blocks && this.failure == null; i++) {
+      mapped.get(block);
+      ObjectFiles.verifyBlock(block, 0, firstBlock + i);
+      records.clear();
+      final int blockRecords = this.header.getBlockRecords(firstBlock + i);
+      for (int j = 0; j < blockRecords; j++) {
+        this.objects.putRecord(records);
+      }
+      unpublished += blockRecords;
+      if (unpublished >= PUBLISH_RECORDS) {
+        publish(unpublished);
+        unpublished = 0;
+      }
+    }
+    publish(unpublished);
+  }
+
+  private synchronized void publish(final int records) {
+    this.resident += records;
+    final int progress = (int) (this.resident * PROGRESS_INTERVALS / this.totalRecords);
+    if (progress > this.lastProgress && progress < PROGRESS_INTERVALS) {
+      this.lastProgress = progress;
+      _logger.info("Loaded {} of {} objects ({}%) at {} objects/s", this.resident,
+          this.totalRecords, progress * 100 / PROGRESS_INTERVALS, rate());
+    }
+    notifyAll();
+  }
+
+  private synchronized void finish(final Throwable t) {
+    if (this.complete) {
+      return;
+    }
+    this.complete = true;
+    this.failure = t;
+    if (t != null) {
+      _logger.error("Failed loading objects from " + this.file, t);
+    } else {
+      _logger.info("Loaded {} objects from {} in {} ms at {} objects/s", this.resident, this.file,
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.startNanos), rate());
+    }
+    notifyAll();
+  }
+
+  private long rate() {
+    final long elapsed = Math.max(1, System.nanoTime() - this.startNanos);
+    return this.resident * TimeUnit.SECONDS.toNanos(1) / elapsed;
+  }
+
+  private static void closeQuietly(final FileChannel channel) {
+    try {
+      channel.close();
+    } catch (final IOException e) {
+      _logger.warn("Unable to close object file", e);
+    }
+  }
+
+  /**
+   * Blocks until at least the provided number of objects have been loaded, or loading completes
+   *
+   * @param minResident the number of objects which must be loaded before returning
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public synchronized void awaitResident(final long minResident) throws InterruptedException {
+    while (this.resident < minResident && !this.complete) {
+      wait();
+    }
+  }
+
+  /**
+   * Blocks until loading completes
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public synchronized void awaitComplete() throws InterruptedException {
+    while (!this.complete) {
+      wait();
+    }
+  }
+
+  /**
+   * @return true if loading has completed, either successfully or due to a failure
+   */
+  public synchronized boolean isComplete() {
+    return this.complete;
+  }
+
+  /**
+   * @return the failure which ended loading, or null if loading has not failed
+   */
+  public Throwable getFailure() {
+    return this.failure;
+  }
+
+  /**
+   * @return the number of objects loaded so far
+   */
+  public synchronized long getResident() {
+    return this.resident;
+  }
+
+  /**
+   * @return the number of objects in the object file
+   */
+  public long getTotal() {
+    return this.totalRecords;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("ObjectFileLoader [file=%s, threads=%s, chunkRecords=%s]", this.file,
+        this.threads, this.chunkRecords);
+  }
+}
@@ -0,0 +1,36 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+/**
+ * How an object manager uses the object files in its object file directory
+ *
+ * @since 1.0
+ */
+public enum ObjectFileMode {
+  /**
+   * objects are drawn from a single object file; other object files are used only to rebalance
+   * object counts when persisting
+   */
+  SINGLE,
+
+  /**
+   * every object file is loaded as an independent shard and objects are drawn from all of them
+   */
+  POOL,
+
+  /**
+   * objects are drawn from a memory mapped pool file shared by every og process on the host which
+   * uses the same object file location and name
+   */
+  SHARED,
+
+  /**
+   * no object files are used; object names, sizes and container suffixes are derived from a seed
+   * and an index, and only a watermark and the deleted objects are tracked
+   */
+  NAMESPACE
+}
@@ -0,0 +1,138 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * An input stream which reads the records of an object file of either {@code ObjectFileFormat}.
+ * The format is detected from the start of the stream; v1 streams are passed through unchanged,
+ * while v2 streams are decoded block by block, validating each block's checksum as it is read, so
+ * that callers always see a plain concatenation of records.
+ *
+ * @since 1.0
+ */
+public class ObjectFileReader extends InputStream {
+  private final InputStream in;
+  private final ObjectFileFormat format;
+  private final ObjectFiles.Header header;
+  private final byte[] block;
+  private long blocksRead;
+  private int position;
+  private int limit;
+
+  /**
+   * Constructs an instance, reading and validating the header of v2 streams
+   *
+   * @param in the object file stream to read
+   * @throws NullPointerException if in is null
+   * @throws IOException if the stream cannot be read, or has an invalid v2 header
+   */
+  public ObjectFileReader(final InputStream in) throws IOException {
+    checkNotNull(in);
+    this.in = in.markSupported() ? in : new BufferedInputStream(in);
+    final byte[] magic = new byte[ObjectFiles.MAGIC.length];
+    this.in.mark(magic.length);
+    final int read = readFully(this.in, magic);
+    this.in.reset();
+    if (read == magic.length && Arrays.equals(ObjectFiles.MAGIC, magic)) {
+      final byte[] header = new byte[ObjectFiles.HEADER_SIZE];
+      if (readFully(this.in, header) < header.length) {
+        throw new IOException("Truncated object file header");
+      }
+      this.format = ObjectFileFormat.V2;
+      this.header = ObjectFiles.Header.decode(header);
+      this.block = new byte[ObjectFiles.BLOCK_SIZE];
+    } else {
+      this.format = ObjectFileFormat.V1;
+      this.header = null;
+      this.block = null;
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (this.header == null) {
+      return this.in.read();
+    }
+    if (this.position == this.limit && !nextBlock()) {
+      return -1;
+    }
+    return this.block[this.position++] & 0xFF;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    if (this.header == null) {
+      return this.in.read(b, off, len);
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (this.position == this.limit && !nextBlock()) {
+      return -1;
+    }
+    final int read = Math.min(len, this.limit - this.position);
+    System.arraycopy(this.block, this.position, b, off, read);
+    this.position += read;
+    return read;
+  }
+
+  // reads and validates the next block, returning false once every block has been read
+  private boolean nextBlock() throws IOException {
+    while (this.blocksRead < this.header.getBlockCount()) {
+      if (readFully(this.in, this.block) < this.block.length) {
+        throw new IOException(
+            String.format("Truncated object file at block %s", this.blocksRead));
+      }
+      ObjectFiles.verifyBlock(this.block, 0, this.blocksRead);
+      this.position = 0;
+      this.limit = this.header.getBlockRecords(this.blocksRead) * ObjectFiles.RECORD_SIZE;
+      this.blocksRead++;
+      if (this.limit > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int readFully(final InputStream in, final byte[] buf) throws IOException {
+    int offset = 0;
+    while (offset < buf.length) {
+      final int read = in.read(buf, offset, buf.length - offset);
+      if (read < 0) {
+        break;
+      }
+      offset += read;
+    }
+    return offset;
+  }
+
+  /**
+   * @return the format of the stream
+   */
+  public ObjectFileFormat getFormat() {
+    return this.format;
+  }
+
+  /**
+   * @return the number of records in the stream, or -1 if the stream is a v1 stream, which does not
+   *         record its length
+   */
+  public long getRecordCount() {
+    return this.header != null ? this.header.getRecordCount() : -1;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.in.close();
+  }
+}
@@ -0,0 +1,173 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records objects in bulk directly into object files, bypassing an {@code ObjectManager}. Records
+ * are batched in memory and written to object files named as {@link RandomObjectPopulator} names
+ * them, starting after the highest numbered existing object file, so that the objects recorded are
+ * loaded by a subsequent test alongside any objects already recorded. Each object file holds at
+ * most a configured number of records and is written with an {@link ObjectFileWriter}, so it only
+ * becomes visible once complete.
+ *
+ * @since 1.0
+ */
+public class ObjectFileRecorder {
+  private static final Logger _logger = LoggerFactory.getLogger(ObjectFileRecorder.class);
+  private static final int RECORD_SIZE = LegacyObjectMetadata.OBJECT_SIZE;
+  private static final int BATCH_RECORDS = 4096;
+  private final String directory;
+  private final String prefix;
+  private final int maxObjects;
+  private final ObjectFileFormat format;
+  private final byte[] batch;
+  private int batchRecords;
+  private int fileIndex;
+  private ObjectFileWriter out;
+  private int fileRecords;
+  private long records;
+  private int files;
+  private boolean closed;
+
+  /**
+   * Constructs an instance
+   *
+   * @param directory the directory to write object files to
+   * @param prefix the object file name prefix
+   * @param maxObjects the maximum number of records per object file
+   * @param format the object file format to write
+   * @throws NullPointerException if directory, prefix or format are null
+   * @throws IllegalArgumentException if prefix is empty or maxObjects is not positive
+   */
+  public ObjectFileRecorder(final String directory, final String prefix, final int maxObjects,
+      final ObjectFileFormat format) {
+    this.directory = checkNotNull(directory);
+    this.prefix = checkNotNull(prefix);
+    checkArgument(!prefix.isEmpty(), "prefix must not be empty");
+    checkArgument(maxObjects > 0, "maxObjects must be > 0 [%s]", maxObjects);
+    this.maxObjects = maxObjects;
+    this.format = checkNotNull(format);
+    this.batch = new byte[BATCH_RECORDS * RECORD_SIZE];
+    this.fileIndex = nextFileIndex();
+  }
+
+  private int nextFileIndex() {
+    final Pattern pattern = Pattern.compile(String.format("%s(\\d|[1-9]\\d*)%s",
+        Pattern.quote(this.prefix), Pattern.quote(RandomObjectPopulator.SUFFIX)));
+    int next = 0;
+    final String[] names = new File(this.directory).list();
+    if (names != null) {
+      for (final String name : names) {
+        final Matcher m = pattern.matcher(name);
+        if (m.matches()) {
+          next = Math.max(next, Integer.parseInt(m.group(1)) + 1);
+        }
+      }
+    }
+    return next;
+  }
+
+  /**
+   * Records an object
+   *
+   * @param object the object to record
+   * @throws IOException if an object file cannot be written
+   * @throws IllegalStateException if this recorder is closed
+   */
+  public synchronized void add(final ObjectMetadata object) throws IOException {
+    checkNotNull(object);
+    if (this.closed) {
+      throw new IllegalStateException("Object file recorder is closed");
+    }
+    System.arraycopy(object.toBytes(), 0, this.batch, this.batchRecords * RECORD_SIZE,
+        RECORD_SIZE);
+    this.batchRecords++;
+    this.records++;
+    if (this.batchRecords == BATCH_RECORDS) {
+      flush();
+    }
+  }
+
+  private void flush() throws IOException {
+    int written = 0;
+    while (written < this.batchRecords) {
+      if (this.out == null) {
+        this.out = new ObjectFileWriter(file(this.fileIndex), this.format);
+      }
+      final int run = Math.min(this.batchRecords - written, this.maxObjects - this.fileRecords);
+      this.out.write(this.batch, written * RECORD_SIZE, run * RECORD_SIZE);
+      this.fileRecords += run;
+      written += run;
+      if (this.fileRecords == this.maxObjects) {
+        closeFile();
+      }
+    }
+    this.batchRecords = 0;
+  }
+
+  private void closeFile() throws IOException {
+    this.out.close();
+    _logger.debug("Recorded {} objects to {}", this.fileRecords, file(this.fileIndex));
+    this.out = null;
+    this.fileRecords = 0;
+    this.fileIndex++;
+    this.files++;
+  }
+
+  private File file(final int index) {
+    return new File(this.directory + "/" + this.prefix + index + RandomObjectPopulator.SUFFIX);
+  }
+
+  /**
+   * Writes any batched records and completes the current object file. Subsequent calls have no
+   * effect
+   *
+   * @throws IOException if an object file cannot be written
+   */
+  public synchronized void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    flush();
+    if (this.out != null) {
+      closeFile();
+    }
+    _logger.info("Recorded {} objects to {} object files", this.records, this.files);
+  }
+
+  /**
+   * @return the number of objects recorded
+   */
+  public synchronized long getRecordCount() {
+    return this.records;
+  }
+
+  /**
+   * @return the number of object files completed
+   */
+  public synchronized int getFileCount() {
+    return this.files;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "ObjectFileRecorder [directory=%s, prefix=%s, maxObjects=%s, format=%s]",
+        this.directory, this.prefix, this.maxObjects, this.format);
+  }
+}
@@ -0,0 +1,158 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An output stream which atomically writes an object file in either {@code ObjectFileFormat}.
+ * Callers write a plain concatenation of records. The records are written to a temporary file
+ * alongside the target which, on {@link #close()}, is synced to disk and renamed over the target,
+ * so that readers and crashes never observe a partially written object file. For v2 files, records
+ * are packed into checksummed blocks as they are written, and the header is written last, once
+ * the record count is known.
+ *
+ * @since 1.0
+ */
+public class ObjectFileWriter extends OutputStream {
+  private static final String TMP_SUFFIX = ".tmp";
+  private static final int BLOCK_RECORD_BYTES =
+      ObjectFiles.RECORDS_PER_BLOCK * ObjectFiles.RECORD_SIZE;
+  private final File target;
+  private final File tmp;
+  private final ObjectFileFormat format;
+  private final FileOutputStream fileOut;
+  private final OutputStream out;
+  private final byte[] block;
+  private int blockPosition;
+  private long bytes;
+  private boolean closed;
+
+  /**
+   * Constructs an instance
+   *
+   * @param target the object file to write
+   * @param format the format to write
+   * @throws NullPointerException if target or format is null
+   * @throws IOException if the temporary file cannot be created
+   */
+  public ObjectFileWriter(final File target, final ObjectFileFormat format) throws IOException {
+    this.target = checkNotNull(target);
+    this.format = checkNotNull(format);
+    this.tmp = new File(target.getPath() + TMP_SUFFIX);
+    this.fileOut = new FileOutputStream(this.tmp);
+    this.out = new BufferedOutputStream(this.fileOut, 64 * 1024);
+    if (ObjectFileFormat.V2 == format) {
+      this.block = new byte[ObjectFiles.BLOCK_SIZE];
+      // reserved for the header, which is written once the record count is known
+      this.out.write(new byte[ObjectFiles.HEADER_SIZE]);
+    } else {
+      this.block = null;
+    }
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    if (this.closed) {
+      throw new IOException("Object file writer is closed");
+    }
+    this.bytes += len;
+    if (this.block == null) {
+      this.out.write(b, off, len);
+      return;
+    }
+    int written = 0;
+    while (written < len) {
+      final int copy = Math.min(len - written, BLOCK_RECORD_BYTES - this.blockPosition);
+      System.arraycopy(b, off + written, this.block, this.blockPosition, copy);
+      this.blockPosition += copy;
+      written += copy;
+      if (this.blockPosition == BLOCK_RECORD_BYTES) {
+        writeBlock();
+      }
+    }
+  }
+
+  private void writeBlock() throws IOException {
+    Arrays.fill(this.block, this.blockPosition, this.block.length, (byte) 0);
+    ObjectFiles.sealBlock(this.block);
+    this.out.write(this.block);
+    this.blockPosition = 0;
+  }
+
+  /**
+   * @return the number of records written so far
+   */
+  public long getRecordCount() {
+    return this.bytes / ObjectFiles.RECORD_SIZE;
+  }
+
+  /**
+   * Completes the object file and atomically replaces the target with it
+   *
+   * @throws IOException if a partial record was written, or the file cannot be completed, in which
+   *         case the target is left unchanged
+   */
+  @Override
+  public void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    try {
+      if (this.bytes % ObjectFiles.RECORD_SIZE != 0) {
+        throw new IOException(
+            String.format("Object file %s ends with a partial record", this.target));
+      }
+      if (this.block != null) {
+        if (this.blockPosition > 0) {
+          writeBlock();
+        }
+        this.out.flush();
+        final byte[] header = new ObjectFiles.Header(getRecordCount()).encode();
+        this.fileOut.getChannel().write(ByteBuffer.wrap(header), 0);
+      }
+      this.out.flush();
+      this.fileOut.getFD().sync();
+    } catch (final IOException e) {
+      abort();
+      throw e;
+    }
+    this.out.close();
+    ObjectFiles.replace(this.tmp, this.target);
+  }
+
+  /**
+   * Discards the records written so far, leaving the target unchanged
+   */
+  public void abort() {
+    this.closed = true;
+    try {
+      this.out.close();
+    } catch (final IOException e) {
+      // the temporary file is discarded regardless
+    }
+    this.tmp.delete();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("ObjectFileWriter [target=%s, format=%s]", this.target, this.format);
+  }
+}
@@ -0,0 +1,274 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import com.google.common.base.Charsets;
+
+/**
+ * A utility class for working with object files of either {@code ObjectFileFormat}.
+ * <p>
+ * A v2 object file begins with a {@value #HEADER_SIZE} byte header holding a magic value, the
+ * format version, the block size, the record layout, the record and block counts, and a CRC32 of
+ * the preceding header fields. The header is followed by blocks of {@value #BLOCK_SIZE} bytes,
+ * each holding up to {@link #RECORDS_PER_BLOCK} records, zero padding, and a trailing CRC32 of the
+ * rest of the block. Every block but the last is full. Blocks are aligned to the block size so
+ * that ranges of blocks can be memory mapped and validated independently, in parallel. All
+ * integers are big-endian.
+ *
+ * @since 1.0
+ */
+public class ObjectFiles {
+  public static final int RECORD_SIZE = LegacyObjectMetadata.OBJECT_SIZE;
+  public static final int VERSION = 2;
+  public static final int HEADER_SIZE = 4096;
+  public static final int BLOCK_SIZE = 4096;
+  public static final int CHECKSUM_SIZE = 4;
+  public static final int RECORDS_PER_BLOCK = (BLOCK_SIZE - CHECKSUM_SIZE) / RECORD_SIZE;
+  static final byte[] MAGIC = "OGOBJECT".getBytes(Charsets.US_ASCII);
+  // the number of header bytes covered by the header checksum
+  private static final int HEADER_FIELDS_SIZE = 56;
+
+  private ObjectFiles() {}
+
+  /**
+   * The header of a v2 object file
+   */
+  public static class Header {
+    private final long recordCount;
+    private final long blockCount;
+
+    Header(final long recordCount) {
+      this.recordCount = recordCount;
+      this.blockCount = blockCount(recordCount);
+    }
+
+    /**
+     * @return the number of records in the object file
+     */
+    public long getRecordCount() {
+      return this.recordCount;
+    }
+
+    /**
+     * @return the number of blocks following the header
+     */
+    public long getBlockCount() {
+      return this.blockCount;
+    }
+
+    /**
+     * @param block a block index
+     * @return the number of records in the block
+     */
+    public int getBlockRecords(final long block) {
+      return (int) Math.min(RECORDS_PER_BLOCK, this.recordCount - block * RECORDS_PER_BLOCK);
+    }
+
+    byte[] encode() {
+      final byte[] header = new byte[HEADER_SIZE];
+      final ByteBuffer buf = ByteBuffer.wrap(header);
+      buf.put(MAGIC);
+      buf.putInt(VERSION);
+      buf.putInt(HEADER_SIZE);
+      buf.putInt(BLOCK_SIZE);
+      buf.putInt(RECORD_SIZE);
+      buf.putInt(RECORDS_PER_BLOCK);
+      buf.putLong(this.recordCount);
+      buf.putLong(this.blockCount);
+      buf.putInt(LegacyObjectMetadata.OBJECT_NAME_SIZE);
+      buf.putInt(LegacyObjectMetadata.OBJECT_SIZE_SIZE);
+      buf.putInt(LegacyObjectMetadata.OBJECT_SUFFIX_SIZE);
+      buf.putInt(checksum(header, 0, HEADER_FIELDS_SIZE));
+      return header;
+    }
+
+    static Header decode(final byte[] header) throws IOException {
+      final ByteBuffer buf = ByteBuffer.wrap(header);
+      final byte[] magic = new byte[MAGIC.length];
+      buf.get(magic);
+      if (!Arrays.equals(MAGIC, magic)) {
+        throw new IOException("Not a v2 object file");
+      }
+      final int version = buf.getInt();
+      if (version != VERSION) {
+        throw new IOException(String.format("Unsupported object file version [%s]", version));
+      }
+      final int headerSize = buf.getInt();
+      final int blockSize = buf.getInt();
+      final int recordSize = buf.getInt();
+      final int recordsPerBlock = buf.getInt();
+      final long recordCount = buf.getLong();
+      final long blockCount = buf.getLong();
+      final int nameSize = buf.getInt();
+      final int sizeSize = buf.getInt();
+      final int suffixSize = buf.getInt();
+      if (buf.getInt() != checksum(header, 0, HEADER_FIELDS_SIZE)) {
+        throw new IOException("Object file header checksum mismatch");
+      }
+      if (headerSize != HEADER_SIZE || blockSize != BLOCK_SIZE || recordSize != RECORD_SIZE
+          || recordsPerBlock != RECORDS_PER_BLOCK
+          || nameSize != LegacyObjectMetadata.OBJECT_NAME_SIZE
+          || sizeSize != LegacyObjectMetadata.OBJECT_SIZE_SIZE
+          || suffixSize != LegacyObjectMetadata.OBJECT_SUFFIX_SIZE) {
+        throw new IOException(String.format(
+            "Unsupported object file layout [headerSize=%s, blockSize=%s, recordSize=%s, "
+                + "recordsPerBlock=%s, nameSize=%s, sizeSize=%s, suffixSize=%s]",
+            headerSize, blockSize, recordSize, recordsPerBlock, nameSize, sizeSize, suffixSize));
+      }
+      if (recordCount < 0 || blockCount != blockCount(recordCount)) {
+        throw new IOException(String.format(
+            "Invalid object file counts [records=%s, blocks=%s]", recordCount, blockCount));
+      }
+      return new Header(recordCount);
+    }
+  }
+
+  /**
+   * Determines the format of an object file. Missing and empty files are reported as v1
+   *
+   * @param file the object file
+   * @return the format of the file
+   * @throws IOException if the file cannot be read
+   */
+  public static ObjectFileFormat format(final File file) throws IOException {
+    checkNotNull(file);
+    if (file.length() < MAGIC.length) {
+      return ObjectFileFormat.V1;
+    }
+    final byte[] magic = new byte[MAGIC.length];
+    final RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      raf.readFully(magic);
+    } finally {
+      raf.close();
+    }
+    return Arrays.equals(MAGIC, magic) ? ObjectFileFormat.V2 : ObjectFileFormat.V1;
+  }
+
+  /**
+   * Reads and validates the header of a v2 object file
+   *
+   * @param file the object file
+   * @return the header of the file
+   * @throws IOException if the file cannot be read, or its header is missing or invalid
+   */
+  public static Header readHeader(final File file) throws IOException {
+    checkNotNull(file);
+    final byte[] header = new byte[HEADER_SIZE];
+    final RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      if (raf.length() < HEADER_SIZE) {
+        throw new IOException(String.format("Truncated object file header [%s]", file));
+      }
+      raf.readFully(header);
+    } finally {
+      raf.close();
+    }
+    return Header.decode(header);
+  }
+
+  /**
+   * Counts the records in an object file. A missing file holds no records, and a truncated
+   * trailing record of a v1 file is not counted
+   *
+   * @param file the object file
+   * @return the number of records in the file
+   * @throws IOException if the file cannot be read, or is a v2 file with an invalid header
+   */
+  public static long count(final File file) throws IOException {
+    checkNotNull(file);
+    if (!file.exists()) {
+      return 0;
+    }
+    if (format(file) == ObjectFileFormat.V2) {
+      return readHeader(file).getRecordCount();
+    }
+    return file.length() / RECORD_SIZE;
+  }
+
+  /**
+   * Opens an object file of either format for reading its records
+   *
+   * @param file the object file
+   * @return a stream of the file's records
+   * @throws IOException if the file cannot be opened, or is a v2 file with an invalid header
+   */
+  public static ObjectFileReader open(final File file) throws IOException {
+    final InputStream in = new BufferedInputStream(new FileInputStream(checkNotNull(file)),
+        64 * 1024);
+    try {
+      return new ObjectFileReader(in);
+    } catch (final IOException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Validates the checksum of a v2 block
+   *
+   * @param block a buffer holding the block
+   * @param offset the offset of the block in buffer
+   * @param index the index of the block, for reporting
+   * @throws IOException if the block's checksum does not match its contents
+   */
+  public static void verifyBlock(final byte[] block, final int offset, final long index)
+      throws IOException {
+    checkArgument(block.length - offset >= BLOCK_SIZE, "block must hold %s bytes", BLOCK_SIZE);
+    final int expected = ByteBuffer.wrap(block, offset + BLOCK_SIZE - CHECKSUM_SIZE, CHECKSUM_SIZE)
+        .getInt();
+    if (expected != checksum(block, offset, BLOCK_SIZE - CHECKSUM_SIZE)) {
+      throw new IOException(String.format("Object file block %s checksum mismatch", index));
+    }
+  }
+
+  // fills in the trailing checksum of a block whose records have been written
+  static void sealBlock(final byte[] block) {
+    ByteBuffer.wrap(block).putInt(BLOCK_SIZE - CHECKSUM_SIZE,
+        checksum(block, 0, BLOCK_SIZE - CHECKSUM_SIZE));
+  }
+
+  /**
+   * @param block a block index
+   * @return the offset of the block in a v2 object file
+   */
+  public static long blockOffset(final long block) {
+    return HEADER_SIZE + block * BLOCK_SIZE;
+  }
+
+  static long blockCount(final long records) {
+    return (records + RECORDS_PER_BLOCK - 1) / RECORDS_PER_BLOCK;
+  }
+
+  // replaces target with source, which is assumed to be fully written and synced
+  static void replace(final File source, final File target) throws IOException {
+    if (!source.renameTo(target)) {
+      // some platforms do not support replacing an existing file via rename
+      if (!target.delete() || !source.renameTo(target)) {
+        throw new IOException(String.format("Can't replace %s", target));
+      }
+    }
+  }
+
+  private static int checksum(final byte[] buf, final int offset, final int length) {
+    final CRC32 crc = new CRC32();
+    crc.update(buf, offset, length);
+    return (int) crc.getValue();
+  }
+}
@@ -0,0 +1,720 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * An append-only journal of object manager additions and removals. Callers record events via
+ * {@code add} and {@code remove}, which only enqueue the event; a background writer thread appends
+ * events to a journal file which sits alongside the object file snapshot it describes.
+ * <p>
+ * {@code checkpoint} flushes the journal to disk and, once the journal has grown large relative to
+ * the snapshot, compacts it into a new snapshot. Compaction streams the previous snapshot into a
+ * temporary file, applying the journaled changes, and atomically renames the result over the
+ * snapshot. Neither operation blocks threads recording events, and the cost of a checkpoint is
+ * proportional to the churn since the last compaction rather than to the size of the snapshot.
+ * <p>
+ * Compaction holds the net change of at most {@code MAX_CHANGES} objects in memory. A larger
+ * journal and the snapshot are first split by object hash into partition files, each partition is
+ * compacted on its own, and the partitions are merged back in snapshot order.
+ * <p>
+ * If the journal cannot be written, it is broken: pending checkpoints are released, and every later
+ * {@code add}, {@code remove}, {@code checkpoint} or {@code close} throws an
+ * {@code ObjectManagerException}, since the journal no longer describes the object manager.
+ * <p>
+ * Each journal entry is a single operation byte followed by a {@code LegacyObjectMetadata} record.
+ *
+ * @since 1.0
+ */
+public class ObjectJournal {
+  private static final Logger _logger = LoggerFactory.getLogger(ObjectJournal.class);
+  public static final String SUFFIX = ".journal";
+  private static final String COMPACTING_SUFFIX = ".compacting";
+  private static final String PARTITION_SUFFIX = ".partition";
+  static final byte ADD = 1;
+  static final byte REMOVE = 2;
+  static final int ENTRY_SIZE = 1 + LegacyObjectMetadata.OBJECT_SIZE;
+  private static final int QUEUE_SIZE = 64 * 1024;
+  private static final int BATCH_SIZE = 1024;
+  // compact once the journal holds at least this fraction of the snapshot size
+  private static final double COMPACTION_RATIO = 0.5;
+  private static final long MIN_COMPACTION_BYTES = 1024 * 1024;
+  // the most object changes held in memory while compacting
+  static final int MAX_CHANGES = 256 * 1024;
+  private static final int MAX_PARTITIONS = 256;
+  private static final int PARTITION_BUFFER_SIZE = 16 * 1024;
+  private final File snapshot;
+  private final ObjectFileFormat format;
+  private final File journalFile;
+  private final BlockingQueue<Entry> queue;
+  private final ReentrantLock streamLock;
+  private final Thread writer;
+  private volatile boolean running;
+  // set once the journal cannot be written
+  private volatile IOException failure;
+  private BufferedOutputStream out;
+  private FileOutputStream fileOut;
+  private long journalBytes;
+
+  private static class Entry {
+    final byte operation;
+    final ObjectMetadata object;
+    // non-null for barrier entries, which are released once all prior entries are written
+    final CountDownLatch barrier;
+
+    Entry(final byte operation, final ObjectMetadata object) {
+      this.operation = operation;
+      this.object = object;
+      this.barrier = null;
+    }
+
+    Entry(final CountDownLatch barrier) {
+      this.operation = 0;
+      this.object = null;
+      this.barrier = barrier;
+    }
+  }
+
+  /**
+   * Constructs an instance which compacts into v1 snapshots
+   *
+   * @param snapshot the object file this journal describes changes to
+   * @throws IOException if the journal file cannot be opened
+   */
+  public ObjectJournal(final File snapshot) throws IOException {
+    this(snapshot, ObjectFileFormat.V1);
+  }
+
+  /**
+   * Constructs an instance and starts its background writer. Any journal left behind by a previous
+   * instance must first be applied to the snapshot via {@code recover}
+   *
+   * @param snapshot the object file this journal describes changes to
+   * @param format the format in which compacted snapshots are written; existing snapshots of either
+   *        format are read
+   * @throws IOException if the journal file cannot be opened
+   */
+  public ObjectJournal(final File snapshot, final ObjectFileFormat format) throws IOException {
+    this.snapshot = checkNotNull(snapshot);
+    this.format = checkNotNull(format);
+    this.journalFile = journalFile(snapshot);
+    this.queue = new ArrayBlockingQueue<Entry>(QUEUE_SIZE);
+    this.streamLock = new ReentrantLock();
+    openJournal();
+    this.running = true;
+    this.writer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        writeEntries();
+      }
+    }, "object-journal");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /**
+   * Applies any journal files left behind for the provided v1 snapshot
+   *
+   * @param snapshot the object file to recover
+   * @throws IOException if an I/O error occurs during recovery
+   */
+  public static void recover(final File snapshot) throws IOException {
+    recover(snapshot, ObjectFileFormat.V1);
+  }
+
+  /**
+   * Applies any journal files left behind for the provided snapshot, such as after an unclean
+   * shutdown, so that the snapshot reflects all journaled changes
+   *
+   * @param snapshot the object file to recover
+   * @param format the format in which the recovered snapshot is written
+   * @throws IOException if an I/O error occurs during recovery
+   */
+  public static void recover(final File snapshot, final ObjectFileFormat format)
+      throws IOException {
+    checkNotNull(snapshot);
+    checkNotNull(format);
+    final File compacting = compactingFile(snapshot);
+    if (compacting.exists()) {
+      _logger.info("recovering interrupted compaction {}", compacting);
+      compact(snapshot, compacting, format);
+    }
+    final File journal = journalFile(snapshot);
+    if (journal.exists()) {
+      _logger.info("recovering journal {}", journal);
+      compact(snapshot, journal, format);
+    }
+  }
+
+  /**
+   * Records the addition of an object. Must be called before the object is made available to
+   * other threads so that its addition is journaled before any removal
+   *
+   * @param object the added object
+   */
+  public void add(final ObjectMetadata object) {
+    enqueue(new Entry(ADD, checkNotNull(object)));
+  }
+
+  /**
+   * Records the removal of an object
+   *
+   * @param object the removed object
+   */
+  public void remove(final ObjectMetadata object) {
+    enqueue(new Entry(REMOVE, checkNotNull(object)));
+  }
+
+  private void enqueue(final Entry entry) {
+    checkFailure();
+    try {
+      // blocks only if the writer has fallen QUEUE_SIZE entries behind
+      this.queue.put(entry);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ObjectManagerException(e);
+    }
+  }
+
+  private void writeEntries() {
+    final List<Entry> batch = Lists.newArrayListWithCapacity(BATCH_SIZE);
+    while (this.running || !this.queue.isEmpty()) {
+      try {
+        final Entry first = this.queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        this.queue.drainTo(batch, BATCH_SIZE - 1);
+        if (this.failure != null) {
+          releaseBarriers(batch);
+          continue;
+        }
+        this.streamLock.lock();
+        try {
+          for (final Entry entry : batch) {
+            if (entry.barrier != null) {
+              this.out.flush();
+              entry.barrier.countDown();
+              continue;
+            }
+            this.out.write(entry.operation);
+            this.out.write(entry.object.toBytes());
+            this.journalBytes += ENTRY_SIZE;
+          }
+          if (this.queue.isEmpty()) {
+            this.out.flush();
+          }
+        } finally {
+          this.streamLock.unlock();
+        }
+      } catch (final InterruptedException e) {
+        _logger.warn("object journal writer interrupted", e);
+      } catch (final IOException e) {
+        // entries of this batch may be lost, so the journal no longer matches the object manager
+        _logger.error("Can't write object journal", e);
+        this.failure = e;
+        releaseBarriers(batch);
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  // once the journal is broken, checkpoints waiting on the writer are released to observe it
+  private static void releaseBarriers(final List<Entry> batch) {
+    for (final Entry entry : batch) {
+      if (entry.barrier != null) {
+        entry.barrier.countDown();
+      }
+    }
+  }
+
+  private void checkFailure() {
+    final IOException failure = this.failure;
+    if (failure != null) {
+      throw new ObjectManagerException("Object journal is broken", failure);
+    }
+  }
+
+  /**
+   * Flushes journaled changes to disk, and compacts the journal into the snapshot if it has grown
+   * large enough. Must not be called concurrently with itself or with {@code close}
+   *
+   * @throws IOException if an I/O error occurs
+   * @throws ObjectManagerException if the journal is broken
+   */
+  public void checkpoint() throws IOException {
+    checkFailure();
+    final File compacting = compactingFile(this.snapshot);
+    if (compacting.exists()) {
+      // a previous compaction failed; it must complete before the journal is rotated again
+      compact(this.snapshot, compacting, this.format);
+    }
+    // wait for the writer to catch up with every event recorded prior to this checkpoint
+    final CountDownLatch barrier = new CountDownLatch(1);
+    enqueue(new Entry(barrier));
+    try {
+      barrier.await();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ObjectManagerException(e);
+    }
+    checkFailure();
+
+    final boolean compact;
+    this.streamLock.lock();
+    try {
+      syncJournal();
+      final long threshold =
+          Math.max(MIN_COMPACTION_BYTES, (long) (this.snapshot.length() * COMPACTION_RATIO));
+      compact = this.journalBytes >= threshold;
+      _logger.info("journal checkpoint {} bytes, compaction threshold {} bytes", this.journalBytes,
+          threshold);
+      if (compact) {
+        rotateJournal();
+      }
+    } finally {
+      this.streamLock.unlock();
+    }
+
+    if (compact) {
+      compact(this.snapshot, compacting, this.format);
+    }
+  }
+
+  /**
+   * Stops the background writer after all pending events have been written, and compacts the
+   * journal into the snapshot. A broken journal is closed without being compacted
+   *
+   * @throws IOException if an I/O error occurs
+   * @throws ObjectManagerException if the journal is broken
+   */
+  public void close() throws IOException {
+    this.running = false;
+    try {
+      this.writer.join();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ObjectManagerException(e);
+    }
+    this.streamLock.lock();
+    try {
+      if (this.failure == null) {
+        syncJournal();
+        this.out.close();
+      } else {
+        // the buffered entries can't be written, so only the file is closed
+        this.fileOut.close();
+      }
+    } finally {
+      this.streamLock.unlock();
+    }
+    checkFailure();
+    compact(this.snapshot, this.journalFile, this.format);
+  }
+
+  // must be called while holding streamLock
+  private void syncJournal() throws IOException {
+    this.out.flush();
+    this.fileOut.getFD().sync();
+  }
+
+  // must be called while holding streamLock
+  private void rotateJournal() throws IOException {
+    this.out.close();
+    final File compacting = compactingFile(this.snapshot);
+    if (!this.journalFile.renameTo(compacting)) {
+      throw new IOException(String.format("Can't rotate journal %s", this.journalFile));
+    }
+    openJournal();
+  }
+
+  private void openJournal() throws IOException {
+    this.fileOut = new FileOutputStream(this.journalFile, true);
+    this.out = new BufferedOutputStream(this.fileOut, 64 * 1024);
+    this.journalBytes = this.journalFile.length();
+  }
+
+  /**
+   * Applies the changes in a journal to a snapshot, atomically replacing the snapshot and then
+   * deleting the journal. A truncated final journal entry is ignored
+   */
+  static void compact(final File snapshot, final File journal, final ObjectFileFormat format)
+      throws IOException {
+    compact(snapshot, journal, format, MAX_CHANGES);
+  }
+
+  static void compact(final File snapshot, final File journal, final ObjectFileFormat format,
+      final int maxChanges) throws IOException {
+    final long start = System.nanoTime();
+    final long entries = journal.exists() ? journal.length() / ENTRY_SIZE : 0;
+    // twice as many partitions as strictly needed, since objects do not hash evenly
+    final int partitions = entries <= maxChanges ? 1
+        : (int) Math.min(MAX_PARTITIONS, 2 * ((entries + maxChanges - 1) / maxChanges));
+    final long written;
+
+    final ObjectFileWriter tmpOut = new ObjectFileWriter(snapshot, format);
+    try {
+      if (partitions == 1) {
+        written = compact(snapshot, journal, tmpOut);
+      } else {
+        written = compactPartitioned(snapshot, journal, partitions, tmpOut);
+      }
+    } catch (final IOException e) {
+      tmpOut.abort();
+      throw e;
+    }
+    // syncs the new snapshot and renames it over the previous one
+    tmpOut.close();
+    if (!journal.delete()) {
+      _logger.warn("Can't delete compacted journal {}", journal);
+    }
+    _logger.info("compacted journal {} into {} objects in {} with {} partitions [{} ms]", journal,
+        written, snapshot, partitions, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  // compacts with every change in memory
+  private static long compact(final File snapshot, final File journal, final OutputStream out)
+      throws IOException {
+    final Map<ObjectMetadata, Change> changes = readJournal(journal);
+    long written = 0;
+    if (snapshot.exists()) {
+      final InputStream in = ObjectFiles.open(snapshot);
+      try {
+        final byte[] record = new byte[LegacyObjectMetadata.OBJECT_SIZE];
+        while (readFully(in, record)) {
+          if (!removed(changes, record)) {
+            out.write(record);
+            written++;
+          }
+        }
+      } finally {
+        in.close();
+      }
+    }
+    for (final Map.Entry<ObjectMetadata, Change> change : changes.entrySet()) {
+      for (int i = 0; i < change.getValue().count; i++) {
+        out.write(change.getKey().toBytes());
+        written++;
+      }
+    }
+    return written;
+  }
+
+  // splits the journal and the snapshot into partitions by object hash, compacts each partition
+  // with only its changes in memory, and merges the partitions back by position. Partition records
+  // carry their position: the record index for snapshot objects, and the snapshot record count
+  // plus the journal entry index for added objects
+  private static long compactPartitioned(final File snapshot, final File journal,
+      final int partitions, final OutputStream out) throws IOException {
+    final File[] journalParts = new File[partitions];
+    final File[] snapshotParts = new File[partitions];
+    final File[] compactedParts = new File[partitions];
+    for (int i = 0; i < partitions; i++) {
+      journalParts[i] = partitionFile(snapshot, "journal", i);
+      snapshotParts[i] = partitionFile(snapshot, "snapshot", i);
+      compactedParts[i] = partitionFile(snapshot, "compacted", i);
+    }
+    try {
+      partition(new BufferedInputStream(new FileInputStream(journal), 64 * 1024), ENTRY_SIZE,
+          journalParts);
+      final long snapshotRecords = partition(snapshot.exists() ? ObjectFiles.open(snapshot) : null,
+          LegacyObjectMetadata.OBJECT_SIZE, snapshotParts);
+      for (int i = 0; i < partitions; i++) {
+        compactPartition(snapshotParts[i], journalParts[i], snapshotRecords, compactedParts[i]);
+        delete(journalParts[i]);
+        delete(snapshotParts[i]);
+      }
+      return merge(compactedParts, out);
+    } finally {
+      for (int i = 0; i < partitions; i++) {
+        delete(journalParts[i]);
+        delete(snapshotParts[i]);
+        delete(compactedParts[i]);
+      }
+    }
+  }
+
+  // writes each record of a stream, prefixed by its index, to the partition of its object, then
+  // closes the stream; returns the number of records. A null stream leaves every partition empty
+  private static long partition(final InputStream in, final int recordSize, final File[] parts)
+      throws IOException {
+    final OutputStream[] outs = new OutputStream[parts.length];
+    // the object ends each record, after the operation byte of a journal entry
+    final int objectOffset = 8 + recordSize - LegacyObjectMetadata.OBJECT_SIZE;
+    final ByteBuffer buf = ByteBuffer.allocate(8 + recordSize);
+    long index = 0;
+    try {
+      for (int i = 0; i < parts.length; i++) {
+        outs[i] = new BufferedOutputStream(new FileOutputStream(parts[i]), PARTITION_BUFFER_SIZE);
+      }
+      while (in != null && readFully(in, buf.array(), 8)) {
+        buf.putLong(0, index++);
+        final int hash = hash(buf.array(), objectOffset);
+        outs[(hash & Integer.MAX_VALUE) % parts.length].write(buf.array());
+      }
+      return index;
+    } finally {
+      if (in != null) {
+        in.close();
+      }
+      for (final OutputStream partOut : outs) {
+        if (partOut != null) {
+          partOut.close();
+        }
+      }
+    }
+  }
+
+  private static int hash(final byte[] buf, final int offset) {
+    int hash = 1;
+    for (int i = offset; i < offset + LegacyObjectMetadata.OBJECT_SIZE; i++) {
+      hash = 31 * hash + buf[i];
+    }
+    return hash;
+  }
+
+  private static void compactPartition(final File snapshotPart, final File journalPart,
+      final long snapshotRecords, final File compactedPart) throws IOException {
+    final Map<ObjectMetadata, Change> changes = Maps.newLinkedHashMap();
+    final InputStream journalIn =
+        new BufferedInputStream(new FileInputStream(journalPart), PARTITION_BUFFER_SIZE);
+    try {
+      final ByteBuffer buf = ByteBuffer.allocate(8 + ENTRY_SIZE);
+      while (readFully(journalIn, buf.array(), 0)) {
+        apply(changes, buf.array()[8], buf.array(), 9, buf.getLong(0));
+      }
+    } finally {
+      journalIn.close();
+    }
+
+    final OutputStream out =
+        new BufferedOutputStream(new FileOutputStream(compactedPart), PARTITION_BUFFER_SIZE);
+    try {
+      final InputStream snapshotIn =
+          new BufferedInputStream(new FileInputStream(snapshotPart), PARTITION_BUFFER_SIZE);
+      try {
+        final byte[] buf = new byte[8 + LegacyObjectMetadata.OBJECT_SIZE];
+        final byte[] record = new byte[LegacyObjectMetadata.OBJECT_SIZE];
+        while (readFully(snapshotIn, buf, 0)) {
+          System.arraycopy(buf, 8, record, 0, record.length);
+          if (!removed(changes, record)) {
+            out.write(buf);
+          }
+        }
+      } finally {
+        snapshotIn.close();
+      }
+      // changes are in journal order, so positions remain ascending
+      final ByteBuffer buf = ByteBuffer.allocate(8 + LegacyObjectMetadata.OBJECT_SIZE);
+      for (final Map.Entry<ObjectMetadata, Change> change : changes.entrySet()) {
+        buf.putLong(0, snapshotRecords + change.getValue().position);
+        System.arraycopy(change.getKey().toBytes(), 0, buf.array(), 8,
+            LegacyObjectMetadata.OBJECT_SIZE);
+        for (int i = 0; i < change.getValue().count; i++) {
+          out.write(buf.array());
+        }
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  private static class Part implements Comparable<Part> {
+    final InputStream in;
+    final ByteBuffer buf;
+
+    Part(final InputStream in) {
+      this.in = in;
+      this.buf = ByteBuffer.allocate(8 + LegacyObjectMetadata.OBJECT_SIZE);
+    }
+
+    boolean next() throws IOException {
+      return readFully(this.in, this.buf.array(), 0);
+    }
+
+    @Override
+    public int compareTo(final Part o) {
+      final long position = this.buf.getLong(0);
+      final long other = o.buf.getLong(0);
+      return position < other ? -1 : (position > other ? 1 : 0);
+    }
+  }
+
+  // each compacted partition is ordered by position, so merging them restores the order of the
+  // snapshot followed by the journal
+  private static long merge(final File[] parts, final OutputStream out) throws IOException {
+    final PriorityQueue<Part> heap = new PriorityQueue<Part>(parts.length);
+    final List<Part> opened = Lists.newArrayListWithCapacity(parts.length);
+    long written = 0;
+    try {
+      for (final File part : parts) {
+        final Part p = new Part(
+            new BufferedInputStream(new FileInputStream(part), PARTITION_BUFFER_SIZE));
+        opened.add(p);
+        if (p.next()) {
+          heap.add(p);
+        }
+      }
+      while (!heap.isEmpty()) {
+        final Part p = heap.poll();
+        out.write(p.buf.array(), 8, LegacyObjectMetadata.OBJECT_SIZE);
+        written++;
+        if (p.next()) {
+          heap.add(p);
+        }
+      }
+    } finally {
+      for (final Part p : opened) {
+        p.in.close();
+      }
+    }
+    return written;
+  }
+
+  private static File partitionFile(final File snapshot, final String name, final int index) {
+    return new File(String.format("%s%s%s.%s.%d", snapshot.getPath(), SUFFIX, PARTITION_SUFFIX,
+        name, index));
+  }
+
+  private static void delete(final File file) {
+    if (file.exists() && !file.delete()) {
+      _logger.warn("Can't delete compaction partition {}", file);
+    }
+  }
+
+  // the net change in count of an object, and the journal position at which it was last added to
+  // the changes
+  private static class Change {
+    int count;
+    final long position;
+
+    Change(final long position) {
+      this.position = position;
+    }
+  }
+
+  // returns true if the snapshot record was removed since the snapshot was written, consuming the
+  // removal
+  private static boolean removed(final Map<ObjectMetadata, Change> changes, final byte[] record) {
+    if (changes.isEmpty()) {
+      return false;
+    }
+    final ObjectMetadata object = LegacyObjectMetadata.fromBytes(record);
+    final Change change = changes.get(object);
+    if (change != null && change.count < 0) {
+      change.count++;
+      if (change.count == 0) {
+        changes.remove(object);
+      }
+      return true;
+    }
+    return false;
+  }
+
+  // returns the net change in count per object
+  // changes are kept in journal order so that compaction preserves the order in which objects
+  // were added, which age ordered deletion depends on
+  private static Map<ObjectMetadata, Change> readJournal(final File journal) throws IOException {
+    final Map<ObjectMetadata, Change> changes = Maps.newLinkedHashMap();
+    if (!journal.exists()) {
+      return changes;
+    }
+    final InputStream in = new BufferedInputStream(new FileInputStream(journal), 64 * 1024);
+    try {
+      final byte[] entry = new byte[ENTRY_SIZE];
+      long position = 0;
+      while (readFully(in, entry)) {
+        apply(changes, entry[0], entry, 1, position++);
+      }
+    } finally {
+      in.close();
+    }
+    return changes;
+  }
+
+  private static void apply(final Map<ObjectMetadata, Change> changes, final byte operation,
+      final byte[] buf, final int offset, final long position) throws IOException {
+    final byte[] record = new byte[LegacyObjectMetadata.OBJECT_SIZE];
+    System.arraycopy(buf, offset, record, 0, record.length);
+    final ObjectMetadata object = LegacyObjectMetadata.fromBytes(record);
+    Change change = changes.get(object);
+    if (change == null) {
+      change = new Change(position);
+      changes.put(object, change);
+    }
+    if (operation == ADD) {
+      change.count++;
+    } else if (operation == REMOVE) {
+      change.count--;
+    } else {
+      throw new IOException(String.format("Invalid journal operation [%s]", operation));
+    }
+    if (change.count == 0) {
+      changes.remove(object);
+    }
+  }
+
+  private static boolean readFully(final InputStream in, final byte[] buf) throws IOException {
+    return readFully(in, buf, 0);
+  }
+
+  // fills buf from start, returning false at the end of the stream
+  private static boolean readFully(final InputStream in, final byte[] buf, final int start)
+      throws IOException {
+    int offset = start;
+    while (offset < buf.length) {
+      final int read = in.read(buf, offset, buf.length - offset);
+      if (read < 0) {
+        if (offset > start) {
+          _logger.warn("ignoring truncated record of {} bytes", offset);
+        }
+        return false;
+      }
+      offset += read;
+    }
+    return true;
+  }
+
+  static File journalFile(final File snapshot) {
+    return new File(snapshot.getPath() + SUFFIX);
+  }
+
+  private static File compactingFile(final File snapshot) {
+    return new File(snapshot.getPath() + SUFFIX + COMPACTING_SUFFIX);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("ObjectJournal [snapshot=%s]", this.snapshot);
+  }
+}
@@ -5,6 +5,7 @@
 
 package com.ibm.og.object;
 
+import java.util.List;
 
 /**
  * A collection of objects and their corresponding metadata
@@ -27,6 +28,27 @@ public interface ObjectManager {
    */
   ObjectMetadata get();
 
+  /**
+   * Selects an existing object name under management which satisfies the provided criteria.
+   * Callers must call {@code getComplete } when finished with the object returned by this method
+   * 
+   * @param criteria the criteria the selected object must satisfy
+   * @return an available object name for reading
+   */
+  ObjectMetadata get(ObjectCriteria criteria);
+
+  /**
+   * Selects up to {@code count} existing object names under management which satisfy the provided
+   * criteria, as a single operation where the implementation allows. Callers must call
+   * {@code getComplete } for each object returned by this method
+   * 
+   * @param criteria the criteria the selected objects must satisfy
+   * @param count the maximum number of objects to select
+   * @return at least one available object name for reading
+   * @throws ObjectManagerException if no object satisfies the criteria
+   */
+  List<ObjectMetadata> get(ObjectCriteria criteria, int count);
+
   /**
    * Informs this object manager that the caller is done reading this object
    * 
@@ -41,6 +63,35 @@ public interface ObjectManager {
    */
   ObjectMetadata remove();
 
+  /**
+   * Removes an existing object name which satisfies the provided criteria from management
+   * 
+   * @param criteria the criteria the removed object must satisfy
+   * @return an object currently under management
+   */
+  ObjectMetadata remove(ObjectCriteria criteria);
+
+  /**
+   * Removes up to {@code count} existing object names which satisfy the provided criteria from
+   * management, as a single operation where the implementation allows
+   * 
+   * @param criteria the criteria the removed objects must satisfy
+   * @param count the maximum number of objects to remove
+   * @return at least one object previously under management
+   * @throws ObjectManagerException if no object satisfies the criteria
+   */
+  List<ObjectMetadata> remove(ObjectCriteria criteria, int count);
+
+  /**
+   * @return the number of objects currently under management
+   */
+  long getCurrentObjectCount();
+
+  /**
+   * @return instrumentation counters describing contention and persistence in this object manager
+   */
+  ObjectManagerStatistics getStatistics();
+
   /**
    * Shuts down this object manager
    */
@@ -0,0 +1,53 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+/**
+ * A query-able type of object manager instrumentation counter
+ *
+ * @since 1.0
+ */
+public enum ObjectManagerCounter {
+  /**
+   * removal attempts which selected an object currently being read, and had to select again
+   */
+  READING_COLLISIONS,
+
+  /**
+   * acquisitions of the object store lock which had to wait for another thread
+   */
+  OBJECTS_LOCK_WAITS,
+
+  /**
+   * nanoseconds spent waiting to acquire the object store lock
+   */
+  OBJECTS_LOCK_WAIT_NANOS,
+
+  /**
+   * acquisitions of the persistence lock which had to wait for another thread
+   */
+  PERSIST_LOCK_WAITS,
+
+  /**
+   * nanoseconds spent waiting to acquire the persistence lock
+   */
+  PERSIST_LOCK_WAIT_NANOS,
+
+  /**
+   * completed persists of objects under management
+   */
+  PERSISTS,
+
+  /**
+   * nanoseconds spent persisting objects under management
+   */
+  PERSIST_NANOS,
+
+  /**
+   * bytes written to object files while persisting
+   */
+  PERSIST_BYTES
+}
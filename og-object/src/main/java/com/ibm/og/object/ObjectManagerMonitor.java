@@ -0,0 +1,135 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.ibm.og.util.TestState;
+
+/**
+ * Periodically samples an object manager's size and instrumentation counters while a test is
+ * running, and logs each sample. A final sample is taken when the test begins stopping, before the
+ * object manager is shut down, so that it can be summarized after the test completes.
+ *
+ * @since 1.0
+ */
+public class ObjectManagerMonitor {
+  private static final Logger _logger = LoggerFactory.getLogger(ObjectManagerMonitor.class);
+  private final ObjectManager objectManager;
+  private final long interval;
+  private final TimeUnit unit;
+  private final ScheduledExecutorService sampler;
+  private volatile boolean running;
+  private long objectCount;
+  private long minObjectCount;
+  private long maxObjectCount;
+  private ObjectManagerStatistics statistics;
+
+  /**
+   * Constructs an instance
+   *
+   * @param objectManager the object manager to sample
+   * @param interval the time between samples
+   * @param unit the unit of interval
+   * @throws NullPointerException if objectManager or unit is null
+   * @throws IllegalArgumentException if interval is not positive
+   */
+  public ObjectManagerMonitor(final ObjectManager objectManager, final long interval,
+      final TimeUnit unit) {
+    this.objectManager = checkNotNull(objectManager);
+    checkArgument(interval > 0, "interval must be > 0 [%s]", interval);
+    this.interval = interval;
+    this.unit = checkNotNull(unit);
+    this.sampler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setDaemon(true).setNameFormat("object-manager-monitor").build());
+    this.running = false;
+    this.minObjectCount = Long.MAX_VALUE;
+    this.statistics = new ObjectManagerStatistics();
+  }
+
+  /**
+   * Begins sampling when the test starts running, and takes a final sample when the test is
+   * stopping
+   *
+   * @param state the state that the test has transitioned to
+   */
+  @Subscribe
+  public void update(final TestState state) {
+    checkNotNull(state);
+    if (state == TestState.RUNNING && !this.running) {
+      this.running = true;
+      this.sampler.scheduleAtFixedRate(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            sample();
+          } catch (final Exception e) {
+            _logger.error("Exception while sampling object manager", e);
+          }
+        }
+      }, this.interval, this.interval, this.unit);
+    } else if (state == TestState.STOPPING && this.running) {
+      this.running = false;
+      this.sampler.shutdown();
+      sample();
+    }
+  }
+
+  /**
+   * Samples the object manager's size and counters, and logs the sample
+   */
+  public synchronized void sample() {
+    this.objectCount = this.objectManager.getCurrentObjectCount();
+    this.minObjectCount = Math.min(this.minObjectCount, this.objectCount);
+    this.maxObjectCount = Math.max(this.maxObjectCount, this.objectCount);
+    // copied so that later samples do not alter this one
+    this.statistics = new ObjectManagerStatistics().addAll(this.objectManager.getStatistics());
+    _logger.info("objects={}, {}", this.objectCount, this.statistics);
+  }
+
+  /**
+   * @return the number of objects under management at the most recent sample
+   */
+  public synchronized long getObjectCount() {
+    return this.objectCount;
+  }
+
+  /**
+   * @return the fewest objects under management at any sample, or 0 if no sample has been taken
+   */
+  public synchronized long getMinObjectCount() {
+    return this.minObjectCount == Long.MAX_VALUE ? 0 : this.minObjectCount;
+  }
+
+  /**
+   * @return the most objects under management at any sample
+   */
+  public synchronized long getMaxObjectCount() {
+    return this.maxObjectCount;
+  }
+
+  /**
+   * @return the counters at the most recent sample
+   */
+  public synchronized ObjectManagerStatistics getStatistics() {
+    return this.statistics;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("ObjectManagerMonitor [interval=%s, unit=%s]", this.interval, this.unit);
+  }
+}
@@ -0,0 +1,105 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Instrumentation counters for an object manager. Counters are plain atomic longs indexed by
+ * {@code ObjectManagerCounter}, so updating one costs a single atomic add. Lock waits are only
+ * timed when a lock cannot be acquired immediately, so uncontended acquisitions pay no timing
+ * overhead.
+ *
+ * @since 1.0
+ */
+public class ObjectManagerStatistics {
+  private final AtomicLongArray counters;
+
+  /**
+   * Constructs an instance with every counter at zero
+   */
+  public ObjectManagerStatistics() {
+    this.counters = new AtomicLongArray(ObjectManagerCounter.values().length);
+  }
+
+  /**
+   * Adds to a counter
+   *
+   * @param counter the counter to update
+   * @param delta the amount to add
+   */
+  public void add(final ObjectManagerCounter counter, final long delta) {
+    this.counters.addAndGet(counter.ordinal(), delta);
+  }
+
+  /**
+   * Gets a counter
+   *
+   * @param counter the counter to get
+   * @return the counter's current value
+   */
+  public long get(final ObjectManagerCounter counter) {
+    return this.counters.get(checkNotNull(counter).ordinal());
+  }
+
+  /**
+   * Adds every counter of another instance to this instance
+   *
+   * @param other the instance whose counters to add
+   * @return this instance
+   */
+  public ObjectManagerStatistics addAll(final ObjectManagerStatistics other) {
+    checkNotNull(other);
+    for (final ObjectManagerCounter counter : ObjectManagerCounter.values()) {
+      add(counter, other.get(counter));
+    }
+    return this;
+  }
+
+  /**
+   * Acquires a lock, counting and timing the wait if the lock is not immediately available. The
+   * lock's fairness policy is honored
+   *
+   * @param lock the lock to acquire
+   * @param waits the counter of waits to update
+   * @param waitNanos the counter of nanoseconds waited to update
+   */
+  public void lock(final Lock lock, final ObjectManagerCounter waits,
+      final ObjectManagerCounter waitNanos) {
+    boolean interrupted = false;
+    try {
+      // unlike tryLock(), a timed tryLock does not barge ahead of waiting threads on a fair lock
+      if (lock.tryLock(0, TimeUnit.NANOSECONDS)) {
+        return;
+      }
+    } catch (final InterruptedException e) {
+      interrupted = true;
+    }
+    final long start = System.nanoTime();
+    lock.lock();
+    add(waits, 1);
+    add(waitNanos, System.nanoTime() - start);
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder s = new StringBuilder("ObjectManagerStatistics [");
+    for (final ObjectManagerCounter counter : ObjectManagerCounter.values()) {
+      if (counter.ordinal() > 0) {
+        s.append(", ");
+      }
+      s.append(counter.toString().toLowerCase()).append("=").append(get(counter));
+    }
+    return s.append("]").toString();
+  }
+}
@@ -0,0 +1,265 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.UnsignedLongs;
+import com.ibm.og.util.Distribution;
+
+/**
+ * A deterministic object namespace. The name, size and container suffix of the object at each
+ * index are a pure function of the namespace seed and the index, so objects written by one run can
+ * be regenerated by a later run which knows only the seed and the number of objects written.
+ * <p>
+ * Names have the same 36 character hex format as uuid-like object names. The first 16 characters
+ * encode a seeded bijective mix of the index, which allows the index of a name to be recovered,
+ * and the next 16 characters are a seeded hash of the first which distinguishes names from this
+ * namespace from names outside it.
+ *
+ * @since 1.0
+ */
+public class ObjectNamespace {
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+  private static final long MIX_1 = 0xff51afd7ed558ccdL;
+  private static final long MIX_2 = 0xc4ceb9fe1a85ec53L;
+  private static final long UNMIX_1 = inverse(MIX_1);
+  private static final long UNMIX_2 = inverse(MIX_2);
+  private static final int NAME_LENGTH = LegacyObjectMetadata.OBJECT_NAME_SIZE * 2;
+  private static final String NAME_PADDING = "0000";
+  // salts which decorrelate the hashes of a single index
+  private static final long SIZE_SALT = 1;
+  private static final long DISTRIBUTION_SALT = 2;
+  private static final long CONTAINER_SALT = 3;
+  private final long seed;
+  private final long key;
+  private final List<Distribution> sizes;
+  private final double[] cumulativeWeights;
+  private final int minContainerSuffix;
+  private final int maxContainerSuffix;
+
+  /**
+   * Constructs an instance whose objects are not assigned a container suffix
+   *
+   * @param seed the namespace seed
+   * @param sizes the object size distributions to draw sizes from
+   * @param weights the weight of each distribution in sizes
+   * @throws NullPointerException if sizes or weights is null
+   * @throws IllegalArgumentException if sizes is empty, if weights and sizes are not the same size,
+   *         or if any weight is not positive
+   */
+  public ObjectNamespace(final long seed, final List<Distribution> sizes,
+      final List<Double> weights) {
+    this(seed, sizes, weights, -1, -1);
+  }
+
+  /**
+   * Constructs an instance
+   *
+   * @param seed the namespace seed
+   * @param sizes the object size distributions to draw sizes from
+   * @param weights the weight of each distribution in sizes
+   * @param minContainerSuffix the minimum container suffix, inclusive, or -1 if objects are not
+   *        assigned a container suffix
+   * @param maxContainerSuffix the maximum container suffix, inclusive, or -1 if objects are not
+   *        assigned a container suffix
+   * @throws NullPointerException if sizes or weights is null
+   * @throws IllegalArgumentException if sizes is empty, if weights and sizes are not the same size,
+   *         if any weight is not positive, or if the container suffix range is invalid
+   */
+  public ObjectNamespace(final long seed, final List<Distribution> sizes,
+      final List<Double> weights, final int minContainerSuffix, final int maxContainerSuffix) {
+    this.sizes = ImmutableList.copyOf(sizes);
+    checkNotNull(weights);
+    checkArgument(!this.sizes.isEmpty(), "sizes must not be empty");
+    checkArgument(this.sizes.size() == weights.size(), "sizes and weights must be the same size");
+    this.cumulativeWeights = new double[weights.size()];
+    double total = 0.0;
+    for (int i = 0; i < this.cumulativeWeights.length; i++) {
+      final double weight = checkNotNull(weights.get(i));
+      checkArgument(weight > 0.0, "weight must be > 0.0 [%s]", weight);
+      total += weight;
+      this.cumulativeWeights[i] = total;
+    }
+    for (int i = 0; i < this.cumulativeWeights.length; i++) {
+      this.cumulativeWeights[i] /= total;
+    }
+    if (minContainerSuffix == -1 || maxContainerSuffix == -1) {
+      checkArgument(minContainerSuffix == maxContainerSuffix,
+          "container suffix range must be set or unset together [%s, %s]", minContainerSuffix,
+          maxContainerSuffix);
+    } else {
+      checkArgument(minContainerSuffix >= 0, "minContainerSuffix must be >= 0 [%s]",
+          minContainerSuffix);
+      checkArgument(maxContainerSuffix >= minContainerSuffix,
+          "maxContainerSuffix must be >= minContainerSuffix [%s, %s]", maxContainerSuffix,
+          minContainerSuffix);
+    }
+    this.seed = seed;
+    this.key = hash(seed, 0);
+    this.minContainerSuffix = minContainerSuffix;
+    this.maxContainerSuffix = maxContainerSuffix;
+  }
+
+  /**
+   * Gets the name of the object at an index
+   *
+   * @param index the object index
+   * @return the object name
+   * @throws IllegalArgumentException if index is negative
+   */
+  public String name(final long index) {
+    checkArgument(index >= 0, "index must be >= 0 [%s]", index);
+    final long mixed = mix(index + this.key);
+    final StringBuilder s = new StringBuilder(NAME_LENGTH);
+    appendHex(s, mixed);
+    appendHex(s, hash(this.seed, mixed));
+    return s.append(NAME_PADDING).toString();
+  }
+
+  /**
+   * Gets the index of the object with a name
+   *
+   * @param name the object name
+   * @return the object index, or -1 if the name does not belong to this namespace
+   * @throws NullPointerException if name is null
+   */
+  public long index(final String name) {
+    checkNotNull(name);
+    if (name.length() != NAME_LENGTH || !name.endsWith(NAME_PADDING)) {
+      return -1;
+    }
+    final long mixed;
+    final long check;
+    try {
+      mixed = UnsignedLongs.parseUnsignedLong(name.substring(0, 16), 16);
+      check = UnsignedLongs.parseUnsignedLong(name.substring(16, 32), 16);
+    } catch (final NumberFormatException e) {
+      return -1;
+    }
+    if (check != hash(this.seed, mixed)) {
+      return -1;
+    }
+    final long index = unmix(mixed) - this.key;
+    return index >= 0 ? index : -1;
+  }
+
+  /**
+   * Gets the size of the object at an index
+   *
+   * @param index the object index
+   * @return the object size in bytes
+   * @throws IllegalArgumentException if index is negative
+   */
+  public long size(final long index) {
+    checkArgument(index >= 0, "index must be >= 0 [%s]", index);
+    Distribution distribution = this.sizes.get(0);
+    if (this.sizes.size() > 1) {
+      final double p = probability(hash(this.seed ^ DISTRIBUTION_SALT, index));
+      for (int i = 0; i < this.cumulativeWeights.length; i++) {
+        if (p < this.cumulativeWeights[i]) {
+          distribution = this.sizes.get(i);
+          break;
+        }
+      }
+    }
+    final double size = distribution
+        .inverseCumulativeProbability(probability(hash(this.seed ^ SIZE_SALT, index)));
+    return Math.max(0, (long) size);
+  }
+
+  /**
+   * Gets the container suffix of the object at an index
+   *
+   * @param index the object index
+   * @return the container suffix, or -1 if objects are not assigned a container suffix
+   * @throws IllegalArgumentException if index is negative
+   */
+  public int containerSuffix(final long index) {
+    checkArgument(index >= 0, "index must be >= 0 [%s]", index);
+    if (this.minContainerSuffix == -1) {
+      return -1;
+    }
+    final long range = (long) this.maxContainerSuffix - this.minContainerSuffix + 1;
+    final long h = hash(this.seed ^ CONTAINER_SALT, index) >>> 1;
+    return (int) (this.minContainerSuffix + h % range);
+  }
+
+  /**
+   * Gets the metadata of the object at an index
+   *
+   * @param index the object index
+   * @return the object metadata
+   * @throws IllegalArgumentException if index is negative
+   */
+  public ObjectMetadata metadata(final long index) {
+    return LegacyObjectMetadata.fromMetadata(name(index), size(index), containerSuffix(index));
+  }
+
+  /**
+   * @return the namespace seed
+   */
+  public long getSeed() {
+    return this.seed;
+  }
+
+  // a probability in the open range (0.0, 1.0), so that unbounded distributions map to finite
+  // values
+  private static double probability(final long h) {
+    return ((h >>> 11) + 0.5) / (1L << 53);
+  }
+
+  private static long hash(final long seed, final long value) {
+    return mix(seed * GOLDEN_GAMMA + value + GOLDEN_GAMMA);
+  }
+
+  // murmur3 64-bit finalizer; each step is invertible so the mix is a bijection
+  private static long mix(long x) {
+    x ^= x >>> 33;
+    x *= MIX_1;
+    x ^= x >>> 33;
+    x *= MIX_2;
+    x ^= x >>> 33;
+    return x;
+  }
+
+  private static long unmix(long x) {
+    x ^= x >>> 33;
+    x *= UNMIX_2;
+    x ^= x >>> 33;
+    x *= UNMIX_1;
+    x ^= x >>> 33;
+    return x;
+  }
+
+  // multiplicative inverse of an odd constant modulo 2^64, by newton's iteration
+  private static long inverse(final long a) {
+    long x = a;
+    for (int i = 0; i < 5; i++) {
+      x *= 2 - a * x;
+    }
+    return x;
+  }
+
+  private static void appendHex(final StringBuilder s, final long value) {
+    final String hex = Long.toHexString(value);
+    for (int i = hex.length(); i < 16; i++) {
+      s.append('0');
+    }
+    s.append(hex);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "ObjectNamespace [seed=%s, sizes=%s, minContainerSuffix=%s, maxContainerSuffix=%s]",
+        this.seed, this.sizes, this.minContainerSuffix, this.maxContainerSuffix);
+  }
+}
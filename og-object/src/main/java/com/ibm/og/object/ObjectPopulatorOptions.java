@@ -0,0 +1,222 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Options which control how a {@code RandomObjectPopulator} stores, loads, persists and deletes
+ * the objects of its object file. Instances are immutable and are created via {@link Builder}
+ *
+ * @since 1.0
+ */
+public class ObjectPopulatorOptions {
+  private final ObjectStoreType storeType;
+  private final PersistenceType persistenceType;
+  private final int loadThreads;
+  private final Long minResident;
+  private final DeletionOrder deletionOrder;
+  private final Integer maxResident;
+  private final ObjectFileFormat format;
+
+  private ObjectPopulatorOptions(final Builder builder) {
+    this.storeType = checkNotNull(builder.storeType);
+    this.persistenceType = checkNotNull(builder.persistenceType);
+    this.loadThreads = builder.loadThreads;
+    checkArgument(this.loadThreads > 0, "loadThreads must be > 0 [%s]", this.loadThreads);
+    this.minResident = builder.minResident;
+    checkArgument(this.minResident == null || this.minResident >= 0,
+        "minResident must be >= 0 [%s]", this.minResident);
+    this.deletionOrder = checkNotNull(builder.deletionOrder);
+    this.maxResident = builder.maxResident;
+    checkArgument(this.maxResident == null || DeletionOrder.RANDOM == this.deletionOrder,
+        "maxResident cannot be combined with age ordered deletion [%s]", this.deletionOrder);
+    this.format = checkNotNull(builder.format);
+  }
+
+  /**
+   * @return the store in which objects are held in memory
+   */
+  public ObjectStoreType getStoreType() {
+    return this.storeType;
+  }
+
+  /**
+   * @return how objects are persisted to the object file
+   */
+  public PersistenceType getPersistenceType() {
+    return this.persistenceType;
+  }
+
+  /**
+   * @return the number of threads which load the object file
+   */
+  public int getLoadThreads() {
+    return this.loadThreads;
+  }
+
+  /**
+   * @return the number of objects which must be loaded before construction completes, or null if
+   *         the entire object file must be loaded
+   */
+  public Long getMinResident() {
+    return this.minResident;
+  }
+
+  /**
+   * @return the order in which objects are selected for deletion
+   */
+  public DeletionOrder getDeletionOrder() {
+    return this.deletionOrder;
+  }
+
+  /**
+   * @return the maximum number of objects held in memory, or null if unbounded
+   */
+  public Integer getMaxResident() {
+    return this.maxResident;
+  }
+
+  /**
+   * @return the format in which object files are written
+   */
+  public ObjectFileFormat getFormat() {
+    return this.format;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "ObjectPopulatorOptions [storeType=%s, persistenceType=%s, loadThreads=%s, "
+            + "minResident=%s, deletionOrder=%s, maxResident=%s, format=%s]",
+        this.storeType, this.persistenceType, this.loadThreads, this.minResident,
+        this.deletionOrder, this.maxResident, this.format);
+  }
+
+  /**
+   * A builder of object populator options
+   */
+  public static class Builder {
+    private ObjectStoreType storeType;
+    private PersistenceType persistenceType;
+    private int loadThreads;
+    private Long minResident;
+    private DeletionOrder deletionOrder;
+    private Integer maxResident;
+    private ObjectFileFormat format;
+
+    /**
+     * Constructs a new builder
+     */
+    public Builder() {
+      this.storeType = ObjectStoreType.HEAP;
+      this.persistenceType = PersistenceType.SNAPSHOT;
+      this.loadThreads = Runtime.getRuntime().availableProcessors();
+      this.minResident = null;
+      this.deletionOrder = DeletionOrder.RANDOM;
+      this.maxResident = null;
+      this.format = ObjectFileFormat.V1;
+    }
+
+    /**
+     * Configures the store in which objects are held in memory
+     *
+     * @param storeType the object store type
+     * @return this builder
+     */
+    public Builder withStoreType(final ObjectStoreType storeType) {
+      this.storeType = storeType;
+      return this;
+    }
+
+    /**
+     * Configures how objects are persisted to the object file
+     *
+     * @param persistenceType the persistence type
+     * @return this builder
+     */
+    public Builder withPersistenceType(final PersistenceType persistenceType) {
+      this.persistenceType = persistenceType;
+      return this;
+    }
+
+    /**
+     * Configures the number of threads which load the object file. The object file is loaded by a
+     * single thread when deletion is age ordered, so that insertion order is preserved across runs
+     *
+     * @param loadThreads the number of load threads
+     * @return this builder
+     */
+    public Builder withLoadThreads(final int loadThreads) {
+      this.loadThreads = loadThreads;
+      return this;
+    }
+
+    /**
+     * Configures the number of objects which must be loaded before construction completes, with
+     * the remainder of the object file loading in the background. A null value waits for the
+     * entire object file
+     *
+     * @param minResident the minimum number of loaded objects, or null
+     * @return this builder
+     */
+    public Builder withMinResident(final Long minResident) {
+      this.minResident = minResident;
+      return this;
+    }
+
+    /**
+     * Configures the order in which objects are selected for deletion. With an age ordered
+     * deletion order, objects are held in a single insertion ordered store rather than sharded by
+     * container and size, and the object file is not rebalanced across object files
+     *
+     * @param deletionOrder the deletion order
+     * @return this builder
+     */
+    public Builder withDeletionOrder(final DeletionOrder deletionOrder) {
+      this.deletionOrder = deletionOrder;
+      return this;
+    }
+
+    /**
+     * Configures the maximum number of objects held in memory, spilling the remainder to segment
+     * files alongside the object file. A null value holds every object in memory. Cannot be
+     * combined with age ordered deletion
+     *
+     * @param maxResident the maximum number of resident objects, or null
+     * @return this builder
+     */
+    public Builder withMaxResident(final Integer maxResident) {
+      this.maxResident = maxResident;
+      return this;
+    }
+
+    /**
+     * Configures the format in which object files are written. Object files of either format are
+     * read
+     *
+     * @param format the object file format
+     * @return this builder
+     */
+    public Builder withFormat(final ObjectFileFormat format) {
+      this.format = format;
+      return this;
+    }
+
+    /**
+     * Constructs options from this builder
+     *
+     * @return new options instance
+     * @throws NullPointerException if storeType, persistenceType, deletionOrder or format are null
+     * @throws IllegalArgumentException if loadThreads is not positive, if minResident is negative,
+     *         or if maxResident is set with an age ordered deletion order
+     */
+    public ObjectPopulatorOptions build() {
+      return new ObjectPopulatorOptions(this);
+    }
+  }
+}
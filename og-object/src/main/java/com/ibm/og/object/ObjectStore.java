@@ -0,0 +1,89 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A thread safe backing store for object metadata which supports uniform, and optionally skewed,
+ * random selection of its members. Implementations are used by {@code RandomObjectPopulator} to
+ * hold the objects currently under management.
+ *
+ * @since 1.0
+ */
+public interface ObjectStore {
+  /**
+   * Adds an object to this store
+   *
+   * @param objectMetadata the object to add
+   */
+  void put(ObjectMetadata objectMetadata);
+
+  /**
+   * Adds an object to this store from its object file record, which begins at the current
+   * position of the provided buffer. The buffer's position is advanced past the record.
+   * Implementations which store records in serialized form do so without allocating an
+   * {@code ObjectMetadata} instance
+   *
+   * @param record a buffer positioned at an object file record
+   */
+  void putRecord(ByteBuffer record);
+
+  /**
+   * Selects a uniformly random object from this store without removing it
+   *
+   * @return a random object, or null if this store is empty
+   */
+  ObjectMetadata getRandom();
+
+  /**
+   * Selects a random object from this store without removing it, using the provided policy.
+   * Implementations which do not keep objects in insertion order select uniformly
+   *
+   * @param policy the distribution to select with
+   * @return a random object, or null if this store is empty
+   */
+  ObjectMetadata getRandom(SelectionPolicy policy);
+
+  /**
+   * Selects and removes a uniformly random object from this store
+   *
+   * @return a random object, or null if this store is empty
+   */
+  ObjectMetadata removeRandom();
+
+  /**
+   * Selects and removes a random object from this store, using the provided policy.
+   * Implementations which do not keep objects in insertion order select uniformly
+   *
+   * @param policy the distribution to select with
+   * @return a random object, or null if this store is empty
+   */
+  ObjectMetadata removeRandom(SelectionPolicy policy);
+
+  /**
+   * Gets the number of objects in this store
+   *
+   * @return the number of objects in this store
+   */
+  int size();
+
+  /**
+   * Removes all objects from this store
+   */
+  void clear();
+
+  /**
+   * Writes every object in this store to the provided stream, in object file format. Callers must
+   * ensure that this store is not concurrently modified while this method is executing
+   *
+   * @param out the stream to write to
+   * @throws IOException if an I/O error occurs while writing
+   */
+  void writeTo(OutputStream out) throws IOException;
+}
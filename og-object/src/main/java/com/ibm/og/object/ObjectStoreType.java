@@ -0,0 +1,24 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+/**
+ * The type of {@code ObjectStore} an object manager should use to hold objects in memory
+ *
+ * @since 1.0
+ */
+public enum ObjectStoreType {
+  /**
+   * objects are held as individual heap allocated instances in a dense array, without
+   * de-duplication
+   */
+  HEAP,
+
+  /**
+   * objects are held as fixed size records in direct (off-heap) memory
+   */
+  OFFHEAP
+}
@@ -0,0 +1,33 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A utility class for creating {@code ObjectStore} instances
+ *
+ * @since 1.0
+ */
+public class ObjectStores {
+  private ObjectStores() {}
+
+  /**
+   * Creates an empty object store of the provided type
+   *
+   * @param storeType the type of store to create
+   * @return a new object store instance
+   * @throws NullPointerException if storeType is null
+   */
+  public static ObjectStore create(final ObjectStoreType storeType) {
+    switch (checkNotNull(storeType)) {
+      case OFFHEAP:
+        return new OffHeapObjectStore();
+      default:
+        return new HeapObjectStore();
+    }
+  }
+}
@@ -0,0 +1,239 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.collect.Lists;
+
+/**
+ * An {@code ObjectStore} implementation which stores objects as fixed size
+ * {@code LegacyObjectMetadata} records in a dense array of direct (off-heap) memory chunks. The
+ * only heap cost of this store is its chunk list, so heap usage remains flat regardless of the
+ * number of objects under management.
+ * <p>
+ * Random selection and removal are O(1); removal moves the last record into the slot being
+ * vacated so that the array remains dense. Records are otherwise held in insertion order, which
+ * {@code SelectionPolicy} implementations use to skew selection. Objects returned from this store
+ * are copied into short-lived {@code LegacyObjectMetadata} instances, since the underlying slot
+ * may be reused by a subsequent removal as soon as the store lock is released.
+ * <p>
+ * Direct memory usage is bounded by the jvm's {@code -XX:MaxDirectMemorySize} setting.
+ *
+ * @since 1.0
+ */
+public class OffHeapObjectStore implements ObjectStore {
+  private static final int RECORD_SIZE = LegacyObjectMetadata.OBJECT_SIZE;
+  public static final int DEFAULT_CHUNK_RECORDS = 1 << 12;
+  private final int chunkRecords;
+  private final List<ByteBuffer> chunks;
+  private final ReentrantLock lock;
+  private final Random rand;
+  private final byte[] scratch;
+  private int size;
+
+  /**
+   * Constructs an empty instance using the default chunk size
+   */
+  public OffHeapObjectStore() {
+    this(DEFAULT_CHUNK_RECORDS);
+  }
+
+  /**
+   * Constructs an empty instance
+   *
+   * @param chunkRecords the number of records to allocate in each direct memory chunk
+   * @throws IllegalArgumentException if chunkRecords is not positive
+   */
+  public OffHeapObjectStore(final int chunkRecords) {
+    checkArgument(chunkRecords > 0, "chunkRecords must be > 0 [%s]", chunkRecords);
+    this.chunkRecords = chunkRecords;
+    this.chunks = Lists.newArrayList();
+    this.lock = new ReentrantLock();
+    this.rand = new Random();
+    this.scratch = new byte[RECORD_SIZE];
+    this.size = 0;
+  }
+
+  @Override
+  public void put(final ObjectMetadata objectMetadata) {
+    final byte[] record = checkNotNull(objectMetadata).toBytes();
+    checkArgument(record.length == RECORD_SIZE, "record length must be == %s [%s]", RECORD_SIZE,
+        record.length);
+    this.lock.lock();
+    try {
+      ensureCapacity();
+      write(this.size, record);
+      this.size++;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public void putRecord(final ByteBuffer record) {
+    checkNotNull(record);
+    checkArgument(record.remaining() >= RECORD_SIZE, "record remaining must be >= %s [%s]",
+        RECORD_SIZE, record.remaining());
+    final int limit = record.limit();
+    this.lock.lock();
+    try {
+      ensureCapacity();
+      final ByteBuffer chunk = this.chunks.get(this.size / this.chunkRecords);
+      chunk.position((this.size % this.chunkRecords) * RECORD_SIZE);
+      record.limit(record.position() + RECORD_SIZE);
+      chunk.put(record);
+      this.size++;
+    } finally {
+      record.limit(limit);
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public ObjectMetadata getRandom() {
+    return getRandom(SelectionPolicies.UNIFORM);
+  }
+
+  @Override
+  public ObjectMetadata getRandom(final SelectionPolicy policy) {
+    checkNotNull(policy);
+    this.lock.lock();
+    try {
+      if (this.size == 0) {
+        return null;
+      }
+      return read(policy.select(this.size, this.rand));
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public ObjectMetadata removeRandom() {
+    return removeRandom(SelectionPolicies.UNIFORM);
+  }
+
+  @Override
+  public ObjectMetadata removeRandom(final SelectionPolicy policy) {
+    checkNotNull(policy);
+    this.lock.lock();
+    try {
+      if (this.size == 0) {
+        return null;
+      }
+      final int index = policy.select(this.size, this.rand);
+      final ObjectMetadata objectMetadata = read(index);
+      final int last = this.size - 1;
+      if (index != last) {
+        move(last, index);
+      }
+      this.size--;
+      releaseChunks();
+      return objectMetadata;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    this.lock.lock();
+    try {
+      return this.size;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    this.lock.lock();
+    try {
+      this.size = 0;
+      this.chunks.clear();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public void writeTo(final OutputStream out) throws IOException {
+    checkNotNull(out);
+    this.lock.lock();
+    try {
+      final byte[] buf = new byte[Math.min(this.chunkRecords, 4096) * RECORD_SIZE];
+      int remaining = this.size;
+      for (final ByteBuffer chunk : this.chunks) {
+        if (remaining == 0) {
+          break;
+        }
+        int chunkBytes = Math.min(remaining, this.chunkRecords) * RECORD_SIZE;
+        remaining -= chunkBytes / RECORD_SIZE;
+        chunk.position(0);
+        while (chunkBytes > 0) {
+          final int len = Math.min(chunkBytes, buf.length);
+          chunk.get(buf, 0, len);
+          out.write(buf, 0, len);
+          chunkBytes -= len;
+        }
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  // the following methods must be called while holding lock; chunk position is used as scratch
+  // state for relative bulk transfers
+  private void ensureCapacity() {
+    if (this.size == this.chunks.size() * this.chunkRecords) {
+      this.chunks.add(ByteBuffer.allocateDirect(this.chunkRecords * RECORD_SIZE));
+    }
+  }
+
+  private void write(final int index, final byte[] record) {
+    final ByteBuffer chunk = this.chunks.get(index / this.chunkRecords);
+    chunk.position((index % this.chunkRecords) * RECORD_SIZE);
+    chunk.put(record, 0, RECORD_SIZE);
+  }
+
+  private ObjectMetadata read(final int index) {
+    final ByteBuffer chunk = this.chunks.get(index / this.chunkRecords);
+    chunk.position((index % this.chunkRecords) * RECORD_SIZE);
+    final byte[] record = new byte[RECORD_SIZE];
+    chunk.get(record, 0, RECORD_SIZE);
+    return new LegacyObjectMetadata(ByteBuffer.wrap(record));
+  }
+
+  private void move(final int from, final int to) {
+    final ByteBuffer src = this.chunks.get(from / this.chunkRecords);
+    src.position((from % this.chunkRecords) * RECORD_SIZE);
+    src.get(this.scratch, 0, RECORD_SIZE);
+    write(to, this.scratch);
+  }
+
+  private void releaseChunks() {
+    // keep a single spare chunk beyond what is in use to avoid allocation churn at a boundary
+    final int inUse = (this.size + this.chunkRecords - 1) / this.chunkRecords;
+    while (this.chunks.size() > inUse + 1) {
+      this.chunks.remove(this.chunks.size() - 1);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("OffHeapObjectStore [size=%s, chunkRecords=%s]", size(),
+        this.chunkRecords);
+  }
+}
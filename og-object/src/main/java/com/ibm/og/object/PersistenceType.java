@@ -0,0 +1,24 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+/**
+ * The strategy an object manager uses to persist objects to object files
+ *
+ * @since 1.0
+ */
+public enum PersistenceType {
+  /**
+   * object files are periodically rewritten from the objects held in memory
+   */
+  SNAPSHOT,
+
+  /**
+   * additions and removals are appended to a journal in the background, and the journal is
+   * periodically compacted into the object file
+   */
+  JOURNAL
+}
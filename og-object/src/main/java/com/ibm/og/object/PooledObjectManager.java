@@ -0,0 +1,297 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * An {@code ObjectManager} implementation which loads every object file in its object file
+ * directory as an independent shard, so that the entire known namespace is exercised rather than a
+ * single object file. Each shard is a {@code RandomObjectPopulator} pinned to one object file,
+ * with its own lock, read tracking and persistence, so threads operating on different shards do
+ * not contend with one another.
+ * <p>
+ * Reads and removals select a shard weighted by the number of objects it holds, which preserves
+ * uniform selection across all objects. New objects are distributed across shards round robin.
+ * Object files are never rebalanced against one another.
+ *
+ * @since 1.0
+ */
+@Singleton
+public class PooledObjectManager implements ObjectManager {
+  private static final Logger _logger = LoggerFactory.getLogger(PooledObjectManager.class);
+  private final List<RandomObjectPopulator> shards;
+  private final AtomicInteger nextShard;
+  private final Random rand;
+
+  @Inject
+  public PooledObjectManager(@Named("objectfile.location") final String directory,
+      @Named("objectfile.name") final String prefix,
+      @Named("objectfile.maxsize") final long maxSize,
+      @Named("objectfile.persistfrequency") final long persistFrequency,
+      final ObjectPopulatorOptions options) {
+    this(UUID.randomUUID(), directory, prefix,
+        (int) (maxSize / RandomObjectPopulator.OBJECT_SIZE), persistFrequency * 1000, options);
+  }
+
+  // shards always delete in random order and hold every object in memory
+  public PooledObjectManager(final UUID vaultId, final String directory, final String prefix,
+      final int maxObjectCount, final long persistTime, final ObjectPopulatorOptions options) {
+    checkNotNull(vaultId);
+    checkNotNull(directory);
+    checkNotNull(options);
+    checkArgument(DeletionOrder.RANDOM == options.getDeletionOrder(),
+        "deletionOrder must be random [%s]", options.getDeletionOrder());
+    checkArgument(options.getMaxResident() == null, "maxResident must be null [%s]",
+        options.getMaxResident());
+    final String filePrefix = prefix != null && !prefix.isEmpty() ? prefix : "id_";
+    final File[] files = objectFiles(directory, filePrefix);
+    // a pool with no object files begins with a single, empty shard
+    final int shardCount = Math.max(1, files.length);
+    _logger.info("Pooling {} object files", shardCount);
+
+    // begin loading every shard before waiting for any of them
+    final ObjectPopulatorOptions shardOptions = new ObjectPopulatorOptions.Builder()
+        .withStoreType(options.getStoreType())
+        .withPersistenceType(options.getPersistenceType())
+        .withLoadThreads(Math.max(1, options.getLoadThreads() / shardCount))
+        .withMinResident(0L)
+        .withFormat(options.getFormat())
+        .build();
+    final List<RandomObjectPopulator> shards = Lists.newArrayList();
+    for (int i = 0; i < shardCount; i++) {
+      shards.add(new RandomObjectPopulator(vaultId, directory, filePrefix, maxObjectCount,
+          persistTime, i, shardOptions, false));
+    }
+    this.shards = ImmutableList.copyOf(shards);
+    this.nextShard = new AtomicInteger();
+    this.rand = new Random();
+    awaitResident(files, options.getMinResident());
+  }
+
+  private static File[] objectFiles(final String directory, final String prefix) {
+    final Pattern pattern = Pattern.compile(String.format("%s(\\d|[1-9]\\d*)%s",
+        Pattern.quote(prefix), Pattern.quote(RandomObjectPopulator.SUFFIX)));
+    final File[] files = new File(directory).listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(final File dir, final String name) {
+        return pattern.matcher(name).matches();
+      }
+    });
+    if (files == null) {
+      return new File[0];
+    }
+    // shards are pinned by index, so object files must be numbered contiguously from zero
+    final File[] ordered = new File[files.length];
+    for (final File file : files) {
+      final Matcher matcher = pattern.matcher(file.getName());
+      matcher.matches();
+      final int index = Integer.parseInt(matcher.group(1));
+      checkArgument(index < files.length,
+          "object files must be numbered contiguously from 0 [%s]", file);
+      ordered[index] = file;
+    }
+    return ordered;
+  }
+
+  // each shard must load a share of minResident proportional to the size of its object file
+  private void awaitResident(final File[] files, final Long minResident) {
+    if (minResident == null) {
+      for (final RandomObjectPopulator shard : this.shards) {
+        shard.awaitLoaded();
+      }
+      return;
+    }
+    long totalLength = 0;
+    for (final File file : files) {
+      totalLength += file.length();
+    }
+    for (int i = 0; i < files.length; i++) {
+      final long share = totalLength > 0
+          ? (long) Math.ceil((double) minResident * files[i].length() / totalLength) : 0;
+      this.shards.get(i).awaitResident(share);
+    }
+  }
+
+  @Override
+  public void add(final ObjectMetadata objectMetadata) {
+    final int index = (this.nextShard.getAndIncrement() & Integer.MAX_VALUE) % this.shards.size();
+    this.shards.get(index).add(objectMetadata);
+  }
+
+  @Override
+  public ObjectMetadata get() {
+    return get(ObjectCriteria.ANY);
+  }
+
+  @Override
+  public ObjectMetadata get(final ObjectCriteria criteria) {
+    checkNotNull(criteria);
+    final int first = selectShard();
+    ObjectManagerException failure = null;
+    for (int i = 0; i < this.shards.size(); i++) {
+      try {
+        return this.shards.get((first + i) % this.shards.size()).get(criteria);
+      } catch (final ObjectManagerException e) {
+        // the selected shard has no matching objects; try the others
+        failure = e;
+      }
+    }
+    throw failure;
+  }
+
+  @Override
+  public List<ObjectMetadata> get(final ObjectCriteria criteria, final int count) {
+    checkNotNull(criteria);
+    final int first = selectShard();
+    ObjectManagerException failure = null;
+    for (int i = 0; i < this.shards.size(); i++) {
+      try {
+        return this.shards.get((first + i) % this.shards.size()).get(criteria, count);
+      } catch (final ObjectManagerException e) {
+        failure = e;
+      }
+    }
+    throw failure;
+  }
+
+  @Override
+  public void getComplete(final ObjectMetadata objectMetadata) {
+    for (final RandomObjectPopulator shard : this.shards) {
+      if (shard.isReading(objectMetadata)) {
+        shard.getComplete(objectMetadata);
+        return;
+      }
+    }
+    throw new IllegalStateException(
+        String.format("object has no read references [%s]", objectMetadata));
+  }
+
+  @Override
+  public ObjectMetadata remove() {
+    return remove(ObjectCriteria.ANY);
+  }
+
+  @Override
+  public ObjectMetadata remove(final ObjectCriteria criteria) {
+    checkNotNull(criteria);
+    final int first = selectShard();
+    ObjectManagerException failure = null;
+    for (int i = 0; i < this.shards.size(); i++) {
+      try {
+        return this.shards.get((first + i) % this.shards.size()).remove(criteria);
+      } catch (final ObjectManagerException e) {
+        failure = e;
+      }
+    }
+    throw failure;
+  }
+
+  @Override
+  public List<ObjectMetadata> remove(final ObjectCriteria criteria, final int count) {
+    checkNotNull(criteria);
+    final int first = selectShard();
+    ObjectManagerException failure = null;
+    for (int i = 0; i < this.shards.size(); i++) {
+      try {
+        return this.shards.get((first + i) % this.shards.size()).remove(criteria, count);
+      } catch (final ObjectManagerException e) {
+        failure = e;
+      }
+    }
+    throw failure;
+  }
+
+  // selects a shard index weighted by the number of objects each shard holds
+  private int selectShard() {
+    final int shardCount = this.shards.size();
+    if (shardCount == 1) {
+      return 0;
+    }
+    long total = 0;
+    for (final RandomObjectPopulator shard : this.shards) {
+      total += shard.getCurrentObjectCount();
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long position = (long) (this.rand.nextDouble() * total);
+    for (int i = 0; i < shardCount; i++) {
+      final long size = this.shards.get(i).getCurrentObjectCount();
+      if (position < size) {
+        return i;
+      }
+      position -= size;
+    }
+    return shardCount - 1;
+  }
+
+  /**
+   * @return the number of objects currently held across all shards
+   */
+  @Override
+  public long getCurrentObjectCount() {
+    long count = 0;
+    for (final RandomObjectPopulator shard : this.shards) {
+      count += shard.getCurrentObjectCount();
+    }
+    return count;
+  }
+
+  /**
+   * @return the sum of every shard's counters
+   */
+  @Override
+  public ObjectManagerStatistics getStatistics() {
+    final ObjectManagerStatistics statistics = new ObjectManagerStatistics();
+    for (final RandomObjectPopulator shard : this.shards) {
+      statistics.addAll(shard.getStatistics());
+    }
+    return statistics;
+  }
+
+  @Override
+  public void shutdown() {
+    _logger.info("shutting down pooled object manager");
+    ObjectManagerException failure = null;
+    for (final RandomObjectPopulator shard : this.shards) {
+      try {
+        shard.shutdown();
+      } catch (final ObjectManagerException e) {
+        _logger.error("Failed to shut down object manager shard", e);
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("PooledObjectManager [shards=%s]", this.shards.size());
+  }
+}
@@ -19,15 +19,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
-import java.util.Collections;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Pattern;
@@ -40,6 +38,10 @@ import javax.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 @Singleton
@@ -53,23 +55,48 @@ public class RandomObjectPopulator extends Thread implements ObjectManager {
   private final String prefix;
   private final long persistFrequency;
   private final Integer objectFileIndex;
+  private final ObjectStoreType storeType;
+  private final PersistenceType persistenceType;
   public static final String SUFFIX = ".object";
+  public static final String SEQUENTIAL_SUFFIX = ".sequential";
+  public static final String SPILL_SUFFIX = ".spill.";
   private final Pattern filenamePattern;
 
-  // object read from a file
-  private final RandomAccessConcurrentHashSet<ObjectMetadata> objects =
-      new RandomAccessConcurrentHashSet<ObjectMetadata>();
-  private final ReadWriteLock objectsLock = new ReentrantReadWriteLock(true);
-  private final SortedMap<ObjectMetadata, Integer> currentlyReading =
-      Collections.synchronizedSortedMap(new TreeMap<ObjectMetadata, Integer>());
-  private final ReadWriteLock readingLock = new ReentrantReadWriteLock(true);
+  // object read from a file, sharded by container suffix unless deletion is age ordered
+  private final CriteriaObjectStore objects;
+  // null unless the number of objects held in memory is bounded, in which case it is the same
+  // store as objects
+  private final TieredObjectStore tieredObjects;
+  // null unless deletion is age ordered, in which case it is the same store as objects
+  private final AgeOrderedObjectStore orderedObjects;
+  private final DeletionOrder deletionOrder;
+  // objects named from sequential namespaces, persisted alongside the object file
+  private final SequentialObjectIndex sequentialObjects;
+  private final File sequentialFile;
+  // readers share objectsLock while selecting and registering an object; removals hold it
+  // exclusively so that an object cannot be removed between selection and registration
+  private final ReadWriteLock objectsLock = new ReentrantReadWriteLock();
+  private final ReadReferenceTable currentlyReading = new ReadReferenceTable();
+  private final Predicate<ObjectMetadata> reading = new Predicate<ObjectMetadata>() {
+    @Override
+    public boolean apply(final ObjectMetadata id) {
+      return RandomObjectPopulator.this.currentlyReading.isReferenced(id);
+    }
+  };
   private final ReadWriteLock persistLock = new ReentrantReadWriteLock(true);
   private final File saveFile;
   private volatile boolean testEnded = false;
   private final int idFileIndex;
   private final Random rand = new Random();
+  private final ObjectManagerStatistics statistics = new ObjectManagerStatistics();
   private final UUID vaultId;
   private final ScheduledExecutorService saver;
+  // null unless objects are persisted via journal
+  private final ObjectJournal journal;
+  private final int loadThreads;
+  private volatile ObjectFileLoader loader;
+  private final boolean rebalance;
+  private final ObjectFileFormat format;
 
   class IdFilter implements FilenameFilter {
     @Override
@@ -91,9 +118,10 @@ public class RandomObjectPopulator extends Thread implements ObjectManager {
       @Named("objectfile.name") final String prefix,
       @Named("objectfile.maxsize") final long maxSize,
       @Named("objectfile.persistfrequency") final long persistFrequency,
-      @Named("objectfile.index") @Nullable final Integer objectFileIndex) {
+      @Named("objectfile.index") @Nullable final Integer objectFileIndex,
+      final ObjectPopulatorOptions options) {
     this(UUID.randomUUID(), directory, prefix, (int) (maxSize / OBJECT_SIZE),
-        persistFrequency * 1000, objectFileIndex);
+        persistFrequency * 1000, objectFileIndex, options);
   }
 
   public RandomObjectPopulator(final UUID vaultId, final String directory, final String prefix) {
@@ -114,6 +142,28 @@ public class RandomObjectPopulator extends Thread implements ObjectManager {
 
   public RandomObjectPopulator(final UUID vaultId, final String directory, final String prefix,
       final int maxObjectCount, final long persistTime, final Integer objectFileIndex) {
+    this(vaultId, directory, prefix, maxObjectCount, persistTime, objectFileIndex,
+        new ObjectPopulatorOptions.Builder().build());
+  }
+
+  public RandomObjectPopulator(final UUID vaultId, final String directory, final String prefix,
+      final int maxObjectCount, final long persistTime, final Integer objectFileIndex,
+      final ObjectPopulatorOptions options) {
+    this(vaultId, directory, prefix, maxObjectCount, persistTime, objectFileIndex, options,
+        DeletionOrder.RANDOM == options.getDeletionOrder());
+  }
+
+  // rebalance moves objects between this instance's object file and other object files in the
+  // same directory while persisting, to keep each file at maxObjectCount; instances which are
+  // pinned to a single object file by PooledObjectManager do not rebalance
+  RandomObjectPopulator(final UUID vaultId, final String directory, final String prefix,
+      final int maxObjectCount, final long persistTime, final Integer objectFileIndex,
+      final ObjectPopulatorOptions options, final boolean rebalance) {
+    checkNotNull(options);
+    this.rebalance = rebalance;
+    this.format = options.getFormat();
+    this.deletionOrder = options.getDeletionOrder();
+    this.loadThreads = DeletionOrder.RANDOM == this.deletionOrder ? options.getLoadThreads() : 1;
     this.vaultId = checkNotNull(vaultId);
     this.directory = checkNotNull(directory);
     if (prefix != null && !prefix.isEmpty()) {
@@ -127,6 +177,9 @@ public class RandomObjectPopulator extends Thread implements ObjectManager {
     this.maxObjects = maxObjectCount;
     this.persistFrequency = persistTime;
     this.objectFileIndex = objectFileIndex;
+    this.storeType = options.getStoreType();
+    this.sequentialObjects = new SequentialObjectIndex();
+    this.persistenceType = options.getPersistenceType();
     final File[] files = getIdFiles();
     if (files != null && files.length > 1) {
       this.idFileIndex = selectInitialObjectFile(files.length, objectFileIndex);
@@ -140,8 +193,33 @@ public class RandomObjectPopulator extends Thread implements ObjectManager {
     }
     _logger.info("Initial object file index {}", this.idFileIndex);
     this.saveFile = createFile(this.idFileIndex);
+    if (DeletionOrder.RANDOM != this.deletionOrder) {
+      this.orderedObjects = new AgeOrderedObjectStore(this.deletionOrder);
+      this.tieredObjects = null;
+      this.objects = this.orderedObjects;
+    } else if (options.getMaxResident() != null) {
+      this.orderedObjects = null;
+      this.tieredObjects = new TieredObjectStore(new ShardedObjectStore(this.storeType),
+          options.getMaxResident(),
+          new File(this.directory + "/" + this.prefix + this.idFileIndex + SPILL_SUFFIX));
+      this.objects = this.tieredObjects;
+    } else {
+      this.orderedObjects = null;
+      this.tieredObjects = null;
+      this.objects = new ShardedObjectStore(this.storeType);
+    }
+    this.sequentialFile = new File(
+        this.directory + "/" + this.prefix + this.idFileIndex + SEQUENTIAL_SUFFIX);
+    loadSequentialObjects();
 
-    loadObjects();
+    if (PersistenceType.JOURNAL == this.persistenceType) {
+      this.journal = openJournal();
+    } else {
+      this.journal = null;
+      loadObjects();
+    }
+    final Long minResident = options.getMinResident();
+    awaitResident(minResident != null ? minResident : Long.MAX_VALUE);
 
     this.saver = Executors.newScheduledThreadPool(1, new ThreadFactoryBuilder().setDaemon(true)
         .setNameFormat("scheduled-object-persist").build());
@@ -149,17 +227,31 @@ public class RandomObjectPopulator extends Thread implements ObjectManager {
       @Override
       public void run() {
         try {
-          persistIds();
+          persist(false);
         }
 
         catch (final IOException e) {
           _logger.error("Can't store id file", e);
+        } catch (final ObjectManagerException e) {
+          // a broken journal or a failed load, logged here since an uncaught exception silently
+          // cancels the task
+          _logger.error("Can't persist objects", e);
         }
       }
       // Every 30 minutes
     }, persistTime, persistTime, TimeUnit.MILLISECONDS);
   }
 
+  private ObjectJournal openJournal() {
+    try {
+      ObjectJournal.recover(this.saveFile, this.format);
+      loadObjects();
+      return new ObjectJournal(this.saveFile, this.format);
+    } catch (final IOException e) {
+      throw new ObjectManagerException("Can't open object journal", e);
+    }
+  }
+
   private int selectInitialObjectFile(final int objectFileCount, final Integer objectFileIndex) {
     if (objectFileIndex != null) {
       checkArgument(objectFileIndex >= 0, "index must be >= 0 [%s]", objectFileIndex);
@@ -170,24 +262,73 @@ public class RandomObjectPopulator extends Thread implements ObjectManager {
 
   private void loadObjects() {
     this.objects.clear();
+    _logger.debug("loading objects from file: {}", this.saveFile);
+    this.loader = new ObjectFileLoader(this.saveFile, this.objects, this.loadThreads);
+    this.loader.start();
+  }
+
+  private void loadSequentialObjects() {
+    if (!this.sequentialFile.exists()) {
+      return;
+    }
     try {
-      final byte[] objectBytes = new byte[OBJECT_SIZE];
-
-      if (this.saveFile.exists()) {
-        _logger.debug("loading objects from file: {}", this.saveFile);
-        final InputStream input = new BufferedInputStream(new FileInputStream(this.saveFile));
-        while (input.read(objectBytes) == OBJECT_SIZE) {
-          final ObjectMetadata id = LegacyObjectMetadata.fromBytes(objectBytes);
-          this.objects.put(id);
-        }
-        input.close();
+      final InputStream in = new BufferedInputStream(new FileInputStream(this.sequentialFile));
+      try {
+        this.sequentialObjects.readFrom(in);
+      } finally {
+        in.close();
       }
-    } catch (final Exception e) {
+    } catch (final IOException e) {
+      throw new ObjectManagerException("Can't load sequential objects", e);
+    }
+    _logger.info("Loaded {} sequential objects from {}", this.sequentialObjects.size(),
+        this.sequentialFile);
+  }
+
+  void awaitResident(final long minResident) {
+    try {
+      this.loader.awaitResident(minResident);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ObjectManagerException("Interrupted while loading objects", e);
+    }
+    checkLoadFailure();
+    if (!this.loader.isComplete()) {
+      _logger.info("Starting with {} of {} objects loaded; loading remainder in background",
+          this.loader.getResident(), this.loader.getTotal());
+    }
+  }
+
+  // the object file must not be rewritten until it has been fully loaded
+  void awaitLoaded() {
+    try {
+      this.loader.awaitComplete();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ObjectManagerException("Interrupted while loading objects", e);
+    }
+    checkLoadFailure();
+  }
+
+  // an object file which could not be loaded, for example one which fails header or checksum
+  // validation, is never rewritten, since persisting would replace it with the objects loaded so far
+  private void checkLoadFailure() {
+    final Throwable failure = this.loader.getFailure();
+    if (failure != null) {
       this.testEnded = true;
-      _logger.error("", e);
+      throw new ObjectManagerException(String.format("Can't load object file %s", this.saveFile),
+          failure);
     }
   }
 
+  // the number of object files including the save file, which is not created until it is first
+  // persisted
+  private int objectFileCount() {
+    final File[] files = getIdFiles();
+    final int count = files != null ? files.length : 0;
+    return this.saveFile.exists() ? count : count + 1;
+  }
+
   private File[] getIdFiles() {
     final File dir = new File(this.directory);
     return dir.listFiles(new IdFilter());
@@ -197,34 +338,57 @@ public class RandomObjectPopulator extends Thread implements ObjectManager {
     long count = 0;
     final File[] idFiles = getIdFiles();
     for (final File file : idFiles) {
-      count += file.length() / OBJECT_SIZE;
+      try {
+        count += ObjectFiles.count(file);
+      } catch (final IOException e) {
+        throw new ObjectManagerException(String.format("Can't read object file %s", file), e);
+      }
     }
     return count;
   }
 
+  @Override
   public long getCurrentObjectCount() {
-    return this.objects.size();
+    return this.objects.size() + this.sequentialObjects.size();
+  }
+
+  @Override
+  public ObjectManagerStatistics getStatistics() {
+    return this.statistics;
   }
 
   @Override
   public ObjectMetadata remove() {
-    this.persistLock.readLock().lock();
+    return remove(ObjectCriteria.ANY);
+  }
+
+  @Override
+  public ObjectMetadata remove(final ObjectCriteria criteria) {
+    checkNotNull(criteria);
+    lockPersist(this.persistLock.readLock());
     try {
       ObjectMetadata id = null;
       while (id == null) {
-        this.objectsLock.writeLock().lock();
-        id = this.objects.removeRandom();
-        this.objectsLock.writeLock().unlock();
-        checkForNull(id);
-        boolean unavailable;
-        this.readingLock.readLock().lock();
-        unavailable = this.currentlyReading.containsKey(id);
-        this.readingLock.readLock().unlock();
-        if (unavailable) {
-          this.objects.put(id);
-          id = null;
+        if (this.orderedObjects != null) {
+          id = removeOrdered(criteria);
+        } else {
+          lockObjects(this.objectsLock.writeLock());
+          try {
+            id = removeRandom(criteria);
+          } finally {
+            this.objectsLock.writeLock().unlock();
+          }
+          checkForNull(id, criteria);
+          if (this.currentlyReading.isReferenced(id)) {
+            this.statistics.add(ObjectManagerCounter.READING_COLLISIONS, 1);
+            put(id);
+            id = null;
+          }
         }
       }
+      if (this.journal != null && !(id instanceof SequentialObjectMetadata)) {
+        this.journal.remove(id);
+      }
       _logger.trace("Removing object: {}", id);
       return id;
     } finally {
@@ -232,57 +396,158 @@ public class RandomObjectPopulator extends Thread implements ObjectManager {
     }
   }
 
-  private void checkForNull(final ObjectMetadata id) {
+  /**
+   * Removes up to {@code count} matching objects while holding objectsLock once. Objects being read
+   * are passed over; if every object selected is being read, falls back to {@code remove}
+   */
+  @Override
+  public List<ObjectMetadata> remove(final ObjectCriteria criteria, final int count) {
+    checkNotNull(criteria);
+    checkArgument(count > 0, "count must be > 0 [%s]", count);
+    final List<ObjectMetadata> ids = Lists.newArrayListWithCapacity(count);
+    lockPersist(this.persistLock.readLock());
+    try {
+      lockObjects(this.objectsLock.writeLock());
+      try {
+        // readers register while holding objectsLock, so references checked here are current
+        for (int attempts = 0; ids.size() < count && attempts < 2 * count; attempts++) {
+          final ObjectMetadata id = this.orderedObjects != null
+              ? this.orderedObjects.remove(criteria, this.reading) : removeRandom(criteria);
+          if (id == null) {
+            break;
+          }
+          if (this.orderedObjects == null && this.currentlyReading.isReferenced(id)) {
+            this.statistics.add(ObjectManagerCounter.READING_COLLISIONS, 1);
+            put(id);
+            continue;
+          }
+          ids.add(id);
+        }
+      } finally {
+        this.objectsLock.writeLock().unlock();
+      }
+      for (final ObjectMetadata id : ids) {
+        if (this.journal != null && !(id instanceof SequentialObjectMetadata)) {
+          this.journal.remove(id);
+        }
+        _logger.trace("Removing object: {}", id);
+      }
+    } finally {
+      this.persistLock.readLock().unlock();
+    }
+    if (ids.isEmpty()) {
+      ids.add(remove(criteria));
+    }
+    return ids;
+  }
+
+  // objects being read are passed over in place, so that they retain their age; readers register
+  // while holding objectsLock, so no object can become referenced while it is held exclusively.
+  // Returns null if every matching object is currently being read
+  private ObjectMetadata removeOrdered(final ObjectCriteria criteria) {
+    lockObjects(this.objectsLock.writeLock());
+    try {
+      final ObjectMetadata id = this.orderedObjects.remove(criteria, this.reading);
+      if (id == null) {
+        checkForNull(this.orderedObjects.getRandom(criteria), criteria);
+        this.statistics.add(ObjectManagerCounter.READING_COLLISIONS, 1);
+      }
+      return id;
+    } finally {
+      this.objectsLock.writeLock().unlock();
+    }
+  }
+
+  private void lockObjects(final Lock lock) {
+    this.statistics.lock(lock, ObjectManagerCounter.OBJECTS_LOCK_WAITS,
+        ObjectManagerCounter.OBJECTS_LOCK_WAIT_NANOS);
+  }
+
+  private void lockPersist(final Lock lock) {
+    this.statistics.lock(lock, ObjectManagerCounter.PERSIST_LOCK_WAITS,
+        ObjectManagerCounter.PERSIST_LOCK_WAIT_NANOS);
+  }
+
+  private void checkForNull(final ObjectMetadata id, final ObjectCriteria criteria) {
     if (id == null) {
-      throw new ObjectManagerException("No objects available.");
+      if (criteria == ObjectCriteria.ANY) {
+        throw new ObjectManagerException("No objects available.");
+      }
+      throw new ObjectManagerException(String.format("No objects available for %s.", criteria));
     }
   }
 
   @Override
   public ObjectMetadata get() {
+    return get(ObjectCriteria.ANY);
+  }
+
+  @Override
+  public ObjectMetadata get(final ObjectCriteria criteria) {
+    checkNotNull(criteria);
+    checkLoadFailure();
     if (this.testEnded) {
       throw new RuntimeException("Test already ended");
     }
 
-    ObjectMetadata id;
+    final ObjectMetadata id;
 
-    this.objectsLock.readLock().lock();
-    id = this.objects.getRandom();
+    lockObjects(this.objectsLock.readLock());
     try {
-      checkForNull(id);
-    } catch (final ObjectManagerException e) {
+      id = getRandom(criteria);
+      checkForNull(id, criteria);
+      // The only reason to register the reference while holding objectsLock is to prevent an id
+      // from being selected for deletion before it has been added to currentlyReading
+      this.currentlyReading.acquire(id);
+    } finally {
       this.objectsLock.readLock().unlock();
-      throw e;
     }
 
-    int count = 0;
-    this.readingLock.writeLock().lock();
-    if (this.currentlyReading.containsKey(id)) {
-      // The only reason to have both locked simultaneously is to prevent an id from being
-      // selected for deletion before it has been added to currentlyReading
-      this.objectsLock.readLock().unlock();
-      count = this.currentlyReading.get(id).intValue();
+    _logger.trace("Getting object: {}", id);
+    return id;
+  }
+
+  /**
+   * Selects up to {@code count} matching objects while holding objectsLock once
+   */
+  @Override
+  public List<ObjectMetadata> get(final ObjectCriteria criteria, final int count) {
+    checkNotNull(criteria);
+    checkArgument(count > 0, "count must be > 0 [%s]", count);
+    checkLoadFailure();
+    if (this.testEnded) {
+      throw new RuntimeException("Test already ended");
     }
-    this.currentlyReading.put(id, Integer.valueOf(count + 1));
-    if (count == 0) {
+
+    final List<ObjectMetadata> ids = Lists.newArrayListWithCapacity(count);
+    lockObjects(this.objectsLock.readLock());
+    try {
+      while (ids.size() < count) {
+        final ObjectMetadata id = getRandom(criteria);
+        if (id == null) {
+          break;
+        }
+        this.currentlyReading.acquire(id);
+        ids.add(id);
+      }
+    } finally {
       this.objectsLock.readLock().unlock();
     }
-    this.readingLock.writeLock().unlock();
+    if (ids.isEmpty()) {
+      checkForNull(null, criteria);
+    }
+    _logger.trace("Getting objects: {}", ids);
+    return ids;
+  }
 
-    _logger.trace("Getting object: {}", id);
-    return id;
+  // whether the provided object is currently being read from this instance
+  boolean isReading(final ObjectMetadata id) {
+    return this.currentlyReading.isReferenced(id);
   }
 
   @Override
   public void getComplete(final ObjectMetadata id) {
-    this.readingLock.writeLock().lock();
-    final int count = this.currentlyReading.get(id).intValue();
-    if (count > 1) {
-      this.currentlyReading.put(id, Integer.valueOf(count - 1));
-    } else {
-      this.currentlyReading.remove(id);
-    }
-    this.readingLock.writeLock().unlock();
+    this.currentlyReading.release(id);
     _logger.trace("Returning read object: {}", id);
     return;
   }
@@ -290,105 +555,273 @@ public class RandomObjectPopulator extends Thread implements ObjectManager {
   @Override
   public void add(final ObjectMetadata id) {
     _logger.trace("Adding object: {}", id);
-    this.persistLock.readLock().lock();
+    lockPersist(this.persistLock.readLock());
     try {
-      this.objects.put(id);
+      if (this.journal != null && !(id instanceof SequentialObjectMetadata)) {
+        // journal before the object becomes visible so its addition precedes any removal
+        this.journal.add(id);
+      }
+      put(id);
     } finally {
       this.persistLock.readLock().unlock();
     }
   }
 
+  private void put(final ObjectMetadata id) {
+    if (id instanceof SequentialObjectMetadata) {
+      this.sequentialObjects.add((SequentialObjectMetadata) id);
+    } else {
+      this.objects.put(id);
+    }
+  }
+
+  // selects between object file and sequential objects weighted by the number of each, falling
+  // back to the other if the first has no matching object
+  private boolean selectSequential() {
+    final long sequential = this.sequentialObjects.size();
+    if (sequential == 0) {
+      return false;
+    }
+    final long total = this.objects.size() + sequential;
+    return (long) (this.rand.nextDouble() * total) >= total - sequential;
+  }
+
+  private ObjectMetadata getRandom(final ObjectCriteria criteria) {
+    if (selectSequential()) {
+      final ObjectMetadata id = this.sequentialObjects.getRandom(criteria);
+      return id != null ? id : this.objects.getRandom(criteria);
+    }
+    final ObjectMetadata id = this.objects.getRandom(criteria);
+    return id != null ? id : this.sequentialObjects.getRandom(criteria);
+  }
+
+  private ObjectMetadata removeRandom(final ObjectCriteria criteria) {
+    if (selectSequential()) {
+      final ObjectMetadata id = this.sequentialObjects.removeRandom(criteria);
+      return id != null ? id : this.objects.removeRandom(criteria);
+    }
+    final ObjectMetadata id = this.objects.removeRandom(criteria);
+    return id != null ? id : this.sequentialObjects.removeRandom(criteria);
+  }
+
+  // journaled objects are written continuously by the journal, so only the time to checkpoint or
+  // close it is counted; snapshot bytes are counted as they are written
+  private void persist(final boolean close) throws IOException {
+    final long start = System.nanoTime();
+    checkLoadFailure();
+    if (this.journal != null) {
+      if (close) {
+        this.journal.close();
+      } else {
+        this.journal.checkpoint();
+      }
+      persistSequentialObjects();
+    } else {
+      persistIds();
+    }
+    this.statistics.add(ObjectManagerCounter.PERSISTS, 1);
+    this.statistics.add(ObjectManagerCounter.PERSIST_NANOS, System.nanoTime() - start);
+  }
+
   private void persistIds() throws IOException {
+    awaitLoaded();
     _logger.info("persisting objects");
-    this.persistLock.writeLock().lock();
-    final int toSave = this.objects.size();
-    _logger.info("number of objects to persist {}", toSave);
-    final OutputStream out = new BufferedOutputStream(new FileOutputStream(this.saveFile));
-    if (toSave > this.maxObjects) {
-      for (int size = this.objects.size(); size > this.maxObjects; size = this.objects.size()) {
-        final int numFiles = getIdFiles().length;
-        File surplus = createFile(numFiles - 1);
-        if (surplus.equals(this.saveFile) || (surplus.length() / OBJECT_SIZE) >= this.maxObjects) {
-          // Create a new file
-          surplus = createFile(numFiles);
-        }
-        final OutputStream dos = new BufferedOutputStream(new FileOutputStream(surplus, true));
-        final int remaining = getRemaining(size, surplus);
-        // While writing surplus, remove them from this.objects, to keep consistent with
-        // this.savefile
-        final Iterator<ObjectMetadata> iterator = this.objects.iterator();
-        for (int i = 0; i < remaining; i++) {
-          final ObjectMetadata sid = iterator.next();
-          dos.write(sid.toBytes());
-          iterator.remove();
-        }
-        dos.close();
-      }
-    } else if (toSave < this.maxObjects) {
-      for (int size = this.objects.size(); size < this.maxObjects; size = this.objects.size()) {
-        // Try to borrow from last id file
-        // When borrowing, add to this.objects
-        // Count the number of objects to borrow and truncate file by that amount
-        final int numFiles = getIdFiles().length;
-        final File surplus = createFile(numFiles - 1);
-        // Need to ensure last file is not current file
-        // If it is, don't borrow at all
-        if (this.saveFile.equals(surplus)) {
-          break;
-        }
-        final int toTransfer = getTransferrable(size, surplus);
-        final DataInputStream in = new DataInputStream(new FileInputStream(surplus));
-        final long skip = surplus.length() - (toTransfer * OBJECT_SIZE);
-        in.skip(skip);
-        final byte[] buf = new byte[OBJECT_SIZE];
-        for (int i = 0; i < toTransfer; i++) {
-          if (in.read(buf) == OBJECT_SIZE) {
-            final ObjectMetadata sid = LegacyObjectMetadata.fromBytes(buf);
-            this.objects.put(sid);
+    lockPersist(this.persistLock.writeLock());
+    try {
+      final int toSave = this.objects.size();
+      _logger.info("number of objects to persist {}", toSave);
+      if (this.rebalance && toSave > this.maxObjects) {
+        for (int size = this.objects.size(); size > this.maxObjects; size = this.objects.size()) {
+          final int numFiles = objectFileCount();
+          File surplus = createFile(numFiles - 1);
+          if (surplus.equals(this.saveFile) || ObjectFiles.count(surplus) >= this.maxObjects) {
+            // Create a new file
+            surplus = createFile(numFiles);
+          }
+          final CountingOutputStream dos = new CountingOutputStream(openAppend(surplus));
+          try {
+            final int remaining = getRemaining(size, surplus);
+            // While writing surplus, remove them from this.objects, to keep consistent with
+            // this.savefile
+            for (int i = 0; i < remaining; i++) {
+              final ObjectMetadata sid = this.objects.removeRandom();
+              dos.write(sid.toBytes());
+            }
+          } finally {
+            dos.close();
           }
+          this.statistics.add(ObjectManagerCounter.PERSIST_BYTES, dos.getCount());
         }
-        in.close();
-
-        // If surplus is out of objects, delete it
-        if (skip == 0) {
-          surplus.delete();
-        } else {
-          // We borrowed from the end of the file so nothing is lost from truncating
-          RandomAccessFile truncater = null;
+      } else if (this.rebalance && toSave < this.maxObjects) {
+        for (int size = this.objects.size(); size < this.maxObjects; size = this.objects.size()) {
+          // Try to borrow from last id file
+          // When borrowing, add to this.objects
+          // Count the number of objects to borrow and truncate file by that amount
+          final int numFiles = objectFileCount();
+          final File surplus = createFile(numFiles - 1);
+          // Need to ensure last file is not current file
+          // If it is, don't borrow at all
+          if (this.saveFile.equals(surplus)) {
+            break;
+          }
+          final int toTransfer = getTransferrable(size, surplus);
+          if (ObjectFiles.format(surplus) != ObjectFileFormat.V1) {
+            borrowRewriting(surplus, toTransfer);
+            continue;
+          }
+          final long skip = surplus.length() - (toTransfer * OBJECT_SIZE);
+          final DataInputStream in = new DataInputStream(new FileInputStream(surplus));
           try {
-            truncater = new RandomAccessFile(surplus, "rwd");
-            truncater.setLength(skip);
+            in.skip(skip);
+            final byte[] buf = new byte[OBJECT_SIZE];
+            for (int i = 0; i < toTransfer; i++) {
+              if (in.read(buf) == OBJECT_SIZE) {
+                final ObjectMetadata sid = LegacyObjectMetadata.fromBytes(buf);
+                this.objects.put(sid);
+              }
+            }
           } finally {
-            if (truncater != null) {
-              truncater.close();
+            in.close();
+          }
+
+          // If surplus is out of objects, delete it
+          if (skip == 0) {
+            surplus.delete();
+          } else {
+            // We borrowed from the end of the file so nothing is lost from truncating
+            RandomAccessFile truncater = null;
+            try {
+              truncater = new RandomAccessFile(surplus, "rwd");
+              truncater.setLength(skip);
+            } finally {
+              if (truncater != null) {
+                truncater.close();
+              }
             }
           }
         }
       }
+
+      // Finally we save a number less than or equal to the maximum number of objects to our
+      // savefile
+      _logger.info(String.format("Writing state file: %d objects into ", this.objects.size())
+          + this.saveFile);
+      final ObjectFileWriter writer = new ObjectFileWriter(this.saveFile, this.format);
+      final CountingOutputStream out = new CountingOutputStream(writer);
+      boolean written = false;
+      try {
+        this.objects.writeTo(out);
+        out.close();
+        written = true;
+      } finally {
+        if (!written) {
+          // the previous object file is left in place
+          writer.abort();
+        }
+      }
+      this.statistics.add(ObjectManagerCounter.PERSIST_BYTES, out.getCount());
+      persistSequentialObjects();
+    } finally {
+      this.persistLock.writeLock().unlock();
+    }
+  }
+
+  // the sequential index is compact, so it is always persisted as a snapshot; as with object files,
+  // it is written and synced to a temporary file which is then renamed over the previous snapshot,
+  // so that neither a failure nor a crash can truncate it
+  private void persistSequentialObjects() throws IOException {
+    if (this.sequentialObjects.size() == 0 && !this.sequentialFile.exists()) {
+      return;
+    }
+    final File tmp = new File(this.sequentialFile.getPath() + ".tmp");
+    final FileOutputStream fileOut = new FileOutputStream(tmp);
+    final CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(fileOut));
+    boolean written = false;
+    try {
+      this.sequentialObjects.writeTo(out);
+      out.flush();
+      fileOut.getFD().sync();
+      written = true;
+    } finally {
+      out.close();
+      if (!written) {
+        tmp.delete();
+      }
+    }
+    this.statistics.add(ObjectManagerCounter.PERSIST_BYTES, out.getCount());
+    ObjectFiles.replace(tmp, this.sequentialFile);
+    _logger.info("Wrote {} sequential objects into {}", this.sequentialObjects.size(),
+        this.sequentialFile);
+  }
+
+  // appends records to an object file; v1 files are appended in place when writing v1, while other
+  // files are rewritten in the configured format, as a v2 header and final block must be rewritten
+  private OutputStream openAppend(final File file) throws IOException {
+    if (ObjectFileFormat.V1 == this.format && ObjectFiles.format(file) == ObjectFileFormat.V1) {
+      return new BufferedOutputStream(new FileOutputStream(file, true));
+    }
+    final ObjectFileWriter out = new ObjectFileWriter(file, this.format);
+    if (file.exists()) {
+      final InputStream in = ObjectFiles.open(file);
+      try {
+        ByteStreams.copy(in, out);
+      } catch (final IOException e) {
+        out.abort();
+        throw e;
+      } finally {
+        in.close();
+      }
     }
+    return out;
+  }
 
-    // Finally we save a number less than or equal to the maximum number of objects to our
-    // savefile
-    _logger.info(
-        String.format("Writing state file: %d objects into ", this.objects.size()) + this.saveFile);
-    for (final Iterator<ObjectMetadata> iterator = this.objects.iterator(); iterator.hasNext();) {
-      out.write(iterator.next().toBytes());
+  // borrows the last records of an object file which cannot be truncated in place, rewriting the
+  // remaining records in the configured format, or deleting the file if none remain
+  private void borrowRewriting(final File surplus, final int toTransfer) throws IOException {
+    final long keep = ObjectFiles.count(surplus) - toTransfer;
+    final List<ObjectMetadata> borrowed = Lists.newArrayListWithCapacity(toTransfer);
+    final ObjectFileWriter out = keep > 0 ? new ObjectFileWriter(surplus, this.format) : null;
+    final InputStream in = ObjectFiles.open(surplus);
+    try {
+      final byte[] buf = new byte[OBJECT_SIZE];
+      for (long i = 0; i < keep; i++) {
+        ByteStreams.readFully(in, buf);
+        out.write(buf);
+      }
+      for (int i = 0; i < toTransfer; i++) {
+        ByteStreams.readFully(in, buf);
+        borrowed.add(LegacyObjectMetadata.fromBytes(buf));
+      }
+    } catch (final IOException e) {
+      if (out != null) {
+        out.abort();
+      }
+      throw e;
+    } finally {
+      in.close();
+    }
+    // borrowed objects are only added once the surplus file no longer holds them
+    if (out != null) {
+      out.close();
+    } else if (!surplus.delete()) {
+      throw new IOException(String.format("Can't delete object file %s", surplus));
+    }
+    for (final ObjectMetadata sid : borrowed) {
+      this.objects.put(sid);
     }
-    out.close();
-    this.persistLock.writeLock().unlock();
   }
 
-  private int getRemaining(final int size, final File surplus) {
+  private int getRemaining(final int size, final File surplus) throws IOException {
     final int objectsAvailable = size - this.maxObjects;
-    final int spaceAvailable = this.maxObjects - ((int) (surplus.length() / OBJECT_SIZE));
+    final int spaceAvailable = this.maxObjects - (int) ObjectFiles.count(surplus);
     final int remaining = Math.min(objectsAvailable, spaceAvailable);
     _logger.debug("remaining objects {}", remaining);
     return remaining;
   }
 
-  private int getTransferrable(final int size, final File surplus) {
+  private int getTransferrable(final int size, final File surplus) throws IOException {
     final int slotsAvailable = this.maxObjects - size;
-    final int surplusAvailable = (int) (surplus.length() / OBJECT_SIZE);
+    final int surplusAvailable = (int) ObjectFiles.count(surplus);
     final int transferrable = Math.min(slotsAvailable, surplusAvailable);
     _logger.debug("transferrable objects {}", transferrable);
     return transferrable;
@@ -410,10 +843,13 @@ public class RandomObjectPopulator extends Thread implements ObjectManager {
     }
 
     try {
-      persistIds();
-    } catch (final Exception e) {
+      persist(true);
+    } catch (final IOException e) {
       throw new ObjectManagerException(e);
     }
+    if (this.tieredObjects != null) {
+      this.tieredObjects.close();
+    }
     _logger.info("object manager is shutdown");
   }
 
@@ -436,7 +872,8 @@ public class RandomObjectPopulator extends Thread implements ObjectManager {
   @Override
   public String toString() {
     return String.format(
-        "RandomObjectPopulator [maxObjects=%s, directory=%s, prefix=%s, persistFrequency=%s, objectFileIndex=%s]",
-        this.maxObjects, this.directory, this.prefix, this.persistFrequency, this.objectFileIndex);
+        "RandomObjectPopulator [maxObjects=%s, directory=%s, prefix=%s, persistFrequency=%s, objectFileIndex=%s, storeType=%s, persistenceType=%s, deletionOrder=%s]",
+        this.maxObjects, this.directory, this.prefix, this.persistFrequency, this.objectFileIndex,
+        this.storeType, this.persistenceType, this.deletionOrder);
   }
 }
@@ -0,0 +1,123 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A concurrent table of read reference counts, keyed by object. Counts are updated with
+ * compare-and-set operations on a striped concurrent map, so threads acquiring and releasing
+ * references to different objects do not contend with one another and no thread ever blocks on a
+ * shared lock.
+ *
+ * @since 1.0
+ */
+public class ReadReferenceTable {
+  private static final int DEFAULT_CONCURRENCY_LEVEL = 64;
+  private static final Integer ONE = Integer.valueOf(1);
+  private final ConcurrentMap<ObjectMetadata, Integer> references;
+
+  /**
+   * Constructs an empty instance using the default concurrency level
+   */
+  public ReadReferenceTable() {
+    this(DEFAULT_CONCURRENCY_LEVEL);
+  }
+
+  /**
+   * Constructs an empty instance
+   *
+   * @param concurrencyLevel the estimated number of concurrently updating threads
+   * @throws IllegalArgumentException if concurrencyLevel is not positive
+   */
+  public ReadReferenceTable(final int concurrencyLevel) {
+    checkArgument(concurrencyLevel > 0, "concurrencyLevel must be > 0 [%s]", concurrencyLevel);
+    this.references =
+        new ConcurrentHashMap<ObjectMetadata, Integer>(16, 0.75f, concurrencyLevel);
+  }
+
+  /**
+   * Adds a read reference to the provided object
+   *
+   * @param object the object being read
+   */
+  public void acquire(final ObjectMetadata object) {
+    checkNotNull(object);
+    while (true) {
+      final Integer count = this.references.get(object);
+      if (count == null) {
+        if (this.references.putIfAbsent(object, ONE) == null) {
+          return;
+        }
+      } else if (this.references.replace(object, count, Integer.valueOf(count + 1))) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Removes a read reference from the provided object
+   *
+   * @param object the object which is no longer being read
+   * @throws IllegalStateException if the object has no outstanding read references
+   */
+  public void release(final ObjectMetadata object) {
+    checkNotNull(object);
+    while (true) {
+      final Integer count = this.references.get(object);
+      if (count == null) {
+        throw new IllegalStateException(
+            String.format("object has no read references [%s]", object));
+      }
+      if (count == 1) {
+        if (this.references.remove(object, count)) {
+          return;
+        }
+      } else if (this.references.replace(object, count, Integer.valueOf(count - 1))) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Determines whether the provided object has any outstanding read references
+   *
+   * @param object the object to check
+   * @return true if the object is currently being read
+   */
+  public boolean isReferenced(final ObjectMetadata object) {
+    return this.references.containsKey(checkNotNull(object));
+  }
+
+  /**
+   * Gets the number of read references to the provided object
+   *
+   * @param object the object to check
+   * @return the number of outstanding read references
+   */
+  public int count(final ObjectMetadata object) {
+    final Integer count = this.references.get(checkNotNull(object));
+    return count != null ? count : 0;
+  }
+
+  /**
+   * Gets the number of distinct objects with outstanding read references
+   *
+   * @return the number of objects currently being read
+   */
+  public int size() {
+    return this.references.size();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("ReadReferenceTable [size=%s]", size());
+  }
+}
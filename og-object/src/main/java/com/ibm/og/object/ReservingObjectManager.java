@@ -0,0 +1,262 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Maps;
+
+/**
+ * An {@code ObjectManager} decorator which reserves objects from an underlying object manager in
+ * batches, so that threads issuing reads and removals reach the underlying object manager once per
+ * batch rather than once per request.
+ * <p>
+ * Each thread holds its own reservations, keyed by criteria: a batch of objects selected for
+ * reading and a batch of objects already removed from management. Requests are served from the
+ * calling thread's batch, which is refilled with a single batch call to the underlying object
+ * manager when exhausted. Read completions are released immediately, so that no completed read
+ * holds an object back from removal. Reservations of threads which have exited are reclaimed
+ * periodically when batches are refilled. On shutdown, unused read reservations are released and
+ * unused removal reservations are returned to management before the underlying object manager is
+ * shut down.
+ * <p>
+ * Reserved objects are unavailable to other threads: objects reserved for reading cannot be
+ * removed until released, and objects reserved for removal cannot be read. Object pools should
+ * therefore hold well more objects than the number of request threads multiplied by the batch
+ * size.
+ *
+ * @since 1.0
+ */
+public class ReservingObjectManager implements ObjectManager {
+  private static final Logger _logger = LoggerFactory.getLogger(ReservingObjectManager.class);
+  // how often the reservations of exited threads are reclaimed
+  private static final long RECLAIM_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private final ObjectManager objectManager;
+  private final int batchSize;
+  private final ThreadLocal<Reservations> reservations;
+  private final Queue<Reservations> allReservations;
+  private final AtomicLong lastReclaim;
+  private volatile boolean shutdown;
+
+  /**
+   * Constructs an instance
+   *
+   * @param objectManager the underlying object manager
+   * @param batchSize the number of objects to reserve at once
+   * @throws NullPointerException if objectManager is null
+   * @throws IllegalArgumentException if batchSize is less than 1
+   */
+  public ReservingObjectManager(final ObjectManager objectManager, final int batchSize) {
+    this.objectManager = checkNotNull(objectManager);
+    checkArgument(batchSize > 0, "batchSize must be > 0 [%s]", batchSize);
+    this.batchSize = batchSize;
+    this.allReservations = new ConcurrentLinkedQueue<Reservations>();
+    this.lastReclaim = new AtomicLong(System.nanoTime());
+    this.reservations = new ThreadLocal<Reservations>() {
+      @Override
+      protected Reservations initialValue() {
+        final Reservations reservations = new Reservations(Thread.currentThread());
+        ReservingObjectManager.this.allReservations.add(reservations);
+        return reservations;
+      }
+    };
+    this.shutdown = false;
+  }
+
+  @Override
+  public void add(final ObjectMetadata objectMetadata) {
+    this.objectManager.add(objectMetadata);
+  }
+
+  @Override
+  public ObjectMetadata get() {
+    return get(ObjectCriteria.ANY);
+  }
+
+  @Override
+  public ObjectMetadata get(final ObjectCriteria criteria) {
+    checkNotNull(criteria);
+    final Reservations reservations = this.reservations.get();
+    synchronized (reservations) {
+      // checked under the monitor so that no reservation is made after shutdown releases them
+      if (this.shutdown) {
+        return this.objectManager.get(criteria);
+      }
+      final Deque<ObjectMetadata> batch = batch(reservations.reads, criteria);
+      if (batch.isEmpty()) {
+        batch.addAll(this.objectManager.get(criteria, this.batchSize));
+        maybeReclaim();
+      }
+      return batch.poll();
+    }
+  }
+
+  @Override
+  public List<ObjectMetadata> get(final ObjectCriteria criteria, final int count) {
+    return this.objectManager.get(criteria, count);
+  }
+
+  @Override
+  public void getComplete(final ObjectMetadata objectMetadata) {
+    this.objectManager.getComplete(checkNotNull(objectMetadata));
+  }
+
+  @Override
+  public ObjectMetadata remove() {
+    return remove(ObjectCriteria.ANY);
+  }
+
+  @Override
+  public ObjectMetadata remove(final ObjectCriteria criteria) {
+    checkNotNull(criteria);
+    final Reservations reservations = this.reservations.get();
+    synchronized (reservations) {
+      // checked under the monitor so that no reservation is made after shutdown releases them
+      if (this.shutdown) {
+        return this.objectManager.remove(criteria);
+      }
+      final Deque<ObjectMetadata> batch = batch(reservations.removals, criteria);
+      if (batch.isEmpty()) {
+        batch.addAll(this.objectManager.remove(criteria, this.batchSize));
+        maybeReclaim();
+      }
+      return batch.poll();
+    }
+  }
+
+  @Override
+  public List<ObjectMetadata> remove(final ObjectCriteria criteria, final int count) {
+    return this.objectManager.remove(criteria, count);
+  }
+
+  @Override
+  public long getCurrentObjectCount() {
+    return this.objectManager.getCurrentObjectCount();
+  }
+
+  @Override
+  public ObjectManagerStatistics getStatistics() {
+    return this.objectManager.getStatistics();
+  }
+
+  private static Deque<ObjectMetadata> batch(final Map<ObjectCriteria, Deque<ObjectMetadata>> map,
+      final ObjectCriteria criteria) {
+    Deque<ObjectMetadata> batch = map.get(criteria);
+    if (batch == null) {
+      batch = new ArrayDeque<ObjectMetadata>();
+      map.put(criteria, batch);
+    }
+    return batch;
+  }
+
+  // at most once per interval, releases the reservations of threads which have exited, which
+  // would otherwise be unavailable until shutdown
+  private void maybeReclaim() {
+    final long last = this.lastReclaim.get();
+    final long now = System.nanoTime();
+    if (now - last < RECLAIM_INTERVAL_NANOS || !this.lastReclaim.compareAndSet(last, now)) {
+      return;
+    }
+    int reads = 0;
+    int removals = 0;
+    final Iterator<Reservations> it = this.allReservations.iterator();
+    while (it.hasNext()) {
+      final Reservations reservations = it.next();
+      final Thread owner = reservations.owner.get();
+      if (owner == null || !owner.isAlive()) {
+        it.remove();
+        synchronized (reservations) {
+          reads += releaseReads(reservations);
+          removals += releaseRemovals(reservations);
+        }
+      }
+    }
+    if (reads > 0 || removals > 0) {
+      _logger.debug("Reclaimed {} read reservations and {} removal reservations of exited threads",
+          reads, removals);
+    }
+  }
+
+  // must be called while holding the monitor of reservations
+  private int releaseReads(final Reservations reservations) {
+    int released = 0;
+    for (final Deque<ObjectMetadata> batch : reservations.reads.values()) {
+      for (final ObjectMetadata objectMetadata : batch) {
+        this.objectManager.getComplete(objectMetadata);
+        released++;
+      }
+      batch.clear();
+    }
+    return released;
+  }
+
+  // must be called while holding the monitor of reservations
+  private int releaseRemovals(final Reservations reservations) {
+    int released = 0;
+    for (final Deque<ObjectMetadata> batch : reservations.removals.values()) {
+      for (final ObjectMetadata objectMetadata : batch) {
+        this.objectManager.add(objectMetadata);
+        released++;
+      }
+      batch.clear();
+    }
+    return released;
+  }
+
+  /**
+   * Releases every unused reservation held by any thread, then shuts down the underlying object
+   * manager
+   */
+  @Override
+  public void shutdown() {
+    this.shutdown = true;
+    int reads = 0;
+    int removals = 0;
+    for (final Reservations reservations : this.allReservations) {
+      synchronized (reservations) {
+        reads += releaseReads(reservations);
+        removals += releaseRemovals(reservations);
+      }
+    }
+    _logger.info("Released {} unused read reservations and {} unused removal reservations", reads,
+        removals);
+    this.objectManager.shutdown();
+  }
+
+  // reservations held by a single thread; guarded by its own monitor, which is uncontended except
+  // while reclaiming or shutting down. The owner is weakly referenced so that reservations do not
+  // keep an exited thread reachable
+  private static class Reservations {
+    final WeakReference<Thread> owner;
+    final Map<ObjectCriteria, Deque<ObjectMetadata>> reads = Maps.newHashMap();
+    final Map<ObjectCriteria, Deque<ObjectMetadata>> removals = Maps.newHashMap();
+
+    Reservations(final Thread owner) {
+      this.owner = new WeakReference<Thread>(owner);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("ReservingObjectManager [objectManager=%s, batchSize=%s]",
+        this.objectManager, this.batchSize);
+  }
+}
@@ -0,0 +1,214 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Random;
+
+/**
+ * A utility class for creating {@code SelectionPolicy} instances. Every policy selects in
+ * constant time and allocates nothing, regardless of the number of objects selected from.
+ *
+ * @since 1.0
+ */
+public class SelectionPolicies {
+  /** a policy which selects every position with equal probability */
+  public static final SelectionPolicy UNIFORM = new SelectionPolicy() {
+    @Override
+    public int select(final int size, final Random rand) {
+      return rand.nextInt(size);
+    }
+
+    @Override
+    public String toString() {
+      return "UniformSelectionPolicy []";
+    }
+  };
+
+  private SelectionPolicies() {}
+
+  /**
+   * Creates a policy which selects position {@code k} (counting from {@code 1}) with probability
+   * proportional to {@code 1 / k^exponent}, so that the least recently added objects are the most
+   * frequently selected
+   *
+   * @param exponent the exponent of the distribution; larger values concentrate selection on
+   *        fewer objects
+   * @return a zipf selection policy
+   * @throws IllegalArgumentException if exponent is not positive
+   */
+  public static SelectionPolicy zipf(final double exponent) {
+    return new ZipfSelectionPolicy(exponent);
+  }
+
+  /**
+   * Creates a policy which selects from the least recently added {@code fraction} of positions
+   * with the provided probability, and from the remaining positions otherwise. Selection within
+   * each set is uniform
+   *
+   * @param fraction the fraction of positions in the hot set
+   * @param probability the probability of selecting from the hot set
+   * @return a hotspot selection policy
+   * @throws IllegalArgumentException if fraction is not in the range {@code (0.0, 1.0]} or
+   *         probability is not in the range {@code [0.0, 1.0]}
+   */
+  public static SelectionPolicy hotspot(final double fraction, final double probability) {
+    return new HotspotSelectionPolicy(fraction, probability, false);
+  }
+
+  /**
+   * Creates a policy which selects from the most recently added {@code fraction} of positions
+   * with the provided probability, and from the remaining positions otherwise. Selection within
+   * each set is uniform
+   *
+   * @param fraction the fraction of positions in the recent set
+   * @param probability the probability of selecting from the recent set
+   * @return a recency biased selection policy
+   * @throws IllegalArgumentException if fraction is not in the range {@code (0.0, 1.0]} or
+   *         probability is not in the range {@code [0.0, 1.0]}
+   */
+  public static SelectionPolicy recency(final double fraction, final double probability) {
+    return new HotspotSelectionPolicy(fraction, probability, true);
+  }
+
+  /**
+   * Creates a policy of the provided type
+   *
+   * @param type the type of policy to create
+   * @param exponent the exponent of a zipf policy
+   * @param fraction the fraction of positions in the hot set of a hotspot or recency policy
+   * @param probability the probability of selecting from the hot set of a hotspot or recency
+   *        policy
+   * @return a selection policy of the provided type
+   * @throws NullPointerException if type is null
+   * @throws IllegalArgumentException if a parameter used by the provided type is invalid
+   */
+  public static SelectionPolicy create(final SelectionPolicyType type, final double exponent,
+      final double fraction, final double probability) {
+    switch (checkNotNull(type)) {
+      case ZIPF:
+        return zipf(exponent);
+      case HOTSPOT:
+        return hotspot(fraction, probability);
+      case RECENCY:
+        return recency(fraction, probability);
+      default:
+        return UNIFORM;
+    }
+  }
+
+  // rejection-inversion sampling, see W. Hormann and G. Derflinger, "Rejection-inversion to
+  // generate variates from monotone discrete distributions", ACM TOMACS 6(3), 1996. Only the
+  // integral bound at the upper end of the range depends on size, so a pool which grows or
+  // shrinks between selections requires no precomputation
+  private static class ZipfSelectionPolicy implements SelectionPolicy {
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double s;
+
+    private ZipfSelectionPolicy(final double exponent) {
+      checkArgument(exponent > 0.0, "exponent must be > 0.0 [%s]", exponent);
+      this.exponent = exponent;
+      this.hIntegralX1 = hIntegral(1.5) - 1.0;
+      this.s = 2.0 - hIntegralInverse(hIntegral(2.5) - h(2.0));
+    }
+
+    @Override
+    public int select(final int size, final Random rand) {
+      final double hIntegralSize = hIntegral(size + 0.5);
+      while (true) {
+        final double u =
+            hIntegralSize + rand.nextDouble() * (this.hIntegralX1 - hIntegralSize);
+        final double x = hIntegralInverse(u);
+        int k = (int) (x + 0.5);
+        if (k < 1) {
+          k = 1;
+        } else if (k > size) {
+          k = size;
+        }
+        if (k - x <= this.s || u >= hIntegral(k + 0.5) - h(k)) {
+          return k - 1;
+        }
+      }
+    }
+
+    private double h(final double x) {
+      return Math.exp(-this.exponent * Math.log(x));
+    }
+
+    private double hIntegral(final double x) {
+      final double logX = Math.log(x);
+      return helper2((1.0 - this.exponent) * logX) * logX;
+    }
+
+    private double hIntegralInverse(final double x) {
+      double t = x * (1.0 - this.exponent);
+      if (t < -1.0) {
+        t = -1.0;
+      }
+      return Math.exp(helper1(t) * x);
+    }
+
+    // log(1 + x) / x, accurate near zero
+    private static double helper1(final double x) {
+      if (Math.abs(x) > 1e-8) {
+        return Math.log1p(x) / x;
+      }
+      return 1.0 - x * (0.5 - x * (1.0 / 3.0 - x * 0.25));
+    }
+
+    // (exp(x) - 1) / x, accurate near zero
+    private static double helper2(final double x) {
+      if (Math.abs(x) > 1e-8) {
+        return Math.expm1(x) / x;
+      }
+      return 1.0 + x * 0.5 * (1.0 + x * (1.0 / 3.0) * (1.0 + x * 0.25));
+    }
+
+    @Override
+    public String toString() {
+      return String.format("ZipfSelectionPolicy [exponent=%s]", this.exponent);
+    }
+  }
+
+  private static class HotspotSelectionPolicy implements SelectionPolicy {
+    private final double fraction;
+    private final double probability;
+    private final boolean recent;
+
+    private HotspotSelectionPolicy(final double fraction, final double probability,
+        final boolean recent) {
+      checkArgument(fraction > 0.0 && fraction <= 1.0, "fraction must be in range (0.0, 1.0] [%s]",
+          fraction);
+      checkArgument(probability >= 0.0 && probability <= 1.0,
+          "probability must be in range [0.0, 1.0] [%s]", probability);
+      this.fraction = fraction;
+      this.probability = probability;
+      this.recent = recent;
+    }
+
+    @Override
+    public int select(final int size, final Random rand) {
+      final int hot = Math.max(1, (int) (size * this.fraction));
+      final int position;
+      if (hot >= size || rand.nextDouble() < this.probability) {
+        position = rand.nextInt(Math.min(hot, size));
+      } else {
+        position = hot + rand.nextInt(size - hot);
+      }
+      return this.recent ? size - 1 - position : position;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s [fraction=%s, probability=%s]",
+          this.recent ? "RecencySelectionPolicy" : "HotspotSelectionPolicy", this.fraction,
+          this.probability);
+    }
+  }
+}
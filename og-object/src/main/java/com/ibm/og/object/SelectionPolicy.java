@@ -0,0 +1,32 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import java.util.Random;
+
+/**
+ * A distribution over the positions of an object store, used to select objects with a skewed
+ * rather than uniform access pattern. Stores which support positional selection keep objects in
+ * insertion order, so position {@code 0} holds the least recently added object and position
+ * {@code size - 1} the most recently added. Removal moves the most recently added object into
+ * the vacated position, so this order is approximate once objects have been removed.
+ * <p>
+ * Implementations must be thread safe and must select in constant or logarithmic time with
+ * respect to {@code size}.
+ *
+ * @since 1.0
+ * @see SelectionPolicies
+ */
+public interface SelectionPolicy {
+  /**
+   * Selects a position
+   *
+   * @param size the number of positions to select from; must be positive
+   * @param rand the source of randomness to use
+   * @return a position in the range {@code [0, size)}
+   */
+  int select(int size, Random rand);
+}
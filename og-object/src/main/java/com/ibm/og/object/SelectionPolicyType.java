@@ -0,0 +1,35 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+/**
+ * The distribution an object manager should use when selecting objects for a request
+ *
+ * @since 1.0
+ * @see SelectionPolicies
+ */
+public enum SelectionPolicyType {
+  /**
+   * every object is equally likely to be selected
+   */
+  UNIFORM,
+
+  /**
+   * objects are selected with probability proportional to {@code 1 / rank^exponent}, where the
+   * least recently added object has rank {@code 1}
+   */
+  ZIPF,
+
+  /**
+   * a fixed fraction of the least recently added objects is selected with a fixed probability
+   */
+  HOTSPOT,
+
+  /**
+   * a fixed fraction of the most recently added objects is selected with a fixed probability
+   */
+  RECENCY
+}
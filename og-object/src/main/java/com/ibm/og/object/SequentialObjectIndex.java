@@ -0,0 +1,242 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tracks objects named from sequential namespaces, with one {@code SequentialObjectSet} per name
+ * prefix and container suffix. Selection across namespaces chooses a set weighted by the number
+ * of objects it holds, which preserves uniform selection across all objects. Sets are bitmaps
+ * rather than insertion ordered, so the {@code SelectionPolicy} named by criteria is not applied
+ * and selection is always uniform.
+ *
+ * @since 1.0
+ */
+public class SequentialObjectIndex {
+  private static final int MAGIC = 0x4f475351;
+  private static final int VERSION = 1;
+  private static final int MAX_SELECTION_ATTEMPTS = 8;
+  private final ConcurrentMap<Key, SequentialObjectSet> sets;
+  private final Random rand;
+  // maintained alongside the sets so that size is constant time
+  private final AtomicLong size;
+
+  private static final class Key {
+    private final String prefix;
+    private final int containerSuffix;
+
+    private Key(final String prefix, final int containerSuffix) {
+      this.prefix = prefix;
+      this.containerSuffix = containerSuffix;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      final Key other = (Key) obj;
+      return this.containerSuffix == other.containerSuffix && this.prefix.equals(other.prefix);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(this.prefix, this.containerSuffix);
+    }
+  }
+
+  /**
+   * Constructs an empty instance
+   */
+  public SequentialObjectIndex() {
+    this.sets = new ConcurrentHashMap<Key, SequentialObjectSet>();
+    this.rand = new Random();
+    this.size = new AtomicLong();
+  }
+
+  /**
+   * Adds an object to this index, or updates its size if already present
+   *
+   * @param objectMetadata the object to add
+   */
+  public void add(final SequentialObjectMetadata objectMetadata) {
+    checkNotNull(objectMetadata);
+    if (set(objectMetadata.getPrefix(), objectMetadata.getContainerSuffix())
+        .add(objectMetadata.getSuffix(), objectMetadata.getSize())) {
+      this.size.incrementAndGet();
+    }
+  }
+
+  private SequentialObjectSet set(final String prefix, final int containerSuffix) {
+    final Key key = new Key(prefix, containerSuffix);
+    SequentialObjectSet set = this.sets.get(key);
+    if (set == null) {
+      final SequentialObjectSet created = new SequentialObjectSet(prefix, containerSuffix);
+      set = this.sets.putIfAbsent(key, created);
+      if (set == null) {
+        set = created;
+      }
+    }
+    return set;
+  }
+
+  /**
+   * Selects a random object which satisfies the provided criteria, without removing it
+   *
+   * @param criteria the criteria the selected object must satisfy
+   * @return a random object, or null if no matching object could be found
+   */
+  public SequentialObjectMetadata getRandom(final ObjectCriteria criteria) {
+    checkNotNull(criteria);
+    for (int i = 0; i < MAX_SELECTION_ATTEMPTS; i++) {
+      final SequentialObjectSet set = selectSet(criteria);
+      if (set == null) {
+        return null;
+      }
+      final SequentialObjectMetadata objectMetadata =
+          set.getRandom(criteria.getMinSize(), criteria.getMaxSize());
+      if (objectMetadata != null) {
+        return objectMetadata;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Selects and removes a random object which satisfies the provided criteria
+   *
+   * @param criteria the criteria the selected object must satisfy
+   * @return a random object, or null if no matching object could be found
+   */
+  public SequentialObjectMetadata removeRandom(final ObjectCriteria criteria) {
+    checkNotNull(criteria);
+    for (int i = 0; i < MAX_SELECTION_ATTEMPTS; i++) {
+      final SequentialObjectSet set = selectSet(criteria);
+      if (set == null) {
+        return null;
+      }
+      final SequentialObjectMetadata objectMetadata =
+          set.removeRandom(criteria.getMinSize(), criteria.getMaxSize());
+      if (objectMetadata != null) {
+        this.size.decrementAndGet();
+        return objectMetadata;
+      }
+    }
+    return null;
+  }
+
+  // selects a set matching the container suffix named by criteria, weighted by the number of
+  // objects it holds; set sizes may change concurrently, in which case the selection is
+  // approximate
+  private SequentialObjectSet selectSet(final ObjectCriteria criteria) {
+    long total = 0;
+    for (final SequentialObjectSet set : this.sets.values()) {
+      if (matches(set, criteria)) {
+        total += set.size();
+      }
+    }
+    if (total == 0) {
+      return null;
+    }
+    long position = (long) (this.rand.nextDouble() * total);
+    SequentialObjectSet selected = null;
+    for (final SequentialObjectSet set : this.sets.values()) {
+      final long size = matches(set, criteria) ? set.size() : 0;
+      if (size > 0) {
+        selected = set;
+        if (position < size) {
+          break;
+        }
+        position -= size;
+      }
+    }
+    return selected;
+  }
+
+  private static boolean matches(final SequentialObjectSet set, final ObjectCriteria criteria) {
+    return criteria.getContainerSuffix() == null
+        || criteria.getContainerSuffix() == set.getContainerSuffix();
+  }
+
+  /**
+   * @return the number of objects in this index
+   */
+  public long size() {
+    return this.size.get();
+  }
+
+  /**
+   * Removes all objects from this index
+   */
+  public void clear() {
+    this.sets.clear();
+    this.size.set(0);
+  }
+
+  /**
+   * Writes the contents of this index
+   *
+   * @param out the stream to write to
+   * @throws IOException if an I/O error occurs
+   */
+  public void writeTo(final OutputStream out) throws IOException {
+    final List<SequentialObjectSet> sets = ImmutableList.copyOf(this.sets.values());
+    final DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    data.writeInt(sets.size());
+    for (final SequentialObjectSet set : sets) {
+      set.writeTo(data);
+    }
+    data.flush();
+  }
+
+  /**
+   * Replaces the contents of this index with contents previously written by
+   * {@link #writeTo(OutputStream)}
+   *
+   * @param in the stream to read from
+   * @throws IOException if an I/O error occurs or the stream is not a sequential object index
+   */
+  public void readFrom(final InputStream in) throws IOException {
+    final DataInputStream data = new DataInputStream(in);
+    if (data.readInt() != MAGIC) {
+      throw new IOException("Not a sequential object index");
+    }
+    final int version = data.readInt();
+    if (version != VERSION) {
+      throw new IOException(String.format("Unsupported sequential object index version %s",
+          version));
+    }
+    clear();
+    final int setCount = data.readInt();
+    for (int i = 0; i < setCount; i++) {
+      final SequentialObjectSet set = SequentialObjectSet.readFrom(data);
+      this.sets.put(new Key(set.getPrefix(), set.getContainerSuffix()), set);
+      this.size.addAndGet(set.size());
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("SequentialObjectIndex [sets=%s, size=%s]", this.sets.size(), size());
+  }
+}
@@ -0,0 +1,145 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ComparisonChain;
+import com.ibm.og.util.Context;
+
+/**
+ * An {@code ObjectMetadata} implementation for objects named from a sequential namespace, that is
+ * a fixed prefix followed by a decimal numeric suffix. Unlike {@code LegacyObjectMetadata}, names
+ * are not stored; instances are materialized on demand from a {@code SequentialObjectSet}, which
+ * tracks the suffixes of a namespace compactly.
+ *
+ * @since 1.0
+ */
+public class SequentialObjectMetadata implements ObjectMetadata {
+  private final String prefix;
+  private final long suffix;
+  private final long size;
+  private final int containerSuffix;
+
+  private SequentialObjectMetadata(final String prefix, final long suffix, final long size,
+      final int containerSuffix) {
+    this.prefix = prefix;
+    this.suffix = suffix;
+    this.size = size;
+    this.containerSuffix = containerSuffix;
+  }
+
+  /**
+   * Creates an instance from its component metadata
+   *
+   * @param prefix the name prefix of the object's namespace
+   * @param suffix the numeric name suffix of the object
+   * @param size the size of the object
+   * @param containerSuffix the container suffix of the object, or -1 if none
+   * @return a {@code SequentialObjectMetadata} instance
+   * @throws NullPointerException if prefix is null
+   * @throws IllegalArgumentException if suffix or size is negative, or containerSuffix is less
+   *         than -1
+   */
+  public static SequentialObjectMetadata fromMetadata(final String prefix, final long suffix,
+      final long size, final int containerSuffix) {
+    checkNotNull(prefix);
+    checkArgument(suffix >= 0, "suffix must be >= 0 [%s]", suffix);
+    checkArgument(size >= 0, "size must be >= 0 [%s]", size);
+    checkArgument(containerSuffix >= -1, "containerSuffix must be >= -1 [%s]", containerSuffix);
+    return new SequentialObjectMetadata(prefix, suffix, size, containerSuffix);
+  }
+
+  /**
+   * Records this object's prefix and suffix in a request context, so that consumers of the
+   * completed request can reconstruct this instance
+   *
+   * @param context the request context to update
+   */
+  public void putContext(final Map<String, String> context) {
+    context.put(Context.X_OG_OBJECT_PREFIX, this.prefix);
+    context.put(Context.X_OG_OBJECT_SUFFIX, String.valueOf(this.suffix));
+  }
+
+  @Override
+  public String getName() {
+    return this.prefix + this.suffix;
+  }
+
+  /**
+   * @return the name prefix of this object's namespace
+   */
+  public String getPrefix() {
+    return this.prefix;
+  }
+
+  /**
+   * @return the numeric name suffix of this object
+   */
+  public long getSuffix() {
+    return this.suffix;
+  }
+
+  @Override
+  public long getSize() {
+    return this.size;
+  }
+
+  @Override
+  public int getContainerSuffix() {
+    return this.containerSuffix;
+  }
+
+  @Override
+  public byte[] toBytes() {
+    final byte[] prefixBytes = this.prefix.getBytes(Charsets.UTF_8);
+    final ByteBuffer bytes = ByteBuffer.allocate(prefixBytes.length + 20);
+    bytes.put(prefixBytes);
+    bytes.putLong(this.suffix);
+    bytes.putLong(this.size);
+    bytes.putInt(this.containerSuffix);
+    return bytes.array();
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (!(obj instanceof SequentialObjectMetadata)) {
+      return false;
+    }
+    final SequentialObjectMetadata other = (SequentialObjectMetadata) obj;
+    return this.suffix == other.suffix && this.size == other.size
+        && this.containerSuffix == other.containerSuffix && this.prefix.equals(other.prefix);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = this.prefix.hashCode();
+    result = 31 * result + (int) (this.suffix ^ (this.suffix >>> 32));
+    result = 31 * result + (int) (this.size ^ (this.size >>> 32));
+    return 31 * result + this.containerSuffix;
+  }
+
+  @Override
+  public int compareTo(final ObjectMetadata o) {
+    if (!(o instanceof SequentialObjectMetadata)) {
+      return getName().compareTo(o.getName());
+    }
+    final SequentialObjectMetadata other = (SequentialObjectMetadata) o;
+    return ComparisonChain.start().compare(this.prefix, other.prefix)
+        .compare(this.suffix, other.suffix).compare(this.size, other.size)
+        .compare(this.containerSuffix, other.containerSuffix).result();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("SequentialObjectMetadata [name=%s, size=%s]", getName(), getSize());
+  }
+}
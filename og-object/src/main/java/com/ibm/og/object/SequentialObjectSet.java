@@ -0,0 +1,398 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Tracks the objects of a single sequential namespace, that is a name prefix and container
+ * suffix, by numeric name suffix. Suffixes are held in a bitmap divided into fixed size pages
+ * which are allocated on demand, so a densely populated namespace costs a single bit per object.
+ * Object sizes are stored once per page while every object in the page has the same size, and
+ * per object otherwise.
+ * <p>
+ * Random selection picks a page uniformly and accepts it with probability proportional to the
+ * number of objects it holds, which preserves uniform selection across objects without
+ * maintaining a cumulative index. Selection falls back to a scan of the page list when the set is
+ * sparse, or few objects are within the requested size range, such that acceptance repeatedly
+ * fails.
+ *
+ * @since 1.0
+ */
+public class SequentialObjectSet {
+  static final int PAGE_SHIFT = 12;
+  static final int PAGE_SUFFIXES = 1 << PAGE_SHIFT;
+  private static final int PAGE_WORDS = PAGE_SUFFIXES / Long.SIZE;
+  private static final int MAX_SELECTION_ATTEMPTS = 64;
+  private final String prefix;
+  private final int containerSuffix;
+  private final Map<Long, Page> pages;
+  // pages are also held in a list so that a page can be selected uniformly
+  private final List<Page> pageList;
+  private final Random rand;
+  private long size;
+  // an upper bound on the number of objects in any one page
+  private int maxPageSize;
+  // slot of the most recent selection; only valid while holding this instance's monitor
+  private int selectedSlot;
+
+  private static final class Page {
+    private final long index;
+    private final long[] bits;
+    private int listIndex;
+    private int size;
+    private long commonSize;
+    // null while every object in this page has commonSize
+    private long[] sizes;
+
+    private Page(final long index) {
+      this.index = index;
+      this.bits = new long[PAGE_WORDS];
+    }
+
+    private boolean contains(final int slot) {
+      return (this.bits[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    private long sizeOf(final int slot) {
+      return this.sizes != null ? this.sizes[slot] : this.commonSize;
+    }
+
+    private void setSize(final int slot, final long objectSize) {
+      if (this.sizes == null) {
+        if (this.size == 0) {
+          this.commonSize = objectSize;
+          return;
+        }
+        if (objectSize == this.commonSize) {
+          return;
+        }
+        this.sizes = new long[PAGE_SUFFIXES];
+        Arrays.fill(this.sizes, this.commonSize);
+      }
+      this.sizes[slot] = objectSize;
+    }
+
+    // returns the slot of the nth object in this page
+    private int select(int n) {
+      for (int word = 0; word < PAGE_WORDS; word++) {
+        final int count = Long.bitCount(this.bits[word]);
+        if (n < count) {
+          long bits = this.bits[word];
+          for (int i = 0; i < n; i++) {
+            bits &= bits - 1;
+          }
+          return (word << 6) + Long.numberOfTrailingZeros(bits);
+        }
+        n -= count;
+      }
+      throw new IllegalStateException("page holds fewer objects than its size");
+    }
+  }
+
+  /**
+   * Constructs an empty instance
+   *
+   * @param prefix the name prefix of the namespace
+   * @param containerSuffix the container suffix of the namespace, or -1 if none
+   * @throws NullPointerException if prefix is null
+   */
+  public SequentialObjectSet(final String prefix, final int containerSuffix) {
+    this.prefix = checkNotNull(prefix);
+    this.containerSuffix = containerSuffix;
+    this.pages = Maps.newHashMap();
+    this.pageList = Lists.newArrayList();
+    this.rand = new Random();
+  }
+
+  /**
+   * Adds an object to this set, or updates its size if already present
+   *
+   * @param suffix the numeric name suffix of the object
+   * @param objectSize the size of the object
+   * @return true if the object was not already present
+   * @throws IllegalArgumentException if suffix or objectSize is negative
+   */
+  public synchronized boolean add(final long suffix, final long objectSize) {
+    checkArgument(suffix >= 0, "suffix must be >= 0 [%s]", suffix);
+    checkArgument(objectSize >= 0, "objectSize must be >= 0 [%s]", objectSize);
+    final long index = suffix >>> PAGE_SHIFT;
+    Page page = this.pages.get(index);
+    if (page == null) {
+      page = new Page(index);
+      page.listIndex = this.pageList.size();
+      this.pages.put(index, page);
+      this.pageList.add(page);
+    }
+    final int slot = (int) (suffix & (PAGE_SUFFIXES - 1));
+    page.setSize(slot, objectSize);
+    if (page.contains(slot)) {
+      return false;
+    }
+    page.bits[slot >>> 6] |= 1L << slot;
+    page.size++;
+    this.maxPageSize = Math.max(this.maxPageSize, page.size);
+    this.size++;
+    return true;
+  }
+
+  /**
+   * Removes an object from this set
+   *
+   * @param suffix the numeric name suffix of the object
+   * @return true if the object was present
+   */
+  public synchronized boolean remove(final long suffix) {
+    final Page page = this.pages.get(suffix >>> PAGE_SHIFT);
+    final int slot = (int) (suffix & (PAGE_SUFFIXES - 1));
+    if (page == null || !page.contains(slot)) {
+      return false;
+    }
+    remove(page, slot);
+    return true;
+  }
+
+  private void remove(final Page page, final int slot) {
+    page.bits[slot >>> 6] &= ~(1L << slot);
+    page.size--;
+    this.size--;
+    if (page.size == 0) {
+      // swap the last page into the vacated list position so the list remains dense
+      final Page last = this.pageList.remove(this.pageList.size() - 1);
+      if (last != page) {
+        last.listIndex = page.listIndex;
+        this.pageList.set(page.listIndex, last);
+      }
+      this.pages.remove(page.index);
+    }
+  }
+
+  /**
+   * @param suffix the numeric name suffix of an object
+   * @return true if this set contains the object
+   */
+  public synchronized boolean contains(final long suffix) {
+    final Page page = this.pages.get(suffix >>> PAGE_SHIFT);
+    return page != null && page.contains((int) (suffix & (PAGE_SUFFIXES - 1)));
+  }
+
+  /**
+   * Selects a random object whose size is within the provided range, without removing it
+   *
+   * @param minSize the minimum object size, inclusive
+   * @param maxSize the maximum object size, inclusive
+   * @return a random object, or null if no matching object could be found
+   */
+  public synchronized SequentialObjectMetadata getRandom(final long minSize, final long maxSize) {
+    final Page page = select(minSize, maxSize);
+    if (page == null) {
+      return null;
+    }
+    return toMetadata(page, this.selectedSlot);
+  }
+
+  /**
+   * Selects and removes a random object whose size is within the provided range
+   *
+   * @param minSize the minimum object size, inclusive
+   * @param maxSize the maximum object size, inclusive
+   * @return a random object, or null if no matching object could be found
+   */
+  public synchronized SequentialObjectMetadata removeRandom(final long minSize,
+      final long maxSize) {
+    final Page page = select(minSize, maxSize);
+    if (page == null) {
+      return null;
+    }
+    final SequentialObjectMetadata objectMetadata = toMetadata(page, this.selectedSlot);
+    remove(page, this.selectedSlot);
+    return objectMetadata;
+  }
+
+  private Page select(final long minSize, final long maxSize) {
+    if (this.size == 0) {
+      return null;
+    }
+    for (int i = 0; i < MAX_SELECTION_ATTEMPTS; i++) {
+      final Page page = this.pageList.get(this.rand.nextInt(this.pageList.size()));
+      final int n = this.rand.nextInt(this.maxPageSize);
+      if (n < page.size && accept(page, page.select(n), minSize, maxSize)) {
+        return page;
+      }
+    }
+
+    // the set is sparse or few objects are within the size range; select exactly by walking the
+    // page list, tightening maxPageSize on the way
+    long total = 0;
+    int maxPageSize = 0;
+    for (final Page page : this.pageList) {
+      total += matching(page, minSize, maxSize);
+      maxPageSize = Math.max(maxPageSize, page.size);
+    }
+    this.maxPageSize = maxPageSize;
+    if (total == 0) {
+      return null;
+    }
+    long n = (long) (this.rand.nextDouble() * total);
+    for (final Page page : this.pageList) {
+      final int matching = matching(page, minSize, maxSize);
+      if (n < matching) {
+        this.selectedSlot = selectMatching(page, (int) n, minSize, maxSize);
+        return page;
+      }
+      n -= matching;
+    }
+    return null;
+  }
+
+  // pages with a common object size are matched in constant time
+  private static int matching(final Page page, final long minSize, final long maxSize) {
+    if (page.sizes == null) {
+      return page.commonSize >= minSize && page.commonSize <= maxSize ? page.size : 0;
+    }
+    int matching = 0;
+    for (int slot = 0; slot < PAGE_SUFFIXES; slot++) {
+      if (page.contains(slot) && page.sizes[slot] >= minSize && page.sizes[slot] <= maxSize) {
+        matching++;
+      }
+    }
+    return matching;
+  }
+
+  // returns the slot of the nth object in the page within the size range
+  private static int selectMatching(final Page page, int n, final long minSize,
+      final long maxSize) {
+    if (page.sizes == null) {
+      return page.select(n);
+    }
+    for (int slot = 0; slot < PAGE_SUFFIXES; slot++) {
+      if (page.contains(slot) && page.sizes[slot] >= minSize && page.sizes[slot] <= maxSize
+          && n-- == 0) {
+        return slot;
+      }
+    }
+    throw new IllegalStateException("page holds fewer matching objects than counted");
+  }
+
+  private boolean accept(final Page page, final int slot, final long minSize,
+      final long maxSize) {
+    final long objectSize = page.sizeOf(slot);
+    if (objectSize < minSize || objectSize > maxSize) {
+      return false;
+    }
+    this.selectedSlot = slot;
+    return true;
+  }
+
+  private SequentialObjectMetadata toMetadata(final Page page, final int slot) {
+    return SequentialObjectMetadata.fromMetadata(this.prefix,
+        (page.index << PAGE_SHIFT) | slot, page.sizeOf(slot), this.containerSuffix);
+  }
+
+  /**
+   * @return the number of objects in this set
+   */
+  public synchronized long size() {
+    return this.size;
+  }
+
+  /**
+   * @return the name prefix of this set's namespace
+   */
+  public String getPrefix() {
+    return this.prefix;
+  }
+
+  /**
+   * @return the container suffix of this set's namespace
+   */
+  public int getContainerSuffix() {
+    return this.containerSuffix;
+  }
+
+  /**
+   * Writes the contents of this set. Only the objects in each page are written, along with their
+   * sizes when the page does not have a common object size
+   *
+   * @param out the output to write to
+   * @throws IOException if an I/O error occurs
+   */
+  public synchronized void writeTo(final DataOutput out) throws IOException {
+    out.writeUTF(this.prefix);
+    out.writeInt(this.containerSuffix);
+    out.writeInt(this.pageList.size());
+    for (final Page page : this.pageList) {
+      out.writeLong(page.index);
+      out.writeLong(page.commonSize);
+      out.writeBoolean(page.sizes != null);
+      for (final long word : page.bits) {
+        out.writeLong(word);
+      }
+      if (page.sizes != null) {
+        for (int slot = 0; slot < PAGE_SUFFIXES; slot++) {
+          if (page.contains(slot)) {
+            out.writeLong(page.sizes[slot]);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads a set previously written by {@link #writeTo(DataOutput)}
+   *
+   * @param in the input to read from
+   * @return the set which was read
+   * @throws IOException if an I/O error occurs
+   */
+  public static SequentialObjectSet readFrom(final DataInput in) throws IOException {
+    final SequentialObjectSet set = new SequentialObjectSet(in.readUTF(), in.readInt());
+    final int pageCount = in.readInt();
+    for (int i = 0; i < pageCount; i++) {
+      final Page page = new Page(in.readLong());
+      page.commonSize = in.readLong();
+      final boolean hasSizes = in.readBoolean();
+      for (int word = 0; word < PAGE_WORDS; word++) {
+        page.bits[word] = in.readLong();
+        page.size += Long.bitCount(page.bits[word]);
+      }
+      if (hasSizes) {
+        page.sizes = new long[PAGE_SUFFIXES];
+        for (int slot = 0; slot < PAGE_SUFFIXES; slot++) {
+          if (page.contains(slot)) {
+            page.sizes[slot] = in.readLong();
+          }
+        }
+      }
+      if (page.size > 0) {
+        page.listIndex = set.pageList.size();
+        set.pages.put(page.index, page);
+        set.pageList.add(page);
+        set.size += page.size;
+        set.maxPageSize = Math.max(set.maxPageSize, page.size);
+      }
+    }
+    return set;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("SequentialObjectSet [prefix=%s, containerSuffix=%s, size=%s]",
+        this.prefix, this.containerSuffix, size());
+  }
+}
@@ -0,0 +1,212 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * An {@code ObjectStore} implementation which partitions objects into one shard per container
+ * suffix, so that objects belonging to a particular container can be selected directly. Each
+ * shard is further partitioned into size classes (see {@link SizeClassedObjectStore}) so that
+ * objects within a size range can be selected directly. Selection across containers chooses a
+ * shard weighted by the number of objects it holds within the requested size range, which
+ * preserves uniform selection across all matching objects. The {@code SelectionPolicy} named by
+ * the criteria is applied within the selected container and size class.
+ *
+ * @since 1.0
+ */
+public class ShardedObjectStore implements CriteriaObjectStore {
+  private static final int MAX_SELECTION_ATTEMPTS = 8;
+  private final ObjectStoreType shardType;
+  private final ConcurrentMap<Integer, SizeClassedObjectStore> shards;
+  private final Random rand;
+  // maintained alongside the shards so that size is constant time
+  private final AtomicInteger size;
+
+  /**
+   * Constructs an empty instance
+   *
+   * @param shardType the type of store to use for each shard
+   * @throws NullPointerException if shardType is null
+   */
+  public ShardedObjectStore(final ObjectStoreType shardType) {
+    this.shardType = checkNotNull(shardType);
+    this.shards = new ConcurrentHashMap<Integer, SizeClassedObjectStore>();
+    this.rand = new Random();
+    this.size = new AtomicInteger();
+  }
+
+  @Override
+  public void put(final ObjectMetadata objectMetadata) {
+    shard(checkNotNull(objectMetadata).getContainerSuffix()).put(objectMetadata);
+    this.size.incrementAndGet();
+  }
+
+  @Override
+  public void putRecord(final ByteBuffer record) {
+    final int suffix = record.getInt(record.position() + LegacyObjectMetadata.OBJECT_NAME_SIZE
+        + LegacyObjectMetadata.OBJECT_SIZE_SIZE);
+    shard(suffix).putRecord(record);
+    this.size.incrementAndGet();
+  }
+
+  private SizeClassedObjectStore shard(final int containerSuffix) {
+    SizeClassedObjectStore shard = this.shards.get(containerSuffix);
+    if (shard == null) {
+      final SizeClassedObjectStore created = new SizeClassedObjectStore(this.shardType);
+      shard = this.shards.putIfAbsent(containerSuffix, created);
+      if (shard == null) {
+        shard = created;
+      }
+    }
+    return shard;
+  }
+
+  @Override
+  public ObjectMetadata getRandom() {
+    return getRandom(ObjectCriteria.ANY);
+  }
+
+  @Override
+  public ObjectMetadata getRandom(final SelectionPolicy policy) {
+    return getRandom(ObjectCriteria.policy(policy));
+  }
+
+  @Override
+  public ObjectMetadata getRandom(final ObjectCriteria criteria) {
+    checkNotNull(criteria);
+    for (int i = 0; i < MAX_SELECTION_ATTEMPTS; i++) {
+      final SizeClassedObjectStore shard = selectShard(criteria);
+      if (shard == null) {
+        return null;
+      }
+      final ObjectMetadata objectMetadata =
+          shard.getRandom(criteria.getMinSize(), criteria.getMaxSize(), criteria.getPolicy());
+      // the selected shard may have been emptied concurrently
+      if (objectMetadata != null || criteria.getContainerSuffix() != null) {
+        return objectMetadata;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public ObjectMetadata removeRandom() {
+    return removeRandom(ObjectCriteria.ANY);
+  }
+
+  @Override
+  public ObjectMetadata removeRandom(final SelectionPolicy policy) {
+    return removeRandom(ObjectCriteria.policy(policy));
+  }
+
+  @Override
+  public ObjectMetadata removeRandom(final ObjectCriteria criteria) {
+    checkNotNull(criteria);
+    for (int i = 0; i < MAX_SELECTION_ATTEMPTS; i++) {
+      final SizeClassedObjectStore shard = selectShard(criteria);
+      if (shard == null) {
+        return null;
+      }
+      final ObjectMetadata objectMetadata =
+          shard.removeRandom(criteria.getMinSize(), criteria.getMaxSize(), criteria.getPolicy());
+      if (objectMetadata != null) {
+        this.size.decrementAndGet();
+        return objectMetadata;
+      }
+      if (criteria.getContainerSuffix() != null) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  // selects the shard named by criteria, or a shard weighted by the number of objects it holds
+  // within the size range; shard sizes may change concurrently, in which case the selection is
+  // approximate
+  private SizeClassedObjectStore selectShard(final ObjectCriteria criteria) {
+    final long minSize = criteria.getMinSize();
+    final long maxSize = criteria.getMaxSize();
+    if (criteria.getContainerSuffix() != null) {
+      return this.shards.get(criteria.getContainerSuffix());
+    }
+    long total = 0;
+    for (final SizeClassedObjectStore shard : this.shards.values()) {
+      total += shard.size(minSize, maxSize);
+    }
+    if (total == 0) {
+      return null;
+    }
+    long position = (long) (this.rand.nextDouble() * total);
+    SizeClassedObjectStore selected = null;
+    for (final SizeClassedObjectStore shard : this.shards.values()) {
+      final long size = shard.size(minSize, maxSize);
+      if (size > 0) {
+        selected = shard;
+        if (position < size) {
+          break;
+        }
+        position -= size;
+      }
+    }
+    return selected;
+  }
+
+  @Override
+  public int size() {
+    return this.size.get();
+  }
+
+  /**
+   * Gets the number of objects in the shard for the provided container suffix
+   *
+   * @param containerSuffix the container suffix of the shard
+   * @return the number of objects in the shard
+   */
+  public int size(final int containerSuffix) {
+    final SizeClassedObjectStore shard = this.shards.get(containerSuffix);
+    return shard != null ? shard.size() : 0;
+  }
+
+  /**
+   * Gets the container suffixes for which this store has shards
+   *
+   * @return the container suffixes of this store's shards
+   */
+  public Set<Integer> containerSuffixes() {
+    return ImmutableSet.copyOf(this.shards.keySet());
+  }
+
+  @Override
+  public void clear() {
+    this.shards.clear();
+    this.size.set(0);
+  }
+
+  @Override
+  public void writeTo(final OutputStream out) throws IOException {
+    for (final SizeClassedObjectStore shard : this.shards.values()) {
+      shard.writeTo(out);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("ShardedObjectStore [shardType=%s, shards=%s]", this.shardType,
+        this.shards.size());
+  }
+}
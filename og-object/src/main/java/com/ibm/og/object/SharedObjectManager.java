@@ -0,0 +1,683 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+
+/**
+ * An {@code ObjectManager} implementation whose objects live in a memory mapped pool file which
+ * is shared by every og process on a host that is configured with the same object file location
+ * and name. Processes therefore draw from, and add to, a single pool of objects without disjoint
+ * object files or an external coordinator.
+ * <p>
+ * The pool is a fixed capacity array of slots, each holding a {@code LegacyObjectMetadata} record
+ * and a state word. Slots are claimed, released and removed by compare and swap on their state
+ * word, which the processor makes atomic across every process mapping the pool file. A slot is
+ * either free, busy (exclusively held while a record is being written or removed) or live with a
+ * count of readers; a live slot may only be removed once its reader count is zero, so an object
+ * cannot be deleted while any process is reading it, nor deleted by two processes.
+ * <p>
+ * Every live slot lies below a high water mark, which is lowered as the slots at its top are
+ * freed. Selection probes slots below the high water mark at random, then scans from a random
+ * slot until it has passed as many live slots as the pool holds.
+ * <p>
+ * When the pool file is created it is seeded with the objects in any existing object files. The
+ * pool file itself is the persistent state thereafter. If a process exits without shutting down,
+ * slots it held busy or reading are recovered the next time a process attaches while no other
+ * process is attached.
+ * <p>
+ * The {@code SelectionPolicy} named by request criteria is applied to slot positions. Slots are
+ * claimed in order as the pool first fills, but freed slots are reused at random, so skew with
+ * respect to insertion order is approximate once objects have been removed.
+ *
+ * @since 1.0
+ */
+@Singleton
+public class SharedObjectManager implements ObjectManager {
+  private static final Logger _logger = LoggerFactory.getLogger(SharedObjectManager.class);
+  public static final String SUFFIX = ".shared";
+  private static final int RECORD_SIZE = LegacyObjectMetadata.OBJECT_SIZE;
+  // state word followed by the record, padded so that state words remain 8 byte aligned
+  static final int SLOT_SIZE = 40;
+  private static final int RECORD_OFFSET = 8;
+  static final int HEADER_SIZE = 64;
+  private static final long MAGIC = 0x4f47534841524544L;
+  // version 2 stores words in native byte order
+  private static final long VERSION = 2;
+  private static final int MAGIC_OFFSET = 0;
+  private static final int VERSION_OFFSET = 8;
+  private static final int SLOT_SIZE_OFFSET = 16;
+  private static final int CAPACITY_OFFSET = 24;
+  private static final int HIGH_WATER_OFFSET = 32;
+  private static final int SIZE_OFFSET = 40;
+  // slot state word: the low two bits are the state, the remaining bits the reader count
+  private static final long FREE = 0;
+  private static final long BUSY = 1;
+  private static final long LIVE = 2;
+  private static final long STATE_MASK = 3;
+  private static final long READER = 4;
+  private static final int MAX_PROBES = 64;
+  // byte ranges locked beyond the end of the pool to coordinate attaching processes; the init
+  // lock serializes attachment and the live lock is held shared by every attached process
+  private static final long INIT_LOCK = Long.MAX_VALUE - 2;
+  private static final long LIVE_LOCK = Long.MAX_VALUE - 1;
+  // a jvm may only hold one lock on a region of a file, so instances within a jvm share an
+  // attachment
+  private static final Map<String, Attachment> ATTACHMENTS = Maps.newHashMap();
+
+  private final File file;
+  private final Attachment attachment;
+  private final MappedMemory memory;
+  private final long capacity;
+  private final ConcurrentMap<ObjectMetadata, ReadReference> currentlyReading;
+  private final Random rand;
+  private final ObjectManagerStatistics statistics;
+  private volatile boolean shutdown;
+
+  private static final class Attachment {
+    private final RandomAccessFile file;
+    private final MappedMemory memory;
+    private final long capacity;
+    private final FileLock liveLock;
+    private int references;
+
+    private Attachment(final RandomAccessFile file, final MappedMemory memory,
+        final long capacity, final FileLock liveLock) {
+      this.file = file;
+      this.memory = memory;
+      this.capacity = capacity;
+      this.liveLock = liveLock;
+      this.references = 1;
+    }
+  }
+
+  // the slots of the reads in progress in this process for an object, one per read since an
+  // object may be held in more than one slot; a released reference must not be reused
+  private static final class ReadReference {
+    private final Deque<Long> slots = new ArrayDeque<Long>();
+    private boolean released;
+  }
+
+  @Inject
+  public SharedObjectManager(@Named("objectfile.location") final String directory,
+      @Named("objectfile.name") final String prefix,
+      @Named("objectfile.maxsize") final long maxSize) {
+    this(directory, prefix, Ints.saturatedCast((maxSize - HEADER_SIZE) / SLOT_SIZE));
+  }
+
+  /**
+   * Constructs an instance, creating the pool file if it does not exist
+   *
+   * @param directory the object file directory
+   * @param prefix the object file name prefix
+   * @param capacity the number of objects the pool can hold if it is created; an existing pool
+   *        retains its capacity
+   * @throws NullPointerException if directory is null
+   * @throws IllegalArgumentException if capacity is not positive or the pool would exceed 2 GiB
+   * @throws ObjectManagerException if the pool file cannot be attached
+   */
+  public SharedObjectManager(final String directory, final String prefix, final int capacity) {
+    checkNotNull(directory);
+    checkArgument(capacity > 0, "capacity must be > 0 [%s]", capacity);
+    checkArgument(HEADER_SIZE + (long) capacity * SLOT_SIZE <= Integer.MAX_VALUE,
+        "capacity must be <= %s [%s]", (Integer.MAX_VALUE - HEADER_SIZE) / SLOT_SIZE, capacity);
+    final String filePrefix = prefix != null && !prefix.isEmpty() ? prefix : "id_";
+    this.file = new File(directory, filePrefix + "pool" + SUFFIX);
+    try {
+      this.attachment = attach(this.file, directory, filePrefix, capacity);
+    } catch (final IOException e) {
+      throw new ObjectManagerException("Can't attach shared object pool " + this.file, e);
+    }
+    this.memory = this.attachment.memory;
+    this.capacity = this.attachment.capacity;
+    this.currentlyReading = new ConcurrentHashMap<ObjectMetadata, ReadReference>();
+    this.rand = new Random();
+    this.statistics = new ObjectManagerStatistics();
+    _logger.info("Attached shared object pool {} with {} of {} objects", this.file,
+        getCurrentObjectCount(), this.capacity);
+  }
+
+  private static Attachment attach(final File file, final String directory, final String prefix,
+      final long capacity) throws IOException {
+    final String path = file.getCanonicalPath();
+    synchronized (ATTACHMENTS) {
+      final Attachment existing = ATTACHMENTS.get(path);
+      if (existing != null) {
+        existing.references++;
+        return existing;
+      }
+
+      final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+      final FileChannel channel = raf.getChannel();
+      final FileLock initLock = channel.lock(INIT_LOCK, 1, false);
+      try {
+        // no other process is attached if the live lock can be held exclusively
+        final FileLock exclusive = channel.tryLock(LIVE_LOCK, 1, false);
+        final boolean alone = exclusive != null;
+        if (alone) {
+          exclusive.release();
+        }
+
+        final boolean create = raf.length() == 0;
+        if (create) {
+          raf.setLength(HEADER_SIZE + capacity * SLOT_SIZE);
+        }
+        final MappedMemory memory =
+            new MappedMemory(channel.map(FileChannel.MapMode.READ_WRITE, 0, raf.length()));
+        if (create || (alone && memory.getLongVolatile(MAGIC_OFFSET) == 0)) {
+          // a pool whose magic is unset was never initialized, its creator having exited early
+          initialize(memory, raf.length());
+          seed(memory, directory, prefix);
+        } else {
+          validate(memory, raf.length(), file);
+          if (alone) {
+            recover(memory);
+          }
+        }
+
+        final Attachment attachment = new Attachment(raf, memory,
+            memory.getLongVolatile(CAPACITY_OFFSET), channel.lock(LIVE_LOCK, 1, true));
+        ATTACHMENTS.put(path, attachment);
+        return attachment;
+      } catch (final IOException e) {
+        raf.close();
+        throw e;
+      } catch (final RuntimeException e) {
+        raf.close();
+        throw e;
+      } finally {
+        if (initLock.isValid()) {
+          initLock.release();
+        }
+      }
+    }
+  }
+
+  // initialize, seed and recover only run while attaching with no other process attached, so
+  // they access the pool without atomic operations
+  private static void initialize(final MappedMemory memory, final long length) {
+    final long capacity = (length - HEADER_SIZE) / SLOT_SIZE;
+    for (long slot = 0; slot < capacity; slot++) {
+      memory.putLong(stateOffset(slot), FREE);
+    }
+    memory.putLong(VERSION_OFFSET, VERSION);
+    memory.putLong(SLOT_SIZE_OFFSET, SLOT_SIZE);
+    memory.putLong(CAPACITY_OFFSET, capacity);
+    memory.putLong(HIGH_WATER_OFFSET, 0);
+    memory.putLong(SIZE_OFFSET, 0);
+    // written last so that a partially initialized pool is recognizable
+    memory.putLong(MAGIC_OFFSET, MAGIC);
+  }
+
+  private static void validate(final MappedMemory memory, final long length, final File file) {
+    if (memory.getLongVolatile(MAGIC_OFFSET) != MAGIC
+        || memory.getLongVolatile(VERSION_OFFSET) != VERSION
+        || memory.getLongVolatile(SLOT_SIZE_OFFSET) != SLOT_SIZE
+        || HEADER_SIZE + memory.getLongVolatile(CAPACITY_OFFSET) * SLOT_SIZE > length) {
+      throw new ObjectManagerException("Not a valid shared object pool " + file);
+    }
+  }
+
+  // seeds a newly created pool with the objects in existing object files
+  private static void seed(final MappedMemory memory, final String directory,
+      final String prefix) throws IOException {
+    final Pattern pattern = Pattern
+        .compile(String.format("%s(\\d|[1-9]\\d*)%s", prefix, RandomObjectPopulator.SUFFIX));
+    final File[] files = new File(directory).listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(final File dir, final String name) {
+        return pattern.matcher(name).matches();
+      }
+    });
+    if (files == null) {
+      return;
+    }
+    final long capacity = memory.getLong(CAPACITY_OFFSET);
+    final byte[] record = new byte[RECORD_SIZE];
+    long slot = 0;
+    for (final File objectFile : files) {
+      final DataInputStream in = new DataInputStream(ObjectFiles.open(objectFile));
+      try {
+        while (slot < capacity) {
+          in.readFully(record);
+          memory.putBytes(stateOffset(slot) + RECORD_OFFSET, record);
+          memory.putLong(stateOffset(slot), LIVE);
+          slot++;
+        }
+      } catch (final EOFException e) {
+        // a truncated trailing record is ignored
+      } finally {
+        in.close();
+      }
+      if (slot == capacity) {
+        _logger.warn("Shared object pool is full; not all objects were seeded");
+        break;
+      }
+    }
+    memory.putLong(HIGH_WATER_OFFSET, slot);
+    memory.putLong(SIZE_OFFSET, slot);
+    _logger.info("Seeded shared object pool with {} objects from {} object files", slot,
+        files.length);
+  }
+
+  // resets slots left busy or being read by processes which exited without shutting down; only
+  // called when no other process is attached
+  private static void recover(final MappedMemory memory) {
+    final long highWater = memory.getLong(HIGH_WATER_OFFSET);
+    long size = 0;
+    long recovered = 0;
+    long top = 0;
+    for (long slot = 0; slot < highWater; slot++) {
+      final long state = memory.getLong(stateOffset(slot));
+      if ((state & STATE_MASK) == LIVE) {
+        size++;
+        top = slot + 1;
+        if (state != LIVE) {
+          memory.putLong(stateOffset(slot), LIVE);
+          recovered++;
+        }
+      } else if (state != FREE) {
+        memory.putLong(stateOffset(slot), FREE);
+        recovered++;
+      }
+    }
+    memory.putLong(SIZE_OFFSET, size);
+    // slots at the top left busy are now free
+    memory.putLong(HIGH_WATER_OFFSET, top);
+    if (recovered > 0) {
+      _logger.warn("Recovered {} shared object pool slots left in use by exited processes",
+          recovered);
+    }
+  }
+
+  private static long stateOffset(final long slot) {
+    return HEADER_SIZE + slot * SLOT_SIZE;
+  }
+
+  @Override
+  public void add(final ObjectMetadata objectMetadata) {
+    final byte[] record = checkNotNull(objectMetadata).toBytes();
+    checkArgument(record.length == RECORD_SIZE, "record length must be == %s [%s]", RECORD_SIZE,
+        record.length);
+    final long slot = claimFreeSlot();
+    this.memory.putBytes(stateOffset(slot) + RECORD_OFFSET, record);
+    this.memory.putLongVolatile(stateOffset(slot), LIVE);
+    this.memory.getAndAddLong(SIZE_OFFSET, 1);
+    _logger.trace("Adding object: {}", objectMetadata);
+  }
+
+  // prefers reusing a free slot below the high water mark, so that live slots remain dense for
+  // selection, before extending the high water mark
+  private long claimFreeSlot() {
+    for (int i = 0; i < MAX_PROBES; i++) {
+      final long highWater = this.memory.getLongVolatile(HIGH_WATER_OFFSET);
+      if (highWater == 0) {
+        break;
+      }
+      final long slot = nextSlot(highWater);
+      if (claim(slot)) {
+        return slot;
+      }
+    }
+    while (true) {
+      final long highWater = this.memory.getLongVolatile(HIGH_WATER_OFFSET);
+      if (highWater >= this.capacity) {
+        break;
+      }
+      if (this.memory.compareAndSwapLong(HIGH_WATER_OFFSET, highWater, highWater + 1)
+          && claim(highWater)) {
+        return highWater;
+      }
+    }
+    final long start = nextSlot(this.capacity);
+    for (long i = 0; i < this.capacity; i++) {
+      final long slot = (start + i) % this.capacity;
+      if (claim(slot)) {
+        return slot;
+      }
+    }
+    throw new ObjectManagerException("Shared object pool is full.");
+  }
+
+  // a claimed slot must lie below the high water mark, which may have been lowered past it since
+  // it was selected; a busy slot is never lowered past, so the check holds once the slot is busy
+  private boolean claim(final long slot) {
+    if (!this.memory.compareAndSwapLong(stateOffset(slot), FREE, BUSY)) {
+      return false;
+    }
+    if (slot < this.memory.getLongVolatile(HIGH_WATER_OFFSET)) {
+      return true;
+    }
+    this.memory.putLongVolatile(stateOffset(slot), FREE);
+    return false;
+  }
+
+  // lowers the high water mark past free slots at its top. Each slot is held busy while the mark
+  // is lowered past it, so that no process can claim it meanwhile
+  private void lowerHighWater() {
+    while (true) {
+      final long highWater = this.memory.getLongVolatile(HIGH_WATER_OFFSET);
+      if (highWater == 0) {
+        return;
+      }
+      final long top = stateOffset(highWater - 1);
+      if (!this.memory.compareAndSwapLong(top, FREE, BUSY)) {
+        return;
+      }
+      final boolean lowered =
+          this.memory.compareAndSwapLong(HIGH_WATER_OFFSET, highWater, highWater - 1);
+      this.memory.putLongVolatile(top, FREE);
+      if (!lowered) {
+        return;
+      }
+    }
+  }
+
+  private long nextSlot(final long bound) {
+    return (long) (this.rand.nextDouble() * bound);
+  }
+
+  // slot positions are bounded by capacity, which is an int
+  private long nextSlot(final long bound, final SelectionPolicy policy) {
+    return policy.select((int) bound, this.rand);
+  }
+
+  @Override
+  public ObjectMetadata get() {
+    return get(ObjectCriteria.ANY);
+  }
+
+  /**
+   * Selects each object individually, since objects are read without a shared lock
+   */
+  @Override
+  public List<ObjectMetadata> get(final ObjectCriteria criteria, final int count) {
+    checkArgument(count > 0, "count must be > 0 [%s]", count);
+    final List<ObjectMetadata> ids = Lists.newArrayListWithCapacity(count);
+    ids.add(get(criteria));
+    try {
+      while (ids.size() < count) {
+        ids.add(get(criteria));
+      }
+    } catch (final ObjectManagerException e) {
+      // fewer than count objects match
+    }
+    return ids;
+  }
+
+  @Override
+  public ObjectMetadata get(final ObjectCriteria criteria) {
+    checkNotNull(criteria);
+    if (this.shutdown) {
+      throw new RuntimeException("Test already ended");
+    }
+    final long highWater = highWater();
+    if (highWater > 0) {
+      for (int i = 0; i < MAX_PROBES; i++) {
+        final long slot = nextSlot(highWater, criteria.getPolicy());
+        final ObjectMetadata id = acquire(slot, criteria);
+        if (id != null) {
+          return id;
+        }
+      }
+      // the pool is sparse or few objects match; scan from a random slot
+      final long start = nextSlot(highWater);
+      long live = getCurrentObjectCount();
+      for (long i = 0; i < highWater && live > 0; i++) {
+        final long slot = (start + i) % highWater;
+        if (isLive(slot)) {
+          live--;
+          final ObjectMetadata id = acquire(slot, criteria);
+          if (id != null) {
+            return id;
+          }
+        }
+      }
+    }
+    throw noObjects(criteria);
+  }
+
+  // the high water mark is raised before the size, so it must be read after the size. A concurrent
+  // removal may still lower it to zero once the size has been read, so callers select no slot
+  // unless the value returned is positive
+  private long highWater() {
+    if (getCurrentObjectCount() == 0) {
+      return 0;
+    }
+    return this.memory.getLongVolatile(HIGH_WATER_OFFSET);
+  }
+
+  private boolean isLive(final long slot) {
+    return (this.memory.getLongVolatile(stateOffset(slot)) & STATE_MASK) == LIVE;
+  }
+
+  // registers a reader on a live slot; the record cannot change while the slot has readers
+  private ObjectMetadata acquire(final long slot, final ObjectCriteria criteria) {
+    final long offset = stateOffset(slot);
+    long state;
+    do {
+      state = this.memory.getLongVolatile(offset);
+      if ((state & STATE_MASK) != LIVE) {
+        return null;
+      }
+    } while (!this.memory.compareAndSwapLong(offset, state, state + READER));
+
+    final ObjectMetadata id = read(slot);
+    if (!criteria.matches(id)) {
+      this.memory.getAndAddLong(offset, -READER);
+      return null;
+    }
+    while (true) {
+      ReadReference reference = this.currentlyReading.get(id);
+      if (reference == null) {
+        final ReadReference created = new ReadReference();
+        reference = this.currentlyReading.putIfAbsent(id, created);
+        if (reference == null) {
+          reference = created;
+        }
+      }
+      synchronized (reference) {
+        if (!reference.released) {
+          reference.slots.add(slot);
+          _logger.trace("Getting object: {}", id);
+          return id;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void getComplete(final ObjectMetadata id) {
+    final ReadReference reference = this.currentlyReading.get(checkNotNull(id));
+    if (reference == null) {
+      throw new IllegalStateException(String.format("object has no read references [%s]", id));
+    }
+    final long slot;
+    synchronized (reference) {
+      if (reference.released || reference.slots.isEmpty()) {
+        throw new IllegalStateException(String.format("object has no read references [%s]", id));
+      }
+      // the reader is removed from a slot this process registered it on
+      slot = reference.slots.remove();
+      if (reference.slots.isEmpty()) {
+        reference.released = true;
+        this.currentlyReading.remove(id, reference);
+      }
+    }
+    this.memory.getAndAddLong(stateOffset(slot), -READER);
+    _logger.trace("Returning read object: {}", id);
+  }
+
+  @Override
+  public ObjectMetadata remove() {
+    return remove(ObjectCriteria.ANY);
+  }
+
+  /**
+   * Selects each object individually, since objects are removed without a shared lock
+   */
+  @Override
+  public List<ObjectMetadata> remove(final ObjectCriteria criteria, final int count) {
+    checkArgument(count > 0, "count must be > 0 [%s]", count);
+    final List<ObjectMetadata> ids = Lists.newArrayListWithCapacity(count);
+    ids.add(remove(criteria));
+    try {
+      while (ids.size() < count) {
+        ids.add(remove(criteria));
+      }
+    } catch (final ObjectManagerException e) {
+      // fewer than count objects match
+    }
+    return ids;
+  }
+
+  @Override
+  public ObjectMetadata remove(final ObjectCriteria criteria) {
+    checkNotNull(criteria);
+    final long highWater = highWater();
+    if (highWater > 0) {
+      for (int i = 0; i < MAX_PROBES; i++) {
+        final ObjectMetadata id = tryRemove(nextSlot(highWater, criteria.getPolicy()), criteria);
+        if (id != null) {
+          return id;
+        }
+      }
+      final long start = nextSlot(highWater);
+      long live = getCurrentObjectCount();
+      for (long i = 0; i < highWater && live > 0; i++) {
+        final long slot = (start + i) % highWater;
+        if (isLive(slot)) {
+          live--;
+          final ObjectMetadata id = tryRemove(slot, criteria);
+          if (id != null) {
+            return id;
+          }
+        }
+      }
+    }
+    throw noObjects(criteria);
+  }
+
+  // only a live slot with no readers may be removed
+  private ObjectMetadata tryRemove(final long slot, final ObjectCriteria criteria) {
+    final long offset = stateOffset(slot);
+    if (!this.memory.compareAndSwapLong(offset, LIVE, BUSY)) {
+      final long state = this.memory.getLongVolatile(offset);
+      if ((state & STATE_MASK) == LIVE && state != LIVE) {
+        this.statistics.add(ObjectManagerCounter.READING_COLLISIONS, 1);
+      }
+      return null;
+    }
+    final ObjectMetadata id = read(slot);
+    if (!criteria.matches(id)) {
+      this.memory.putLongVolatile(offset, LIVE);
+      return null;
+    }
+    this.memory.putLongVolatile(offset, FREE);
+    this.memory.getAndAddLong(SIZE_OFFSET, -1);
+    lowerHighWater();
+    _logger.trace("Removing object: {}", id);
+    return id;
+  }
+
+  private ObjectMetadata read(final long slot) {
+    final byte[] record = new byte[RECORD_SIZE];
+    this.memory.getBytes(stateOffset(slot) + RECORD_OFFSET, record);
+    return LegacyObjectMetadata.fromBytes(record);
+  }
+
+  private ObjectManagerException noObjects(final ObjectCriteria criteria) {
+    if (criteria == ObjectCriteria.ANY) {
+      return new ObjectManagerException("No objects available.");
+    }
+    return new ObjectManagerException(String.format("No objects available for %s.", criteria));
+  }
+
+  /**
+   * @return the number of objects currently in the shared pool, across all processes
+   */
+  @Override
+  public long getCurrentObjectCount() {
+    return this.memory.getLongVolatile(SIZE_OFFSET);
+  }
+
+  /**
+   * @return counters for this process only. Slots are accessed without locks and the shared pool is
+   *         persisted by the operating system, so only reading collisions are counted
+   */
+  @Override
+  public ObjectManagerStatistics getStatistics() {
+    return this.statistics;
+  }
+
+  /**
+   * @return the number of objects the shared pool can hold
+   */
+  public long getCapacity() {
+    return this.capacity;
+  }
+
+  @Override
+  public void shutdown() {
+    if (this.shutdown) {
+      return;
+    }
+    _logger.info("shutting down shared object manager");
+    this.shutdown = true;
+    try {
+      detach(this.file, this.attachment);
+    } catch (final IOException e) {
+      throw new ObjectManagerException(e);
+    }
+    _logger.info("shared object manager is shutdown");
+  }
+
+  private static void detach(final File file, final Attachment attachment) throws IOException {
+    synchronized (ATTACHMENTS) {
+      if (--attachment.references > 0) {
+        return;
+      }
+      ATTACHMENTS.remove(file.getCanonicalPath());
+      attachment.memory.force();
+      attachment.liveLock.release();
+      attachment.file.close();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("SharedObjectManager [file=%s, capacity=%s]", this.file, this.capacity);
+  }
+}
@@ -0,0 +1,254 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An {@code ObjectStore} implementation which partitions objects into log2 size classes, each
+ * with its own randomly accessible store, so that objects within a size range can be selected
+ * without scanning. Size class {@code 0} holds zero byte objects and size class {@code n} holds
+ * objects of size {@code [2^(n-1), 2^n - 1]}.
+ * <p>
+ * Selection within a size range chooses a size class weighted by its size. Size classes which lie
+ * entirely within the range are selected from directly; the size classes at either end of a range
+ * which is not aligned to powers of two are sampled, and objects outside the range are rejected.
+ * Rejection is bounded, so selection from a sparsely populated partial size class may fail even
+ * though a matching object exists; ranges aligned to powers of two never reject. A
+ * {@code SelectionPolicy} is applied within the selected size class, so skew is relative to the
+ * objects of similar size rather than to the store as a whole.
+ *
+ * @since 1.0
+ */
+public class SizeClassedObjectStore implements ObjectStore {
+  private static final int SIZE_CLASSES = 64;
+  static final int MAX_SELECTION_ATTEMPTS = 64;
+  private final ObjectStoreType classType;
+  private final AtomicReferenceArray<ObjectStore> classes;
+  private final Random rand;
+
+  /**
+   * Constructs an empty instance
+   *
+   * @param classType the type of store to use for each size class
+   * @throws NullPointerException if classType is null
+   */
+  public SizeClassedObjectStore(final ObjectStoreType classType) {
+    this.classType = checkNotNull(classType);
+    this.classes = new AtomicReferenceArray<ObjectStore>(SIZE_CLASSES);
+    this.rand = new Random();
+  }
+
+  /**
+   * Gets the size class for an object size
+   *
+   * @param size an object size in bytes
+   * @return the size class of the provided size
+   */
+  static int sizeClass(final long size) {
+    return SIZE_CLASSES - Long.numberOfLeadingZeros(size);
+  }
+
+  @Override
+  public void put(final ObjectMetadata objectMetadata) {
+    final long size = checkNotNull(objectMetadata).getSize();
+    checkArgument(size >= 0, "size must be >= 0 [%s]", size);
+    sizeClassStore(size).put(objectMetadata);
+  }
+
+  @Override
+  public void putRecord(final ByteBuffer record) {
+    final long size = record.getLong(record.position() + LegacyObjectMetadata.OBJECT_NAME_SIZE);
+    checkArgument(size >= 0, "size must be >= 0 [%s]", size);
+    sizeClassStore(size).putRecord(record);
+  }
+
+  private ObjectStore sizeClassStore(final long size) {
+    final int sizeClass = sizeClass(size);
+    ObjectStore store = this.classes.get(sizeClass);
+    if (store == null) {
+      this.classes.compareAndSet(sizeClass, null, ObjectStores.create(this.classType));
+      store = this.classes.get(sizeClass);
+    }
+    return store;
+  }
+
+  @Override
+  public ObjectMetadata getRandom() {
+    return getRandom(0, Long.MAX_VALUE);
+  }
+
+  @Override
+  public ObjectMetadata getRandom(final SelectionPolicy policy) {
+    return getRandom(0, Long.MAX_VALUE, policy);
+  }
+
+  /**
+   * Selects a random object within the provided size range, without removing it
+   *
+   * @param minSize the minimum object size in bytes, inclusive
+   * @param maxSize the maximum object size in bytes, inclusive
+   * @return a random object within the size range, or null if none could be found
+   */
+  public ObjectMetadata getRandom(final long minSize, final long maxSize) {
+    return getRandom(minSize, maxSize, SelectionPolicies.UNIFORM);
+  }
+
+  /**
+   * Selects a random object within the provided size range using the provided policy, without
+   * removing it
+   *
+   * @param minSize the minimum object size in bytes, inclusive
+   * @param maxSize the maximum object size in bytes, inclusive
+   * @param policy the distribution to select with within a size class
+   * @return a random object within the size range, or null if none could be found
+   */
+  public ObjectMetadata getRandom(final long minSize, final long maxSize,
+      final SelectionPolicy policy) {
+    checkNotNull(policy);
+    for (int i = 0; i < MAX_SELECTION_ATTEMPTS; i++) {
+      final ObjectStore store = selectClass(minSize, maxSize);
+      if (store == null) {
+        return null;
+      }
+      final ObjectMetadata objectMetadata = store.getRandom(policy);
+      if (objectMetadata != null && inRange(objectMetadata, minSize, maxSize)) {
+        return objectMetadata;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public ObjectMetadata removeRandom() {
+    return removeRandom(0, Long.MAX_VALUE);
+  }
+
+  @Override
+  public ObjectMetadata removeRandom(final SelectionPolicy policy) {
+    return removeRandom(0, Long.MAX_VALUE, policy);
+  }
+
+  /**
+   * Selects and removes a random object within the provided size range
+   *
+   * @param minSize the minimum object size in bytes, inclusive
+   * @param maxSize the maximum object size in bytes, inclusive
+   * @return a random object within the size range, or null if none could be found
+   */
+  public ObjectMetadata removeRandom(final long minSize, final long maxSize) {
+    return removeRandom(minSize, maxSize, SelectionPolicies.UNIFORM);
+  }
+
+  /**
+   * Selects and removes a random object within the provided size range using the provided policy
+   *
+   * @param minSize the minimum object size in bytes, inclusive
+   * @param maxSize the maximum object size in bytes, inclusive
+   * @param policy the distribution to select with within a size class
+   * @return a random object within the size range, or null if none could be found
+   */
+  public ObjectMetadata removeRandom(final long minSize, final long maxSize,
+      final SelectionPolicy policy) {
+    checkNotNull(policy);
+    for (int i = 0; i < MAX_SELECTION_ATTEMPTS; i++) {
+      final ObjectStore store = selectClass(minSize, maxSize);
+      if (store == null) {
+        return null;
+      }
+      final ObjectMetadata objectMetadata = store.removeRandom(policy);
+      if (objectMetadata != null) {
+        if (inRange(objectMetadata, minSize, maxSize)) {
+          return objectMetadata;
+        }
+        // rejected from a partial size class; return it to the store
+        store.put(objectMetadata);
+      }
+    }
+    return null;
+  }
+
+  private static boolean inRange(final ObjectMetadata objectMetadata, final long minSize,
+      final long maxSize) {
+    return objectMetadata.getSize() >= minSize && objectMetadata.getSize() <= maxSize;
+  }
+
+  // selects a size class overlapping the provided range, weighted by size
+  private ObjectStore selectClass(final long minSize, final long maxSize) {
+    final long total = size(minSize, maxSize);
+    if (total == 0) {
+      return null;
+    }
+    long position = (long) (this.rand.nextDouble() * total);
+    ObjectStore selected = null;
+    for (int c = sizeClass(minSize); c <= sizeClass(maxSize); c++) {
+      final ObjectStore store = this.classes.get(c);
+      final int size = store != null ? store.size() : 0;
+      if (size > 0) {
+        selected = store;
+        if (position < size) {
+          break;
+        }
+        position -= size;
+      }
+    }
+    return selected;
+  }
+
+  @Override
+  public int size() {
+    return (int) size(0, Long.MAX_VALUE);
+  }
+
+  /**
+   * Gets the number of objects in size classes overlapping the provided size range. This is exact
+   * for ranges aligned to powers of two, and an upper bound otherwise
+   *
+   * @param minSize the minimum object size in bytes, inclusive
+   * @param maxSize the maximum object size in bytes, inclusive
+   * @return the number of objects in overlapping size classes
+   */
+  public long size(final long minSize, final long maxSize) {
+    long size = 0;
+    for (int c = sizeClass(minSize); c <= sizeClass(maxSize); c++) {
+      final ObjectStore store = this.classes.get(c);
+      if (store != null) {
+        size += store.size();
+      }
+    }
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    for (int c = 0; c < SIZE_CLASSES; c++) {
+      this.classes.set(c, null);
+    }
+  }
+
+  @Override
+  public void writeTo(final OutputStream out) throws IOException {
+    for (int c = 0; c < SIZE_CLASSES; c++) {
+      final ObjectStore store = this.classes.get(c);
+      if (store != null) {
+        store.writeTo(out);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("SizeClassedObjectStore [classType=%s, size=%s]", this.classType,
+        size());
+  }
+}
@@ -0,0 +1,413 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+
+/**
+ * A {@code CriteriaObjectStore} which holds a bounded working set of objects in memory and spills
+ * the remainder to disk. The hot tier is an in-memory store holding at most {@code maxResident}
+ * objects. Once it exceeds that bound, a random batch of its objects is moved to the cold tier,
+ * which is a dense array of {@code LegacyObjectMetadata} records split across fixed size segment
+ * files. When the hot tier falls to a quarter of its bound, records are moved back from the end of
+ * the cold tier. Each move transfers at most one batch of 4096 records, so the put or removal which
+ * crosses a bound pays a bounded cost. A refill adds records to the hot tier before truncating the
+ * cold tier, and a spill which fails returns its batch to the hot tier, so a failed move loses no
+ * objects. Memory usage is therefore fixed regardless of the number of objects under management.
+ * <p>
+ * Selection chooses a tier weighted by the number of objects it holds, which preserves uniform
+ * selection across all objects. Within the cold tier a record is read from a uniformly random
+ * position, and removal moves the last record into the position being vacated, so both are O(1)
+ * disk operations; segment files are deleted as the cold tier shrinks. Selection restricted by
+ * criteria is sampled in the cold tier, so an object which matches rarely may be found only in the
+ * hot tier. The {@code SelectionPolicy} of criteria is applied in the hot tier only.
+ * <p>
+ * Segment files are scratch space; every object is written by {@link #writeTo(OutputStream)}, and
+ * segment files are deleted by {@link #close()}.
+ *
+ * @since 1.0
+ */
+public class TieredObjectStore implements CriteriaObjectStore {
+  private static final Logger _logger = LoggerFactory.getLogger(TieredObjectStore.class);
+  private static final int RECORD_SIZE = LegacyObjectMetadata.OBJECT_SIZE;
+  public static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+  private static final int MAX_SELECTION_ATTEMPTS = 8;
+  private static final int TRANSFER_RECORDS = 1 << 12;
+  private final CriteriaObjectStore hot;
+  private final int maxResident;
+  private final File spillBase;
+  private final int segmentRecords;
+  private final ReentrantLock coldLock;
+  private final Random rand;
+  private final List<FileChannel> segments;
+  private final ByteBuffer record;
+  private final ByteBuffer transfer;
+  private volatile int coldSize;
+
+  /**
+   * Constructs an empty instance using the default segment size
+   *
+   * @param hot the in-memory store to hold the working set in
+   * @param maxResident the maximum number of objects to hold in memory
+   * @param spillBase the path prefix of segment files; segment {@code n} is written to
+   *        {@code spillBase} followed by {@code n}
+   * @throws NullPointerException if hot or spillBase is null
+   * @throws IllegalArgumentException if maxResident is less than 4
+   */
+  public TieredObjectStore(final CriteriaObjectStore hot, final int maxResident,
+      final File spillBase) {
+    this(hot, maxResident, spillBase, DEFAULT_SEGMENT_RECORDS);
+  }
+
+  TieredObjectStore(final CriteriaObjectStore hot, final int maxResident, final File spillBase,
+      final int segmentRecords) {
+    this.hot = checkNotNull(hot);
+    checkArgument(maxResident >= 4, "maxResident must be >= 4 [%s]", maxResident);
+    checkArgument(segmentRecords > 0, "segmentRecords must be > 0 [%s]", segmentRecords);
+    this.maxResident = maxResident;
+    this.spillBase = checkNotNull(spillBase);
+    this.segmentRecords = segmentRecords;
+    this.coldLock = new ReentrantLock();
+    this.rand = new Random();
+    this.segments = Lists.newArrayList();
+    this.record = ByteBuffer.allocate(RECORD_SIZE);
+    this.transfer = ByteBuffer.allocate(TRANSFER_RECORDS * RECORD_SIZE);
+    this.coldSize = 0;
+    deleteSegments();
+  }
+
+  @Override
+  public void put(final ObjectMetadata objectMetadata) {
+    this.hot.put(objectMetadata);
+    balance();
+  }
+
+  @Override
+  public void putRecord(final ByteBuffer record) {
+    this.hot.putRecord(record);
+    balance();
+  }
+
+  @Override
+  public ObjectMetadata getRandom() {
+    return getRandom(ObjectCriteria.ANY);
+  }
+
+  @Override
+  public ObjectMetadata getRandom(final SelectionPolicy policy) {
+    return getRandom(ObjectCriteria.policy(policy));
+  }
+
+  @Override
+  public ObjectMetadata getRandom(final ObjectCriteria criteria) {
+    checkNotNull(criteria);
+    if (selectCold()) {
+      final ObjectMetadata objectMetadata = selectCold(criteria, false);
+      if (objectMetadata != null) {
+        return objectMetadata;
+      }
+    }
+    final ObjectMetadata objectMetadata = this.hot.getRandom(criteria);
+    return objectMetadata != null ? objectMetadata : selectCold(criteria, false);
+  }
+
+  @Override
+  public ObjectMetadata removeRandom() {
+    return removeRandom(ObjectCriteria.ANY);
+  }
+
+  @Override
+  public ObjectMetadata removeRandom(final SelectionPolicy policy) {
+    return removeRandom(ObjectCriteria.policy(policy));
+  }
+
+  @Override
+  public ObjectMetadata removeRandom(final ObjectCriteria criteria) {
+    checkNotNull(criteria);
+    ObjectMetadata objectMetadata = null;
+    if (selectCold()) {
+      objectMetadata = selectCold(criteria, true);
+    }
+    if (objectMetadata == null) {
+      objectMetadata = this.hot.removeRandom(criteria);
+    }
+    if (objectMetadata == null) {
+      objectMetadata = selectCold(criteria, true);
+    }
+    if (objectMetadata != null) {
+      balance();
+    }
+    return objectMetadata;
+  }
+
+  // chooses the cold tier weighted by the number of objects it holds
+  private boolean selectCold() {
+    final int cold = this.coldSize;
+    if (cold == 0) {
+      return false;
+    }
+    final long total = (long) this.hot.size() + cold;
+    return (long) (this.rand.nextDouble() * total) >= total - cold;
+  }
+
+  private ObjectMetadata selectCold(final ObjectCriteria criteria, final boolean remove) {
+    this.coldLock.lock();
+    try {
+      for (int i = 0; i < MAX_SELECTION_ATTEMPTS && this.coldSize > 0; i++) {
+        final int position = this.rand.nextInt(this.coldSize);
+        final ObjectMetadata objectMetadata = readCold(position);
+        if (criteria.matches(objectMetadata)) {
+          if (remove) {
+            removeCold(position);
+          }
+          return objectMetadata;
+        }
+      }
+      return null;
+    } catch (final IOException e) {
+      throw new ObjectManagerException("Can't read spilled objects", e);
+    } finally {
+      this.coldLock.unlock();
+    }
+  }
+
+  // spills to the cold tier once the hot tier exceeds its bound, and refills from the cold tier
+  // once the hot tier falls to a quarter of its bound; the gap between the two avoids moving
+  // objects back and forth at a boundary
+  private void balance() {
+    final int hotSize = this.hot.size();
+    if (hotSize > this.maxResident) {
+      spill();
+    } else if (hotSize <= this.maxResident / 4 && this.coldSize > 0) {
+      refill();
+    }
+  }
+
+  // spills one batch towards three quarters of the bound. The hot tier can only remove objects at
+  // random, so the batch is removed before it is appended; if appending fails it is put back, and
+  // the hot tier exceeds its bound until a later spill succeeds
+  private void spill() {
+    this.coldLock.lock();
+    try {
+      final int records = Math.min(TRANSFER_RECORDS,
+          this.hot.size() - (this.maxResident - this.maxResident / 4));
+      if (records <= 0) {
+        return;
+      }
+      _logger.debug("Spilling {} objects to {}", records, this.spillBase);
+      this.transfer.clear();
+      for (int i = 0; i < records; i++) {
+        final ObjectMetadata objectMetadata = this.hot.removeRandom();
+        if (objectMetadata == null) {
+          break;
+        }
+        this.transfer.put(objectMetadata.toBytes());
+      }
+      this.transfer.flip();
+      final int removed = this.transfer.limit();
+      try {
+        appendCold(this.transfer);
+      } catch (final IOException e) {
+        this.transfer.position(0);
+        this.transfer.limit(removed);
+        while (this.transfer.hasRemaining()) {
+          this.hot.putRecord(this.transfer);
+        }
+        throw new ObjectManagerException("Can't spill objects", e);
+      }
+    } finally {
+      this.coldLock.unlock();
+    }
+  }
+
+  // refills one batch from the end of the cold tier towards half of the bound. Records are put in
+  // the hot tier before the cold tier is truncated
+  private void refill() {
+    this.coldLock.lock();
+    try {
+      final int records = Math.min(TRANSFER_RECORDS,
+          Math.min(this.coldSize, this.maxResident / 2 - this.hot.size()));
+      if (records <= 0) {
+        return;
+      }
+      _logger.debug("Refilling {} objects from {}", records, this.spillBase);
+      final int first = this.coldSize - records;
+      this.transfer.clear();
+      this.transfer.limit(records * RECORD_SIZE);
+      readCold(first, this.transfer);
+      this.transfer.flip();
+      while (this.transfer.hasRemaining()) {
+        this.hot.putRecord(this.transfer);
+      }
+      truncateCold(first);
+    } catch (final IOException e) {
+      throw new ObjectManagerException("Can't refill spilled objects", e);
+    } finally {
+      this.coldLock.unlock();
+    }
+  }
+
+  // the following methods must be called while holding coldLock; cold tier positions map to
+  // segment position / segmentRecords at offset (position % segmentRecords) * RECORD_SIZE
+  private ObjectMetadata readCold(final int position) throws IOException {
+    this.record.clear();
+    readCold(position, this.record);
+    return LegacyObjectMetadata.fromBytes(this.record.array());
+  }
+
+  private void readCold(int position, final ByteBuffer dst) throws IOException {
+    while (dst.hasRemaining()) {
+      final FileChannel segment = this.segments.get(position / this.segmentRecords);
+      final int offset = position % this.segmentRecords;
+      final int limit = dst.limit();
+      dst.limit(Math.min(limit, dst.position() + (this.segmentRecords - offset) * RECORD_SIZE));
+      final int start = dst.position();
+      while (dst.hasRemaining()) {
+        if (segment.read(dst, (long) offset * RECORD_SIZE + dst.position() - start) < 0) {
+          throw new IOException("Unexpected end of segment");
+        }
+      }
+      position += (dst.position() - start) / RECORD_SIZE;
+      dst.limit(limit);
+    }
+  }
+
+  private void writeCold(int position, final ByteBuffer src) throws IOException {
+    while (src.hasRemaining()) {
+      final int index = position / this.segmentRecords;
+      if (index == this.segments.size()) {
+        final File file = segmentFile(index);
+        this.segments.add(new RandomAccessFile(file, "rw").getChannel());
+      }
+      final FileChannel segment = this.segments.get(index);
+      final int offset = position % this.segmentRecords;
+      final int limit = src.limit();
+      src.limit(Math.min(limit, src.position() + (this.segmentRecords - offset) * RECORD_SIZE));
+      final int start = src.position();
+      while (src.hasRemaining()) {
+        segment.write(src, (long) offset * RECORD_SIZE + src.position() - start);
+      }
+      position += (src.position() - start) / RECORD_SIZE;
+      src.limit(limit);
+    }
+  }
+
+  private void appendCold(final ByteBuffer src) throws IOException {
+    final int records = src.remaining() / RECORD_SIZE;
+    writeCold(this.coldSize, src);
+    this.coldSize += records;
+  }
+
+  private void removeCold(final int position) throws IOException {
+    final int last = this.coldSize - 1;
+    if (position != last) {
+      this.record.clear();
+      readCold(last, this.record);
+      this.record.flip();
+      writeCold(position, this.record);
+    }
+    truncateCold(last);
+  }
+
+  // discards every record at or after the provided position, deleting emptied segment files
+  private void truncateCold(final int position) throws IOException {
+    this.coldSize = position;
+    final int inUse = (position + this.segmentRecords - 1) / this.segmentRecords;
+    while (this.segments.size() > inUse) {
+      final int index = this.segments.size() - 1;
+      this.segments.remove(index).close();
+      if (!segmentFile(index).delete()) {
+        _logger.warn("Can't delete segment file {}", segmentFile(index));
+      }
+    }
+  }
+
+  private File segmentFile(final int index) {
+    return new File(this.spillBase.getPath() + index);
+  }
+
+  // segment files left by a previous run are never reused, since the object file is the
+  // persistent state
+  private void deleteSegments() {
+    for (int index = 0; segmentFile(index).exists(); index++) {
+      if (!segmentFile(index).delete()) {
+        _logger.warn("Can't delete segment file {}", segmentFile(index));
+      }
+    }
+  }
+
+  /**
+   * @return the number of objects held in memory
+   */
+  public int residentSize() {
+    return this.hot.size();
+  }
+
+  @Override
+  public int size() {
+    return this.hot.size() + this.coldSize;
+  }
+
+  @Override
+  public void clear() {
+    this.coldLock.lock();
+    try {
+      this.hot.clear();
+      truncateCold(0);
+    } catch (final IOException e) {
+      throw new ObjectManagerException("Can't delete spilled objects", e);
+    } finally {
+      this.coldLock.unlock();
+    }
+  }
+
+  /**
+   * Removes all objects from this store and deletes its segment files
+   */
+  public void close() {
+    clear();
+  }
+
+  @Override
+  public void writeTo(final OutputStream out) throws IOException {
+    checkNotNull(out);
+    this.hot.writeTo(out);
+    this.coldLock.lock();
+    try {
+      final byte[] buf = new byte[TRANSFER_RECORDS * RECORD_SIZE];
+      for (int position = 0; position < this.coldSize; position += TRANSFER_RECORDS) {
+        final int records = Math.min(TRANSFER_RECORDS, this.coldSize - position);
+        final ByteBuffer dst = ByteBuffer.wrap(buf, 0, records * RECORD_SIZE);
+        readCold(position, dst);
+        out.write(buf, 0, records * RECORD_SIZE);
+      }
+    } finally {
+      this.coldLock.unlock();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("TieredObjectStore [maxResident=%s, resident=%s, spilled=%s]",
+        this.maxResident, this.hot.size(), this.coldSize);
+  }
+}
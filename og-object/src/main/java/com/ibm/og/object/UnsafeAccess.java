@@ -0,0 +1,96 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Atomic operations on native memory by absolute address, via {@code sun.misc.Unsafe}. The
+ * operations compile to the processor's atomic instructions, so on a shared memory mapping they
+ * are atomic with respect to every process which maps the same file.
+ * <p>
+ * This is the only class which refers to the proprietary api. The field holding the
+ * {@code Unsafe} instance is its only reference to the type, and the instance and the address of a
+ * direct buffer are obtained reflectively. The module is compiled with
+ * {@code -XDignore.symbol.file}, so javac does not warn that the api is internal.
+ *
+ * @since 1.0
+ */
+@SuppressWarnings("restriction")
+final class UnsafeAccess {
+  private static final Logger _logger = LoggerFactory.getLogger(UnsafeAccess.class);
+  // the one reference to the proprietary type
+  private static final sun.misc.Unsafe UNSAFE = cast(unsafe());
+  private static final long ADDRESS_OFFSET = addressOffset();
+
+  private UnsafeAccess() {}
+
+  private static Object unsafe() {
+    try {
+      final Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      return field.get(null);
+    } catch (final Exception e) {
+      _logger.warn("sun.misc.Unsafe is not available", e);
+      return null;
+    }
+  }
+
+  private static long addressOffset() {
+    if (UNSAFE == null) {
+      return -1;
+    }
+    try {
+      return UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+    } catch (final NoSuchFieldException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T cast(final Object object) {
+    return (T) object;
+  }
+
+  /**
+   * @return true if the operations of this class are available on this jvm
+   */
+  static boolean isSupported() {
+    return UNSAFE != null;
+  }
+
+  /**
+   * @return the native address of the first byte of a direct buffer
+   */
+  static long address(final ByteBuffer direct) {
+    return UNSAFE.getLong(direct, ADDRESS_OFFSET);
+  }
+
+  static long getLongVolatile(final long address) {
+    return UNSAFE.getLongVolatile(null, address);
+  }
+
+  static void putLongVolatile(final long address, final long value) {
+    UNSAFE.putLongVolatile(null, address, value);
+  }
+
+  static boolean compareAndSwapLong(final long address, final long expected, final long value) {
+    return UNSAFE.compareAndSwapLong(null, address, expected, value);
+  }
+
+  static long getAndAddLong(final long address, final long delta) {
+    long current;
+    do {
+      current = UNSAFE.getLongVolatile(null, address);
+    } while (!UNSAFE.compareAndSwapLong(null, address, current, current + delta));
+    return current;
+  }
+}
@@ -0,0 +1,127 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Lists;
+
+public class AgeOrderedObjectStoreTest {
+  private static final int OBJECTS = 3 * AgeOrderedObjectStore.BLOCK_SIZE + 7;
+
+  @Test(expected = IllegalArgumentException.class)
+  public void randomOrder() {
+    new AgeOrderedObjectStore(DeletionOrder.RANDOM);
+  }
+
+  @Test
+  public void emptyStore() {
+    final AgeOrderedObjectStore store = new AgeOrderedObjectStore(DeletionOrder.OLDEST);
+    assertThat(store.size(), is(0));
+    assertThat(store.getRandom(), nullValue());
+    assertThat(store.removeRandom(), nullValue());
+  }
+
+  @Test
+  public void oldestFirst() {
+    final AgeOrderedObjectStore store = new AgeOrderedObjectStore(DeletionOrder.OLDEST);
+    final List<ObjectMetadata> objects = fill(store);
+    for (int i = 0; i < OBJECTS; i++) {
+      assertThat(store.removeRandom(), is(objects.get(i)));
+    }
+    assertThat(store.size(), is(0));
+    assertThat(store.removeRandom(), nullValue());
+  }
+
+  @Test
+  public void newestFirst() {
+    final AgeOrderedObjectStore store = new AgeOrderedObjectStore(DeletionOrder.NEWEST);
+    final List<ObjectMetadata> objects = fill(store);
+    for (int i = OBJECTS - 1; i >= 0; i--) {
+      assertThat(store.removeRandom(), is(objects.get(i)));
+    }
+    assertThat(store.size(), is(0));
+  }
+
+  @Test
+  public void interleaved() {
+    // objects added after removals begin are still removed in age order
+    final AgeOrderedObjectStore store = new AgeOrderedObjectStore(DeletionOrder.OLDEST);
+    final List<ObjectMetadata> objects = Lists.newArrayList();
+    int removed = 0;
+    for (int i = 0; i < OBJECTS; i++) {
+      objects.add(generateId(i, -1));
+      store.put(objects.get(i));
+      if (i % 3 == 0) {
+        assertThat(store.removeRandom(), is(objects.get(removed++)));
+      }
+    }
+    while (removed < OBJECTS) {
+      assertThat(store.removeRandom(), is(objects.get(removed++)));
+    }
+  }
+
+  @Test
+  public void criteriaAndExclusion() {
+    final AgeOrderedObjectStore store = new AgeOrderedObjectStore(DeletionOrder.OLDEST);
+    final List<ObjectMetadata> objects = Lists.newArrayList();
+    for (int i = 0; i < 10; i++) {
+      objects.add(generateId(i, i % 2));
+      store.put(objects.get(i));
+    }
+    assertThat(store.removeRandom(ObjectCriteria.container(1)), is(objects.get(1)));
+    final Predicate<ObjectMetadata> exclude = Predicates.equalTo(objects.get(0));
+    assertThat(store.remove(ObjectCriteria.ANY, exclude), is(objects.get(2)));
+    assertThat(store.remove(ObjectCriteria.size(0, 0), exclude), nullValue());
+    assertThat(store.getRandom(ObjectCriteria.container(1)).getContainerSuffix(), is(1));
+
+    // passed over objects keep their order
+    final int[] remaining = {0, 3, 4, 5, 6, 7, 8, 9};
+    for (final int i : remaining) {
+      assertThat(store.removeRandom(), is(objects.get(i)));
+    }
+  }
+
+  @Test
+  public void writeTo() throws IOException {
+    final AgeOrderedObjectStore store = new AgeOrderedObjectStore(DeletionOrder.NEWEST);
+    final List<ObjectMetadata> objects = fill(store);
+    store.removeRandom();
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    for (int i = 0; i < OBJECTS - 1; i++) {
+      expected.write(objects.get(i).toBytes());
+    }
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    store.writeTo(out);
+    assertThat(out.toByteArray(), is(expected.toByteArray()));
+  }
+
+  private static List<ObjectMetadata> fill(final AgeOrderedObjectStore store) {
+    final List<ObjectMetadata> objects = Lists.newArrayList();
+    for (int i = 0; i < OBJECTS; i++) {
+      objects.add(generateId(i, -1));
+      store.put(objects.get(i));
+    }
+    return objects;
+  }
+
+  private static ObjectMetadata generateId(final long size, final int containerSuffix) {
+    return LegacyObjectMetadata.fromMetadata(UUID.randomUUID().toString().replace("-", "") + "0000",
+        size, containerSuffix);
+  }
+}
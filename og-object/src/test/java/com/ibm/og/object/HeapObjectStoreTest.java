@@ -0,0 +1,94 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+public class HeapObjectStoreTest {
+  private HeapObjectStore store;
+
+  @Before
+  public void before() {
+    this.store = new HeapObjectStore();
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullPut() {
+    this.store.put(null);
+  }
+
+  @Test
+  public void emptyStore() {
+    assertThat(this.store.size(), is(0));
+    assertThat(this.store.getRandom(), nullValue());
+    assertThat(this.store.removeRandom(), nullValue());
+  }
+
+  @Test
+  public void removeAllWithResizing() {
+    final Set<ObjectMetadata> objects = Sets.newHashSet();
+    for (int i = 0; i < 100; i++) {
+      final ObjectMetadata object = generateId(i);
+      objects.add(object);
+      this.store.put(object);
+    }
+    assertThat(this.store.size(), is(100));
+
+    final Set<ObjectMetadata> removed = Sets.newHashSet();
+    for (int i = 0; i < 100; i++) {
+      removed.add(this.store.removeRandom());
+    }
+    assertThat(removed, is(objects));
+    assertThat(this.store.size(), is(0));
+    assertThat(this.store.removeRandom(), nullValue());
+  }
+
+  @Test
+  public void skewedSelection() {
+    final ObjectMetadata first = generateId(0);
+    this.store.put(first);
+    for (int i = 1; i < 10; i++) {
+      this.store.put(generateId(i));
+    }
+    final ObjectMetadata last = generateId(10);
+    this.store.put(last);
+
+    assertThat(this.store.getRandom(SelectionPolicies.hotspot(0.01, 1.0)), is(first));
+    assertThat(this.store.removeRandom(SelectionPolicies.recency(0.01, 1.0)), is(last));
+    assertThat(this.store.size(), is(10));
+  }
+
+  @Test
+  public void writeTo() throws IOException {
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    for (int i = 0; i < 10; i++) {
+      final ObjectMetadata object = generateId(i);
+      this.store.put(object);
+      expected.write(object.toBytes());
+    }
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    this.store.writeTo(out);
+    assertThat(out.toByteArray(), is(expected.toByteArray()));
+  }
+
+  private ObjectMetadata generateId(final long size) {
+    return LegacyObjectMetadata.fromMetadata(UUID.randomUUID().toString().replace("-", "") + "0000",
+        size, -1);
+  }
+}
@@ -0,0 +1,150 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.ibm.og.util.Distribution;
+import com.ibm.og.util.Distributions;
+
+public class NamespaceObjectManagerTest {
+  private ObjectNamespace namespace;
+
+  @Before
+  public void before() {
+    this.namespace = new ObjectNamespace(11,
+        ImmutableList.<Distribution>of(Distributions.uniform(1000.0, 0.0)),
+        ImmutableList.of(1.0), 0, 3);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeCount() {
+    new NamespaceObjectManager(this.namespace, -1);
+  }
+
+  @Test(expected = ObjectManagerException.class)
+  public void emptyGet() {
+    new NamespaceObjectManager(this.namespace, 0).get();
+  }
+
+  @Test(expected = ObjectManagerException.class)
+  public void pendingWritesAreNotRead() {
+    final NamespaceObjectManager manager = new NamespaceObjectManager(this.namespace, 0);
+    manager.next();
+    manager.get();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void addForeignObject() {
+    new NamespaceObjectManager(this.namespace, 0)
+        .add(LegacyObjectMetadata.fromMetadata("0123456789abcdef0123456789abcdef0000", 1, -1));
+  }
+
+  @Test
+  public void existingObjects() {
+    final NamespaceObjectManager manager = new NamespaceObjectManager(this.namespace, 10);
+    assertThat(manager.getCurrentObjectCount(), is(10L));
+    final ObjectMetadata object = manager.get();
+    assertThat(this.namespace.index(object.getName()), lessThan(10L));
+    assertThat(object.getSize(), is(1000L));
+    manager.getComplete(object);
+    assertThat(manager.next(), is(10L));
+    assertThat(manager.getWatermark(), is(11L));
+  }
+
+  @Test
+  public void deleteEntireNamespace() {
+    // spans several bitmap pages; probes alone would fail long before the last objects
+    final long count = 140000;
+    final NamespaceObjectManager manager = new NamespaceObjectManager(this.namespace, count);
+    final Set<String> removed = Sets.newHashSet();
+    for (long i = 0; i < count; i++) {
+      if (i == count - 1) {
+        manager.getComplete(manager.get());
+      }
+      removed.add(manager.remove().getName());
+    }
+    assertThat(removed.size(), is((int) count));
+    assertThat(manager.getCurrentObjectCount(), is(0L));
+  }
+
+  @Test(expected = ObjectManagerException.class)
+  public void deleteBeyondNamespace() {
+    final NamespaceObjectManager manager = new NamespaceObjectManager(this.namespace, 70000);
+    for (int i = 0; i <= 70000; i++) {
+      manager.remove();
+    }
+  }
+
+  @Test
+  public void writeReadDelete() {
+    final NamespaceObjectManager manager = new NamespaceObjectManager(this.namespace, 0);
+    final long index = manager.next();
+    assertThat(manager.getCurrentObjectCount(), is(0L));
+    manager.add(this.namespace.metadata(index));
+    assertThat(manager.getCurrentObjectCount(), is(1L));
+
+    final ObjectMetadata read = manager.get();
+    assertThat(read.getName(), is(this.namespace.name(index)));
+    assertThat(read.getContainerSuffix(), is(this.namespace.containerSuffix(index)));
+    manager.getComplete(read);
+
+    final ObjectMetadata removed = manager.remove();
+    assertThat(removed.getName(), is(this.namespace.name(index)));
+    assertThat(manager.getCurrentObjectCount(), is(0L));
+
+    // overwrites remove an object and then add it back
+    manager.add(removed);
+    assertThat(manager.getCurrentObjectCount(), is(1L));
+  }
+
+  @Test(expected = ObjectManagerException.class)
+  public void readObjectsAreNotRemoved() {
+    final NamespaceObjectManager manager = new NamespaceObjectManager(this.namespace, 1);
+    manager.get();
+    try {
+      manager.remove();
+    } finally {
+      // every probe and then the walk of the deletion bitmap collide with the read
+      assertThat(manager.getStatistics().get(ObjectManagerCounter.READING_COLLISIONS),
+          is(65L));
+    }
+  }
+
+  @Test
+  public void removeEach() {
+    final NamespaceObjectManager manager = new NamespaceObjectManager(this.namespace, 4);
+    final Set<String> removed = Sets.newHashSet();
+    // selection is random, so probe until every object has been removed
+    while (removed.size() < 4) {
+      try {
+        assertThat(removed.add(manager.remove().getName()), is(true));
+      } catch (final ObjectManagerException e) {
+        // every probe hit an object which was already removed
+      }
+    }
+    assertThat(manager.getCurrentObjectCount(), is(0L));
+  }
+
+  @Test
+  public void criteria() {
+    final NamespaceObjectManager manager = new NamespaceObjectManager(this.namespace, 100);
+    for (int i = 0; i < 20; i++) {
+      final ObjectMetadata object = manager.get(ObjectCriteria.container(2));
+      assertThat(object.getContainerSuffix(), is(2));
+      manager.getComplete(object);
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Sets;
+
+public class ObjectFileLoaderTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private File file;
+
+  @Before
+  public void before() {
+    this.file = new File(this.folder.getRoot(), "id_0.object");
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullFile() {
+    new ObjectFileLoader(null, new HeapObjectStore(), 1);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullObjects() {
+    new ObjectFileLoader(this.file, null, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroThreads() {
+    new ObjectFileLoader(this.file, new HeapObjectStore(), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroChunkRecords() {
+    new ObjectFileLoader(this.file, new HeapObjectStore(), 1, 0);
+  }
+
+  @Test
+  public void missingFile() throws InterruptedException {
+    final ObjectFileLoader loader = new ObjectFileLoader(this.file, new HeapObjectStore(), 2);
+    loader.start();
+    loader.awaitComplete();
+    assertThat(loader.getResident(), is(0L));
+    assertThat(loader.getFailure(), nullValue());
+  }
+
+  @Test
+  public void loadHeap() throws IOException, InterruptedException {
+    load(new HeapObjectStore());
+  }
+
+  @Test
+  public void loadOffHeap() throws IOException, InterruptedException {
+    load(new OffHeapObjectStore(16));
+  }
+
+  @Test
+  public void loadSharded() throws IOException, InterruptedException {
+    load(new ShardedObjectStore(ObjectStoreType.OFFHEAP));
+  }
+
+  @Test
+  public void truncatedRecordIgnored() throws IOException, InterruptedException {
+    final Set<ObjectMetadata> objects = writeObjects(10);
+    final OutputStream out = new FileOutputStream(this.file, true);
+    out.write(new byte[LegacyObjectMetadata.OBJECT_SIZE - 1]);
+    out.close();
+
+    final ObjectStore store = new HeapObjectStore();
+    final ObjectFileLoader loader = new ObjectFileLoader(this.file, store, 2, 3);
+    loader.start();
+    loader.awaitComplete();
+    assertThat(loader.getTotal(), is(10L));
+    assertThat(drain(store), is(objects));
+  }
+
+  @Test
+  public void awaitResident() throws IOException, InterruptedException {
+    writeObjects(1000);
+    final ObjectStore store = new HeapObjectStore();
+    final ObjectFileLoader loader = new ObjectFileLoader(this.file, store, 1, 10);
+    loader.start();
+    loader.awaitResident(100);
+    assertThat(loader.getResident(), greaterThanOrEqualTo(100L));
+    assertThat(store.size(), greaterThanOrEqualTo(100));
+    loader.awaitComplete();
+    assertThat(store.size(), is(1000));
+  }
+
+  @Test
+  public void loadV2() throws IOException, InterruptedException {
+    final Set<ObjectMetadata> objects = writeObjects(1000, ObjectFileFormat.V2);
+    // chunks of two blocks, the last of which is partially filled
+    final ObjectStore store = new HeapObjectStore();
+    final ObjectFileLoader loader =
+        new ObjectFileLoader(this.file, store, 4, 2 * ObjectFiles.RECORDS_PER_BLOCK);
+    loader.start();
+    loader.awaitComplete();
+    assertThat(loader.getTotal(), is(1000L));
+    assertThat(loader.getFailure(), nullValue());
+    assertThat(loader.getResident(), is(1000L));
+    assertThat(drain(store), is(objects));
+  }
+
+  @Test
+  public void corruptBlockFails() throws IOException, InterruptedException {
+    writeObjects(1000, ObjectFileFormat.V2);
+    final RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+    raf.seek(ObjectFiles.blockOffset(3) + 100);
+    final int b = raf.read();
+    raf.seek(ObjectFiles.blockOffset(3) + 100);
+    raf.write(b ^ 0xFF);
+    raf.close();
+
+    final ObjectFileLoader loader = new ObjectFileLoader(this.file, new HeapObjectStore(), 2);
+    loader.start();
+    loader.awaitComplete();
+    assertThat(loader.getFailure(), instanceOf(IOException.class));
+  }
+
+  @Test
+  public void corruptHeaderFails() throws IOException, InterruptedException {
+    writeObjects(10, ObjectFileFormat.V2);
+    final RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+    raf.seek(30);
+    raf.write(0xFF);
+    raf.close();
+
+    final ObjectFileLoader loader = new ObjectFileLoader(this.file, new HeapObjectStore(), 2);
+    loader.start();
+    loader.awaitComplete();
+    assertThat(loader.getFailure(), instanceOf(IOException.class));
+  }
+
+  private void load(final ObjectStore store) throws IOException, InterruptedException {
+    final Set<ObjectMetadata> objects = writeObjects(1000);
+    // chunks which are not a multiple of the publishing batch size
+    final ObjectFileLoader loader = new ObjectFileLoader(this.file, store, 4, 33);
+    loader.start();
+    loader.awaitComplete();
+    assertThat(loader.getFailure(), nullValue());
+    assertThat(loader.getResident(), is(1000L));
+    assertThat(drain(store), is(objects));
+  }
+
+  private Set<ObjectMetadata> writeObjects(final int count) throws IOException {
+    return writeObjects(count, ObjectFileFormat.V1);
+  }
+
+  private Set<ObjectMetadata> writeObjects(final int count, final ObjectFileFormat format)
+      throws IOException {
+    final Set<ObjectMetadata> objects = Sets.newHashSet();
+    final OutputStream out = ObjectFileFormat.V1 == format ? new FileOutputStream(this.file)
+        : new ObjectFileWriter(this.file, format);
+    for (int i = 0; i < count; i++) {
+      final ObjectMetadata object = LegacyObjectMetadata.fromMetadata(
+          UUID.randomUUID().toString().replace("-", "") + "0000", i * 1024, i % 4 - 1);
+      objects.add(object);
+      out.write(object.toBytes());
+    }
+    out.close();
+    return objects;
+  }
+
+  private Set<ObjectMetadata> drain(final ObjectStore store) {
+    final Set<ObjectMetadata> objects = Sets.newHashSet();
+    for (ObjectMetadata object = store.removeRandom(); object != null; object =
+        store.removeRandom()) {
+      objects.add(object);
+    }
+    return objects;
+  }
+}
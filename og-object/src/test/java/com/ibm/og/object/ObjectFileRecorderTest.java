@@ -0,0 +1,110 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+public class ObjectFileRecorderTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private String directory;
+
+  @Before
+  public void before() {
+    this.directory = this.folder.getRoot().toString();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void emptyPrefix() {
+    new ObjectFileRecorder(this.directory, "", 10, ObjectFileFormat.V1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroMaxObjects() {
+    new ObjectFileRecorder(this.directory, "id_", 0, ObjectFileFormat.V1);
+  }
+
+  @Test
+  public void splitsObjectFiles() throws IOException {
+    final ObjectFileRecorder recorder =
+        new ObjectFileRecorder(this.directory, "id_", 4000, ObjectFileFormat.V2);
+    final byte[] expected = new byte[10000 * LegacyObjectMetadata.OBJECT_SIZE];
+    for (int i = 0; i < 10000; i++) {
+      final ObjectMetadata object = object(i);
+      recorder.add(object);
+      System.arraycopy(object.toBytes(), 0, expected, i * LegacyObjectMetadata.OBJECT_SIZE,
+          LegacyObjectMetadata.OBJECT_SIZE);
+    }
+    // nothing is visible until the recorder is closed, other than complete object files
+    assertThat(new File(this.directory, "id_2.object").exists(), is(false));
+    recorder.close();
+    recorder.close();
+    assertThat(recorder.getRecordCount(), is(10000L));
+    assertThat(recorder.getFileCount(), is(3));
+
+    final byte[] actual = new byte[expected.length];
+    int offset = 0;
+    for (int i = 0; i < 3; i++) {
+      final File f = new File(this.directory, "id_" + i + ".object");
+      assertThat(ObjectFiles.format(f), is(ObjectFileFormat.V2));
+      assertThat(ObjectFiles.count(f), is(i < 2 ? 4000L : 2000L));
+      final InputStream in = ObjectFiles.open(f);
+      final byte[] records = ByteStreams.toByteArray(in);
+      in.close();
+      System.arraycopy(records, 0, actual, offset, records.length);
+      offset += records.length;
+    }
+    assertThat(actual, is(expected));
+  }
+
+  @Test
+  public void startsAfterExistingObjectFiles() throws IOException {
+    Files.touch(new File(this.directory, "id_0.object"));
+    Files.touch(new File(this.directory, "id_3.object"));
+    Files.touch(new File(this.directory, "other_7.object"));
+    final ObjectFileRecorder recorder =
+        new ObjectFileRecorder(this.directory, "id_", 10, ObjectFileFormat.V1);
+    recorder.add(object(0));
+    recorder.close();
+    assertThat(new File(this.directory, "id_4.object").length(),
+        is((long) LegacyObjectMetadata.OBJECT_SIZE));
+  }
+
+  @Test
+  public void emptyWritesNoObjectFile() throws IOException {
+    final ObjectFileRecorder recorder =
+        new ObjectFileRecorder(this.directory, "id_", 10, ObjectFileFormat.V1);
+    recorder.close();
+    assertThat(this.folder.getRoot().list().length, is(0));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void addAfterClose() throws IOException {
+    final ObjectFileRecorder recorder =
+        new ObjectFileRecorder(this.directory, "id_", 10, ObjectFileFormat.V1);
+    recorder.close();
+    recorder.add(object(0));
+  }
+
+  private static ObjectMetadata object(final int i) {
+    return LegacyObjectMetadata.fromMetadata(UUID.randomUUID().toString().replace("-", "") + "0000",
+        i, i % 3 - 1);
+  }
+}
@@ -0,0 +1,218 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+public class ObjectFilesTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private File file;
+
+  @Before
+  public void before() {
+    this.file = new File(this.folder.getRoot(), "id_0.object");
+  }
+
+  @Test
+  public void recordsPerBlock() {
+    assertThat(ObjectFiles.RECORDS_PER_BLOCK, is(136));
+  }
+
+  @Test
+  public void missingFile() throws IOException {
+    assertThat(ObjectFiles.format(this.file), is(ObjectFileFormat.V1));
+    assertThat(ObjectFiles.count(this.file), is(0L));
+  }
+
+  @Test
+  public void v1RoundTrip() throws IOException {
+    final byte[] records = records(300);
+    write(ObjectFileFormat.V1, records);
+    assertThat(this.file.length(), is((long) records.length));
+    assertThat(ObjectFiles.format(this.file), is(ObjectFileFormat.V1));
+    assertThat(ObjectFiles.count(this.file), is(300L));
+    assertThat(read(), is(records));
+  }
+
+  @Test
+  public void v2RoundTrip() throws IOException {
+    final byte[] records = records(300);
+    write(ObjectFileFormat.V2, records);
+    // a header and three blocks, the last partially filled
+    assertThat(this.file.length(),
+        is((long) ObjectFiles.HEADER_SIZE + 3 * ObjectFiles.BLOCK_SIZE));
+    assertThat(ObjectFiles.format(this.file), is(ObjectFileFormat.V2));
+    assertThat(ObjectFiles.count(this.file), is(300L));
+    assertThat(ObjectFiles.readHeader(this.file).getBlockCount(), is(3L));
+    assertThat(read(), is(records));
+  }
+
+  @Test
+  public void v2Empty() throws IOException {
+    write(ObjectFileFormat.V2, new byte[0]);
+    assertThat(this.file.length(), is((long) ObjectFiles.HEADER_SIZE));
+    assertThat(ObjectFiles.count(this.file), is(0L));
+    assertThat(read(), is(new byte[0]));
+  }
+
+  @Test
+  public void v2ByteAtATime() throws IOException {
+    final byte[] records = records(140);
+    final OutputStream out = new ObjectFileWriter(this.file, ObjectFileFormat.V2);
+    for (final byte b : records) {
+      out.write(b);
+    }
+    out.close();
+    final InputStream in = ObjectFiles.open(this.file);
+    final ByteArrayOutputStream read = new ByteArrayOutputStream();
+    for (int b = in.read(); b >= 0; b = in.read()) {
+      read.write(b);
+    }
+    in.close();
+    assertThat(read.toByteArray(), is(records));
+  }
+
+  @Test
+  public void readerPassesThroughV1Streams() throws IOException {
+    final byte[] records = records(3);
+    final ObjectFileReader in = new ObjectFileReader(new ByteArrayInputStream(records));
+    assertThat(in.getFormat(), is(ObjectFileFormat.V1));
+    assertThat(in.getRecordCount(), is(-1L));
+    assertThat(ByteStreams.toByteArray(in), is(records));
+  }
+
+  @Test(expected = IOException.class)
+  public void corruptBlock() throws IOException {
+    write(ObjectFileFormat.V2, records(300));
+    corrupt(ObjectFiles.blockOffset(1) + 7);
+    read();
+  }
+
+  @Test(expected = IOException.class)
+  public void corruptChecksum() throws IOException {
+    write(ObjectFileFormat.V2, records(300));
+    corrupt(ObjectFiles.blockOffset(2) - 1);
+    read();
+  }
+
+  @Test(expected = IOException.class)
+  public void corruptHeader() throws IOException {
+    write(ObjectFileFormat.V2, records(300));
+    corrupt(28);
+    ObjectFiles.count(this.file);
+  }
+
+  @Test(expected = IOException.class)
+  public void truncatedBlock() throws IOException {
+    write(ObjectFileFormat.V2, records(300));
+    final RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+    raf.setLength(raf.length() - 1);
+    raf.close();
+    read();
+  }
+
+  @Test
+  public void partialRecordLeavesTargetUnchanged() throws IOException {
+    final byte[] records = records(10);
+    write(ObjectFileFormat.V2, records);
+    final OutputStream out = new ObjectFileWriter(this.file, ObjectFileFormat.V2);
+    out.write(records(2), 0, LegacyObjectMetadata.OBJECT_SIZE + 1);
+    try {
+      out.close();
+    } catch (final IOException e) {
+      // expected
+    }
+    assertThat(read(), is(records));
+    assertThat(tmp().exists(), is(false));
+  }
+
+  @Test
+  public void abortLeavesTargetUnchanged() throws IOException {
+    final byte[] records = records(10);
+    write(ObjectFileFormat.V1, records);
+    final ObjectFileWriter out = new ObjectFileWriter(this.file, ObjectFileFormat.V2);
+    out.write(records(5));
+    // nothing is visible at the target until the writer is closed
+    assertThat(Files.toByteArray(this.file), is(records));
+    out.abort();
+    assertThat(Files.toByteArray(this.file), is(records));
+    assertThat(tmp().exists(), is(false));
+  }
+
+  @Test
+  public void convertV1ToV2InPlace() throws IOException {
+    final byte[] records = records(500);
+    final OutputStream v1 = new FileOutputStream(this.file);
+    v1.write(records);
+    v1.close();
+
+    final InputStream in = ObjectFiles.open(this.file);
+    final OutputStream out = new ObjectFileWriter(this.file, ObjectFileFormat.V2);
+    ByteStreams.copy(in, out);
+    in.close();
+    out.close();
+    assertThat(ObjectFiles.format(this.file), is(ObjectFileFormat.V2));
+    assertThat(read(), is(records));
+  }
+
+  private File tmp() {
+    return new File(this.file.getPath() + ".tmp");
+  }
+
+  private void write(final ObjectFileFormat format, final byte[] records) throws IOException {
+    final OutputStream out = new ObjectFileWriter(this.file, format);
+    out.write(records);
+    out.close();
+  }
+
+  private byte[] read() throws IOException {
+    final InputStream in = ObjectFiles.open(this.file);
+    try {
+      return ByteStreams.toByteArray(in);
+    } finally {
+      in.close();
+    }
+  }
+
+  private void corrupt(final long offset) throws IOException {
+    final RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+    raf.seek(offset);
+    final int b = raf.read();
+    raf.seek(offset);
+    raf.write(b ^ 0xFF);
+    raf.close();
+  }
+
+  private static byte[] records(final int count) {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int i = 0; i < count; i++) {
+      final ObjectMetadata object = LegacyObjectMetadata.fromMetadata(
+          UUID.randomUUID().toString().replace("-", "") + "0000", i * 1024, i % 4 - 1);
+      out.write(object.toBytes(), 0, LegacyObjectMetadata.OBJECT_SIZE);
+    }
+    return out.toByteArray();
+  }
+}
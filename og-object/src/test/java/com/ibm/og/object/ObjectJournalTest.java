@@ -0,0 +1,209 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class ObjectJournalTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private File snapshot;
+
+  @Before
+  public void before() {
+    this.snapshot = new File(this.folder.getRoot(), "id_0.object");
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullSnapshot() throws IOException {
+    new ObjectJournal(null);
+  }
+
+  @Test
+  public void addRemoveClose() throws IOException {
+    final ObjectMetadata existing = generateId();
+    writeSnapshot(existing);
+
+    final ObjectMetadata added = generateId();
+    final ObjectMetadata transient_ = generateId();
+    final ObjectJournal journal = new ObjectJournal(this.snapshot);
+    journal.add(added);
+    journal.add(transient_);
+    journal.remove(transient_);
+    journal.remove(existing);
+    journal.close();
+
+    assertThat(readSnapshot(), is((Set<ObjectMetadata>) Sets.newHashSet(added)));
+    assertThat(ObjectJournal.journalFile(this.snapshot).exists(), is(false));
+  }
+
+  @Test
+  public void checkpointPreservesSnapshotUntilCompaction() throws IOException {
+    final ObjectMetadata existing = generateId();
+    writeSnapshot(existing);
+
+    final ObjectJournal journal = new ObjectJournal(this.snapshot);
+    journal.add(generateId());
+    journal.checkpoint();
+    // a small journal is flushed but not compacted
+    assertThat(readSnapshot(), is((Set<ObjectMetadata>) Sets.newHashSet(existing)));
+    assertThat(ObjectJournal.journalFile(this.snapshot).length() > 0, is(true));
+    journal.close();
+    assertThat(readSnapshot().size(), is(2));
+  }
+
+  @Test
+  public void recoverTruncatedJournal() throws IOException {
+    final ObjectMetadata existing = generateId();
+    final ObjectMetadata added = generateId();
+    writeSnapshot(existing);
+
+    final OutputStream out = new FileOutputStream(ObjectJournal.journalFile(this.snapshot));
+    out.write(ObjectJournal.REMOVE);
+    out.write(existing.toBytes());
+    out.write(ObjectJournal.ADD);
+    out.write(added.toBytes());
+    // simulate a crash partway through writing an entry
+    out.write(ObjectJournal.ADD);
+    out.write(new byte[10]);
+    out.close();
+
+    ObjectJournal.recover(this.snapshot);
+    assertThat(readSnapshot(), is((Set<ObjectMetadata>) Sets.newHashSet(added)));
+    assertThat(ObjectJournal.journalFile(this.snapshot).exists(), is(false));
+  }
+
+  @Test
+  public void partitionedCompactionPreservesOrder() throws IOException {
+    final List<ObjectMetadata> expected = Lists.newArrayList();
+    final List<ObjectMetadata> existing = Lists.newArrayList();
+    for (int i = 0; i < 100; i++) {
+      existing.add(generateId());
+    }
+    writeSnapshot(existing.toArray(new ObjectMetadata[existing.size()]));
+
+    final OutputStream out = new FileOutputStream(ObjectJournal.journalFile(this.snapshot));
+    for (int i = 0; i < existing.size(); i++) {
+      if (i % 3 == 0) {
+        out.write(ObjectJournal.REMOVE);
+        out.write(existing.get(i).toBytes());
+      } else {
+        expected.add(existing.get(i));
+      }
+    }
+    final List<ObjectMetadata> added = Lists.newArrayList();
+    for (int i = 0; i < 100; i++) {
+      final ObjectMetadata object = generateId();
+      added.add(object);
+      out.write(ObjectJournal.ADD);
+      out.write(object.toBytes());
+    }
+    for (int i = 0; i < added.size(); i++) {
+      if (i % 2 == 0) {
+        out.write(ObjectJournal.REMOVE);
+        out.write(added.get(i).toBytes());
+      } else {
+        expected.add(added.get(i));
+      }
+    }
+    out.close();
+
+    // a bound of 10 changes splits the compaction into many partitions
+    ObjectJournal.compact(this.snapshot, ObjectJournal.journalFile(this.snapshot),
+        ObjectFileFormat.V1, 10);
+    assertThat(readSnapshotList(), is(expected));
+    assertThat(this.folder.getRoot().list().length, is(1));
+  }
+
+  @Test
+  public void brokenJournal() throws Exception {
+    final File full = new File("/dev/full");
+    Assume.assumeTrue(full.exists());
+    final ObjectMetadata existing = generateId();
+    writeSnapshot(existing);
+    // writes to the journal fail once flushed
+    final Process ln = new ProcessBuilder("ln", "-s", full.getPath(),
+        ObjectJournal.journalFile(this.snapshot).getPath()).start();
+    Assume.assumeTrue(ln.waitFor() == 0);
+
+    final ObjectJournal journal = new ObjectJournal(this.snapshot);
+    journal.add(generateId());
+    assertThrows(journal, "checkpoint");
+    assertThrows(journal, "add");
+    assertThrows(journal, "remove");
+    assertThrows(journal, "close");
+    // a broken journal is never compacted into the snapshot
+    assertThat(readSnapshot(), is((Set<ObjectMetadata>) Sets.newHashSet(existing)));
+  }
+
+  private void assertThrows(final ObjectJournal journal, final String operation)
+      throws IOException {
+    try {
+      if ("checkpoint".equals(operation)) {
+        journal.checkpoint();
+      } else if ("add".equals(operation)) {
+        journal.add(generateId());
+      } else if ("remove".equals(operation)) {
+        journal.remove(generateId());
+      } else {
+        journal.close();
+      }
+    } catch (final ObjectManagerException e) {
+      return;
+    }
+    fail(String.format("%s did not throw on a broken journal", operation));
+  }
+
+  private void writeSnapshot(final ObjectMetadata... objects) throws IOException {
+    final OutputStream out = new FileOutputStream(this.snapshot);
+    for (final ObjectMetadata object : objects) {
+      out.write(object.toBytes());
+    }
+    out.close();
+  }
+
+  private Set<ObjectMetadata> readSnapshot() throws IOException {
+    return Sets.newHashSet(readSnapshotList());
+  }
+
+  private List<ObjectMetadata> readSnapshotList() throws IOException {
+    final List<ObjectMetadata> objects = Lists.newArrayList();
+    final InputStream in = new BufferedInputStream(new FileInputStream(this.snapshot));
+    final byte[] record = new byte[LegacyObjectMetadata.OBJECT_SIZE];
+    while (in.read(record) == record.length) {
+      objects.add(LegacyObjectMetadata.fromBytes(record));
+    }
+    in.close();
+    return objects;
+  }
+
+  private ObjectMetadata generateId() {
+    return LegacyObjectMetadata.fromMetadata(UUID.randomUUID().toString().replace("-", "") + "0000",
+        0, -1);
+  }
+}
@@ -0,0 +1,81 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.Test;
+
+public class ObjectManagerStatisticsTest {
+  @Test
+  public void add() {
+    final ObjectManagerStatistics statistics = new ObjectManagerStatistics();
+    statistics.add(ObjectManagerCounter.PERSISTS, 1);
+    statistics.add(ObjectManagerCounter.PERSISTS, 2);
+    assertThat(statistics.get(ObjectManagerCounter.PERSISTS), is(3L));
+    assertThat(statistics.get(ObjectManagerCounter.PERSIST_BYTES), is(0L));
+  }
+
+  @Test
+  public void addAll() {
+    final ObjectManagerStatistics first = new ObjectManagerStatistics();
+    first.add(ObjectManagerCounter.READING_COLLISIONS, 2);
+    final ObjectManagerStatistics second = new ObjectManagerStatistics();
+    second.add(ObjectManagerCounter.READING_COLLISIONS, 3);
+    second.add(ObjectManagerCounter.PERSIST_BYTES, 10);
+    first.addAll(second);
+    assertThat(first.get(ObjectManagerCounter.READING_COLLISIONS), is(5L));
+    assertThat(first.get(ObjectManagerCounter.PERSIST_BYTES), is(10L));
+  }
+
+  @Test
+  public void uncontendedLock() {
+    final ObjectManagerStatistics statistics = new ObjectManagerStatistics();
+    final ReentrantLock lock = new ReentrantLock(true);
+    statistics.lock(lock, ObjectManagerCounter.OBJECTS_LOCK_WAITS,
+        ObjectManagerCounter.OBJECTS_LOCK_WAIT_NANOS);
+    assertThat(lock.isHeldByCurrentThread(), is(true));
+    lock.unlock();
+    assertThat(statistics.get(ObjectManagerCounter.OBJECTS_LOCK_WAITS), is(0L));
+    assertThat(statistics.get(ObjectManagerCounter.OBJECTS_LOCK_WAIT_NANOS), is(0L));
+  }
+
+  @Test
+  public void contendedLock() throws InterruptedException {
+    final ObjectManagerStatistics statistics = new ObjectManagerStatistics();
+    final ReentrantLock lock = new ReentrantLock();
+    final CountDownLatch locked = new CountDownLatch(1);
+    final Thread holder = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        lock.lock();
+        try {
+          locked.countDown();
+          Thread.sleep(50);
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          lock.unlock();
+        }
+      }
+    });
+    holder.start();
+    locked.await();
+    statistics.lock(lock, ObjectManagerCounter.PERSIST_LOCK_WAITS,
+        ObjectManagerCounter.PERSIST_LOCK_WAIT_NANOS);
+    lock.unlock();
+    holder.join();
+    assertThat(statistics.get(ObjectManagerCounter.PERSIST_LOCK_WAITS), is(1L));
+    assertThat(statistics.get(ObjectManagerCounter.PERSIST_LOCK_WAIT_NANOS),
+        greaterThan(TimeUnit.MILLISECONDS.toNanos(10)));
+  }
+}
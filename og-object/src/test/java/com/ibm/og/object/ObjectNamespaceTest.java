@@ -0,0 +1,117 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.ibm.og.util.Distribution;
+import com.ibm.og.util.Distributions;
+
+public class ObjectNamespaceTest {
+  private static final List<Distribution> SIZES =
+      ImmutableList.of(Distributions.uniform(1000.0, 500.0));
+  private static final List<Double> WEIGHTS = ImmutableList.of(1.0);
+
+  @Test(expected = IllegalArgumentException.class)
+  public void emptySizes() {
+    new ObjectNamespace(1, ImmutableList.<Distribution>of(), ImmutableList.<Double>of());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void mismatchedWeights() {
+    new ObjectNamespace(1, SIZES, ImmutableList.of(1.0, 2.0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidContainerSuffixRange() {
+    new ObjectNamespace(1, SIZES, WEIGHTS, 5, 4);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeIndex() {
+    new ObjectNamespace(1, SIZES, WEIGHTS).name(-1);
+  }
+
+  @Test
+  public void deterministic() {
+    final ObjectNamespace first = new ObjectNamespace(42, SIZES, WEIGHTS, 0, 9);
+    final ObjectNamespace second = new ObjectNamespace(42, SIZES, WEIGHTS, 0, 9);
+    for (long i = 0; i < 1000; i++) {
+      assertThat(second.name(i), is(first.name(i)));
+      assertThat(second.size(i), is(first.size(i)));
+      assertThat(second.containerSuffix(i), is(first.containerSuffix(i)));
+    }
+  }
+
+  @Test
+  public void seedsDiffer() {
+    final ObjectNamespace first = new ObjectNamespace(1, SIZES, WEIGHTS);
+    final ObjectNamespace second = new ObjectNamespace(2, SIZES, WEIGHTS);
+    assertThat(second.name(0), not(first.name(0)));
+    assertThat(second.index(first.name(0)), is(-1L));
+  }
+
+  @Test
+  public void nameRoundTrip() {
+    final ObjectNamespace namespace = new ObjectNamespace(7, SIZES, WEIGHTS);
+    final Set<String> names = Sets.newHashSet();
+    for (final long i : new long[] {0, 1, 2, 1000, 123456789, Long.MAX_VALUE - 1}) {
+      final String name = namespace.name(i);
+      assertThat(name.length(), is(36));
+      assertThat(namespace.index(name), is(i));
+      assertThat(names.add(name), is(true));
+      // names must be encodable as legacy object metadata
+      assertThat(namespace.metadata(i).getName(), is(name));
+    }
+  }
+
+  @Test
+  public void foreignNames() {
+    final ObjectNamespace namespace = new ObjectNamespace(7, SIZES, WEIGHTS);
+    assertThat(namespace.index("object"), is(-1L));
+    assertThat(namespace.index("0123456789abcdef0123456789abcdef0000"), is(-1L));
+    assertThat(namespace.index("zzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzz0000"), is(-1L));
+  }
+
+  @Test
+  public void sizesAndContainers() {
+    final ObjectNamespace namespace = new ObjectNamespace(3, SIZES, WEIGHTS, 2, 4);
+    final Set<Integer> suffixes = Sets.newHashSet();
+    for (long i = 0; i < 1000; i++) {
+      assertThat(namespace.size(i), greaterThanOrEqualTo(500L));
+      assertThat(namespace.size(i), lessThanOrEqualTo(1500L));
+      suffixes.add(namespace.containerSuffix(i));
+    }
+    assertThat(suffixes, is((Set<Integer>) Sets.newHashSet(2, 3, 4)));
+    assertThat(new ObjectNamespace(3, SIZES, WEIGHTS).containerSuffix(0), is(-1));
+  }
+
+  @Test
+  public void weightedSizes() {
+    final List<Distribution> sizes =
+        ImmutableList.of(Distributions.uniform(100.0, 0.0), Distributions.uniform(200.0, 0.0));
+    final ObjectNamespace namespace = new ObjectNamespace(3, sizes, ImmutableList.of(3.0, 1.0));
+    int small = 0;
+    for (long i = 0; i < 10000; i++) {
+      if (namespace.size(i) == 100) {
+        small++;
+      }
+    }
+    assertThat(small, greaterThanOrEqualTo(7000));
+    assertThat(small, lessThanOrEqualTo(8000));
+  }
+}
@@ -0,0 +1,155 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+public class OffHeapObjectStoreTest {
+  private OffHeapObjectStore store;
+
+  @Before
+  public void before() {
+    // small chunks so that tests exercise chunk boundaries
+    this.store = new OffHeapObjectStore(4);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroChunkRecords() {
+    new OffHeapObjectStore(0);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullPut() {
+    this.store.put(null);
+  }
+
+  @Test
+  public void emptyStore() {
+    assertThat(this.store.size(), is(0));
+    assertThat(this.store.getRandom(), nullValue());
+    assertThat(this.store.removeRandom(), nullValue());
+  }
+
+  @Test
+  public void putGet() {
+    final ObjectMetadata object = generateId(10, 3);
+    this.store.put(object);
+    assertThat(this.store.size(), is(1));
+
+    final ObjectMetadata selected = this.store.getRandom();
+    assertThat(selected, is(object));
+    assertThat(selected.getName(), is(object.getName()));
+    assertThat(selected.getSize(), is(10L));
+    assertThat(selected.getContainerSuffix(), is(3));
+    assertThat(this.store.size(), is(1));
+  }
+
+  @Test
+  public void removeAllAcrossChunks() {
+    final Set<ObjectMetadata> objects = Sets.newHashSet();
+    for (int i = 0; i < 17; i++) {
+      final ObjectMetadata object = generateId(i, -1);
+      objects.add(object);
+      this.store.put(object);
+    }
+    assertThat(this.store.size(), is(17));
+
+    final Set<ObjectMetadata> removed = Sets.newHashSet();
+    for (int i = 0; i < 17; i++) {
+      removed.add(this.store.removeRandom());
+    }
+    assertThat(removed, is(objects));
+    assertThat(this.store.size(), is(0));
+    assertThat(this.store.removeRandom(), nullValue());
+  }
+
+  @Test
+  public void putRecord() {
+    final ObjectMetadata first = generateId(1, 1);
+    final ObjectMetadata second = generateId(2, 2);
+    final ByteBuffer records = ByteBuffer.allocate(2 * LegacyObjectMetadata.OBJECT_SIZE);
+    records.put(first.toBytes()).put(second.toBytes()).flip();
+
+    this.store.putRecord(records);
+    assertThat(records.position(), is(LegacyObjectMetadata.OBJECT_SIZE));
+    assertThat(records.limit(), is(2 * LegacyObjectMetadata.OBJECT_SIZE));
+    assertThat(this.store.getRandom(), is(first));
+    this.store.putRecord(records);
+    assertThat(records.hasRemaining(), is(false));
+    assertThat(this.store.size(), is(2));
+  }
+
+  @Test
+  public void reuseAfterRemove() {
+    for (int i = 0; i < 9; i++) {
+      this.store.put(generateId(i, -1));
+    }
+    for (int i = 0; i < 9; i++) {
+      this.store.removeRandom();
+    }
+    final ObjectMetadata object = generateId(1, 1);
+    this.store.put(object);
+    assertThat(this.store.getRandom(), is(object));
+  }
+
+  @Test
+  public void writeTo() throws IOException {
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    final Set<ObjectMetadata> objects = Sets.newHashSet();
+    for (int i = 0; i < 10; i++) {
+      final ObjectMetadata object = generateId(i, i);
+      objects.add(object);
+      this.store.put(object);
+      expected.write(object.toBytes());
+    }
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    this.store.writeTo(out);
+    // records are written in insertion order when no removals have occurred
+    assertThat(out.toByteArray(), is(expected.toByteArray()));
+  }
+
+  @Test
+  public void skewedSelection() {
+    final ObjectMetadata first = generateId(0, -1);
+    this.store.put(first);
+    for (int i = 1; i < 10; i++) {
+      this.store.put(generateId(i, -1));
+    }
+    final ObjectMetadata last = generateId(10, -1);
+    this.store.put(last);
+
+    assertThat(this.store.getRandom(SelectionPolicies.hotspot(0.01, 1.0)), is(first));
+    assertThat(this.store.removeRandom(SelectionPolicies.recency(0.01, 1.0)), is(last));
+    assertThat(this.store.size(), is(10));
+  }
+
+  @Test
+  public void clear() {
+    this.store.put(generateId(0, -1));
+    this.store.clear();
+    assertThat(this.store.size(), is(0));
+    assertThat(this.store.getRandom(), nullValue());
+  }
+
+  private ObjectMetadata generateId(final long size, final int containerSuffix) {
+    return LegacyObjectMetadata.fromMetadata(UUID.randomUUID().toString().replace("-", "") + "0000",
+        size, containerSuffix);
+  }
+}
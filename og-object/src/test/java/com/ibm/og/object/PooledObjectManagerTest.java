@@ -0,0 +1,161 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Sets;
+
+public class PooledObjectManagerTest {
+  private static final long PERSIST_TIME = 30 * 1000 * 60;
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private String directory;
+
+  @Before
+  public void before() {
+    this.directory = this.folder.getRoot().getAbsolutePath();
+  }
+
+  @Test
+  public void emptyPool() {
+    final PooledObjectManager pool = create();
+    pool.add(generateId());
+    assertThat(pool.getCurrentObjectCount(), is(1L));
+    pool.shutdown();
+    assertThat(objectFile(0).length(), is((long) LegacyObjectMetadata.OBJECT_SIZE));
+  }
+
+  @Test(expected = ObjectManagerException.class)
+  public void emptyPoolRemove() {
+    final PooledObjectManager pool = create();
+    try {
+      pool.remove();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nonContiguousObjectFiles() throws IOException {
+    writeObjects(0, 1);
+    writeObjects(2, 1);
+    create();
+  }
+
+  @Test
+  public void drawsFromEveryObjectFile() throws IOException {
+    final Set<ObjectMetadata> objects = Sets.newHashSet();
+    objects.addAll(writeObjects(0, 10));
+    objects.addAll(writeObjects(1, 20));
+    objects.addAll(writeObjects(2, 30));
+
+    final PooledObjectManager pool = create();
+    assertThat(pool.getCurrentObjectCount(), is(60L));
+    final ObjectMetadata read = pool.get();
+    assertThat(objects.contains(read), is(true));
+    pool.getComplete(read);
+
+    final Set<ObjectMetadata> removed = Sets.newHashSet();
+    for (int i = 0; i < 60; i++) {
+      removed.add(pool.remove());
+    }
+    assertThat(removed, is(objects));
+    pool.shutdown();
+  }
+
+  @Test
+  public void objectFilesAreNotRebalanced() throws IOException {
+    writeObjects(0, 10);
+    writeObjects(1, 10);
+    final PooledObjectManager pool = create();
+    for (int i = 0; i < 4; i++) {
+      pool.add(generateId());
+    }
+    pool.shutdown();
+    // each new object is added to a single shard, and shards persist only their own object file
+    assertThat(objectFile(0).length() + objectFile(1).length(),
+        is(24L * LegacyObjectMetadata.OBJECT_SIZE));
+    assertThat(objectFile(0).length(), greaterThan(10L * LegacyObjectMetadata.OBJECT_SIZE));
+    assertThat(objectFile(1).length(), greaterThan(10L * LegacyObjectMetadata.OBJECT_SIZE));
+    assertThat(objectFile(2).exists(), is(false));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void getCompleteWithoutGet() {
+    final PooledObjectManager pool = create();
+    try {
+      pool.getComplete(generateId());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void prefixIsNotAPattern() throws IOException {
+    writeObjects("id.", 0, 10);
+    // counted as a second, non-contiguous object file if the prefix were a pattern
+    writeObjects("idx", 2, 5);
+    final PooledObjectManager pool = create("id.");
+    assertThat(pool.getCurrentObjectCount(), is(10L));
+    pool.shutdown();
+  }
+
+  private PooledObjectManager create() {
+    return create("id_");
+  }
+
+  private PooledObjectManager create(final String prefix) {
+    // a maximum object count well below the object file sizes would trigger rebalancing in a
+    // single file object manager
+    return new PooledObjectManager(UUID.randomUUID(), this.directory, prefix, 5, PERSIST_TIME,
+        new ObjectPopulatorOptions.Builder().withLoadThreads(2).build());
+  }
+
+  private File objectFile(final int index) {
+    return objectFile("id_", index);
+  }
+
+  private File objectFile(final String prefix, final int index) {
+    return new File(this.directory, prefix + index + RandomObjectPopulator.SUFFIX);
+  }
+
+  private Set<ObjectMetadata> writeObjects(final int index, final int count) throws IOException {
+    return writeObjects("id_", index, count);
+  }
+
+  private Set<ObjectMetadata> writeObjects(final String prefix, final int index, final int count)
+      throws IOException {
+    final Set<ObjectMetadata> objects = Sets.newHashSet();
+    final OutputStream out = new FileOutputStream(objectFile(prefix, index));
+    for (int i = 0; i < count; i++) {
+      final ObjectMetadata object = generateId();
+      objects.add(object);
+      out.write(object.toBytes());
+    }
+    out.close();
+    return objects;
+  }
+
+  private ObjectMetadata generateId() {
+    return LegacyObjectMetadata.fromMetadata(UUID.randomUUID().toString().replace("-", "") + "0000",
+        0, -1);
+  }
+}
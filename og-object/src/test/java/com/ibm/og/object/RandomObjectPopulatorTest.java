@@ -7,10 +7,16 @@ package com.ibm.og.object;
 
 import java.io.File;
 import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
@@ -26,6 +32,9 @@ import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
 public class RandomObjectPopulatorTest {
   final String dirName = "RandomObjectPopulatorTest";
   static final String prefix = "id_";
@@ -108,6 +117,96 @@ public class RandomObjectPopulatorTest {
     rop.shutdown();
   }
 
+  @Test
+  public void persistStatistics() throws ObjectManagerException {
+    final RandomObjectPopulator rop = new RandomObjectPopulator(this.vaultId);
+    rop.add(generateId());
+    rop.add(generateId());
+    rop.shutdown();
+    final ObjectManagerStatistics statistics = rop.getStatistics();
+    Assert.assertEquals(1, statistics.get(ObjectManagerCounter.PERSISTS));
+    Assert.assertEquals(2 * OBJECT_SIZE, statistics.get(ObjectManagerCounter.PERSIST_BYTES));
+    Assert.assertEquals(0, statistics.get(ObjectManagerCounter.READING_COLLISIONS));
+  }
+
+  @Test
+  public void failedPersistReleasesLock() throws InterruptedException {
+    final RandomObjectPopulator rop = new RandomObjectPopulator(this.vaultId);
+    rop.add(generateId());
+    // the object file writer cannot create its temporary file over a directory
+    final File tmp = new File("id_0.object.tmp");
+    tmp.mkdir();
+    try {
+      rop.shutdown();
+      Assert.fail("expected persist to fail");
+    } catch (final ObjectManagerException e) {
+      // expected
+    } finally {
+      tmp.delete();
+    }
+    // the lock is reentrant, so another thread checks that it was released
+    final Thread t = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        rop.add(generateId());
+      }
+    });
+    t.start();
+    t.join(5000);
+    Assert.assertFalse(t.isAlive());
+    Assert.assertEquals(2, rop.getCurrentObjectCount());
+  }
+
+  @Test
+  public void corruptObjectFileIsNotRewritten() throws IOException {
+    final File file = writeCorruptObjectFile();
+    final byte[] original = Files.toByteArray(file);
+    try {
+      createV2(null);
+      Assert.fail("expected load to fail");
+    } catch (final ObjectManagerException e) {
+      Assert.assertTrue(e.getCause() instanceof IOException);
+    }
+    Assert.assertArrayEquals(original, Files.toByteArray(file));
+  }
+
+  @Test
+  public void corruptObjectFileIsNotRewrittenOnShutdown() throws IOException {
+    final File file = writeCorruptObjectFile();
+    final byte[] original = Files.toByteArray(file);
+    // the failure is reported by the constructor if loading fails before it returns
+    try {
+      createV2(0L).shutdown();
+      Assert.fail("expected load to fail");
+    } catch (final ObjectManagerException e) {
+      Assert.assertTrue(e.getCause() instanceof IOException);
+    }
+    Assert.assertArrayEquals(original, Files.toByteArray(file));
+  }
+
+  // writes a v2 object file whose fourth block fails checksum validation
+  private File writeCorruptObjectFile() throws IOException {
+    final RandomObjectPopulator rop = createV2(null);
+    for (int i = 0; i < 4 * ObjectFiles.RECORDS_PER_BLOCK; i++) {
+      rop.add(generateId());
+    }
+    rop.shutdown();
+    final File file = new File(prefix + 0 + suffix);
+    final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    raf.seek(ObjectFiles.blockOffset(3) + 100);
+    final int b = raf.read();
+    raf.seek(ObjectFiles.blockOffset(3) + 100);
+    raf.write(b ^ 0xFF);
+    raf.close();
+    return file;
+  }
+
+  private RandomObjectPopulator createV2(final Long minResident) {
+    return new RandomObjectPopulator(this.vaultId, ".", "", 100000, 30 * 1000 * 60, null,
+        new ObjectPopulatorOptions.Builder().withFormat(ObjectFileFormat.V2)
+            .withMinResident(minResident).build());
+  }
+
   @Test
   public void deleteTest() throws ObjectManagerException {
     final ObjectMetadata firstId = generateId();
@@ -129,6 +228,29 @@ public class RandomObjectPopulatorTest {
     rop.shutdown();
   }
 
+  @Test
+  public void batchGetRemove() throws ObjectManagerException {
+    final ObjectMetadata readId = generateId();
+    final ObjectMetadata otherId = generateId();
+    final RandomObjectPopulator rop = new RandomObjectPopulator(this.vaultId);
+    rop.add(readId);
+    Assert.assertEquals(Collections.nCopies(3, readId), rop.get(ObjectCriteria.ANY, 3));
+    rop.add(otherId);
+    // objects being read are passed over, leaving fewer than requested
+    Assert.assertEquals(Collections.singletonList(otherId), rop.remove(ObjectCriteria.ANY, 4));
+    for (int i = 0; i < 3; i++) {
+      rop.getComplete(readId);
+    }
+    Assert.assertEquals(Collections.singletonList(readId), rop.remove(ObjectCriteria.ANY, 4));
+    try {
+      rop.get(ObjectCriteria.ANY, 2);
+      Assert.fail("expected no objects");
+    } catch (final ObjectManagerException e) {
+      // expected
+    }
+    rop.shutdown();
+  }
+
   @Test
   public void simultaneousReadDeleteTest()
       throws ObjectManagerException, InterruptedException, ExecutionException {
@@ -283,6 +405,264 @@ public class RandomObjectPopulatorTest {
     Assert.assertEquals(new File(prefix + 0 + suffix).length(), 0);
   }
 
+  @Test
+  public void verifyReadIdsOffHeap() throws ObjectManagerException {
+    RandomObjectPopulator rop = new RandomObjectPopulator(this.vaultId, ".", "",
+        RandomObjectPopulatorTest.MAX_OBJECTS, 30 * 1000 * 60, null,
+        new ObjectPopulatorOptions.Builder().withStoreType(ObjectStoreType.OFFHEAP).build());
+    final ObjectMetadata[] savedIds = new ObjectMetadata[RandomObjectPopulatorTest.MAX_OBJECTS];
+    for (int i = 0; i < RandomObjectPopulatorTest.MAX_OBJECTS; i++) {
+      final ObjectMetadata sid = generateId();
+      savedIds[i] = sid;
+      rop.add(sid);
+    }
+
+    rop.shutdown();
+    Assert.assertEquals(getIdFiles().length, 1);
+    rop = new RandomObjectPopulator(this.vaultId, ".", "", RandomObjectPopulatorTest.MAX_OBJECTS,
+        30 * 1000 * 60, null,
+        new ObjectPopulatorOptions.Builder().withStoreType(ObjectStoreType.OFFHEAP).build());
+    final ObjectMetadata[] retrievedIds = new ObjectMetadata[RandomObjectPopulatorTest.MAX_OBJECTS];
+
+    for (int i = 0; i < RandomObjectPopulatorTest.MAX_OBJECTS; i++) {
+      retrievedIds[i] = rop.remove();
+    }
+
+    Arrays.sort(savedIds);
+    Arrays.sort(retrievedIds);
+    Assert.assertArrayEquals(savedIds, retrievedIds);
+    rop.shutdown();
+  }
+
+  @Test
+  public void verifyReadIdsJournal() throws ObjectManagerException {
+    RandomObjectPopulator rop = new RandomObjectPopulator(this.vaultId, ".", "",
+        RandomObjectPopulatorTest.MAX_OBJECTS, 30 * 1000 * 60, null,
+        new ObjectPopulatorOptions.Builder().withPersistenceType(PersistenceType.JOURNAL).build());
+    final ObjectMetadata[] savedIds = new ObjectMetadata[RandomObjectPopulatorTest.MAX_OBJECTS];
+    for (int i = 0; i < RandomObjectPopulatorTest.MAX_OBJECTS; i++) {
+      final ObjectMetadata sid = generateId();
+      savedIds[i] = sid;
+      rop.add(sid);
+    }
+    rop.add(generateId());
+    rop.remove();
+
+    rop.shutdown();
+    Assert.assertEquals(getIdFiles().length, 1);
+    Assert.assertFalse(new File(prefix + 0 + suffix + ObjectJournal.SUFFIX).exists());
+    rop = new RandomObjectPopulator(this.vaultId, ".", "", RandomObjectPopulatorTest.MAX_OBJECTS,
+        30 * 1000 * 60, null,
+        new ObjectPopulatorOptions.Builder().withPersistenceType(PersistenceType.JOURNAL).build());
+    Assert.assertEquals(RandomObjectPopulatorTest.MAX_OBJECTS, rop.getCurrentObjectCount());
+    for (int i = 0; i < RandomObjectPopulatorTest.MAX_OBJECTS; i++) {
+      rop.remove();
+    }
+    rop.shutdown();
+    Assert.assertEquals(new File(prefix + 0 + suffix).length(), 0);
+  }
+
+  @Test
+  public void containerSuffixSelection() throws ObjectManagerException {
+    final RandomObjectPopulator rop = new RandomObjectPopulator(this.vaultId, ".", "",
+        RandomObjectPopulatorTest.MAX_OBJECTS, 30 * 1000 * 60, null);
+    for (int i = 0; i < 10; i++) {
+      rop.add(LegacyObjectMetadata
+          .fromMetadata(UUID.randomUUID().toString().replace("-", "") + "0000", 0, i % 2));
+    }
+    for (int i = 0; i < 5; i++) {
+      final ObjectMetadata id = rop.get(ObjectCriteria.container(1));
+      Assert.assertEquals(1, id.getContainerSuffix());
+      rop.getComplete(id);
+      final ObjectMetadata removed = rop.remove(ObjectCriteria.container(0));
+      Assert.assertEquals(0, removed.getContainerSuffix());
+    }
+    try {
+      rop.remove(ObjectCriteria.container(0));
+      Assert.fail("expected ObjectManagerException for empty container");
+    } catch (final ObjectManagerException e) {
+      // expected
+    }
+    Assert.assertEquals(5, rop.getCurrentObjectCount());
+    rop.shutdown();
+  }
+
+  @Test
+  public void backgroundLoad() throws ObjectManagerException {
+    final int objects = 10000;
+    RandomObjectPopulator rop =
+        new RandomObjectPopulator(this.vaultId, ".", "", objects, 30 * 1000 * 60, null);
+    for (int i = 0; i < objects; i++) {
+      rop.add(generateId());
+    }
+    rop.shutdown();
+
+    rop = new RandomObjectPopulator(this.vaultId, ".", "", objects, 30 * 1000 * 60, null,
+        new ObjectPopulatorOptions.Builder().withLoadThreads(2).withMinResident(10L).build());
+    Assert.assertTrue(rop.getCurrentObjectCount() >= 10);
+    rop.remove();
+    // persisting waits for the remainder of the object file to load
+    rop.shutdown();
+    Assert.assertEquals((objects - 1) * LegacyObjectMetadata.OBJECT_SIZE,
+        new File(prefix + 0 + suffix).length());
+  }
+
+  @Test
+  public void sequentialObjects() throws ObjectManagerException {
+    final File sequentialFile = new File(prefix + 0 + RandomObjectPopulator.SEQUENTIAL_SUFFIX);
+    try {
+      RandomObjectPopulator rop = new RandomObjectPopulator(this.vaultId, ".", "",
+          RandomObjectPopulatorTest.MAX_OBJECTS, 30 * 1000 * 60, null);
+      rop.add(generateId());
+      for (int i = 0; i < 100; i++) {
+        rop.add(SequentialObjectMetadata.fromMetadata("seq", i, 1024, -1));
+      }
+      Assert.assertEquals(101, rop.getCurrentObjectCount());
+
+      final ObjectMetadata id = rop.get(ObjectCriteria.size(1024, 1024));
+      Assert.assertTrue(id instanceof SequentialObjectMetadata);
+      Assert.assertTrue(rop.isReading(id));
+      rop.getComplete(id);
+      final ObjectMetadata removed = rop.remove(ObjectCriteria.size(1024, 1024));
+      Assert.assertTrue(removed.getName().startsWith("seq"));
+      rop.shutdown();
+      Assert.assertTrue(sequentialFile.exists());
+
+      rop = new RandomObjectPopulator(this.vaultId, ".", "",
+          RandomObjectPopulatorTest.MAX_OBJECTS, 30 * 1000 * 60, null);
+      Assert.assertEquals(100, rop.getCurrentObjectCount());
+      for (int i = 0; i < 99; i++) {
+        final ObjectMetadata sequential = rop.remove(ObjectCriteria.size(1024, 1024));
+        Assert.assertFalse(sequential.equals(removed));
+      }
+      rop.shutdown();
+    } finally {
+      sequentialFile.delete();
+    }
+  }
+
+  @Test
+  public void oldestFirstDeletion() throws ObjectManagerException {
+    verifyAgeOrderedDeletion(DeletionOrder.OLDEST, PersistenceType.SNAPSHOT);
+  }
+
+  @Test
+  public void newestFirstDeletionJournal() throws ObjectManagerException {
+    verifyAgeOrderedDeletion(DeletionOrder.NEWEST, PersistenceType.JOURNAL);
+  }
+
+  private void verifyAgeOrderedDeletion(final DeletionOrder order,
+      final PersistenceType persistenceType) {
+    RandomObjectPopulator rop = createAgeOrdered(order, persistenceType);
+    final List<ObjectMetadata> ids = new ArrayList<ObjectMetadata>();
+    for (int i = 0; i < 10; i++) {
+      ids.add(generateId());
+      rop.add(ids.get(i));
+    }
+    if (DeletionOrder.NEWEST == order) {
+      Collections.reverse(ids);
+    }
+
+    // an object being read is passed over without losing its place
+    final ObjectMetadata read = rop.get(ObjectCriteria.policy(DeletionOrder.OLDEST == order
+        ? SelectionPolicies.hotspot(0.01, 1.0) : SelectionPolicies.recency(0.01, 1.0)));
+    Assert.assertEquals(ids.get(0), read);
+    Assert.assertEquals(ids.get(1), rop.remove());
+    rop.getComplete(read);
+    Assert.assertEquals(ids.get(0), rop.remove());
+    rop.shutdown();
+
+    // insertion order is persisted
+    rop = createAgeOrdered(order, persistenceType);
+    for (int i = 2; i < 10; i++) {
+      Assert.assertEquals(ids.get(i), rop.remove());
+    }
+    rop.shutdown();
+  }
+
+  private RandomObjectPopulator createAgeOrdered(final DeletionOrder order,
+      final PersistenceType persistenceType) {
+    return new RandomObjectPopulator(this.vaultId, ".", "", RandomObjectPopulatorTest.MAX_OBJECTS,
+        30 * 1000 * 60, null, new ObjectPopulatorOptions.Builder()
+            .withPersistenceType(persistenceType).withLoadThreads(4).withDeletionOrder(order)
+            .build());
+  }
+
+  @Test
+  public void v2ObjectFiles() throws IOException {
+    RandomObjectPopulator rop = createWithFormat(ObjectFileFormat.V2);
+    final Set<ObjectMetadata> ids = new HashSet<ObjectMetadata>();
+    for (int i = 0; i < 12; i++) {
+      final ObjectMetadata id = generateId();
+      ids.add(id);
+      rop.add(id);
+    }
+    rop.shutdown();
+    Assert.assertEquals(12, rop.getSavedObjectCount());
+    for (final File file : getIdFiles()) {
+      Assert.assertEquals(ObjectFileFormat.V2, ObjectFiles.format(file));
+    }
+
+    // v2 files are read by an instance writing v1, which rewrites any v2 file it borrows from
+    rop = createWithFormat(ObjectFileFormat.V1);
+    for (int i = 0; i < 3; i++) {
+      Assert.assertTrue(ids.remove(rop.remove()));
+    }
+    rop.shutdown();
+    Assert.assertEquals(9, rop.getSavedObjectCount());
+    final Set<ObjectMetadata> saved = new HashSet<ObjectMetadata>();
+    final byte[] buf = new byte[OBJECT_SIZE];
+    for (final File file : getIdFiles()) {
+      final InputStream in = ObjectFiles.open(file);
+      try {
+        for (long i = ObjectFiles.count(file); i > 0; i--) {
+          ByteStreams.readFully(in, buf);
+          saved.add(LegacyObjectMetadata.fromBytes(buf));
+        }
+      } finally {
+        in.close();
+      }
+    }
+    Assert.assertEquals(ids, saved);
+  }
+
+  private RandomObjectPopulator createWithFormat(final ObjectFileFormat format) {
+    return new RandomObjectPopulator(this.vaultId, ".", "", RandomObjectPopulatorTest.MAX_OBJECTS,
+        30 * 1000 * 60, 0,
+        new ObjectPopulatorOptions.Builder().withLoadThreads(4).withFormat(format).build());
+  }
+
+  @Test
+  public void boundedResidency() throws ObjectManagerException {
+    final File spill = new File(prefix + 0 + RandomObjectPopulator.SPILL_SUFFIX + 0);
+    RandomObjectPopulator rop = createBounded();
+    final ObjectMetadata[] savedIds = new ObjectMetadata[100];
+    for (int i = 0; i < savedIds.length; i++) {
+      savedIds[i] = generateId();
+      rop.add(savedIds[i]);
+    }
+    Assert.assertTrue(spill.exists());
+    Assert.assertEquals(100, rop.getCurrentObjectCount());
+    rop.shutdown();
+    Assert.assertFalse(spill.exists());
+
+    rop = createBounded();
+    final ObjectMetadata[] retrievedIds = new ObjectMetadata[savedIds.length];
+    for (int i = 0; i < retrievedIds.length; i++) {
+      retrievedIds[i] = rop.remove();
+    }
+    rop.shutdown();
+    Arrays.sort(savedIds);
+    Arrays.sort(retrievedIds);
+    Assert.assertArrayEquals(savedIds, retrievedIds);
+  }
+
+  // the object file is large enough that persisting does not move objects to other files
+  private RandomObjectPopulator createBounded() {
+    return new RandomObjectPopulator(this.vaultId, ".", "", 1000, 30 * 1000 * 60, null,
+        new ObjectPopulatorOptions.Builder().withLoadThreads(4).withMaxResident(8).build());
+  }
+
   protected ObjectMetadata generateId() {
     return LegacyObjectMetadata.fromMetadata(UUID.randomUUID().toString().replace("-", "") + "0000",
         0, -1);
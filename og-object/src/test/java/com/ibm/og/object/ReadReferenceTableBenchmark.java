@@ -0,0 +1,150 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.google.common.collect.Lists;
+
+/**
+ * A contention benchmark comparing the read reference tracking used by
+ * {@code RandomObjectPopulator.get/getComplete} against the previous implementation, which
+ * serialized every read through a fair lock guarding a synchronized {@code TreeMap}. Not run as
+ * part of the test suite; run manually via {@code main}, optionally passing the measurement
+ * duration in seconds.
+ */
+public class ReadReferenceTableBenchmark {
+  private static final int OBJECTS = 100000;
+  private static final int[] THREADS = {1, 4, 16, 64};
+
+  private interface ReadTracker {
+    void get(ObjectMetadata object);
+
+    void getComplete(ObjectMetadata object);
+  }
+
+  // the implementation prior to ReadReferenceTable
+  private static class LockedTreeMapTracker implements ReadTracker {
+    private final ReadWriteLock objectsLock = new ReentrantReadWriteLock(true);
+    private final SortedMap<ObjectMetadata, Integer> currentlyReading =
+        Collections.synchronizedSortedMap(new TreeMap<ObjectMetadata, Integer>());
+    private final ReadWriteLock readingLock = new ReentrantReadWriteLock(true);
+
+    @Override
+    public void get(final ObjectMetadata id) {
+      this.objectsLock.readLock().lock();
+      int count = 0;
+      this.readingLock.writeLock().lock();
+      if (this.currentlyReading.containsKey(id)) {
+        this.objectsLock.readLock().unlock();
+        count = this.currentlyReading.get(id).intValue();
+      }
+      this.currentlyReading.put(id, Integer.valueOf(count + 1));
+      if (count == 0) {
+        this.objectsLock.readLock().unlock();
+      }
+      this.readingLock.writeLock().unlock();
+    }
+
+    @Override
+    public void getComplete(final ObjectMetadata id) {
+      this.readingLock.writeLock().lock();
+      final int count = this.currentlyReading.get(id).intValue();
+      if (count > 1) {
+        this.currentlyReading.put(id, Integer.valueOf(count - 1));
+      } else {
+        this.currentlyReading.remove(id);
+      }
+      this.readingLock.writeLock().unlock();
+    }
+  }
+
+  private static class ReferenceTableTracker implements ReadTracker {
+    private final ReadWriteLock objectsLock = new ReentrantReadWriteLock();
+    private final ReadReferenceTable currentlyReading = new ReadReferenceTable();
+
+    @Override
+    public void get(final ObjectMetadata id) {
+      this.objectsLock.readLock().lock();
+      try {
+        this.currentlyReading.acquire(id);
+      } finally {
+        this.objectsLock.readLock().unlock();
+      }
+    }
+
+    @Override
+    public void getComplete(final ObjectMetadata id) {
+      this.currentlyReading.release(id);
+    }
+  }
+
+  public static void main(final String[] args) throws InterruptedException {
+    final long seconds = args.length > 0 ? Long.parseLong(args[0]) : 5;
+    final ObjectMetadata[] objects = new ObjectMetadata[OBJECTS];
+    for (int i = 0; i < OBJECTS; i++) {
+      objects[i] = LegacyObjectMetadata
+          .fromMetadata(UUID.randomUUID().toString().replace("-", "") + "0000", 0, -1);
+    }
+
+    System.out.println(String.format("%-8s %20s %20s %8s", "threads", "locked treemap ops/s",
+        "reference table ops/s", "speedup"));
+    for (final int threads : THREADS) {
+      final double legacy = run(new LockedTreeMapTracker(), objects, threads, seconds);
+      final double table = run(new ReferenceTableTracker(), objects, threads, seconds);
+      System.out.println(
+          String.format("%-8d %20.0f %20.0f %7.1fx", threads, legacy, table, table / legacy));
+    }
+  }
+
+  private static double run(final ReadTracker tracker, final ObjectMetadata[] objects,
+      final int threads, final long seconds) throws InterruptedException {
+    final AtomicBoolean running = new AtomicBoolean(true);
+    final AtomicLong operations = new AtomicLong();
+    final CountDownLatch started = new CountDownLatch(threads);
+    final List<Thread> workers = Lists.newArrayList();
+    for (int i = 0; i < threads; i++) {
+      final Thread worker = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          final Random rand = new Random();
+          long count = 0;
+          started.countDown();
+          while (running.get()) {
+            final ObjectMetadata object = objects[rand.nextInt(objects.length)];
+            tracker.get(object);
+            tracker.getComplete(object);
+            count++;
+          }
+          operations.addAndGet(count);
+        }
+      });
+      workers.add(worker);
+      worker.start();
+    }
+
+    started.await();
+    final long start = System.nanoTime();
+    Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+    running.set(false);
+    for (final Thread worker : workers) {
+      worker.join();
+    }
+    final double elapsed = (System.nanoTime() - start) / 1e9;
+    return operations.get() / elapsed;
+  }
+}
@@ -0,0 +1,96 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class ReadReferenceTableTest {
+  private ReadReferenceTable table;
+  private ObjectMetadata object;
+
+  @Before
+  public void before() {
+    this.table = new ReadReferenceTable();
+    this.object = LegacyObjectMetadata
+        .fromMetadata(UUID.randomUUID().toString().replace("-", "") + "0000", 0, -1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroConcurrencyLevel() {
+    new ReadReferenceTable(0);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullAcquire() {
+    this.table.acquire(null);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void releaseUnreferenced() {
+    this.table.release(this.object);
+  }
+
+  @Test
+  public void acquireRelease() {
+    assertThat(this.table.isReferenced(this.object), is(false));
+    this.table.acquire(this.object);
+    this.table.acquire(this.object);
+    assertThat(this.table.count(this.object), is(2));
+    assertThat(this.table.size(), is(1));
+
+    this.table.release(this.object);
+    assertThat(this.table.isReferenced(this.object), is(true));
+    this.table.release(this.object);
+    assertThat(this.table.isReferenced(this.object), is(false));
+    assertThat(this.table.size(), is(0));
+  }
+
+  @Test
+  public void equalObjectsShareReferences() {
+    this.table.acquire(this.object);
+    // consumers rebuild metadata from request context rather than reusing the original instance
+    final ObjectMetadata copy = LegacyObjectMetadata.fromMetadata(this.object.getName(),
+        this.object.getSize(), this.object.getContainerSuffix());
+    this.table.release(copy);
+    assertThat(this.table.isReferenced(this.object), is(false));
+  }
+
+  @Test
+  public void concurrentAcquireRelease() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    final List<Future<Void>> futures = Lists.newArrayList();
+    for (int i = 0; i < 8; i++) {
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() {
+          for (int j = 0; j < 10000; j++) {
+            ReadReferenceTableTest.this.table.acquire(ReadReferenceTableTest.this.object);
+            ReadReferenceTableTest.this.table.release(ReadReferenceTableTest.this.object);
+          }
+          return null;
+        }
+      }));
+    }
+    for (final Future<Void> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+    assertThat(this.table.size(), is(0));
+  }
+}
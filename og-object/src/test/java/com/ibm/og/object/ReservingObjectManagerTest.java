@@ -0,0 +1,144 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.common.collect.ImmutableList;
+
+public class ReservingObjectManagerTest {
+  private ObjectManager delegate;
+  private ObjectMetadata id;
+
+  @Before
+  public void before() {
+    this.delegate = mock(ObjectManager.class);
+    this.id = LegacyObjectMetadata.fromMetadata("5c18c1ff4e7a4c2a9c1e0c0b7d5e3a2b0000", 0, -1);
+    when(this.delegate.get(any(ObjectCriteria.class), anyInt())).thenAnswer(this.batch);
+    when(this.delegate.remove(any(ObjectCriteria.class), anyInt())).thenAnswer(this.batch);
+  }
+
+  private final Answer<List<ObjectMetadata>> batch = new Answer<List<ObjectMetadata>>() {
+    @Override
+    public List<ObjectMetadata> answer(final InvocationOnMock invocation) {
+      return Collections.nCopies((Integer) invocation.getArguments()[1],
+          ReservingObjectManagerTest.this.id);
+    }
+  };
+
+  @Test(expected = NullPointerException.class)
+  public void nullObjectManager() {
+    new ReservingObjectManager(null, 4);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroBatchSize() {
+    new ReservingObjectManager(this.delegate, 0);
+  }
+
+  @Test
+  public void readsReservedInBatches() {
+    final ReservingObjectManager manager = new ReservingObjectManager(this.delegate, 4);
+    for (int i = 0; i < 10; i++) {
+      assertThat(manager.get(), is(this.id));
+      manager.getComplete(this.id);
+    }
+    verify(this.delegate, times(3)).get(ObjectCriteria.ANY, 4);
+    // completions are released immediately
+    verify(this.delegate, times(10)).getComplete(this.id);
+
+    // unused reservations are released on shutdown
+    manager.shutdown();
+    verify(this.delegate, times(12)).getComplete(this.id);
+    verify(this.delegate).shutdown();
+  }
+
+  @Test
+  public void removalsReturnedOnShutdown() {
+    final ReservingObjectManager manager = new ReservingObjectManager(this.delegate, 4);
+    assertThat(manager.remove(), is(this.id));
+    verify(this.delegate).remove(ObjectCriteria.ANY, 4);
+    verify(this.delegate, never()).add(any(ObjectMetadata.class));
+
+    manager.shutdown();
+    verify(this.delegate, times(3)).add(this.id);
+  }
+
+  @Test
+  public void partialBatch() {
+    final ObjectMetadata other =
+        LegacyObjectMetadata.fromMetadata("0a2b3c4d5e6f7a8b9c0d1e2f3a4b5c6d0000", 0, -1);
+    when(this.delegate.remove(any(ObjectCriteria.class), anyInt()))
+        .thenReturn(ImmutableList.of(this.id, other)).thenThrow(new ObjectManagerException());
+    final ReservingObjectManager manager = new ReservingObjectManager(this.delegate, 4);
+    assertThat(manager.remove(), is(this.id));
+    assertThat(manager.remove(), is(other));
+    try {
+      manager.remove();
+      throw new AssertionError("expected removal to fail");
+    } catch (final ObjectManagerException e) {
+      // expected
+    }
+    manager.shutdown();
+  }
+
+  @Test
+  public void reservationsKeyedByCriteria() {
+    final ReservingObjectManager manager = new ReservingObjectManager(this.delegate, 4);
+    manager.remove(ObjectCriteria.container(1));
+    manager.remove(ObjectCriteria.container(2));
+    manager.remove(ObjectCriteria.container(1));
+    verify(this.delegate).remove(ObjectCriteria.container(1), 4);
+    verify(this.delegate).remove(ObjectCriteria.container(2), 4);
+    manager.shutdown();
+    verify(this.delegate, times(5)).add(this.id);
+  }
+
+  @Test
+  public void afterShutdown() {
+    final ReservingObjectManager manager = new ReservingObjectManager(this.delegate, 4);
+    manager.shutdown();
+    when(this.delegate.remove(ObjectCriteria.ANY)).thenReturn(this.id);
+    manager.remove();
+    verify(this.delegate, times(1)).remove(ObjectCriteria.ANY);
+  }
+
+  @Test
+  public void exitedThreadReservationsReclaimed() throws InterruptedException {
+    final ReservingObjectManager manager = new ReservingObjectManager(this.delegate, 4);
+    final Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        manager.remove();
+      }
+    });
+    thread.start();
+    thread.join();
+    verify(this.delegate, never()).add(any(ObjectMetadata.class));
+
+    // reclaimed by the next refill once the reclaim interval has passed
+    Thread.sleep(1100);
+    manager.remove();
+    verify(this.delegate, times(3)).add(this.id);
+    manager.shutdown();
+  }
+}
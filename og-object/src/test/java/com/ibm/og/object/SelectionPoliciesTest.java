@@ -0,0 +1,98 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SelectionPoliciesTest {
+  private static final int SAMPLES = 100000;
+  private final Random rand = new Random(0);
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroExponent() {
+    SelectionPolicies.zipf(0.0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroFraction() {
+    SelectionPolicies.hotspot(0.0, 0.5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void probabilityGreaterThanOne() {
+    SelectionPolicies.recency(0.5, 1.1);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullType() {
+    SelectionPolicies.create(null, 1.0, 0.5, 0.5);
+  }
+
+  @Test
+  public void singlePosition() {
+    assertThat(SelectionPolicies.UNIFORM.select(1, this.rand), is(0));
+    assertThat(SelectionPolicies.zipf(1.0).select(1, this.rand), is(0));
+    assertThat(SelectionPolicies.hotspot(0.5, 0.5).select(1, this.rand), is(0));
+    assertThat(SelectionPolicies.recency(0.5, 0.5).select(1, this.rand), is(0));
+  }
+
+  @Test
+  public void zipf() {
+    final int[] counts = sample(SelectionPolicies.zipf(1.0), 1000);
+    // the first position is selected with probability 1 / H(1000), about 0.134, and the second
+    // with half that probability
+    assertThat(counts[0], allOf(greaterThan(12900), lessThan(13900)));
+    assertThat(counts[1], allOf(greaterThan(6200), lessThan(7200)));
+  }
+
+  @Test
+  public void zipfLargeExponent() {
+    final int[] counts = sample(SelectionPolicies.zipf(3.0), Integer.MAX_VALUE / 4096);
+    // 1 / zeta(3), about 0.832
+    assertThat(counts[0], allOf(greaterThan(82700), lessThan(83700)));
+  }
+
+  @Test
+  public void hotspot() {
+    final int[] counts = sample(SelectionPolicies.hotspot(0.1, 0.9), 1000);
+    assertThat(sum(counts, 0, 100), allOf(greaterThan(89500), lessThan(90500)));
+  }
+
+  @Test
+  public void recency() {
+    final int[] counts = sample(SelectionPolicies.recency(0.1, 0.9), 1000);
+    assertThat(sum(counts, 900, 1000), allOf(greaterThan(89500), lessThan(90500)));
+  }
+
+  // counts selections of the first 1000 positions
+  private int[] sample(final SelectionPolicy policy, final int size) {
+    final int[] counts = new int[1000];
+    for (int i = 0; i < SAMPLES; i++) {
+      final int position = policy.select(size, this.rand);
+      assertThat(position >= 0 && position < size, is(true));
+      if (position < counts.length) {
+        counts[position]++;
+      }
+    }
+    return counts;
+  }
+
+  private static int sum(final int[] counts, final int from, final int to) {
+    int sum = 0;
+    for (int i = from; i < to; i++) {
+      sum += counts[i];
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,133 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SequentialObjectSetTest {
+  private SequentialObjectSet set;
+
+  @Before
+  public void before() {
+    this.set = new SequentialObjectSet("prefix", 3);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullPrefix() {
+    new SequentialObjectSet(null, -1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeSuffix() {
+    this.set.add(-1, 0);
+  }
+
+  @Test
+  public void emptySet() {
+    assertThat(this.set.size(), is(0L));
+    assertThat(this.set.getRandom(0, Long.MAX_VALUE), nullValue());
+    assertThat(this.set.removeRandom(0, Long.MAX_VALUE), nullValue());
+    assertThat(this.set.contains(0), is(false));
+  }
+
+  @Test
+  public void addRemove() {
+    assertThat(this.set.add(5, 100), is(true));
+    assertThat(this.set.add(5, 200), is(false));
+    assertThat(this.set.size(), is(1L));
+    assertThat(this.set.contains(5), is(true));
+
+    final SequentialObjectMetadata objectMetadata = this.set.getRandom(0, Long.MAX_VALUE);
+    assertThat(objectMetadata.getName(), is("prefix5"));
+    assertThat(objectMetadata.getSize(), is(200L));
+    assertThat(objectMetadata.getContainerSuffix(), is(3));
+
+    assertThat(this.set.remove(5), is(true));
+    assertThat(this.set.remove(5), is(false));
+    assertThat(this.set.size(), is(0L));
+  }
+
+  @Test
+  public void removeRandomDrainsSet() {
+    final int count = 3 * SequentialObjectSet.PAGE_SUFFIXES;
+    for (int i = 0; i < count; i++) {
+      this.set.add(i, 1024);
+    }
+    final boolean[] removed = new boolean[count];
+    for (int i = 0; i < count; i++) {
+      final SequentialObjectMetadata objectMetadata = this.set.removeRandom(0, Long.MAX_VALUE);
+      assertThat(removed[(int) objectMetadata.getSuffix()], is(false));
+      removed[(int) objectMetadata.getSuffix()] = true;
+    }
+    assertThat(this.set.size(), is(0L));
+    assertThat(this.set.removeRandom(0, Long.MAX_VALUE), nullValue());
+  }
+
+  @Test
+  public void sparseSelection() {
+    // one dense page and many pages holding a single object
+    for (int i = 0; i < SequentialObjectSet.PAGE_SUFFIXES; i++) {
+      this.set.add(i, 0);
+    }
+    for (int i = 1; i <= 100; i++) {
+      this.set.add((long) i * SequentialObjectSet.PAGE_SUFFIXES * 10, 0);
+    }
+    int sparse = 0;
+    for (int i = 0; i < 10000; i++) {
+      if (this.set.getRandom(0, Long.MAX_VALUE).getSuffix() >= SequentialObjectSet.PAGE_SUFFIXES) {
+        sparse++;
+      }
+    }
+    // 100 of 4196 objects are in sparse pages
+    assertThat(sparse, greaterThan(100));
+  }
+
+  @Test
+  public void sizeRange() {
+    for (int i = 0; i < 100; i++) {
+      this.set.add(i, i % 2 == 0 ? 100 : 200);
+    }
+    for (int i = 0; i < 50; i++) {
+      final SequentialObjectMetadata objectMetadata = this.set.removeRandom(200, 200);
+      assertThat(objectMetadata.getSize(), is(200L));
+      assertThat(objectMetadata.getSuffix() % 2, is(1L));
+    }
+    assertThat(this.set.getRandom(200, 200), nullValue());
+    assertThat(this.set.size(), is(50L));
+  }
+
+  @Test
+  public void writeRead() throws IOException {
+    for (int i = 0; i < 100; i++) {
+      this.set.add(i, 1024);
+    }
+    this.set.add(SequentialObjectSet.PAGE_SUFFIXES + 1, 1);
+    this.set.add(SequentialObjectSet.PAGE_SUFFIXES + 2, 2);
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    this.set.writeTo(new DataOutputStream(out));
+    final SequentialObjectSet read = SequentialObjectSet
+        .readFrom(new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+
+    assertThat(read.getPrefix(), is("prefix"));
+    assertThat(read.getContainerSuffix(), is(3));
+    assertThat(read.size(), is(102L));
+    assertThat(read.getRandom(2, 2).getSuffix(), is(SequentialObjectSet.PAGE_SUFFIXES + 2L));
+    assertThat(read.getRandom(1024, 1024).getSuffix() < 100, is(true));
+  }
+}
@@ -0,0 +1,135 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShardedObjectStoreTest {
+  private ShardedObjectStore store;
+
+  @Before
+  public void before() {
+    this.store = new ShardedObjectStore(ObjectStoreType.HEAP);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullShardType() {
+    new ShardedObjectStore(null);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullPut() {
+    this.store.put(null);
+  }
+
+  @Test
+  public void emptyStore() {
+    assertThat(this.store.size(), is(0));
+    assertThat(this.store.getRandom(), nullValue());
+    assertThat(this.store.removeRandom(), nullValue());
+    assertThat(this.store.getRandom(ObjectCriteria.container(1)), nullValue());
+    assertThat(this.store.removeRandom(ObjectCriteria.container(1)), nullValue());
+    assertThat(this.store.size(1), is(0));
+  }
+
+  @Test
+  public void shardByContainerSuffix() {
+    for (int i = 0; i < 10; i++) {
+      this.store.put(generateId(-1));
+      this.store.put(generateId(1));
+      this.store.put(generateId(2));
+    }
+    assertThat(this.store.size(), is(30));
+    assertThat(this.store.size(-1), is(10));
+    assertThat(this.store.containerSuffixes(), containsInAnyOrder(-1, 1, 2));
+
+    for (int i = 0; i < 10; i++) {
+      final ObjectMetadata selected = this.store.getRandom(ObjectCriteria.container(1));
+      assertThat(selected.getContainerSuffix(), is(1));
+      final ObjectMetadata removed = this.store.removeRandom(ObjectCriteria.container(2));
+      assertThat(removed.getContainerSuffix(), is(2));
+    }
+    assertThat(this.store.removeRandom(ObjectCriteria.container(2)), nullValue());
+    assertThat(this.store.size(1), is(10));
+    assertThat(this.store.size(), is(20));
+  }
+
+  @Test
+  public void sizeRangeAcrossShards() {
+    for (int i = 0; i < 10; i++) {
+      this.store.put(generateId(1, 100));
+      this.store.put(generateId(2, 5000));
+    }
+    final ObjectMetadata object = generateId(3, 1000);
+    this.store.put(object);
+
+    final ObjectCriteria criteria = ObjectCriteria.size(600, 1200);
+    for (int i = 0; i < 10; i++) {
+      assertThat(this.store.getRandom(criteria), is(object));
+    }
+    assertThat(this.store.getRandom(new ObjectCriteria(2, 600, 1200)), nullValue());
+    assertThat(this.store.removeRandom(criteria), is(object));
+    assertThat(this.store.removeRandom(criteria), nullValue());
+    assertThat(this.store.size(), is(20));
+  }
+
+  @Test
+  public void removeAllAcrossShards() {
+    for (int i = 0; i < 20; i++) {
+      this.store.put(generateId(i % 3));
+    }
+    for (int i = 0; i < 20; i++) {
+      assertThat(this.store.removeRandom() == null, is(false));
+    }
+    assertThat(this.store.size(), is(0));
+    assertThat(this.store.removeRandom(), nullValue());
+  }
+
+  @Test
+  public void offHeapShards() {
+    this.store = new ShardedObjectStore(ObjectStoreType.OFFHEAP);
+    final ObjectMetadata object = generateId(7);
+    this.store.put(object);
+    assertThat(this.store.getRandom(ObjectCriteria.container(7)), is(object));
+    assertThat(this.store.getRandom(), is(object));
+  }
+
+  @Test
+  public void writeTo() throws IOException {
+    this.store.put(generateId(1));
+    this.store.put(generateId(2));
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    this.store.writeTo(out);
+    assertThat(out.size(), is(2 * LegacyObjectMetadata.OBJECT_SIZE));
+  }
+
+  @Test
+  public void clear() {
+    this.store.put(generateId(1));
+    this.store.clear();
+    assertThat(this.store.size(), is(0));
+    assertThat(this.store.getRandom(ObjectCriteria.container(1)), nullValue());
+  }
+
+  private ObjectMetadata generateId(final int containerSuffix) {
+    return generateId(containerSuffix, 0);
+  }
+
+  private ObjectMetadata generateId(final int containerSuffix, final long size) {
+    return LegacyObjectMetadata.fromMetadata(UUID.randomUUID().toString().replace("-", "") + "0000",
+        size, containerSuffix);
+  }
+}
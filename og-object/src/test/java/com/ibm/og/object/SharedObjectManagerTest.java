@@ -0,0 +1,340 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class SharedObjectManagerTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private String directory;
+
+  @Before
+  public void before() {
+    this.directory = this.folder.getRoot().getAbsolutePath();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroCapacity() {
+    new SharedObjectManager(this.directory, "id_", 0);
+  }
+
+  @Test(expected = ObjectManagerException.class)
+  public void emptyPoolRemove() {
+    final SharedObjectManager pool = create(10);
+    try {
+      pool.remove();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void addGetRemove() {
+    final SharedObjectManager pool = create(10);
+    final ObjectMetadata id = generateId(-1);
+    pool.add(id);
+    assertThat(pool.getCurrentObjectCount(), is(1L));
+
+    final ObjectMetadata read = pool.get();
+    assertThat(read, is(id));
+    // an object being read cannot be removed
+    assertRemoveFails(pool);
+    pool.getComplete(read);
+
+    assertThat(pool.remove(), is(id));
+    assertThat(pool.getCurrentObjectCount(), is(0L));
+    pool.shutdown();
+  }
+
+  @Test
+  public void duplicateRecords() {
+    final SharedObjectManager pool = create(2);
+    final ObjectMetadata id = generateId(-1);
+    pool.add(id);
+    pool.add(id);
+    // with this many reads, both slots are read with near certainty
+    final int reads = 32;
+    for (int i = 0; i < reads; i++) {
+      assertThat(pool.get(), is(id));
+    }
+    for (int i = 0; i < reads; i++) {
+      pool.getComplete(id);
+    }
+    // every reader was removed from the slot it was registered on
+    assertThat(pool.remove(), is(id));
+    assertThat(pool.remove(), is(id));
+    assertThat(pool.getCurrentObjectCount(), is(0L));
+    pool.shutdown();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void getCompleteWithoutGet() {
+    final SharedObjectManager pool = create(10);
+    try {
+      pool.getComplete(generateId(-1));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void criteria() {
+    final SharedObjectManager pool = create(100);
+    for (int i = 0; i < 50; i++) {
+      pool.add(generateId(i % 2));
+    }
+    for (int i = 0; i < 25; i++) {
+      assertThat(pool.remove(ObjectCriteria.container(1)).getContainerSuffix(), is(1));
+    }
+    assertRemoveFails(pool, ObjectCriteria.container(1));
+    assertThat(pool.getCurrentObjectCount(), is(25L));
+    pool.shutdown();
+  }
+
+  @Test
+  public void full() {
+    final SharedObjectManager pool = create(2);
+    pool.add(generateId(-1));
+    pool.add(generateId(-1));
+    try {
+      pool.add(generateId(-1));
+      throw new AssertionError("expected a full pool");
+    } catch (final ObjectManagerException e) {
+      // expected
+    }
+    // removal frees a slot for reuse
+    pool.remove();
+    pool.add(generateId(-1));
+    assertThat(pool.getCurrentObjectCount(), is(2L));
+    pool.shutdown();
+  }
+
+  @Test
+  public void sharedAndPersisted() {
+    final SharedObjectManager first = create(100);
+    final SharedObjectManager second = create(100);
+    final ObjectMetadata id = generateId(-1);
+    first.add(id);
+    assertThat(second.getCurrentObjectCount(), is(1L));
+    final ObjectMetadata read = second.get();
+    assertThat(read, is(id));
+    // a read in progress in one instance prevents removal by another
+    assertRemoveFails(first);
+    second.getComplete(read);
+    first.add(generateId(-1));
+    first.shutdown();
+    second.shutdown();
+
+    final SharedObjectManager reattached = create(1);
+    assertThat(reattached.getCapacity(), is(100L));
+    assertThat(reattached.getCurrentObjectCount(), is(2L));
+    reattached.shutdown();
+  }
+
+  @Test
+  public void seedFromObjectFiles() throws IOException {
+    final Set<ObjectMetadata> objects = Sets.newHashSet();
+    objects.addAll(writeObjects(0, 10));
+    objects.addAll(writeObjects(1, 5));
+
+    final SharedObjectManager pool = create(100);
+    assertThat(pool.getCurrentObjectCount(), is(15L));
+    final Set<ObjectMetadata> removed = Sets.newHashSet();
+    for (int i = 0; i < 15; i++) {
+      removed.add(pool.remove());
+    }
+    assertThat(removed, is(objects));
+    pool.shutdown();
+  }
+
+  @Test
+  public void recoverAbandonedReads() {
+    SharedObjectManager pool = create(10);
+    pool.add(generateId(-1));
+    // the read is never completed, as if the process had exited
+    pool.get();
+    pool.shutdown();
+
+    pool = create(10);
+    pool.remove();
+    pool.shutdown();
+  }
+
+  @Test
+  public void highWaterLoweredByRemoval() throws IOException {
+    final SharedObjectManager pool = create(100);
+    final ObjectMetadata kept = generateId(1);
+    pool.add(kept);
+    for (int i = 0; i < 50; i++) {
+      pool.add(generateId(-1));
+    }
+    // every object but the first is removed, which lowers the high water mark to it
+    for (int i = 0; i < 50; i++) {
+      pool.remove(ObjectCriteria.container(-1));
+    }
+    pool.shutdown();
+    assertThat(highWater(), is(1L));
+
+    final SharedObjectManager reattached = create(100);
+    assertThat(reattached.get(), is(kept));
+    reattached.shutdown();
+  }
+
+  private long highWater() throws IOException {
+    final RandomAccessFile raf = new RandomAccessFile(new File(this.directory,
+        "id_pool" + SharedObjectManager.SUFFIX), "r");
+    try {
+      final ByteBuffer header = ByteBuffer.allocate(SharedObjectManager.HEADER_SIZE)
+          .order(ByteOrder.nativeOrder());
+      raf.readFully(header.array());
+      // the high water mark follows the magic, version, slot size and capacity
+      return header.getLong(32);
+    } finally {
+      raf.close();
+    }
+  }
+
+  @Test
+  public void concurrentRemovalsAreDisjoint() throws Exception {
+    final int objects = 20000;
+    final SharedObjectManager first = create(objects);
+    final SharedObjectManager second = create(objects);
+    for (int i = 0; i < objects; i++) {
+      first.add(generateId(-1));
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    final List<Future<List<ObjectMetadata>>> futures = Lists.newArrayList();
+    for (int i = 0; i < 4; i++) {
+      final SharedObjectManager pool = i % 2 == 0 ? first : second;
+      futures.add(executor.submit(new Callable<List<ObjectMetadata>>() {
+        @Override
+        public List<ObjectMetadata> call() {
+          final List<ObjectMetadata> removed = Lists.newArrayList();
+          for (int j = 0; j < objects / 4; j++) {
+            final ObjectMetadata read = pool.get();
+            pool.getComplete(read);
+            removed.add(pool.remove());
+          }
+          return removed;
+        }
+      }));
+    }
+    final Set<ObjectMetadata> removed = Sets.newHashSet();
+    for (final Future<List<ObjectMetadata>> future : futures) {
+      removed.addAll(future.get());
+    }
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+
+    assertThat(removed.size(), is(objects));
+    assertThat(first.getCurrentObjectCount(), is(0L));
+    first.shutdown();
+    second.shutdown();
+  }
+
+  @Test
+  public void selectionWhileEmptying() throws Exception {
+    final SharedObjectManager pool = create(10);
+    final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    final List<Future<Void>> futures = Lists.newArrayList();
+    for (int i = 0; i < 4; i++) {
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() {
+          // the pool is repeatedly emptied, so selection often races the removal which lowers the
+          // high water mark to zero
+          while (System.nanoTime() < end) {
+            pool.add(generateId(-1));
+            try {
+              pool.getComplete(pool.get());
+            } catch (final ObjectManagerException e) {
+              // every object was removed by other threads
+            }
+            try {
+              pool.remove();
+            } catch (final ObjectManagerException e) {
+              // every object was removed by other threads
+            }
+          }
+          return null;
+        }
+      }));
+    }
+    for (final Future<Void> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+    pool.shutdown();
+  }
+
+  private SharedObjectManager create(final int capacity) {
+    return new SharedObjectManager(this.directory, "id_", capacity);
+  }
+
+  private static void assertRemoveFails(final ObjectManager pool) {
+    assertRemoveFails(pool, ObjectCriteria.ANY);
+  }
+
+  private static void assertRemoveFails(final ObjectManager pool,
+      final ObjectCriteria criteria) {
+    try {
+      pool.remove(criteria);
+      throw new AssertionError("expected removal to fail");
+    } catch (final ObjectManagerException e) {
+      // expected
+    }
+  }
+
+  private List<ObjectMetadata> writeObjects(final int index, final int count)
+      throws IOException {
+    final List<ObjectMetadata> objects = Lists.newArrayList();
+    final OutputStream out = new FileOutputStream(
+        new File(this.directory, "id_" + index + RandomObjectPopulator.SUFFIX));
+    try {
+      for (int i = 0; i < count; i++) {
+        final ObjectMetadata id = generateId(-1);
+        objects.add(id);
+        out.write(id.toBytes());
+      }
+    } finally {
+      out.close();
+    }
+    return objects;
+  }
+
+  private static ObjectMetadata generateId(final int containerSuffix) {
+    return LegacyObjectMetadata.fromMetadata(
+        UUID.randomUUID().toString().replace("-", "") + "0000", 0, containerSuffix);
+  }
+}
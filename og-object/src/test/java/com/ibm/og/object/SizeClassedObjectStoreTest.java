@@ -0,0 +1,101 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SizeClassedObjectStoreTest {
+  private static final long MIB = 1024 * 1024;
+  private SizeClassedObjectStore store;
+
+  @Before
+  public void before() {
+    this.store = new SizeClassedObjectStore(ObjectStoreType.HEAP);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullClassType() {
+    new SizeClassedObjectStore(null);
+  }
+
+  @Test
+  public void sizeClass() {
+    assertThat(SizeClassedObjectStore.sizeClass(0), is(0));
+    assertThat(SizeClassedObjectStore.sizeClass(1), is(1));
+    assertThat(SizeClassedObjectStore.sizeClass(2), is(2));
+    assertThat(SizeClassedObjectStore.sizeClass(3), is(2));
+    assertThat(SizeClassedObjectStore.sizeClass(4), is(3));
+    assertThat(SizeClassedObjectStore.sizeClass(MIB), is(21));
+    assertThat(SizeClassedObjectStore.sizeClass(Long.MAX_VALUE), is(63));
+  }
+
+  @Test
+  public void emptyStore() {
+    assertThat(this.store.size(), is(0));
+    assertThat(this.store.getRandom(), nullValue());
+    assertThat(this.store.removeRandom(0, MIB), nullValue());
+  }
+
+  @Test
+  public void alignedRange() {
+    populate();
+    // [1 MiB, 16 MiB) is exactly size classes 21 through 24
+    assertThat(this.store.size(MIB, 16 * MIB - 1), is(50L));
+    for (int i = 0; i < 100; i++) {
+      final long size = this.store.getRandom(MIB, 16 * MIB - 1).getSize();
+      assertThat(size, greaterThanOrEqualTo(MIB));
+      assertThat(size, lessThanOrEqualTo(16 * MIB - 1));
+    }
+  }
+
+  @Test
+  public void unalignedRange() {
+    populate();
+    // the 1 MiB objects share a size class with the range's lower bound and are rejected
+    for (int i = 0; i < 10; i++) {
+      final long size = this.store.removeRandom(MIB + 1, 3 * MIB).getSize();
+      assertThat(size, greaterThanOrEqualTo(MIB + 1));
+      assertThat(size, lessThanOrEqualTo(3 * MIB));
+    }
+    // rejected objects are returned to the store
+    assertThat(this.store.size(), is(60));
+  }
+
+  @Test
+  public void rangeWithoutObjects() {
+    populate();
+    assertThat(this.store.getRandom(5 * MIB, 6 * MIB), nullValue());
+    assertThat(this.store.removeRandom(5 * MIB, 6 * MIB), nullValue());
+    assertThat(this.store.size(), is(70));
+  }
+
+  @Test
+  public void clear() {
+    populate();
+    this.store.clear();
+    assertThat(this.store.size(), is(0));
+  }
+
+  // 10 objects each of 1 KiB, 1 MiB, 2 MiB, 3 MiB, 4 MiB, 8 MiB and 32 MiB
+  private void populate() {
+    for (final long size : new long[] {1024, MIB, 2 * MIB, 3 * MIB, 4 * MIB, 8 * MIB,
+        32 * MIB}) {
+      for (int i = 0; i < 10; i++) {
+        this.store.put(LegacyObjectMetadata.fromMetadata(
+            UUID.randomUUID().toString().replace("-", "") + "0000", size, -1));
+      }
+    }
+  }
+}
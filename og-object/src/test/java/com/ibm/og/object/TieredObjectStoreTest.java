@@ -0,0 +1,184 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.object;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Sets;
+
+public class TieredObjectStoreTest {
+  private static final int MAX_RESIDENT = 64;
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private File spillBase;
+  private TieredObjectStore store;
+
+  @Before
+  public void before() {
+    this.spillBase = new File(this.folder.getRoot(), "id_0.spill.");
+    // small segments so that tests exercise segment boundaries
+    this.store = new TieredObjectStore(new ShardedObjectStore(ObjectStoreType.HEAP),
+        MAX_RESIDENT, this.spillBase, 10);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void smallMaxResident() {
+    new TieredObjectStore(new ShardedObjectStore(ObjectStoreType.HEAP), 3, this.spillBase);
+  }
+
+  @Test
+  public void emptyStore() {
+    assertThat(this.store.size(), is(0));
+    assertThat(this.store.getRandom(), nullValue());
+    assertThat(this.store.removeRandom(), nullValue());
+  }
+
+  @Test
+  public void boundedResidency() {
+    final Set<ObjectMetadata> objects = Sets.newHashSet();
+    for (int i = 0; i < 1000; i++) {
+      final ObjectMetadata object = generateId(i % 2);
+      objects.add(object);
+      this.store.put(object);
+      assertThat(this.store.residentSize(), lessThanOrEqualTo(MAX_RESIDENT));
+    }
+    assertThat(this.store.size(), is(1000));
+    assertThat(segmentFile(0).exists(), is(true));
+
+    final Set<ObjectMetadata> removed = Sets.newHashSet();
+    for (int i = 0; i < 1000; i++) {
+      final ObjectMetadata object = this.store.removeRandom();
+      assertThat(objects.contains(object), is(true));
+      removed.add(object);
+      assertThat(this.store.residentSize(), lessThanOrEqualTo(MAX_RESIDENT));
+    }
+    assertThat(removed.size(), is(1000));
+    assertThat(this.store.removeRandom(), nullValue());
+    assertThat(segmentFile(0).exists(), is(false));
+  }
+
+  @Test
+  public void failedSpillKeepsObjects() {
+    // segment files cannot be created in a missing directory
+    final TieredObjectStore store =
+        new TieredObjectStore(new ShardedObjectStore(ObjectStoreType.HEAP), MAX_RESIDENT,
+            new File(this.folder.getRoot(), "missing/id_0.spill."), 10);
+    final Set<ObjectMetadata> objects = Sets.newHashSet();
+    for (int i = 0; i <= MAX_RESIDENT; i++) {
+      final ObjectMetadata object = generateId(0);
+      objects.add(object);
+      try {
+        store.put(object);
+      } catch (final ObjectManagerException e) {
+        assertThat(i, is(MAX_RESIDENT));
+      }
+    }
+    assertThat(store.size(), is(MAX_RESIDENT + 1));
+    assertThat(store.residentSize(), is(MAX_RESIDENT + 1));
+
+    final Set<ObjectMetadata> removed = Sets.newHashSet();
+    for (int i = 0; i <= MAX_RESIDENT; i++) {
+      removed.add(store.removeRandom());
+    }
+    assertThat(removed, is(objects));
+  }
+
+  @Test
+  public void proportionalSelection() {
+    for (int i = 0; i < 1000; i++) {
+      this.store.put(generateId(-1));
+    }
+    // about 94% of objects are spilled, so selection must mostly read from disk
+    final Set<ObjectMetadata> selected = Sets.newHashSet();
+    for (int i = 0; i < 2000; i++) {
+      selected.add(this.store.getRandom());
+    }
+    assertThat(selected.size(), greaterThan(700));
+  }
+
+  @Test
+  public void criteria() {
+    for (int i = 0; i < 500; i++) {
+      this.store.put(generateId(i % 2));
+    }
+    for (int i = 0; i < 100; i++) {
+      assertThat(this.store.removeRandom(ObjectCriteria.container(1)).getContainerSuffix(),
+          is(1));
+      assertThat(this.store.getRandom(ObjectCriteria.container(0)).getContainerSuffix(), is(0));
+    }
+    assertThat(this.store.size(), is(400));
+  }
+
+  @Test
+  public void putRecordAndWriteTo() throws IOException {
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    final Set<ObjectMetadata> objects = Sets.newHashSet();
+    for (int i = 0; i < 200; i++) {
+      final ObjectMetadata object = generateId(-1);
+      objects.add(object);
+      expected.write(object.toBytes());
+    }
+    final ByteBuffer records = ByteBuffer.wrap(expected.toByteArray());
+    while (records.hasRemaining()) {
+      this.store.putRecord(records);
+    }
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    this.store.writeTo(out);
+    final byte[] written = out.toByteArray();
+    assertThat(written.length, is(200 * LegacyObjectMetadata.OBJECT_SIZE));
+    final Set<ObjectMetadata> read = Sets.newHashSet();
+    for (int i = 0; i < 200; i++) {
+      final byte[] record = new byte[LegacyObjectMetadata.OBJECT_SIZE];
+      System.arraycopy(written, i * record.length, record, 0, record.length);
+      read.add(LegacyObjectMetadata.fromBytes(record));
+    }
+    assertThat(read, is(objects));
+  }
+
+  @Test
+  public void close() {
+    for (int i = 0; i < 200; i++) {
+      this.store.put(generateId(-1));
+    }
+    this.store.close();
+    assertThat(this.store.size(), is(0));
+    assertThat(segmentFile(0).exists(), is(false));
+  }
+
+  @Test
+  public void staleSegmentsDeleted() throws IOException {
+    assertThat(segmentFile(0).createNewFile(), is(true));
+    new TieredObjectStore(new ShardedObjectStore(ObjectStoreType.HEAP), MAX_RESIDENT,
+        this.spillBase);
+    assertThat(segmentFile(0).exists(), is(false));
+  }
+
+  private File segmentFile(final int index) {
+    return new File(this.spillBase.getPath() + index);
+  }
+
+  private static ObjectMetadata generateId(final int containerSuffix) {
+    return LegacyObjectMetadata.fromMetadata(UUID.randomUUID().toString().replace("-", "") + "0000",
+        0, containerSuffix);
+  }
+}
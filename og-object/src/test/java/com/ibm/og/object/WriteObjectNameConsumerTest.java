@@ -61,4 +61,23 @@ public class WriteObjectNameConsumerTest extends AbstractObjectNameConsumerTest
     this.objectNameConsumer.consume(this.operation);
     doVerify();
   }
+
+  @Test
+  public void untrackedSequentialName() {
+    when(this.request.getContext()).thenReturn(ImmutableMap.of(Context.X_OG_OBJECT_NAME, "seq5",
+        Context.X_OG_SEQUENTIAL_OBJECT_NAME, "true"));
+
+    this.objectNameConsumer.consume(this.operation);
+    doVerifyNever();
+  }
+
+  @Test
+  public void trackedSequentialName() {
+    when(this.request.getContext()).thenReturn(ImmutableMap.of(Context.X_OG_OBJECT_NAME, "seq5",
+        Context.X_OG_SEQUENTIAL_OBJECT_NAME, "true", Context.X_OG_OBJECT_PREFIX, "seq",
+        Context.X_OG_OBJECT_SUFFIX, "5"));
+
+    this.objectNameConsumer.consume(this.operation);
+    verify(this.objectManager).add(SequentialObjectMetadata.fromMetadata("seq", 5, 1024, -1));
+  }
 }
@@ -33,6 +33,11 @@ public class RequestRateScheduler implements Scheduler {
   private final TimeUnit rampupUnit;
   private final AtomicReference<RateLimiter> permits;
   private final CountDownLatch started;
+  // the calls scheduled before the current rate took effect, when it took effect, and the rate in
+  // calls per second; guarded by this
+  private double scheduledBefore;
+  private long rateStartNanos;
+  private double currentRate;
 
   /**
    * Constructs an instance using the provided rate {@code count / unit }
@@ -51,6 +56,7 @@ public class RequestRateScheduler implements Scheduler {
     this.rampup = rampup;
     this.rampupUnit = checkNotNull(rampupUnit);
     this.permits = new AtomicReference<RateLimiter>();
+    this.started = new CountDownLatch(1);
 
     // convert arbitrary rate unit to rate/second
     final double requestsPerSecond = requestsPerSecond(rate, unit);
@@ -60,7 +66,7 @@ public class RequestRateScheduler implements Scheduler {
 
     if (DoubleMath.fuzzyEquals(rampup, 0.0, Math.pow(0.1, 6))) {
       final RateLimiter steady = RateLimiter.create(requestsPerSecond);
-      this.permits.set(steady);
+      setPermits(steady);
     } else {
       // the warmup Ratelimiter will not work if the permit request rate is slow enough to not being able to reach the
       // threshold from left. The permits are accumulated faster than the request rate here.
@@ -72,7 +78,7 @@ public class RequestRateScheduler implements Scheduler {
       final double slope  = requestsPerSecond / (rampupUnit.toSeconds((long)rampup));
       final int rampStepWidth = calculateStepWidth(rate, rampup, rampupUnit);
 
-      this.permits.set(RateLimiter.create(slope *  rampStepWidth * 1));
+      setPermits(RateLimiter.create(slope *  rampStepWidth * 1));
 
       final Thread rampupThread = new Thread(new Runnable() {
         @Override
@@ -94,10 +100,10 @@ public class RequestRateScheduler implements Scheduler {
             requestsPerSecondNow = slope *  rampStepWidth * rampStepNum;
             _logger.debug("slope {} rampStep  {}  targetRequestPerSecond {} ", slope, rampStepNum, requestsPerSecondNow);
             rampRateLimiter = RateLimiter.create(requestsPerSecondNow);
-            RequestRateScheduler.this.permits.set(rampRateLimiter);
+            setPermits(rampRateLimiter);
           }
           final RateLimiter steady = RateLimiter.create(requestsPerSecond);
-          RequestRateScheduler.this.permits.set(steady);
+          setPermits(steady);
 
           _logger.info("Finished ramp");
         }
@@ -106,7 +112,6 @@ public class RequestRateScheduler implements Scheduler {
       rampupThread.setDaemon(true);
       rampupThread.start();
     }
-    this.started = new CountDownLatch(1);
   }
 
   double requestsPerSecond(final double rate, final TimeUnit unit) {
@@ -115,10 +120,45 @@ public class RequestRateScheduler implements Scheduler {
 
   @Override
   public void schedule() {
-    this.started.countDown();
+    if (this.started.getCount() > 0) {
+      start();
+    }
     this.permits.get().acquire();
   }
 
+  private synchronized void start() {
+    if (this.started.getCount() > 0) {
+      this.rateStartNanos = System.nanoTime();
+      this.started.countDown();
+    }
+  }
+
+  private synchronized void setPermits(final RateLimiter rateLimiter) {
+    if (this.started.getCount() == 0) {
+      final long now = System.nanoTime();
+      this.scheduledBefore += this.currentRate * (now - this.rateStartNanos) / 1e9;
+      this.rateStartNanos = now;
+    }
+    this.currentRate = rateLimiter.getRate();
+    this.permits.set(rateLimiter);
+  }
+
+  /**
+   * Counts the calls to {@link #schedule} which the configured rate, including any ramp, has called
+   * for since {@code schedule} was first called. The count keeps growing while callers do not call
+   * {@code schedule}, so it exceeds the calls permitted once callers fall behind the rate by more
+   * than the permits the rate limiter stores, which is one second's worth
+   *
+   * @return the number of calls scheduled so far
+   */
+  public synchronized long getScheduled() {
+    if (this.started.getCount() > 0) {
+      return 0;
+    }
+    return (long) (this.scheduledBefore
+        + this.currentRate * (System.nanoTime() - this.rateStartNanos) / 1e9);
+  }
+
   @Override
   public String toString() {
     return String.format("RequestRateScheduler [rate=%s, unit=%s, rampup=%s, rampupUnit=%s]",
@@ -7,6 +7,9 @@ package com.ibm.og.scheduling;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 
 import java.util.concurrent.TimeUnit;
 
@@ -15,6 +18,8 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 
+import com.google.common.util.concurrent.Uninterruptibles;
+
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 import com.tngtech.java.junit.dataprovider.UseDataProvider;
@@ -61,4 +66,19 @@ public class RequestRateSchedulerTest {
     assertThat(s.requestsPerSecond(rate, unit),
         closeTo(expectedRequestsPerSecond, Math.pow(0.1, 6)));
   }
+
+  @Test
+  public void scheduledWhileCallersFallBehind() {
+    final RequestRateScheduler s =
+        new RequestRateScheduler(1000.0, TimeUnit.SECONDS, 0.0, TimeUnit.SECONDS);
+    assertThat(s.getScheduled(), is(0L));
+
+    s.schedule();
+    Uninterruptibles.sleepUninterruptibly(100, TimeUnit.MILLISECONDS);
+
+    // one call permitted, the rate called for about 100 more
+    final long scheduled = s.getScheduled();
+    assertThat(scheduled, greaterThanOrEqualTo(100L));
+    assertThat(scheduled, lessThan(1000L));
+  }
 }
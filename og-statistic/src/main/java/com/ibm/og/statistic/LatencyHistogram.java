@@ -0,0 +1,141 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.statistic;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A concurrent histogram of non-negative latency values. Values are counted in log-linear buckets:
+ * each power of two range is divided into 16 equal sub-buckets, so reported percentiles are within
+ * 1/16 of the recorded value while the histogram occupies a fixed, small amount of memory
+ * regardless of the number or range of values recorded.
+ *
+ * @since 1.0
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // the largest shift applied to a positive long is 62 - SUB_BUCKET_BITS
+  private static final int BUCKETS = (63 - SUB_BUCKET_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+  private final AtomicLongArray counts;
+  private final AtomicLong count;
+  private final AtomicLong sum;
+  private final AtomicLong min;
+  private final AtomicLong max;
+
+  /**
+   * Constructs an empty instance
+   */
+  public LatencyHistogram() {
+    this.counts = new AtomicLongArray(BUCKETS);
+    this.count = new AtomicLong();
+    this.sum = new AtomicLong();
+    this.min = new AtomicLong(Long.MAX_VALUE);
+    this.max = new AtomicLong(0);
+  }
+
+  /**
+   * Records a value
+   *
+   * @param value the value to record
+   * @throws IllegalArgumentException if value is negative
+   */
+  public void record(final long value) {
+    checkArgument(value >= 0, "value must be >= 0 [%s]", value);
+    this.counts.incrementAndGet(bucket(value));
+    this.count.incrementAndGet();
+    this.sum.addAndGet(value);
+    long current;
+    while (value < (current = this.min.get()) && !this.min.compareAndSet(current, value)) {
+      // retry
+    }
+    while (value > (current = this.max.get()) && !this.max.compareAndSet(current, value)) {
+      // retry
+    }
+  }
+
+  /**
+   * @return the number of values recorded
+   */
+  public long getCount() {
+    return this.count.get();
+  }
+
+  /**
+   * @return the smallest value recorded, or 0 if no values have been recorded
+   */
+  public long getMin() {
+    return getCount() > 0 ? this.min.get() : 0;
+  }
+
+  /**
+   * @return the largest value recorded, or 0 if no values have been recorded
+   */
+  public long getMax() {
+    return this.max.get();
+  }
+
+  /**
+   * @return the mean of the values recorded, or 0.0 if no values have been recorded
+   */
+  public double getMean() {
+    final long count = getCount();
+    return count > 0 ? (double) this.sum.get() / count : 0.0;
+  }
+
+  /**
+   * Gets the value at or below which the provided percentage of recorded values fall. The
+   * returned value is the upper bound of the bucket holding that percentile, limited to the largest
+   * recorded value
+   *
+   * @param percentile the percentile to get, in the range (0.0, 100.0]
+   * @return the value at the provided percentile, or 0 if no values have been recorded
+   * @throws IllegalArgumentException if percentile is not in the range (0.0, 100.0]
+   */
+  public long getPercentile(final double percentile) {
+    checkArgument(percentile > 0.0 && percentile <= 100.0,
+        "percentile must be in range (0.0, 100.0] [%s]", percentile);
+    final long count = getCount();
+    if (count == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += this.counts.get(i);
+      if (seen >= rank) {
+        return Math.min(upperBound(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  static int bucket(final long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return shift * SUB_BUCKETS + (int) (value >>> shift);
+  }
+
+  static long upperBound(final int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    final int shift = bucket / SUB_BUCKETS - 1;
+    final long subBucket = bucket - shift * SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("LatencyHistogram [count=%s, min=%s, max=%s, mean=%.2f]", getCount(),
+        getMin(), getMax(), getMean());
+  }
+}
@@ -0,0 +1,78 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.statistic;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeValue() {
+    new LatencyHistogram().record(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroPercentile() {
+    new LatencyHistogram().getPercentile(0.0);
+  }
+
+  @Test
+  public void empty() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    assertThat(histogram.getCount(), is(0L));
+    assertThat(histogram.getMin(), is(0L));
+    assertThat(histogram.getMax(), is(0L));
+    assertThat(histogram.getMean(), is(0.0));
+    assertThat(histogram.getPercentile(99.0), is(0L));
+  }
+
+  @Test
+  public void smallValuesAreExact() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 10; i++) {
+      histogram.record(i);
+    }
+    assertThat(histogram.getCount(), is(10L));
+    assertThat(histogram.getMin(), is(1L));
+    assertThat(histogram.getMax(), is(10L));
+    assertThat(histogram.getMean(), is(5.5));
+    assertThat(histogram.getPercentile(50.0), is(5L));
+    assertThat(histogram.getPercentile(90.0), is(9L));
+    assertThat(histogram.getPercentile(100.0), is(10L));
+  }
+
+  @Test
+  public void percentilesWithinBucketError() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 100000; i++) {
+      histogram.record(i);
+    }
+    assertThat(histogram.getMean(), closeTo(50000.5, 0.001));
+    for (final double percentile : new double[] {50.0, 90.0, 99.0, 99.9}) {
+      final long expected = (long) (percentile * 1000);
+      final long actual = histogram.getPercentile(percentile);
+      assertThat(actual, greaterThanOrEqualTo(expected));
+      assertThat(actual, lessThanOrEqualTo(expected + expected / 16));
+    }
+    assertThat(histogram.getPercentile(100.0), is(100000L));
+  }
+
+  @Test
+  public void bucketBoundaries() {
+    for (final long value : new long[] {0, 15, 16, 31, 32, 1000, 123456789, Long.MAX_VALUE}) {
+      final int bucket = LatencyHistogram.bucket(value);
+      assertThat(LatencyHistogram.upperBound(bucket), greaterThanOrEqualTo(value));
+      if (bucket > 0) {
+        assertThat(LatencyHistogram.upperBound(bucket - 1), lessThanOrEqualTo(value - 1));
+      }
+    }
+  }
+}
@@ -9,10 +9,13 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Map;
 
+import com.ibm.og.object.ObjectCriteria;
 import com.ibm.og.object.ObjectManager;
 import com.ibm.og.object.ObjectMetadata;
+import com.ibm.og.object.SequentialObjectMetadata;
 import com.ibm.og.util.Context;
 import com.google.common.base.Function;
+import com.google.common.base.Supplier;
 
 /**
  * A function which generates object names for deletion from a provided {@code ObjectManager}
@@ -21,6 +24,7 @@ import com.google.common.base.Function;
  */
 public class DeleteObjectNameFunction implements Function<Map<String, String>, String> {
   private final ObjectManager objectManager;
+  private final Supplier<ObjectCriteria> criteria;
 
   /**
    * Creates an instance
@@ -29,7 +33,21 @@ public class DeleteObjectNameFunction implements Function<Map<String, String>, S
    * @throws NullPointerException if objectManager is null
    */
   public DeleteObjectNameFunction(final ObjectManager objectManager) {
+    this(objectManager, null);
+  }
+
+  /**
+   * Creates an instance which draws object names matching per request criteria
+   * 
+   * @param objectManager the object manager to draw object names from
+   * @param criteria a supplier of criteria restricting which object names are drawn for each
+   *        request, or null to draw any object name
+   * @throws NullPointerException if objectManager is null
+   */
+  public DeleteObjectNameFunction(final ObjectManager objectManager,
+      final Supplier<ObjectCriteria> criteria) {
     this.objectManager = checkNotNull(objectManager);
+    this.criteria = criteria;
   }
 
   /**
@@ -39,22 +57,32 @@ public class DeleteObjectNameFunction implements Function<Map<String, String>, S
    * <li>Headers.X_OG_OBJECT_NAME
    * <li>Headers.X_OG_OBJECT_SIZE</li>
    * <li>Headers.X_OG_CONTAINER_SUFFIX</li>
+   * <li>Headers.X_OG_OBJECT_PREFIX and Headers.X_OG_OBJECT_SUFFIX, for sequentially named
+   * objects</li>
    * </ul>
    * 
    * @param context a request creation context for storing metadata to be used by other functions
    */
   @Override
   public String apply(final Map<String, String> context) {
-    final ObjectMetadata objectMetadata = this.objectManager.remove();
+    final ObjectMetadata objectMetadata;
+    if (this.criteria != null) {
+      objectMetadata = this.objectManager.remove(this.criteria.get());
+    } else {
+      objectMetadata = this.objectManager.remove();
+    }
     context.put(Context.X_OG_OBJECT_NAME, objectMetadata.getName());
     context.put(Context.X_OG_OBJECT_SIZE, String.valueOf(objectMetadata.getSize()));
     context.put(Context.X_OG_CONTAINER_SUFFIX, String.valueOf(objectMetadata.getContainerSuffix()));
+    if (objectMetadata instanceof SequentialObjectMetadata) {
+      ((SequentialObjectMetadata) objectMetadata).putContext(context);
+    }
 
     return objectMetadata.getName();
   }
 
   @Override
   public String toString() {
-    return "DeleteObjectNameFunction []";
+    return String.format("DeleteObjectNameFunction [criteria=%s]", this.criteria);
   }
 }
@@ -0,0 +1,64 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.supplier;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+
+import com.google.common.base.Function;
+import com.ibm.og.object.NamespaceObjectManager;
+import com.ibm.og.object.ObjectNamespace;
+import com.ibm.og.util.Context;
+
+/**
+ * A function which generates object names for write by claiming the next index of a deterministic
+ * object namespace
+ * 
+ * @since 1.0
+ */
+public class NamespaceObjectNameFunction implements Function<Map<String, String>, String> {
+  private final NamespaceObjectManager objectManager;
+
+  /**
+   * Creates an instance
+   * 
+   * @param objectManager the namespace object manager to claim indices from
+   * @throws NullPointerException if objectManager is null
+   */
+  public NamespaceObjectNameFunction(final NamespaceObjectManager objectManager) {
+    this.objectManager = checkNotNull(objectManager);
+  }
+
+  /**
+   * Creates and returns an object name. Additionally, inserts the following entries into the
+   * context:
+   * <ul>
+   * <li>Headers.X_OG_OBJECT_NAME
+   * <li>Headers.X_OG_OBJECT_SIZE</li>
+   * <li>Headers.X_OG_CONTAINER_SUFFIX</li>
+   * </ul>
+   * 
+   * @param context a request creation context for storing metadata to be used by other functions
+   */
+  @Override
+  public String apply(final Map<String, String> context) {
+    final ObjectNamespace namespace = this.objectManager.getNamespace();
+    final long index = this.objectManager.next();
+    final String objectName = namespace.name(index);
+    context.put(Context.X_OG_OBJECT_NAME, objectName);
+    context.put(Context.X_OG_OBJECT_SIZE, String.valueOf(namespace.size(index)));
+    context.put(Context.X_OG_CONTAINER_SUFFIX, String.valueOf(namespace.containerSuffix(index)));
+
+    return objectName;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("NamespaceObjectNameFunction [namespace=%s]",
+        this.objectManager.getNamespace());
+  }
+}
@@ -12,6 +12,7 @@ import static org.mockito.Mockito.when;
 
 import java.util.Map;
 
+import com.ibm.og.object.ObjectCriteria;
 import com.ibm.og.object.ObjectManager;
 import com.ibm.og.object.ObjectManagerException;
 import com.ibm.og.object.ObjectMetadata;
@@ -19,6 +20,7 @@ import com.ibm.og.util.Context;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.base.Suppliers;
 import com.google.common.collect.Maps;
 
 public class DeleteObjectNameFunctionTest {
@@ -46,6 +48,22 @@ public class DeleteObjectNameFunctionTest {
     assertThat(context.get(Context.X_OG_OBJECT_NAME), is(object));
   }
 
+  @Test
+  public void criteria() {
+    final String object = "objectName";
+    final ObjectMetadata objectName = mock(ObjectMetadata.class);
+    when(objectName.getName()).thenReturn(object);
+    when(objectName.getContainerSuffix()).thenReturn(3);
+    final ObjectCriteria criteria = ObjectCriteria.container(3);
+    when(this.objectManager.remove(criteria)).thenReturn(objectName);
+
+    final Map<String, String> context = Maps.newHashMap();
+    final DeleteObjectNameFunction function =
+        new DeleteObjectNameFunction(this.objectManager, Suppliers.ofInstance(criteria));
+    assertThat(function.apply(context), is(object));
+    assertThat(context.get(Context.X_OG_CONTAINER_SUFFIX), is("3"));
+  }
+
   @Test(expected = ObjectManagerException.class)
   public void supplierException() {
     when(this.objectManager.remove()).thenThrow(new ObjectManagerException());
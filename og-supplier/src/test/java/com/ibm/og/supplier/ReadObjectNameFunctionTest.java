@@ -16,9 +16,11 @@ import com.ibm.og.util.Context;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.ibm.og.object.ObjectCriteria;
 import com.ibm.og.object.ObjectManager;
 import com.ibm.og.object.ObjectManagerException;
 import com.ibm.og.object.ObjectMetadata;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.Maps;
 
 public class ReadObjectNameFunctionTest {
@@ -46,6 +48,22 @@ public class ReadObjectNameFunctionTest {
     assertThat(context.get(Context.X_OG_OBJECT_NAME), is(object));
   }
 
+  @Test
+  public void criteria() {
+    final String object = "objectName";
+    final ObjectMetadata objectName = mock(ObjectMetadata.class);
+    when(objectName.getName()).thenReturn(object);
+    when(objectName.getContainerSuffix()).thenReturn(3);
+    final ObjectCriteria criteria = ObjectCriteria.container(3);
+    when(this.objectManager.get(criteria)).thenReturn(objectName);
+
+    final Map<String, String> context = Maps.newHashMap();
+    final ReadObjectNameFunction function =
+        new ReadObjectNameFunction(this.objectManager, Suppliers.ofInstance(criteria));
+    assertThat(function.apply(context), is(object));
+    assertThat(context.get(Context.X_OG_CONTAINER_SUFFIX), is("3"));
+  }
+
   @Test(expected = ObjectManagerException.class)
   public void supplierException() {
     when(this.objectManager.get()).thenThrow(new ObjectManagerException());
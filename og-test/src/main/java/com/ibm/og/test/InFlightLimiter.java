@@ -0,0 +1,195 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.test;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Supplier;
+
+/**
+ * A limit on the number of requests a load test has in flight at once. Every request the scheduler
+ * intends to issue is counted, along with the requests actually issued, so that a client which
+ * cannot keep up with the scheduler can be told apart from a slow server. Under the block policy
+ * the scheduler makes no requests while it waits, so when the schedule is known the requests it
+ * called for meanwhile count as intended too, and intended minus issued measures the requests the
+ * limit held back.
+ * <p>
+ * With a limit, client threads grow no further than the limit. Without one, requests are always
+ * issued and only counted.
+ *
+ * @since 1.0
+ */
+public class InFlightLimiter {
+  private final int maxInFlight;
+  private final SaturationPolicy policy;
+  private final Supplier<Long> scheduled;
+  private final Semaphore permits;
+  private final AtomicLong intended;
+  private final AtomicLong scheduledIntended;
+  private final AtomicLong issued;
+  private final AtomicLong dropped;
+  private final AtomicLong saturations;
+  private final AtomicLong blockedNanos;
+
+  /**
+   * Constructs an instance
+   *
+   * @param maxInFlight the maximum number of requests in flight at once, or 0 for no limit
+   * @param policy what to do with a request scheduled while the limit is reached
+   * @throws IllegalArgumentException if maxInFlight is negative
+   * @throws NullPointerException if policy is null
+   */
+  public InFlightLimiter(final int maxInFlight, final SaturationPolicy policy) {
+    this(maxInFlight, policy, null);
+  }
+
+  /**
+   * Constructs an instance which also counts the requests a schedule called for while the
+   * scheduler waited under the block policy
+   *
+   * @param maxInFlight the maximum number of requests in flight at once, or 0 for no limit
+   * @param policy what to do with a request scheduled while the limit is reached
+   * @param scheduled the number of requests the schedule has called for so far, or null if the
+   *        schedule is not known
+   * @throws IllegalArgumentException if maxInFlight is negative
+   * @throws NullPointerException if policy is null
+   */
+  public InFlightLimiter(final int maxInFlight, final SaturationPolicy policy,
+      final Supplier<Long> scheduled) {
+    checkArgument(maxInFlight >= 0, "maxInFlight must be >= 0 [%s]", maxInFlight);
+    this.maxInFlight = maxInFlight;
+    this.policy = checkNotNull(policy);
+    this.scheduled = scheduled;
+    this.permits = maxInFlight > 0 ? new Semaphore(maxInFlight) : null;
+    this.intended = new AtomicLong();
+    this.scheduledIntended = new AtomicLong();
+    this.issued = new AtomicLong();
+    this.dropped = new AtomicLong();
+    this.saturations = new AtomicLong();
+    this.blockedNanos = new AtomicLong();
+  }
+
+  /**
+   * Counts a request intended by the scheduler and admits it if the limit allows. Under the block
+   * policy this waits for an in-flight request to complete when the limit is reached. Every
+   * admitted request must be followed by a call to {@link #release} once it completes
+   *
+   * @return true if the request may be issued; false if it was dropped, or if the limit was
+   *         reached under the fail policy
+   * @throws InterruptedException if interrupted while waiting under the block policy
+   */
+  public boolean acquire() throws InterruptedException {
+    this.intended.incrementAndGet();
+    if (this.permits == null || this.permits.tryAcquire()) {
+      this.issued.incrementAndGet();
+      return true;
+    }
+    this.saturations.incrementAndGet();
+    switch (this.policy) {
+      case BLOCK:
+        final long start = System.nanoTime();
+        try {
+          this.permits.acquire();
+        } finally {
+          this.blockedNanos.addAndGet(System.nanoTime() - start);
+          countScheduled();
+        }
+        this.issued.incrementAndGet();
+        return true;
+      case DROP:
+        this.dropped.incrementAndGet();
+        return false;
+      default:
+        return false;
+    }
+  }
+
+  // the schedule is sampled when a wait ends rather than when it is read, since the schedule keeps
+  // running after the test stops
+  private void countScheduled() {
+    if (this.scheduled == null) {
+      return;
+    }
+    final long scheduled = this.scheduled.get();
+    long current = this.scheduledIntended.get();
+    while (scheduled > current && !this.scheduledIntended.compareAndSet(current, scheduled)) {
+      current = this.scheduledIntended.get();
+    }
+  }
+
+  /**
+   * Releases the slot of an admitted request which has completed
+   */
+  public void release() {
+    if (this.permits != null) {
+      this.permits.release();
+    }
+  }
+
+  /**
+   * @return the maximum number of requests in flight at once, or 0 if there is no limit
+   */
+  public int getMaxInFlight() {
+    return this.maxInFlight;
+  }
+
+  /**
+   * @return the policy applied while the limit is reached
+   */
+  public SaturationPolicy getPolicy() {
+    return this.policy;
+  }
+
+  /**
+   * @return the number of requests the scheduler intended to issue, including, when the schedule
+   *         is known, those it called for while the scheduler waited under the block policy
+   */
+  public long getIntended() {
+    return Math.max(this.intended.get(), this.scheduledIntended.get());
+  }
+
+  /**
+   * @return the number of requests admitted for issue
+   */
+  public long getIssued() {
+    return this.issued.get();
+  }
+
+  /**
+   * @return the number of requests dropped because the limit was reached
+   */
+  public long getDropped() {
+    return this.dropped.get();
+  }
+
+  /**
+   * @return the number of scheduled requests which found the limit reached
+   */
+  public long getSaturations() {
+    return this.saturations.get();
+  }
+
+  /**
+   * @return the total time the scheduler waited for the limit, in milliseconds
+   */
+  public long getBlockedMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(this.blockedNanos.get());
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "InFlightLimiter [maxInFlight=%s, policy=%s, intended=%s, issued=%s, dropped=%s, "
+            + "saturations=%s, blockedMillis=%s]",
+        this.maxInFlight, this.policy, getIntended(), getIssued(), getDropped(), getSaturations(),
+        getBlockedMillis());
+  }
+}
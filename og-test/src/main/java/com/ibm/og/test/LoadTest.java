@@ -46,6 +46,7 @@ public class LoadTest implements Callable<LoadTestResult> {
   private final RequestManager requestManager;
   private final Client client;
   private final Scheduler scheduler;
+  private final InFlightLimiter limiter;
   private final Thread schedulerThread;
   private final EventBus eventBus;
   private final boolean shutdownImmediate;
@@ -57,7 +58,7 @@ public class LoadTest implements Callable<LoadTestResult> {
   private ArrayList<String> messages;
 
   /**
-   * Creates an instance
+   * Creates an instance which does not limit requests in flight
    * 
    * @param requestManager a generator of request instances
    * @param client a request executor
@@ -67,13 +68,33 @@ public class LoadTest implements Callable<LoadTestResult> {
    *        all current requests finish and shutdown gracefully
    * @throws NullPointerException if requestSupplier, client, scheduler, or eventBus are null
    */
+  public LoadTest(final RequestManager requestManager, final Client client,
+      final Scheduler scheduler, final EventBus eventBus, final boolean shutdownImmediate) {
+    this(requestManager, client, scheduler, new InFlightLimiter(0, SaturationPolicy.BLOCK),
+        eventBus, shutdownImmediate);
+  }
+
+  /**
+   * Creates an instance
+   * 
+   * @param requestManager a generator of request instances
+   * @param client a request executor
+   * @param scheduler a scheduler which determines request rate
+   * @param limiter a limit on requests in flight, which also counts intended and issued requests
+   * @param eventBus an event bus for notifying components of events in the system
+   * @param shutdownImmediate if true, abort all in-progress requests at shutdown, else wait until
+   *        all current requests finish and shutdown gracefully
+   * @throws NullPointerException if requestSupplier, client, scheduler, limiter or eventBus are
+   *         null
+   */
   @Inject
   public LoadTest(final RequestManager requestManager, final Client client,
-      final Scheduler scheduler, final EventBus eventBus,
+      final Scheduler scheduler, final InFlightLimiter limiter, final EventBus eventBus,
       @Named("shutdownImmediate") final boolean shutdownImmediate) {
     this.requestManager = checkNotNull(requestManager);
     this.client = checkNotNull(client);
     this.scheduler = checkNotNull(scheduler);
+    this.limiter = checkNotNull(limiter);
     this.schedulerThread = new Thread(new SchedulerRunnable(), "loadtest-scheduler");
     this.schedulerThread.setDaemon(true);
     this.eventBus = checkNotNull(eventBus);
@@ -92,6 +113,14 @@ public class LoadTest implements Callable<LoadTestResult> {
         while (LoadTest.this.running.get()) {
           LoadTest.this.scheduler.schedule();
           if (LoadTest.this.running.get()) {
+            // admit before creating the request, so a dropped request reserves no objects
+            if (!LoadTest.this.limiter.acquire()) {
+              if (LoadTest.this.limiter.getPolicy() == SaturationPolicy.FAIL) {
+                abortTest(String.format("In-flight request limit reached [%s]",
+                    LoadTest.this.limiter.getMaxInFlight()));
+              }
+              continue;
+            }
             final Request request = LoadTest.this.requestManager.get();
             _logger.trace("Created request {}", request);
 
@@ -100,6 +129,9 @@ public class LoadTest implements Callable<LoadTestResult> {
             addCallback(request, future);
           }
         }
+      } catch (final InterruptedException e) {
+        // stopTest interrupts the scheduler while it waits for an in-flight request to complete
+        _logger.debug("Scheduler thread interrupted");
       } catch (final Exception e) {
         _logger.error("Exception while producing request", e);
         _exceptionLogger.error("Exception while producing request", e);
@@ -188,12 +220,14 @@ public class LoadTest implements Callable<LoadTestResult> {
       @Override
       public void onSuccess(final Response response) {
         _logger.trace("Operation completed {}, {}", request, response);
+        LoadTest.this.limiter.release();
         postOperation(response);
       }
 
       @Override
       public void onFailure(final Throwable t) {
         _logger.error("Exception while processing operation", t);
+        LoadTest.this.limiter.release();
         final Response response = new HttpResponse.Builder().withStatusCode(599).build();
         postOperation(response);
       }
@@ -205,12 +239,19 @@ public class LoadTest implements Callable<LoadTestResult> {
     });
   }
 
+  /**
+   * @return the limit on requests in flight, which counts intended and issued requests
+   */
+  public InFlightLimiter getLimiter() {
+    return this.limiter;
+  }
+
   @Override
   public String toString() {
     return String.format(
-        "LoadTest [%n" + "requestManager=%s,%n" + "scheduler=%s,%n" + "client=%s,%n"
-            + "shutdownImmediate=%s%n" + "]",
-        this.requestManager, this.scheduler, this.client, this.shutdownImmediate);
+        "LoadTest [%n" + "requestManager=%s,%n" + "scheduler=%s,%n" + "limiter=%s,%n"
+            + "client=%s,%n" + "shutdownImmediate=%s%n" + "]",
+        this.requestManager, this.scheduler, this.limiter, this.client, this.shutdownImmediate);
   }
   
 }
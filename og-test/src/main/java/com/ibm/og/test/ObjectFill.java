@@ -0,0 +1,286 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.test;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.ibm.og.api.Request;
+import com.ibm.og.api.Response;
+import com.ibm.og.api.Client;
+import com.ibm.og.http.HttpUtil;
+import com.ibm.og.object.LegacyObjectMetadata;
+import com.ibm.og.object.ObjectFileRecorder;
+import com.ibm.og.test.condition.LoadTestResult;
+import com.ibm.og.util.Context;
+
+/**
+ * Prepopulates a store as quickly as possible ahead of a read test. Writes are executed directly
+ * against the client with a fixed number outstanding, and are never posted to the event bus, so
+ * they bypass statistics, test conditions and the object manager. Successfully written objects
+ * are recorded in bulk into object files which a following test loads as usual. Writes are issued
+ * until a target object count or total size has been written, a maximum number of writes have
+ * failed, or the fill is stopped.
+ *
+ * @since 1.0
+ */
+public class ObjectFill implements Callable<LoadTestResult> {
+  private static final Logger _logger = LoggerFactory.getLogger(ObjectFill.class);
+  private static final Logger _consoleLogger = LoggerFactory.getLogger("ConsoleLogger");
+  private final Client client;
+  private final Supplier<Request> writes;
+  private final ObjectFileRecorder recorder;
+  private final int concurrency;
+  private final long targetObjects;
+  private final long targetBytes;
+  private final long maxFailures;
+  private final boolean shutdownImmediate;
+  private final Semaphore outstanding;
+  private final CountDownLatch completed;
+  // objects and bytes issued, less those whose writes failed
+  private final AtomicLong claimedObjects;
+  private final AtomicLong claimedBytes;
+  private final AtomicLong objects;
+  private final AtomicLong bytes;
+  private final AtomicLong failures;
+  private final List<String> messages;
+  private volatile boolean running;
+  private volatile boolean success;
+  private long timestampStart;
+  private long timestampFinish;
+
+  /**
+   * Constructs an instance
+   *
+   * @param client the client with which to execute writes
+   * @param writes a supplier of write requests
+   * @param recorder the recorder of successfully written objects
+   * @param concurrency the number of writes to keep outstanding
+   * @param targetObjects the number of objects to write, or 0 for no limit
+   * @param targetBytes the total size of objects to write, or 0 for no limit; the last writes
+   *        issued may exceed this by up to one object each
+   * @param maxFailures the number of failed writes after which the fill is aborted
+   * @param shutdownImmediate if true, abort in-progress writes when the fill is stopped
+   * @throws NullPointerException if client, writes or recorder are null
+   * @throws IllegalArgumentException if concurrency or maxFailures are not positive, if
+   *         targetObjects or targetBytes are negative, or if neither target is set
+   */
+  public ObjectFill(final Client client, final Supplier<Request> writes,
+      final ObjectFileRecorder recorder, final int concurrency, final long targetObjects,
+      final long targetBytes, final long maxFailures, final boolean shutdownImmediate) {
+    this.client = checkNotNull(client);
+    this.writes = checkNotNull(writes);
+    this.recorder = checkNotNull(recorder);
+    checkArgument(concurrency > 0, "concurrency must be > 0 [%s]", concurrency);
+    checkArgument(targetObjects >= 0, "targetObjects must be >= 0 [%s]", targetObjects);
+    checkArgument(targetBytes >= 0, "targetBytes must be >= 0 [%s]", targetBytes);
+    checkArgument(targetObjects > 0 || targetBytes > 0,
+        "one of targetObjects or targetBytes must be > 0");
+    checkArgument(maxFailures > 0, "maxFailures must be > 0 [%s]", maxFailures);
+    this.concurrency = concurrency;
+    this.targetObjects = targetObjects;
+    this.targetBytes = targetBytes;
+    this.maxFailures = maxFailures;
+    this.shutdownImmediate = shutdownImmediate;
+    this.outstanding = new Semaphore(concurrency);
+    this.completed = new CountDownLatch(1);
+    this.claimedObjects = new AtomicLong();
+    this.claimedBytes = new AtomicLong();
+    this.objects = new AtomicLong();
+    this.bytes = new AtomicLong();
+    this.failures = new AtomicLong();
+    this.messages = Lists.newCopyOnWriteArrayList();
+    this.running = true;
+    this.success = true;
+  }
+
+  @Override
+  public LoadTestResult call() {
+    this.timestampStart = System.currentTimeMillis();
+    try {
+      while (this.running) {
+        if (!targetRemaining()) {
+          // writes still outstanding may fail and return their claim, so wait for them
+          awaitOutstanding();
+          if (!targetRemaining()) {
+            break;
+          }
+        }
+        this.outstanding.acquire();
+        if (!this.running) {
+          this.outstanding.release();
+          break;
+        }
+        try {
+          execute(this.writes.get());
+        } catch (final RuntimeException e) {
+          this.outstanding.release();
+          throw e;
+        }
+      }
+    } catch (final InterruptedException e) {
+      _logger.debug("Fill interrupted");
+    } catch (final Exception e) {
+      _logger.error("Exception while producing request", e);
+      abort(e.getMessage());
+    }
+    this.running = false;
+
+    try {
+      Uninterruptibles.getUninterruptibly(this.client.shutdown(this.shutdownImmediate));
+    } catch (final Exception e) {
+      _logger.error("Exception while attempting to shutdown client", e);
+    }
+    // every completed write is recorded before the object files are completed
+    this.outstanding.acquireUninterruptibly(this.concurrency);
+    try {
+      this.recorder.close();
+    } catch (final Exception e) {
+      _logger.error("Exception while recording objects", e);
+      abort(String.format("Unable to record objects: %s", e.getMessage()));
+    }
+    this.timestampFinish = System.currentTimeMillis();
+    _logger.info("{}", this);
+    _consoleLogger.info(summary());
+    this.completed.countDown();
+    return new LoadTestResult(this.timestampStart, this.timestampFinish, this.success,
+        ImmutableList.copyOf(this.messages));
+  }
+
+  private boolean targetRemaining() {
+    return (this.targetObjects == 0 || this.claimedObjects.get() < this.targetObjects)
+        && (this.targetBytes == 0 || this.claimedBytes.get() < this.targetBytes);
+  }
+
+  private void awaitOutstanding() throws InterruptedException {
+    this.outstanding.acquire(this.concurrency);
+    this.outstanding.release(this.concurrency);
+  }
+
+  private void execute(final Request request) {
+    final long size = request.getBody().getSize();
+    this.claimedObjects.incrementAndGet();
+    this.claimedBytes.addAndGet(size);
+    Futures.addCallback(this.client.execute(request), new FutureCallback<Response>() {
+      @Override
+      public void onSuccess(final Response response) {
+        complete(request, response, size);
+      }
+
+      @Override
+      public void onFailure(final Throwable t) {
+        _logger.error("Exception while processing operation", t);
+        fail(size);
+      }
+    });
+  }
+
+  private void complete(final Request request, final Response response, final long size) {
+    try {
+      if (!HttpUtil.SUCCESS_STATUS_CODES.contains(response.getStatusCode())) {
+        fail(size);
+        return;
+      }
+      String name = request.getContext().get(Context.X_OG_OBJECT_NAME);
+      // SOH writes
+      if (name == null) {
+        name = response.getContext().get(Context.X_OG_OBJECT_NAME);
+      }
+      final String suffix = request.getContext().get(Context.X_OG_CONTAINER_SUFFIX);
+      this.recorder.add(LegacyObjectMetadata.fromMetadata(name, size,
+          suffix != null ? Integer.parseInt(suffix) : -1));
+      this.objects.incrementAndGet();
+      this.bytes.addAndGet(size);
+    } catch (final Exception e) {
+      _logger.error("Exception while recording object", e);
+      abort(String.format("Unable to record object: %s", e.getMessage()));
+    } finally {
+      this.outstanding.release();
+    }
+  }
+
+  private void fail(final long size) {
+    // the failed write's share of the target is issued again
+    this.claimedObjects.decrementAndGet();
+    this.claimedBytes.addAndGet(-size);
+    // writes aborted when the fill is stopped are not counted towards maxFailures
+    if (this.failures.incrementAndGet() >= this.maxFailures && this.running) {
+      abort(String.format("Fill aborted after %s failed writes", this.failures.get()));
+    }
+    this.outstanding.release();
+  }
+
+  private void abort(final String message) {
+    this.success = false;
+    if (message != null) {
+      this.messages.add(message);
+    }
+    this.running = false;
+  }
+
+  /**
+   * Stops issuing writes, and waits until the fill has completed
+   */
+  public void stop() {
+    this.running = false;
+    Uninterruptibles.awaitUninterruptibly(this.completed);
+  }
+
+  /**
+   * @return the number of objects written and recorded
+   */
+  public long getObjects() {
+    return this.objects.get();
+  }
+
+  /**
+   * @return the total size of the objects written and recorded
+   */
+  public long getBytes() {
+    return this.bytes.get();
+  }
+
+  /**
+   * @return the number of failed writes
+   */
+  public long getFailures() {
+    return this.failures.get();
+  }
+
+  private String summary() {
+    final double seconds =
+        Math.max(this.timestampFinish - this.timestampStart, 1) / 1000.0;
+    return String.format(
+        "Fill %s: %s objects, %s bytes, %s failed writes in %.3f s (%.2f objects/s, %.2f MB/s)",
+        this.success ? "completed" : "failed", this.objects.get(), this.bytes.get(),
+        this.failures.get(), seconds, this.objects.get() / seconds,
+        this.bytes.get() / seconds / 1000000.0);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "ObjectFill [concurrency=%s, targetObjects=%s, targetBytes=%s, maxFailures=%s, "
+            + "objects=%s, bytes=%s, failures=%s, recorder=%s]",
+        this.concurrency, this.targetObjects, this.targetBytes, this.maxFailures,
+        this.objects.get(), this.bytes.get(), this.failures.get(), this.recorder);
+  }
+}
@@ -0,0 +1,28 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.test;
+
+/**
+ * What a load test does with a scheduled request while its in-flight request limit is reached
+ *
+ * @since 1.0
+ */
+public enum SaturationPolicy {
+  /**
+   * the scheduler waits until an in-flight request completes
+   */
+  BLOCK,
+
+  /**
+   * the request is not issued, and is counted as dropped
+   */
+  DROP,
+
+  /**
+   * the test is aborted
+   */
+  FAIL
+}
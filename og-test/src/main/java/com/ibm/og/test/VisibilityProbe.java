@@ -0,0 +1,334 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.test;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.ibm.og.api.Client;
+import com.ibm.og.api.Method;
+import com.ibm.og.api.Operation;
+import com.ibm.og.api.Request;
+import com.ibm.og.api.Response;
+import com.ibm.og.http.HttpRequest;
+import com.ibm.og.http.HttpUtil;
+import com.ibm.og.statistic.LatencyHistogram;
+import com.ibm.og.util.Context;
+import com.ibm.og.util.Pair;
+import com.ibm.og.util.TestState;
+
+/**
+ * Measures how long newly written objects take to become readable. A sample of successfully
+ * completed writes is placed on a time indexed queue, and a dedicated thread reads each sampled
+ * object back once each configured delay has elapsed since its write completed, until a read
+ * succeeds or every delay has been tried. The time from write completion to the first successful
+ * read is recorded in a latency histogram.
+ * <p>
+ * Probe requests are executed directly against the client and are never posted to the event bus,
+ * so they are not counted by {@code Statistics}, request schedulers or test conditions. Writes
+ * whose object name is assigned by the server, such as SOH writes, are not probed.
+ *
+ * @since 1.0
+ */
+public class VisibilityProbe {
+  private static final Logger _logger = LoggerFactory.getLogger(VisibilityProbe.class);
+  // context copied from a write to address and authenticate the probe of its object
+  private static final List<String> PROBE_CONTEXT = ImmutableList.of(Context.X_OG_OBJECT_NAME,
+      Context.X_OG_CONTAINER_NAME, Context.X_OG_CONTAINER_SUFFIX, Context.X_OG_USERNAME,
+      Context.X_OG_PASSWORD, Context.X_OG_KEYSTONE_TOKEN, Context.X_OG_STORAGE_ACCOUNT_NAME);
+  private final Client client;
+  private final Method method;
+  private final long[] delays;
+  private final double sampleFraction;
+  private final int maxPending;
+  private final DelayQueue<Probe> queue;
+  private final Semaphore outstanding;
+  private final AtomicInteger pending;
+  private final Thread probeThread;
+  private volatile boolean running;
+  private final AtomicLong writes;
+  private final AtomicLong probed;
+  private final AtomicLong visible;
+  private final AtomicLong notVisible;
+  private final AtomicLong dropped;
+  private final AtomicLong errors;
+  private final LatencyHistogram histogram;
+
+  /**
+   * Constructs an instance
+   *
+   * @param client the client with which to execute probe requests
+   * @param method the probe request method, either GET or HEAD
+   * @param delays the delays after write completion at which to probe an object, in ascending
+   *        order
+   * @param unit the unit of delays
+   * @param sampleFraction the fraction of successful writes to probe, in the range (0.0, 1.0]
+   * @param maxPending the maximum number of objects awaiting visibility at once; writes completing
+   *        while this many objects are pending are not probed
+   * @param maxOutstanding the maximum number of probe requests in progress at once
+   * @throws NullPointerException if client, method, delays or unit are null
+   * @throws IllegalArgumentException if method is not GET or HEAD, if delays is empty, negative or
+   *         not ascending, if sampleFraction is not in the range (0.0, 1.0], or if maxPending or
+   *         maxOutstanding is not positive
+   */
+  public VisibilityProbe(final Client client, final Method method, final List<Long> delays,
+      final TimeUnit unit, final double sampleFraction, final int maxPending,
+      final int maxOutstanding) {
+    this.client = checkNotNull(client);
+    this.method = checkNotNull(method);
+    checkArgument(method == Method.GET || method == Method.HEAD,
+        "method must be GET or HEAD [%s]", method);
+    checkNotNull(delays);
+    checkNotNull(unit);
+    checkArgument(!delays.isEmpty(), "delays must not be empty");
+    this.delays = new long[delays.size()];
+    for (int i = 0; i < this.delays.length; i++) {
+      final long delay = checkNotNull(delays.get(i));
+      checkArgument(delay >= 0, "delays must be >= 0 [%s]", delay);
+      this.delays[i] = unit.toNanos(delay);
+      checkArgument(i == 0 || this.delays[i] >= this.delays[i - 1],
+          "delays must be in ascending order [%s]", delays);
+    }
+    checkArgument(sampleFraction > 0.0 && sampleFraction <= 1.0,
+        "sampleFraction must be in range (0.0, 1.0] [%s]", sampleFraction);
+    checkArgument(maxPending > 0, "maxPending must be > 0 [%s]", maxPending);
+    checkArgument(maxOutstanding > 0, "maxOutstanding must be > 0 [%s]", maxOutstanding);
+    this.sampleFraction = sampleFraction;
+    this.maxPending = maxPending;
+    this.queue = new DelayQueue<Probe>();
+    this.outstanding = new Semaphore(maxOutstanding);
+    this.pending = new AtomicInteger();
+    this.probeThread = new Thread(new ProbeRunnable(), "loadtest-visibility");
+    this.probeThread.setDaemon(true);
+    this.running = false;
+    this.writes = new AtomicLong();
+    this.probed = new AtomicLong();
+    this.visible = new AtomicLong();
+    this.notVisible = new AtomicLong();
+    this.dropped = new AtomicLong();
+    this.errors = new AtomicLong();
+    this.histogram = new LatencyHistogram();
+  }
+
+  /**
+   * Starts probing when the test starts running, and stops when the test is stopping. Objects
+   * still pending when probing stops are not counted as visible or not visible
+   *
+   * @param state the state that the test has transitioned to
+   */
+  @Subscribe
+  public void update(final TestState state) {
+    checkNotNull(state);
+    if (state == TestState.RUNNING && !this.running) {
+      this.running = true;
+      this.probeThread.start();
+    } else if (state == TestState.STOPPING && this.running) {
+      this.running = false;
+      this.probeThread.interrupt();
+      _logger.info("{}", this);
+    }
+  }
+
+  /**
+   * Samples a completed write for probing
+   *
+   * @param operation the completed operation
+   */
+  @Subscribe
+  public void update(final Pair<Request, Response> operation) {
+    checkNotNull(operation);
+    final Request request = operation.getKey();
+    final Response response = operation.getValue();
+    if (!this.running || request.getOperation() != Operation.WRITE
+        || request.getMethod() != Method.PUT
+        || !HttpUtil.SUCCESS_STATUS_CODES.contains(response.getStatusCode())
+        || !request.getContext().containsKey(Context.X_OG_OBJECT_NAME)) {
+      return;
+    }
+    final long completed = System.nanoTime();
+    // sample deterministically so that the probed fraction is exact over any run of writes
+    final long write = this.writes.incrementAndGet();
+    if ((long) (write * this.sampleFraction) == (long) ((write - 1) * this.sampleFraction)) {
+      return;
+    }
+    if (this.pending.incrementAndGet() > this.maxPending) {
+      this.pending.decrementAndGet();
+      this.dropped.incrementAndGet();
+      return;
+    }
+    this.probed.incrementAndGet();
+    this.queue.put(new Probe(request, completed));
+  }
+
+  private class ProbeRunnable implements Runnable {
+    @Override
+    public void run() {
+      try {
+        while (VisibilityProbe.this.running) {
+          final Probe probe = VisibilityProbe.this.queue.take();
+          VisibilityProbe.this.outstanding.acquire();
+          execute(probe);
+        }
+      } catch (final InterruptedException e) {
+        _logger.debug("Visibility probe thread interrupted");
+      } catch (final Exception e) {
+        _logger.error("Exception while probing object visibility", e);
+      }
+    }
+  }
+
+  private void execute(final Probe probe) {
+    final long issued = System.nanoTime();
+    final Request request = probe.request(issued);
+    Futures.addCallback(this.client.execute(request), new FutureCallback<Response>() {
+      @Override
+      public void onSuccess(final Response response) {
+        VisibilityProbe.this.outstanding.release();
+        complete(probe, issued, response.getStatusCode());
+      }
+
+      @Override
+      public void onFailure(final Throwable t) {
+        VisibilityProbe.this.outstanding.release();
+        complete(probe, issued, 599);
+      }
+    });
+  }
+
+  private void complete(final Probe probe, final long issued, final int statusCode) {
+    if (!this.running) {
+      return;
+    }
+    if (HttpUtil.SUCCESS_STATUS_CODES.contains(statusCode)) {
+      // the object was visible no later than when the successful probe was issued
+      this.histogram.record(TimeUnit.NANOSECONDS.toMillis(issued - probe.completed));
+      this.visible.incrementAndGet();
+      this.pending.decrementAndGet();
+      return;
+    }
+    if (statusCode != 404) {
+      this.errors.incrementAndGet();
+    }
+    if (probe.attempt + 1 < this.delays.length) {
+      probe.attempt++;
+      this.queue.put(probe);
+    } else {
+      this.notVisible.incrementAndGet();
+      this.pending.decrementAndGet();
+    }
+  }
+
+  private class Probe implements Delayed {
+    private final Request write;
+    private final long completed;
+    private int attempt;
+
+    Probe(final Request write, final long completed) {
+      this.write = write;
+      this.completed = completed;
+      this.attempt = 0;
+    }
+
+    private long deadline() {
+      return this.completed + VisibilityProbe.this.delays[this.attempt];
+    }
+
+    Request request(final long issued) {
+      final Operation operation =
+          VisibilityProbe.this.method == Method.GET ? Operation.READ : Operation.METADATA;
+      final HttpRequest.Builder builder =
+          new HttpRequest.Builder(VisibilityProbe.this.method, this.write.getUri(), operation);
+      final Map<String, String> context = this.write.getContext();
+      for (final String key : PROBE_CONTEXT) {
+        final String value = context.get(key);
+        if (value != null) {
+          builder.withContext(key, value);
+        }
+      }
+      builder.withContext(Context.X_OG_REQUEST_ID,
+          String.format("%s-visibility-%s", context.get(Context.X_OG_REQUEST_ID), this.attempt));
+      return builder.build();
+    }
+
+    @Override
+    public long getDelay(final TimeUnit unit) {
+      return unit.convert(deadline() - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(final Delayed o) {
+      return Longs.compare(deadline(), ((Probe) o).deadline());
+    }
+  }
+
+  /**
+   * @return the histogram of milliseconds from write completion to visibility
+   */
+  public LatencyHistogram getHistogram() {
+    return this.histogram;
+  }
+
+  /**
+   * @return the number of writes sampled for probing
+   */
+  public long getProbed() {
+    return this.probed.get();
+  }
+
+  /**
+   * @return the number of probed objects which became visible
+   */
+  public long getVisible() {
+    return this.visible.get();
+  }
+
+  /**
+   * @return the number of probed objects which were not visible by the last delay
+   */
+  public long getNotVisible() {
+    return this.notVisible.get();
+  }
+
+  /**
+   * @return the number of sampled writes not probed because too many objects were pending
+   */
+  public long getDropped() {
+    return this.dropped.get();
+  }
+
+  /**
+   * @return the number of probe requests which failed with a status other than 404
+   */
+  public long getErrors() {
+    return this.errors.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "VisibilityProbe [method=%s, probed=%s, visible=%s, notVisible=%s, dropped=%s, "
+            + "errors=%s, histogram=%s]",
+        this.method, getProbed(), getVisible(), getNotVisible(), getDropped(), getErrors(),
+        this.histogram);
+  }
+}
@@ -0,0 +1,136 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+
+public class InFlightLimiterTest {
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeMaxInFlight() {
+    new InFlightLimiter(-1, SaturationPolicy.BLOCK);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullPolicy() {
+    new InFlightLimiter(1, null);
+  }
+
+  @Test
+  public void unbounded() throws InterruptedException {
+    final InFlightLimiter limiter = new InFlightLimiter(0, SaturationPolicy.FAIL);
+    for (int i = 0; i < 100; i++) {
+      assertThat(limiter.acquire(), is(true));
+    }
+    assertThat(limiter.getIntended(), is(100L));
+    assertThat(limiter.getIssued(), is(100L));
+    assertThat(limiter.getSaturations(), is(0L));
+  }
+
+  @Test
+  public void drop() throws InterruptedException {
+    final InFlightLimiter limiter = new InFlightLimiter(2, SaturationPolicy.DROP);
+    assertThat(limiter.acquire(), is(true));
+    assertThat(limiter.acquire(), is(true));
+    assertThat(limiter.acquire(), is(false));
+    limiter.release();
+    assertThat(limiter.acquire(), is(true));
+    assertThat(limiter.acquire(), is(false));
+
+    assertThat(limiter.getIntended(), is(5L));
+    assertThat(limiter.getIssued(), is(3L));
+    assertThat(limiter.getDropped(), is(2L));
+    assertThat(limiter.getSaturations(), is(2L));
+  }
+
+  @Test
+  public void fail() throws InterruptedException {
+    final InFlightLimiter limiter = new InFlightLimiter(1, SaturationPolicy.FAIL);
+    assertThat(limiter.acquire(), is(true));
+    assertThat(limiter.acquire(), is(false));
+
+    assertThat(limiter.getIntended(), is(2L));
+    assertThat(limiter.getIssued(), is(1L));
+    assertThat(limiter.getDropped(), is(0L));
+    assertThat(limiter.getSaturations(), is(1L));
+  }
+
+  @Test
+  public void block() throws InterruptedException {
+    final InFlightLimiter limiter = new InFlightLimiter(1, SaturationPolicy.BLOCK);
+    assertThat(limiter.acquire(), is(true));
+    final CountDownLatch admitted = new CountDownLatch(1);
+    final Thread t = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          limiter.acquire();
+          admitted.countDown();
+        } catch (final InterruptedException e) {
+          // fall through
+        }
+      }
+    });
+    t.start();
+    assertThat(admitted.await(100, TimeUnit.MILLISECONDS), is(false));
+    limiter.release();
+    assertThat(admitted.await(10, TimeUnit.SECONDS), is(true));
+
+    assertThat(limiter.getIntended(), is(2L));
+    assertThat(limiter.getIssued(), is(2L));
+    assertThat(limiter.getSaturations(), is(1L));
+    assertThat(limiter.getBlockedMillis() > 0, is(true));
+  }
+
+  @Test
+  public void blockCountsScheduled() throws InterruptedException {
+    final InFlightLimiter limiter =
+        new InFlightLimiter(1, SaturationPolicy.BLOCK, Suppliers.ofInstance(100L));
+    assertThat(limiter.acquire(), is(true));
+    assertThat(limiter.getIntended(), is(1L));
+    limiter.release();
+    assertThat(limiter.acquire(), is(true));
+    limiter.release();
+    final Thread t = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          limiter.acquire();
+        } catch (final InterruptedException e) {
+          // fall through
+        }
+      }
+    });
+    assertThat(limiter.acquire(), is(true));
+    t.start();
+    Thread.sleep(100);
+    limiter.release();
+    t.join(10000);
+
+    assertThat(limiter.getIntended(), is(100L));
+    assertThat(limiter.getIssued(), is(4L));
+    assertThat(limiter.getSaturations(), is(1L));
+  }
+
+  @Test
+  public void scheduledIgnoredWithoutBlocking() throws InterruptedException {
+    final Supplier<Long> scheduled = Suppliers.ofInstance(100L);
+    final InFlightLimiter limiter = new InFlightLimiter(1, SaturationPolicy.DROP, scheduled);
+    assertThat(limiter.acquire(), is(true));
+    assertThat(limiter.acquire(), is(false));
+
+    assertThat(limiter.getIntended(), is(2L));
+    assertThat(limiter.getIssued(), is(1L));
+  }
+}
@@ -6,7 +6,9 @@
 package com.ibm.og.test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.mock;
@@ -19,6 +21,7 @@ import java.net.URISyntaxException;
 import java.util.concurrent.TimeUnit;
 
 import com.ibm.og.test.condition.CounterCondition;
+import com.ibm.og.test.condition.LoadTestResult;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -135,4 +138,20 @@ public class LoadTestTest {
     verify(this.client, atLeast(5)).execute(this.request);
     verify(this.client, times(1)).shutdown(true);
   }
+
+  @Test
+  public void inFlightLimitFail() {
+    // the first request never completes, so the second finds the limit reached
+    when(this.client.execute(this.request)).thenReturn(SettableFuture.<Response>create());
+    final InFlightLimiter limiter = new InFlightLimiter(1, SaturationPolicy.FAIL);
+    final LoadTest test = new LoadTest(this.requestManager, this.client, mock(Scheduler.class),
+        limiter, this.eventBus, true);
+
+    final LoadTestResult result = test.call();
+    assertThat(result.success, is(false));
+    assertThat(result.messages, hasItem(containsString("In-flight request limit")));
+    assertThat(limiter.getIntended(), is(2L));
+    assertThat(limiter.getIssued(), is(1L));
+    verify(this.client, times(1)).execute(this.request);
+  }
 }
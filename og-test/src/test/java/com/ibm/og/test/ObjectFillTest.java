@@ -0,0 +1,130 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.ibm.og.api.Client;
+import com.ibm.og.api.Method;
+import com.ibm.og.api.Operation;
+import com.ibm.og.api.Request;
+import com.ibm.og.api.Response;
+import com.ibm.og.http.Bodies;
+import com.ibm.og.http.HttpRequest;
+import com.ibm.og.http.HttpResponse;
+import com.ibm.og.object.ObjectFileFormat;
+import com.ibm.og.object.ObjectFileRecorder;
+import com.ibm.og.object.ObjectFiles;
+import com.ibm.og.test.condition.LoadTestResult;
+import com.ibm.og.util.Context;
+
+public class ObjectFillTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private Client client;
+  private Supplier<Request> writes;
+  private ObjectFileRecorder recorder;
+  private AtomicInteger executed;
+  private volatile int statusCode;
+
+  @Before
+  public void before() {
+    this.client = mock(Client.class);
+    this.executed = new AtomicInteger();
+    this.statusCode = 201;
+    when(this.client.execute(any(Request.class)))
+        .thenAnswer(new Answer<ListenableFuture<Response>>() {
+      @Override
+      public ListenableFuture<Response> answer(final InvocationOnMock invocation) {
+        // every third write fails
+        final int write = ObjectFillTest.this.executed.incrementAndGet();
+        final int statusCode = write % 3 == 0 ? 500 : ObjectFillTest.this.statusCode;
+        return Futures.<Response>immediateFuture(
+            new HttpResponse.Builder().withStatusCode(statusCode).build());
+      }
+    });
+    when(this.client.shutdown(anyBoolean())).thenReturn(Futures.immediateFuture(true));
+    this.writes = new Supplier<Request>() {
+      @Override
+      public Request get() {
+        final String object = UUID.randomUUID().toString().replace("-", "") + "0000";
+        return new HttpRequest.Builder(Method.PUT,
+            URI.create("http://127.0.0.1/container/" + object), Operation.WRITE)
+                .withContext(Context.X_OG_OBJECT_NAME, object)
+                .withContext(Context.X_OG_CONTAINER_SUFFIX, "2").withBody(Bodies.zeroes(1000))
+                .build();
+      }
+    };
+    this.recorder = new ObjectFileRecorder(this.folder.getRoot().toString(), "id_", 40,
+        ObjectFileFormat.V1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void noTarget() {
+    new ObjectFill(this.client, this.writes, this.recorder, 4, 0, 0, 100, true);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroConcurrency() {
+    new ObjectFill(this.client, this.writes, this.recorder, 0, 10, 0, 100, true);
+  }
+
+  @Test
+  public void targetObjects() throws IOException {
+    final ObjectFill fill =
+        new ObjectFill(this.client, this.writes, this.recorder, 4, 100, 0, 100, true);
+    final LoadTestResult result = fill.call();
+    assertThat(result.success, is(true));
+    // failed writes are issued again
+    assertThat(fill.getObjects(), is(100L));
+    assertThat(fill.getBytes(), is(100000L));
+    assertThat(fill.getFailures(), is(49L));
+    assertThat(ObjectFiles.count(new File(this.folder.getRoot(), "id_0.object")), is(40L));
+    assertThat(ObjectFiles.count(new File(this.folder.getRoot(), "id_2.object")), is(20L));
+  }
+
+  @Test
+  public void targetBytes() {
+    final ObjectFill fill =
+        new ObjectFill(this.client, this.writes, this.recorder, 4, 0, 10500, 100, true);
+    assertThat(fill.call().success, is(true));
+    assertThat(fill.getObjects(), is(11L));
+    assertThat(this.recorder.getRecordCount(), is(11L));
+  }
+
+  @Test
+  public void maxFailures() {
+    this.statusCode = 503;
+    final ObjectFill fill =
+        new ObjectFill(this.client, this.writes, this.recorder, 4, 100, 0, 10, true);
+    final LoadTestResult result = fill.call();
+    assertThat(result.success, is(false));
+    assertThat(fill.getObjects(), is(0L));
+    assertThat(fill.getFailures(), is(10L));
+    assertThat(result.messages.size(), is(1));
+  }
+}
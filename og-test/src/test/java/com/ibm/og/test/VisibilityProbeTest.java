@@ -0,0 +1,182 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.ibm.og.api.Client;
+import com.ibm.og.api.Method;
+import com.ibm.og.api.Operation;
+import com.ibm.og.api.Request;
+import com.ibm.og.api.Response;
+import com.ibm.og.http.Bodies;
+import com.ibm.og.http.HttpRequest;
+import com.ibm.og.http.HttpResponse;
+import com.ibm.og.util.Context;
+import com.ibm.og.util.Pair;
+import com.ibm.og.util.TestState;
+
+public class VisibilityProbeTest {
+  private static final List<Long> DELAYS = ImmutableList.of(0L, 20L, 40L);
+  private Client client;
+  private List<Request> probes;
+  private List<Integer> statusCodes;
+
+  @Before
+  public void before() {
+    this.client = mock(Client.class);
+    this.probes = Lists.newCopyOnWriteArrayList();
+    this.statusCodes = Lists.newCopyOnWriteArrayList();
+    when(this.client.execute(any(Request.class)))
+        .thenAnswer(new Answer<ListenableFuture<Response>>() {
+      @Override
+      public ListenableFuture<Response> answer(final InvocationOnMock invocation) {
+        final Request request = (Request) invocation.getArguments()[0];
+        final int attempt = VisibilityProbeTest.this.probes.size();
+        VisibilityProbeTest.this.probes.add(request);
+        final int statusCode = attempt < VisibilityProbeTest.this.statusCodes.size()
+            ? VisibilityProbeTest.this.statusCodes.get(attempt) : 200;
+        return Futures.<Response>immediateFuture(
+            new HttpResponse.Builder().withStatusCode(statusCode).build());
+      }
+    });
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidMethod() {
+    new VisibilityProbe(this.client, Method.PUT, DELAYS, TimeUnit.MILLISECONDS, 1.0, 10, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void emptyDelays() {
+    new VisibilityProbe(this.client, Method.GET, ImmutableList.<Long>of(), TimeUnit.MILLISECONDS,
+        1.0, 10, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void descendingDelays() {
+    new VisibilityProbe(this.client, Method.GET, ImmutableList.of(10L, 5L),
+        TimeUnit.MILLISECONDS, 1.0, 10, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroSampleFraction() {
+    new VisibilityProbe(this.client, Method.GET, DELAYS, TimeUnit.MILLISECONDS, 0.0, 10, 1);
+  }
+
+  @Test
+  public void visibleAfterRetry() throws Exception {
+    this.statusCodes.add(404);
+    final VisibilityProbe probe = create(1.0);
+    probe.update(TestState.RUNNING);
+    probe.update(write("object"));
+    awaitResolved(probe, 1);
+    probe.update(TestState.STOPPING);
+
+    assertThat(probe.getProbed(), is(1L));
+    assertThat(probe.getVisible(), is(1L));
+    assertThat(probe.getNotVisible(), is(0L));
+    assertThat(probe.getErrors(), is(0L));
+    assertThat(probe.getHistogram().getCount(), is(1L));
+    assertThat(probe.getHistogram().getMin(), greaterThanOrEqualTo(20L));
+
+    assertThat(this.probes.size(), is(2));
+    final Request request = this.probes.get(0);
+    assertThat(request.getMethod(), is(Method.HEAD));
+    assertThat(request.getOperation(), is(Operation.METADATA));
+    assertThat(request.getUri(), is(URI.create("http://127.0.0.1/container/object")));
+    assertThat(request.getContext().get(Context.X_OG_OBJECT_NAME), is("object"));
+    assertThat(request.getContext().get(Context.X_OG_REQUEST_ID), is("1-visibility-0"));
+  }
+
+  @Test
+  public void notVisible() throws Exception {
+    for (int i = 0; i < DELAYS.size(); i++) {
+      this.statusCodes.add(404);
+    }
+    final VisibilityProbe probe = create(1.0);
+    probe.update(TestState.RUNNING);
+    probe.update(write("object"));
+    awaitResolved(probe, 1);
+    probe.update(TestState.STOPPING);
+
+    assertThat(probe.getVisible(), is(0L));
+    assertThat(probe.getNotVisible(), is(1L));
+    assertThat(probe.getHistogram().getCount(), is(0L));
+    assertThat(this.probes.size(), is(DELAYS.size()));
+  }
+
+  @Test
+  public void sampled() throws Exception {
+    final VisibilityProbe probe = create(0.25);
+    probe.update(TestState.RUNNING);
+    for (int i = 0; i < 8; i++) {
+      probe.update(write("object" + i));
+    }
+    awaitResolved(probe, 2);
+    probe.update(TestState.STOPPING);
+    assertThat(probe.getProbed(), is(2L));
+    assertThat(probe.getVisible(), is(2L));
+  }
+
+  @Test
+  public void ignoresOtherOperations() {
+    final VisibilityProbe probe = create(1.0);
+    probe.update(TestState.RUNNING);
+    final Request read = new HttpRequest.Builder(Method.GET,
+        URI.create("http://127.0.0.1/container/object"), Operation.READ)
+            .withContext(Context.X_OG_OBJECT_NAME, "object").build();
+    probe.update(Pair.of(read, (Response) new HttpResponse.Builder().withStatusCode(200).build()));
+    probe.update(Pair.of(write("object").getKey(),
+        (Response) new HttpResponse.Builder().withStatusCode(500).build()));
+    probe.update(TestState.STOPPING);
+    assertThat(probe.getProbed(), is(0L));
+    verify(this.client, never()).execute(any(Request.class));
+  }
+
+  private VisibilityProbe create(final double sampleFraction) {
+    return new VisibilityProbe(this.client, Method.HEAD, DELAYS, TimeUnit.MILLISECONDS,
+        sampleFraction, 10, 1);
+  }
+
+  private static Pair<Request, Response> write(final String object) {
+    final Request request = new HttpRequest.Builder(Method.PUT,
+        URI.create("http://127.0.0.1/container/" + object), Operation.WRITE)
+            .withContext(Context.X_OG_REQUEST_ID, "1").withContext(Context.X_OG_OBJECT_NAME, object)
+            .withContext(Context.X_OG_CONTAINER_NAME, "container").withBody(Bodies.zeroes(1))
+            .build();
+    final Response response = new HttpResponse.Builder().withStatusCode(200).build();
+    return Pair.of(request, response);
+  }
+
+  private static void awaitResolved(final VisibilityProbe probe, final long count)
+      throws InterruptedException {
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (probe.getVisible() + probe.getNotVisible() < count && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+  }
+}
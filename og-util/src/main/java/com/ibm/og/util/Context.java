@@ -15,6 +15,9 @@ public class Context {
   public static final String X_OG_OBJECT_NAME = "x-og-object-name";
   // FIXME header to differentiate between objects which can be stored in the object manager
   public static final String X_OG_SEQUENTIAL_OBJECT_NAME = "x-og-sequential-object-name";
+  // prefix and numeric suffix of an object name tracked as part of a sequential namespace
+  public static final String X_OG_OBJECT_PREFIX = "x-og-object-prefix";
+  public static final String X_OG_OBJECT_SUFFIX = "x-og-object-suffix";
   public static final String X_OG_OBJECT_SIZE = "x-og-object-size";
   public static final String X_OG_CONTAINER_SUFFIX = "x-og-container-suffix";
   public static final String X_OG_CONTAINER_NAME = "x-og-container-name";
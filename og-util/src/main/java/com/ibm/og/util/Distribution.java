@@ -22,4 +22,14 @@ public interface Distribution {
    * @return the next value as determined by the configured distribution
    */
   double nextSample();
+
+  /**
+   * Computes the value at a given cumulative probability, so that a uniformly distributed
+   * probability maps to a value drawn from this distribution
+   * 
+   * @param p the cumulative probability, in the range [0.0, 1.0]
+   * @return the value as determined by the configured distribution
+   * @throws IllegalArgumentException if p is not in the range [0.0, 1.0]
+   */
+  double inverseCumulativeProbability(double p);
 }
@@ -139,6 +139,12 @@ public class Distributions {
       return this.d.sample();
     }
 
+    @Override
+    public double inverseCumulativeProbability(final double p) {
+      checkArgument(p >= 0.0 && p <= 1.0, "p must be in range [0.0, 1.0] [%s]", p);
+      return this.d.inverseCumulativeProbability(p);
+    }
+
     @Override
     public String toString() {
       return this.stringRepresentation;
@@ -166,6 +172,12 @@ public class Distributions {
       return this.d.sample();
     }
 
+    @Override
+    public double inverseCumulativeProbability(final double p) {
+      checkArgument(p >= 0.0 && p <= 1.0, "p must be in range [0.0, 1.0] [%s]", p);
+      return this.d.inverseCumulativeProbability(p);
+    }
+
     @Override
     public String toString() {
       return this.stringRepresentation;
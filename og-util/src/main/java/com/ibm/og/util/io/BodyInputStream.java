@@ -0,0 +1,379 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.util.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.Lists;
+
+/**
+ * An input stream of zeroes or random data. The data of a random stream is
+ * {@link Streams#REPEAT_LENGTH} bytes generated from the stream's seed, repeated until the size of
+ * the stream.
+ * <p>
+ * Besides being read, the remaining data of a stream can be written in writes of up to
+ * {@link #WRITE_LENGTH} bytes, to an output stream via {@link #writeTo(OutputStream)} or to a
+ * channel via {@link #writeTo(WritableByteChannel)}. An output stream is given a heap buffer which
+ * is filled with the data repeated on each call, and sized to the data written up to
+ * {@link #WRITE_LENGTH} bytes; platform threads each keep one such buffer, while virtual threads
+ * take them from a pool. A channel is given a read-only view of a direct buffer of the writing
+ * thread, filled only as far as writes have needed. Neither is ever given the data of the stream
+ * itself or a buffer another call writes from, so no caller can modify the data of another stream.
+ *
+ * @since 1.0
+ */
+public class BodyInputStream extends InputStream {
+  /**
+   * the longest single write
+   */
+  public static final int WRITE_LENGTH = 64 * Streams.REPEAT_LENGTH;
+  private static final byte[] ZEROES = new byte[Streams.REPEAT_LENGTH];
+  private final byte[] data;
+  private final long size;
+  private long position;
+  private long markPosition;
+
+  private BodyInputStream(final byte[] data, final long size) {
+    checkArgument(size >= 0, "size must be >= 0 [%s]", size);
+    this.data = data;
+    this.size = size;
+    this.position = 0;
+    this.markPosition = 0;
+  }
+
+  /**
+   * Creates a stream of zeroes
+   *
+   * @param size the length of the stream
+   * @return a stream of zeroes
+   * @throws IllegalArgumentException if size is negative
+   */
+  public static BodyInputStream zeroes(final long size) {
+    return new BodyInputStream(ZEROES, size);
+  }
+
+  /**
+   * Creates a stream of random data. Streams with the same seed have the same data
+   *
+   * @param seed the seed which the random data of the stream is generated from
+   * @param size the length of the stream
+   * @return a stream of random data
+   * @throws IllegalArgumentException if size is negative
+   */
+  public static BodyInputStream random(final long seed, final long size) {
+    final byte[] data = new byte[Streams.REPEAT_LENGTH];
+    new Random(seed).nextBytes(data);
+    return new BodyInputStream(data, size);
+  }
+
+  @Override
+  public int read() {
+    if (this.position >= this.size) {
+      return -1;
+    }
+    return this.data[(int) (this.position++ % Streams.REPEAT_LENGTH)] & 0xFF;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) {
+    checkNotNull(b);
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    } else if (len == 0) {
+      return 0;
+    }
+    final long remaining = this.size - this.position;
+    if (remaining <= 0) {
+      return -1;
+    }
+
+    final int total = (int) Math.min(len, remaining);
+    int copied = 0;
+    while (copied < total) {
+      final int index = (int) (this.position % Streams.REPEAT_LENGTH);
+      final int toCopy = Math.min(Streams.REPEAT_LENGTH - index, total - copied);
+      System.arraycopy(this.data, index, b, off + copied, toCopy);
+      this.position += toCopy;
+      copied += toCopy;
+    }
+    return total;
+  }
+
+  /**
+   * Writes the remaining data of this stream to an output stream, in writes of up to
+   * {@link #WRITE_LENGTH} bytes from a heap buffer which is filled with a copy of the data once per
+   * call
+   *
+   * @param out the output stream to write to
+   * @return the number of bytes written
+   * @throws IOException if the output stream throws an exception while writing
+   */
+  public long writeTo(final OutputStream out) throws IOException {
+    checkNotNull(out);
+    if (this.position >= this.size) {
+      return 0;
+    }
+    // only the first write may start part way through the repeated data
+    final int length = (int) Math.min(WRITE_LENGTH,
+        this.position % Streams.REPEAT_LENGTH + this.size - this.position);
+    final boolean virtual = HeapBuffers.isVirtual();
+    final byte[] buf = HeapBuffers.take(length, virtual);
+    try {
+      for (int filled = 0; filled < length; filled += Streams.REPEAT_LENGTH) {
+        System.arraycopy(this.data, 0, buf, filled, Streams.REPEAT_LENGTH);
+      }
+      long written = 0;
+      while (this.position < this.size) {
+        final int index = (int) (this.position % Streams.REPEAT_LENGTH);
+        final int toWrite = (int) Math.min(WRITE_LENGTH - index, this.size - this.position);
+        out.write(buf, index, toWrite);
+        this.position += toWrite;
+        written += toWrite;
+      }
+      return written;
+    } finally {
+      if (virtual) {
+        HeapBuffers.release(buf);
+      }
+    }
+  }
+
+  /**
+   * Writes remaining data of this stream to a channel from a read-only view of a direct buffer.
+   * Zeroes are written from a buffer shared by every thread. Random data is written from buffers
+   * of the writing thread, one for each of the streams it wrote most recently, so a thread which
+   * interleaves writes of several streams does not refill a buffer on each write. This method
+   * suits a small number of long lived threads such as selector threads. The channel may accept
+   * less than the remaining data, for instance a non-blocking channel whose send buffer is full;
+   * the stream advances by the number of bytes the channel accepted
+   *
+   * @param channel the channel to write to
+   * @return the number of bytes written, possibly zero, or -1 if no data remains
+   * @throws IOException if the channel throws an exception while writing
+   */
+  public int writeTo(final WritableByteChannel channel) throws IOException {
+    checkNotNull(channel);
+    if (this.position >= this.size) {
+      return -1;
+    }
+    final int index = (int) (this.position % Streams.REPEAT_LENGTH);
+    final int length = (int) Math.min(WRITE_LENGTH - index, this.size - this.position);
+    final ByteBuffer direct = WriteBuffers.THREAD.get().direct(this.data, index + length);
+    direct.clear();
+    direct.position(index);
+    direct.limit(index + length);
+    final int written = channel.write(direct);
+    this.position += written;
+    return written;
+  }
+
+  @Override
+  public long skip(final long n) {
+    final long skipped = Math.max(Math.min(n, this.size - this.position), 0);
+    this.position += skipped;
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return (int) Math.min(this.size - this.position, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void mark(final int readlimit) {
+    this.markPosition = this.position;
+  }
+
+  @Override
+  public void reset() {
+    this.position = this.markPosition;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("BodyInputStream [data=%s, size=%s, position=%s]",
+        this.data == ZEROES ? "zeroes" : "random", this.size, this.position);
+  }
+
+  // buffers are only allocated once a thread writes a stream rather than reading it
+  private static class WriteBuffers {
+    // the streams whose data each thread keeps in direct buffers
+    private static final int DIRECT_STREAMS = 8;
+    private static final ByteBuffer ZEROES = ByteBuffer.allocateDirect(WRITE_LENGTH);
+    private static final ThreadLocal<WriteBuffers> THREAD = new ThreadLocal<WriteBuffers>() {
+      @Override
+      protected WriteBuffers initialValue() {
+        return new WriteBuffers();
+      }
+    };
+    // views are per thread since each write sets their position and limit
+    private final ByteBuffer zeroes;
+    private final Filled[] direct;
+    private long directWrites;
+
+    private WriteBuffers() {
+      this.zeroes = ZEROES.asReadOnlyBuffer();
+      this.direct = new Filled[DIRECT_STREAMS];
+    }
+
+    // returns a read-only direct buffer holding data repeated for at least length bytes. A
+    // stream without a buffer takes the least recently written one
+    private ByteBuffer direct(final byte[] data, final int length) {
+      if (data == BodyInputStream.ZEROES) {
+        return this.zeroes;
+      }
+      int victim = 0;
+      Filled filled = null;
+      for (int i = 0; i < this.direct.length; i++) {
+        if (this.direct[i] == null) {
+          this.direct[i] = new Filled(ByteBuffer.allocateDirect(WRITE_LENGTH));
+          victim = i;
+          break;
+        }
+        if (this.direct[i].data == data) {
+          filled = this.direct[i];
+          break;
+        }
+        if (this.direct[i].lastWrite < this.direct[victim].lastWrite) {
+          victim = i;
+        }
+      }
+      if (filled == null) {
+        filled = this.direct[victim];
+      }
+      filled.lastWrite = ++this.directWrites;
+      filled.fill(data, length);
+      return filled.view;
+    }
+  }
+
+  // heap buffers are a whole number of repetitions, in power of two size classes up to
+  // WRITE_LENGTH. A platform thread's buffer is replaced only when too small for a write, while a
+  // virtual thread takes a buffer from the pool for each call, since each typically writes a single
+  // stream. The pool holds no more buffers than were ever taken at once
+  private static class HeapBuffers {
+    private static final int CLASSES =
+        Integer.numberOfTrailingZeros(WRITE_LENGTH / Streams.REPEAT_LENGTH) + 1;
+    // Thread.isVirtual is only available on Java 21 or later, so it is accessed reflectively
+    private static final Method IS_VIRTUAL = isVirtualMethod();
+    private static final ThreadLocal<byte[]> THREAD = new ThreadLocal<byte[]>();
+    private static final List<Queue<byte[]>> POOL = pool();
+    private static final AtomicInteger POOLED = new AtomicInteger();
+    private static final AtomicInteger TAKEN = new AtomicInteger();
+    private static final AtomicInteger MAX_TAKEN = new AtomicInteger();
+
+    private static Method isVirtualMethod() {
+      try {
+        return Thread.class.getMethod("isVirtual");
+      } catch (final NoSuchMethodException e) {
+        return null;
+      }
+    }
+
+    private static List<Queue<byte[]>> pool() {
+      final List<Queue<byte[]>> pool = Lists.newArrayListWithCapacity(CLASSES);
+      for (int i = 0; i < CLASSES; i++) {
+        pool.add(new ConcurrentLinkedQueue<byte[]>());
+      }
+      return pool;
+    }
+
+    private static boolean isVirtual() {
+      if (IS_VIRTUAL == null) {
+        return false;
+      }
+      try {
+        return (Boolean) IS_VIRTUAL.invoke(Thread.currentThread());
+      } catch (final Exception e) {
+        return false;
+      }
+    }
+
+    // returns a buffer of at least length bytes, rounded up to its size class
+    private static byte[] take(final int length, final boolean virtual) {
+      final int repetitions = (length + Streams.REPEAT_LENGTH - 1) / Streams.REPEAT_LENGTH;
+      final int sizeClass = 32 - Integer.numberOfLeadingZeros(repetitions - 1);
+      if (!virtual) {
+        byte[] buf = THREAD.get();
+        if (buf == null || buf.length < length) {
+          buf = new byte[Streams.REPEAT_LENGTH << sizeClass];
+          THREAD.set(buf);
+        }
+        return buf;
+      }
+
+      final int taken = TAKEN.incrementAndGet();
+      int maxTaken;
+      while (taken > (maxTaken = MAX_TAKEN.get()) && !MAX_TAKEN.compareAndSet(maxTaken, taken)) {
+        // retry
+      }
+      final byte[] buf = POOL.get(sizeClass).poll();
+      if (buf != null) {
+        POOLED.decrementAndGet();
+        return buf;
+      }
+      return new byte[Streams.REPEAT_LENGTH << sizeClass];
+    }
+
+    // returns a buffer taken by a virtual thread to the pool
+    private static void release(final byte[] buf) {
+      TAKEN.decrementAndGet();
+      // the queues' sizes are not constant time, so the pooled buffers are counted separately
+      if (POOLED.incrementAndGet() <= MAX_TAKEN.get()) {
+        POOL.get(Integer.numberOfTrailingZeros(buf.length / Streams.REPEAT_LENGTH)).offer(buf);
+      } else {
+        POOLED.decrementAndGet();
+      }
+    }
+  }
+
+  // a buffer holding the data of one stream repeated, filled as far as writes have needed
+  private static class Filled {
+    private final ByteBuffer buf;
+    private final ByteBuffer view;
+    private byte[] data;
+    private int filled;
+    private long lastWrite;
+
+    private Filled(final ByteBuffer buf) {
+      this.buf = buf;
+      this.view = buf.asReadOnlyBuffer();
+    }
+
+    private ByteBuffer fill(final byte[] data, final int length) {
+      if (this.data != data) {
+        this.data = data;
+        this.filled = 0;
+      }
+      // filled a repetition at a time, so the fill always ends on a repetition
+      while (this.filled < length) {
+        this.buf.clear();
+        this.buf.position(this.filled);
+        this.buf.put(data);
+        this.filled += data.length;
+      }
+      return this.buf;
+    }
+  }
+}
@@ -32,7 +32,7 @@ public class MonitoringInputStream extends FilterInputStream {
   @Override
   public int read() throws IOException {
     final int val = super.read();
-    if (this.firstRead == 0) {
+    if (this.firstRead == 0 && val >= 0) {
       this.firstRead = System.nanoTime();
     }
     return val;
@@ -46,16 +46,16 @@ public class MonitoringInputStream extends FilterInputStream {
   @Override
   public int read(final byte[] b, final int off, final int len) throws IOException {
     final int size = super.read(b, off, len);
-    if (this.firstRead == 0) {
+    if (this.firstRead == 0 && size > 0) {
       this.firstRead = System.nanoTime();
     }
     return size;
   }
 
   /**
-   * Gets the timestamp for when the first {@code read} call was issued
+   * Gets the timestamp for when the first {@code read} call which returned data completed
    * 
-   * @return first read timestamp, in nanoseconds
+   * @return first read timestamp, in nanoseconds, or 0 if no data has been read
    */
   public long getFirstRead() {
     return this.firstRead;
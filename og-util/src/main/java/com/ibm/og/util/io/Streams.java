@@ -9,7 +9,6 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Random;
 
 import com.ibm.og.api.Body;
 import com.google.common.base.Charsets;
@@ -22,7 +21,6 @@ import com.google.common.io.ByteStreams;
  */
 public class Streams {
   public static final int REPEAT_LENGTH = 1024;
-  private static final byte[] ZERO_BUF = new byte[REPEAT_LENGTH];
   private static final InputStream NONE_INPUTSTREAM = new InputStream() {
     @Override
     public int read() {
@@ -42,7 +40,8 @@ public class Streams {
 
   /**
    * Creates an input stream from the provided body description. The size of this stream and its
-   * data are determined by the provided body's size and type, respectively.
+   * data are determined by the provided body's size and type, respectively. Zeroes and random
+   * bodies are streamed by {@link BodyInputStream}.
    * 
    * @param body the description of an body
    * @return an input stream instance
@@ -53,11 +52,11 @@ public class Streams {
       case NONE:
         return NONE_INPUTSTREAM;
       case ZEROES:
-        return create(ZERO_BUF, body.getSize());
+        return BodyInputStream.zeroes(body.getSize());
       case CUSTOM:
         return create(body.getContent().getBytes(Charsets.UTF_8), body.getSize());
       default:
-        return create(createRandomBuffer(body.getRandomSeed()), body.getSize());
+        return BodyInputStream.random(body.getRandomSeed(), body.getSize());
     }
   }
 
@@ -65,12 +64,6 @@ public class Streams {
     return ByteStreams.limit(new InfiniteInputStream(buf), size);
   }
 
-  private static byte[] createRandomBuffer(final long seed) {
-    final byte[] buf = new byte[REPEAT_LENGTH];
-    new Random(seed).nextBytes(buf);
-    return buf;
-  }
-
   /**
    * Creates an input stream which is throttled with a maximum throughput
    * 
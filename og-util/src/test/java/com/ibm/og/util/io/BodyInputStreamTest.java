@@ -0,0 +1,230 @@
+/* Copyright (c) IBM Corporation 2016. All Rights Reserved.
+ * Project name: Object Generator
+ * This project is licensed under the Apache License 2.0, see LICENSE.
+ */
+
+package com.ibm.og.util.io;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+
+@SuppressWarnings("resource")
+public class BodyInputStreamTest {
+  // more than one write, ending part way through the repeated data
+  private static final int SIZE = BodyInputStream.WRITE_LENGTH + 1000;
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeSize() {
+    BodyInputStream.zeroes(-1);
+  }
+
+  @Test
+  public void empty() throws IOException {
+    final BodyInputStream in = BodyInputStream.random(1, 0);
+    assertThat(in.read(), is(-1));
+    assertThat(in.read(new byte[1]), is(-1));
+    assertThat(in.writeTo(new ByteArrayOutputStream()), is(0L));
+  }
+
+  @Test
+  public void zeroes() throws IOException {
+    final byte[] data = ByteStreams.toByteArray(BodyInputStream.zeroes(SIZE));
+    assertThat(data.length, is(SIZE));
+    assertThat(Arrays.equals(data, new byte[SIZE]), is(true));
+  }
+
+  @Test
+  public void random() throws IOException {
+    final byte[] data = ByteStreams.toByteArray(BodyInputStream.random(1, SIZE));
+    assertThat(data.length, is(SIZE));
+    assertThat(Arrays.equals(data, ByteStreams.toByteArray(BodyInputStream.random(1, SIZE))),
+        is(true));
+    assertThat(Arrays.equals(data, ByteStreams.toByteArray(BodyInputStream.random(2, SIZE))),
+        is(false));
+    assertThat(Arrays.equals(data, new byte[SIZE]), is(false));
+  }
+
+  @Test
+  public void randomRepeatsSeededData() throws IOException {
+    final byte[] expected = new byte[Streams.REPEAT_LENGTH];
+    new Random(6).nextBytes(expected);
+    final byte[] data = ByteStreams.toByteArray(BodyInputStream.random(6, SIZE));
+    for (int i = 0; i < SIZE; i++) {
+      assertThat(data[i], is(expected[i % Streams.REPEAT_LENGTH]));
+    }
+  }
+
+  @Test
+  public void readOneByteAtATime() throws IOException {
+    final BodyInputStream in = BodyInputStream.random(3, 5000);
+    final byte[] expected = ByteStreams.toByteArray(BodyInputStream.random(3, 5000));
+    for (int i = 0; i < expected.length; i++) {
+      assertThat(in.read(), is(expected[i] & 0xFF));
+      assertThat(in.available(), is(expected.length - i - 1));
+    }
+    assertThat(in.read(), is(-1));
+  }
+
+  @Test
+  public void writeToOutputStream() throws IOException {
+    final long seed = System.nanoTime();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertThat(BodyInputStream.random(seed, SIZE).writeTo(out), is((long) SIZE));
+    assertThat(Arrays.equals(out.toByteArray(),
+        ByteStreams.toByteArray(BodyInputStream.random(seed, SIZE))), is(true));
+  }
+
+  @Test
+  public void writeToOutputStreamSizes() throws IOException {
+    // buffers are sized to the data written, so sizes either side of each repetition, starting part
+    // way through the repeated data or not
+    final int[] sizes = {1, Streams.REPEAT_LENGTH - 1, Streams.REPEAT_LENGTH,
+        Streams.REPEAT_LENGTH + 1, BodyInputStream.WRITE_LENGTH - 1, BodyInputStream.WRITE_LENGTH,
+        SIZE, 3 * SIZE};
+    for (final int size : sizes) {
+      for (final int skip : new int[] {0, 500}) {
+        final BodyInputStream in = BodyInputStream.random(size, size);
+        in.skip(skip);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(in.writeTo(out), is((long) Math.max(size - skip, 0)));
+        final byte[] expected = ByteStreams.toByteArray(BodyInputStream.random(size, size));
+        assertThat(Arrays.equals(out.toByteArray(),
+            Arrays.copyOfRange(expected, Math.min(skip, size), size)), is(true));
+      }
+    }
+  }
+
+  @Test
+  public void writeToModifyingOutputStream() throws IOException {
+    // an output stream which overwrites what it is given must not change the data of other streams
+    final OutputStream modifying = new OutputStream() {
+      @Override
+      public void write(final int b) {}
+
+      @Override
+      public void write(final byte[] b, final int off, final int len) {
+        Arrays.fill(b, off, off + len, (byte) 1);
+      }
+    };
+    BodyInputStream.zeroes(SIZE).writeTo(modifying);
+    BodyInputStream.random(7, SIZE).writeTo(modifying);
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BodyInputStream.zeroes(SIZE).writeTo(out);
+    BodyInputStream.random(7, SIZE).writeTo(out);
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    expected.write(new byte[SIZE]);
+    expected.write(ByteStreams.toByteArray(BodyInputStream.random(7, SIZE)));
+    assertThat(Arrays.equals(out.toByteArray(), expected.toByteArray()), is(true));
+    assertThat(Arrays.equals(ByteStreams.toByteArray(BodyInputStream.zeroes(SIZE)), new byte[SIZE]),
+        is(true));
+  }
+
+  @Test
+  public void writeToChannelManyStreams() throws IOException {
+    // more interleaved streams than a thread keeps direct buffers for
+    final int streams = 20;
+    final BodyInputStream[] in = new BodyInputStream[streams];
+    final ByteArrayOutputStream[] out = new ByteArrayOutputStream[streams];
+    final WritableByteChannel[] channels = new WritableByteChannel[streams];
+    for (int i = 0; i < streams; i++) {
+      in[i] = BodyInputStream.random(i, SIZE);
+      out[i] = new ByteArrayOutputStream();
+      channels[i] = Channels.newChannel(out[i]);
+    }
+    boolean remaining = true;
+    while (remaining) {
+      remaining = false;
+      for (int i = 0; i < streams; i++) {
+        remaining |= in[i].writeTo(channels[i]) >= 0;
+      }
+    }
+    for (int i = 0; i < streams; i++) {
+      assertThat(Arrays.equals(out[i].toByteArray(),
+          ByteStreams.toByteArray(BodyInputStream.random(i, SIZE))), is(true));
+    }
+  }
+
+  @Test
+  public void writeToChannel() throws IOException {
+    final long seed = System.nanoTime();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final WritableByteChannel delegate = Channels.newChannel(out);
+    // accepts at most 1000 bytes per write, and nothing on every other write
+    final WritableByteChannel channel = new WritableByteChannel() {
+      private boolean full;
+
+      @Override
+      public int write(final ByteBuffer src) throws IOException {
+        this.full = !this.full;
+        if (this.full) {
+          return 0;
+        }
+        final ByteBuffer slice = src.duplicate();
+        slice.limit(slice.position() + Math.min(slice.remaining(), 1000));
+        final int written = delegate.write(slice);
+        src.position(src.position() + written);
+        return written;
+      }
+
+      @Override
+      public boolean isOpen() {
+        return true;
+      }
+
+      @Override
+      public void close() {}
+    };
+
+    // interleaved, as a selector thread writes several connections
+    final BodyInputStream in = BodyInputStream.random(seed, 100000);
+    final BodyInputStream zeroes = BodyInputStream.zeroes(100000);
+    final BodyInputStream other = BodyInputStream.random(seed + 1, 100000);
+    final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    final WritableByteChannel otherChannel = Channels.newChannel(sink);
+    long total = 0;
+    int written;
+    while ((written = in.writeTo(channel)) >= 0) {
+      total += written;
+      zeroes.writeTo(otherChannel);
+      other.writeTo(otherChannel);
+    }
+    assertThat(total, is(100000L));
+    assertThat(Arrays.equals(out.toByteArray(),
+        ByteStreams.toByteArray(BodyInputStream.random(seed, 100000))), is(true));
+  }
+
+  @Test
+  public void markAndReset() throws IOException {
+    final BodyInputStream in = BodyInputStream.random(4, 10000);
+    in.mark(Integer.MAX_VALUE);
+    final byte[] first = ByteStreams.toByteArray(in);
+    in.reset();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    in.writeTo(out);
+    assertThat(Arrays.equals(first, out.toByteArray()), is(true));
+  }
+
+  @Test
+  public void skip() throws IOException {
+    final byte[] data = ByteStreams.toByteArray(BodyInputStream.random(5, 10000));
+    final BodyInputStream in = BodyInputStream.random(5, 10000);
+    assertThat(in.skip(4000), is(4000L));
+    assertThat(in.read(), is(data[4000] & 0xFF));
+    assertThat(in.skip(10000), is(5999L));
+    assertThat(in.skip(1), is(0L));
+  }
+}